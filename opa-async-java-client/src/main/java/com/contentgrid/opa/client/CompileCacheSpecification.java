@@ -0,0 +1,61 @@
+package com.contentgrid.opa.client;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for the compile cache: the residuals of {@link OpaClient#compile} are kept, keyed by the query, the
+ * unknowns, the compile options and the fingerprint of the input.
+ *
+ * The cache is cleared when the same client changes data or policies. Changes made by others, like bundle
+ * activations, are only seen once the entries expire, unless the bundle revisions are watched.
+ */
+@Getter
+public class CompileCacheSpecification {
+
+    /**
+     * The maximum number of cached residuals. The least recently used residual is evicted when the cache is full.
+     */
+    private int maximumSize = 1_000;
+
+    /**
+     * How long a residual is cached, after it was requested.
+     */
+    private Duration timeToLive = Duration.ofMinutes(1);
+
+    /**
+     * How often the bundle revisions are polled, to clear the cache when a bundle was activated; {@code null} when
+     * they are not watched.
+     */
+    private Duration bundleRevisionPollInterval;
+
+    public CompileCacheSpecification maximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public CompileCacheSpecification timeToLive(Duration timeToLive) {
+        Objects.requireNonNull(timeToLive, "timeToLive cannot be null");
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    /**
+     * Clears the cache when the revision of a bundle moves, see {@link OpaClient#watchBundleRevisions}.
+     */
+    public CompileCacheSpecification invalidateOnBundleChange(Duration pollInterval) {
+        Objects.requireNonNull(pollInterval, "pollInterval cannot be null");
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be positive");
+        }
+        this.bundleRevisionPollInterval = pollInterval;
+        return this;
+    }
+}
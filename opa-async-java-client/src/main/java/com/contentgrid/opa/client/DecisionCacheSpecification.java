@@ -0,0 +1,61 @@
+package com.contentgrid.opa.client;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for the decision cache: the results of {@link OpaClient#evaluate} are kept for a short time, keyed by the
+ * path of the document and the fingerprint of the input.
+ *
+ * The cache is cleared when the same client changes data or policies. Changes made by others, like bundle
+ * activations, are only seen once the entries expire, unless the bundle revisions are watched.
+ */
+@Getter
+public class DecisionCacheSpecification {
+
+    /**
+     * The maximum number of cached decisions. The least recently used decision is evicted when the cache is full.
+     */
+    private int maximumSize = 10_000;
+
+    /**
+     * How long a decision is cached, after it was requested.
+     */
+    private Duration timeToLive = Duration.ofSeconds(10);
+
+    /**
+     * How often the bundle revisions are polled, to clear the cache when a bundle was activated; {@code null} when
+     * they are not watched.
+     */
+    private Duration bundleRevisionPollInterval;
+
+    public DecisionCacheSpecification maximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public DecisionCacheSpecification timeToLive(Duration timeToLive) {
+        Objects.requireNonNull(timeToLive, "timeToLive cannot be null");
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    /**
+     * Clears the cache when the revision of a bundle moves, see {@link OpaClient#watchBundleRevisions}.
+     */
+    public DecisionCacheSpecification invalidateOnBundleChange(Duration pollInterval) {
+        Objects.requireNonNull(pollInterval, "pollInterval cannot be null");
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be positive");
+        }
+        this.bundleRevisionPollInterval = pollInterval;
+        return this;
+    }
+}
@@ -0,0 +1,64 @@
+package com.contentgrid.opa.client;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for micro-batching: concurrent {@link OpaClient#evaluate} calls for the same document are collected during a
+ * short window and sent as one request.
+ */
+@Getter
+public class MicroBatchingSpecification {
+
+    public enum Endpoint {
+        /**
+         * Batches are sent to {@code POST /v1/batch/data}, see {@link OpaClient#evaluateBatch}
+         */
+        BATCH_DATA,
+
+        /**
+         * Batches are sent as one ad-hoc query to {@code POST /v1/query}, which evaluates the document once for every
+         * input. For OPA servers that have no batch endpoint.
+         */
+        QUERY
+    }
+
+    /**
+     * The endpoint that evaluates the batches.
+     */
+    private Endpoint endpoint = Endpoint.BATCH_DATA;
+
+    /**
+     * How long a batch is kept open for more evaluations, after the first evaluation was added.
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * The maximum number of evaluations in a batch. A full batch is sent right away.
+     */
+    private int maxBatchSize = 100;
+
+    public MicroBatchingSpecification endpoint(Endpoint endpoint) {
+        Objects.requireNonNull(endpoint, "endpoint cannot be null");
+        this.endpoint = endpoint;
+        return this;
+    }
+
+    public MicroBatchingSpecification window(Duration window) {
+        Objects.requireNonNull(window, "window cannot be null");
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.window = window;
+        return this;
+    }
+
+    public MicroBatchingSpecification maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+}
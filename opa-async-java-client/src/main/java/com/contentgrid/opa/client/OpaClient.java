@@ -2,38 +2,152 @@ package com.contentgrid.opa.client;
 
 import com.contentgrid.opa.client.api.CompileApi;
 import com.contentgrid.opa.client.api.DataApi;
+import com.contentgrid.opa.client.api.DataMirror;
+import com.contentgrid.opa.client.api.HealthApi;
 import com.contentgrid.opa.client.api.QueryApi;
+import com.contentgrid.opa.client.cache.CacheStats;
+import com.contentgrid.opa.client.cache.CompileCache;
+import com.contentgrid.opa.client.cache.DecisionCache;
+import com.contentgrid.opa.client.cache.StaleWhileRevalidateCache;
 import com.contentgrid.opa.client.impl.CompileComponent;
 import com.contentgrid.opa.client.impl.DataComponent;
+import com.contentgrid.opa.client.impl.HealthComponent;
 import com.contentgrid.opa.client.impl.PolicyComponent;
 import com.contentgrid.opa.client.impl.QueryComponent;
+import com.contentgrid.opa.client.rest.ConcurrencyLimitSpecification;
+import com.contentgrid.opa.client.rest.HedgingSpecification;
+import com.contentgrid.opa.client.rest.LoadBalancingSpecification;
 import com.contentgrid.opa.client.rest.OpaHttpClient;
 import com.contentgrid.opa.client.rest.RestClientConfiguration.LogSpecification;
+import com.contentgrid.opa.client.rest.ServerMetricsSpecification;
+import com.contentgrid.opa.client.rest.SingleFlightSpecification;
+import com.contentgrid.opa.client.rest.TransportSpecification;
+import com.contentgrid.opa.client.rest.TransportSpecification.Protocol;
+import com.contentgrid.opa.client.rest.client.balancing.LoadBalancingOpaHttpClient;
+import com.contentgrid.opa.client.rest.client.balancing.OpaEndpoint;
+import com.contentgrid.opa.client.rest.client.coalescing.SingleFlightOpaHttpClient;
+import com.contentgrid.opa.client.rest.client.coalescing.SingleFlightStats;
+import com.contentgrid.opa.client.rest.client.hedging.HedgingOpaHttpClient;
+import com.contentgrid.opa.client.rest.client.hedging.HedgingStats;
+import com.contentgrid.opa.client.rest.client.limiter.ConcurrencyLimitStats;
+import com.contentgrid.opa.client.rest.client.limiter.ConcurrencyLimitingOpaHttpClient;
+import com.contentgrid.opa.client.rest.client.metrics.ServerMetricsOpaHttpClient;
 import com.contentgrid.opa.client.rest.client.jdk.DefaultOpaHttpClient;
+import com.contentgrid.opa.client.rest.client.jdk.UnixSocketOpaHttpClient;
+import com.contentgrid.opa.rego.ast.Query;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.contentgrid.opa.client.api.PolicyApi;
+import com.contentgrid.opa.client.api.PreparedDecision;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.net.http.HttpClient;
 import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
-public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi {
+public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi, HealthApi, AutoCloseable {
 
     private final CompileApi compileComponent;
     private final QueryApi queryComponent;
     private final DataApi dataComponent;
     private final PolicyApi policyComponent;
+    private final HealthApi healthComponent;
 
-    OpaClient(PolicyApi policyComponent, QueryApi queryComponent, DataApi dataComponent, CompileApi compileComponent) {
+    /**
+     * The decision cache, {@code null} when decisions are not cached
+     */
+    private final DecisionCache decisionCache;
+
+    /**
+     * The compile cache, {@code null} when residuals are not cached
+     */
+    private final CompileCache compileCache;
+
+    /**
+     * The stale-while-revalidate cache of {@link #getData}, {@code null} when every read goes to OPA
+     */
+    private final StaleWhileRevalidateCache dataCache;
+
+    /**
+     * The load balancer, {@code null} when the client talks to a single OPA
+     */
+    private final LoadBalancingOpaHttpClient loadBalancer;
+
+    /**
+     * The hedging client, {@code null} when requests are not hedged
+     */
+    private final HedgingOpaHttpClient hedging;
+
+    /**
+     * The concurrency limiter, {@code null} when requests are not limited
+     */
+    private final ConcurrencyLimitingOpaHttpClient concurrencyLimiter;
+
+    /**
+     * The single-flight client, {@code null} when calls are not coalesced
+     */
+    private final SingleFlightOpaHttpClient singleFlight;
+
+    /**
+     * Closed with this client, in this order: typically the bundle revision watches of the caches, then the health
+     * component that polls them, then the transports
+     */
+    private final List<AutoCloseable> resources;
+
+    OpaClient(PolicyApi policyComponent, QueryApi queryComponent, DataApi dataComponent, CompileApi compileComponent,
+            HealthApi healthComponent, Extensions extensions) {
         this.policyComponent = policyComponent;
         this.queryComponent = queryComponent;
         this.dataComponent = dataComponent;
         this.compileComponent = compileComponent;
+        this.healthComponent = healthComponent;
+        this.decisionCache = extensions.decisionCache;
+        this.compileCache = extensions.compileCache;
+        this.dataCache = extensions.dataCache;
+        this.loadBalancer = extensions.loadBalancer;
+        this.hedging = extensions.hedging;
+        this.concurrencyLimiter = extensions.concurrencyLimiter;
+        this.singleFlight = extensions.singleFlight;
+        this.resources = List.copyOf(extensions.resources);
+    }
+
+    /**
+     * The optional parts of a client, which the builder only creates when they are configured
+     */
+    static class Extensions {
+
+        DecisionCache decisionCache;
+
+        CompileCache compileCache;
+
+        StaleWhileRevalidateCache dataCache;
+
+        LoadBalancingOpaHttpClient loadBalancer;
+
+        HedgingOpaHttpClient hedging;
+
+        ConcurrencyLimitingOpaHttpClient concurrencyLimiter;
+
+        SingleFlightOpaHttpClient singleFlight;
+
+        /**
+         * Closed with the client, in this order
+         */
+        final List<AutoCloseable> resources = new ArrayList<>();
     }
 
     /**
@@ -48,6 +162,12 @@ public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi {
         return this.compileComponent.compile(request);
     }
 
+    @Override
+    public CompletableFuture<PartialEvalResponse> compileStreaming(PartialEvaluationRequest request,
+            Consumer<Query> queries) {
+        return this.compileComponent.compileStreaming(request, queries);
+    }
+
     @Override
     public CompletableFuture<ListPoliciesResponse> listPolicies() {
         return this.policyComponent.listPolicies();
@@ -68,6 +188,12 @@ public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi {
         return this.policyComponent.deletePolicy(id);
     }
 
+    @Override
+    public CompletableFuture<SyncPoliciesResult> syncPolicies(Map<String, String> policies,
+            int maxConcurrentUploads) {
+        return this.policyComponent.syncPolicies(policies, maxConcurrentUploads);
+    }
+
     @Override
     public <TData> CompletableFuture<UpsertDataResult> upsertData(String path, TData data) {
         return this.dataComponent.upsertData(path, data);
@@ -78,11 +204,160 @@ public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi {
         return this.dataComponent.getData(path, responseType);
     }
 
+    @Override
+    public CompletableFuture<Void> patchData(String path, List<PatchOperation> operations) {
+        return this.dataComponent.patchData(path, operations);
+    }
+
+    @Override
+    public <TData> CompletableFuture<SyncDataResult> syncData(String path, TData data) {
+        return this.dataComponent.syncData(path, data);
+    }
+
+    @Override
+    public <TResult> CompletableFuture<EvaluationResult<TResult>> evaluate(String path, Object input,
+            Class<TResult> resultType) {
+        return this.dataComponent.evaluate(path, input, resultType);
+    }
+
+    @Override
+    public <TInput, TResult> PreparedDecision<TInput, TResult> prepareDecision(String path, Class<TInput> inputType,
+            Class<TResult> resultType) {
+        return this.dataComponent.prepareDecision(path, inputType, resultType);
+    }
+
+    @Override
+    public CompletableFuture<DataMirror> mirrorData(String path, Duration bundleRevisionPollInterval) {
+        return this.dataComponent.mirrorData(path, bundleRevisionPollInterval);
+    }
+
+    @Override
+    public <TResult> CompletableFuture<List<EvaluationResult<TResult>>> evaluateBatch(String path, List<?> inputs,
+            Class<TResult> resultType) {
+        return this.dataComponent.evaluateBatch(path, inputs, resultType);
+    }
+
+    @Override
+    public <TResult> CompletableFuture<TResult> defaultDecision(Object input, Class<TResult> resultType) {
+        return this.dataComponent.defaultDecision(input, resultType);
+    }
+
     @Override
     public CompletableFuture<QueryResponse> query(String query) {
         return this.queryComponent.query(query);
     }
 
+    @Override
+    public CompletableFuture<Boolean> isHealthy(boolean bundles) {
+        return this.healthComponent.isHealthy(bundles);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getBundleRevisions() {
+        return this.healthComponent.getBundleRevisions();
+    }
+
+    @Override
+    public BundleRevisionWatch watchBundleRevisions(Duration interval, Consumer<BundleRevisionChange> listener) {
+        return this.healthComponent.watchBundleRevisions(interval, listener);
+    }
+
+    /**
+     * @return the statistics of the decision cache, empty when decisions are not cached
+     */
+    public Optional<CacheStats> getDecisionCacheStats() {
+        return Optional.ofNullable(this.decisionCache).map(DecisionCache::getStats);
+    }
+
+    /**
+     * Drops all cached decisions. The cache is cleared automatically when this client changes data or policies.
+     */
+    public void invalidateDecisionCache() {
+        if (this.decisionCache != null) {
+            this.decisionCache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return the statistics of the compile cache, empty when residuals are not cached
+     */
+    public Optional<CacheStats> getCompileCacheStats() {
+        return Optional.ofNullable(this.compileCache).map(CompileCache::getStats);
+    }
+
+    /**
+     * Drops all cached residuals. The cache is cleared automatically when this client changes data or policies.
+     */
+    public void invalidateCompileCache() {
+        if (this.compileCache != null) {
+            this.compileCache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return the statistics of the stale-while-revalidate reads of {@link #getData}, empty when they are disabled
+     */
+    public Optional<CacheStats> getDataCacheStats() {
+        return Optional.ofNullable(this.dataCache).map(StaleWhileRevalidateCache::getStats);
+    }
+
+    /**
+     * Drops all documents cached by stale-while-revalidate reads. The cache is cleared automatically when this client
+     * changes data or policies.
+     */
+    public void invalidateDataCache() {
+        if (this.dataCache != null) {
+            this.dataCache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return the replicas, with their request counters, empty when the client talks to a single OPA
+     */
+    public Optional<List<OpaEndpoint>> getLoadBalancerEndpoints() {
+        return Optional.ofNullable(this.loadBalancer).map(LoadBalancingOpaHttpClient::getEndpoints);
+    }
+
+    /**
+     * @return the statistics of the hedged requests, empty when requests are not hedged
+     */
+    public Optional<HedgingStats> getHedgingStats() {
+        return Optional.ofNullable(this.hedging).map(HedgingOpaHttpClient::getStats);
+    }
+
+    /**
+     * @return the statistics of the concurrency limit, empty when requests are not limited
+     */
+    public Optional<ConcurrencyLimitStats> getConcurrencyLimitStats() {
+        return Optional.ofNullable(this.concurrencyLimiter).map(ConcurrencyLimitingOpaHttpClient::getStats);
+    }
+
+    /**
+     * @return the statistics of the coalesced calls, empty when calls are not coalesced
+     */
+    public Optional<SingleFlightStats> getSingleFlightStats() {
+        return Optional.ofNullable(this.singleFlight).map(SingleFlightOpaHttpClient::getStats);
+    }
+
+    /**
+     * Stops the bundle revision watches of this client, including those that invalidate the caches and those of the
+     * data mirrors, and closes the transports the builder created: the health checks of a load balancer, and the
+     * connections and default thread pool of a unix domain socket client. Requests that are in flight still complete.
+     */
+    @Override
+    public void close() {
+        var failure = new IllegalStateException("Closing the client failed");
+        for (var resource : this.resources) {
+            try {
+                resource.close();
+            } catch (Exception ex) {
+                failure.addSuppressed(ex);
+            }
+        }
+        if (failure.getSuppressed().length > 0) {
+            throw failure;
+        }
+    }
 
     /**
      * Builder for {@link OpaClient}
@@ -96,26 +371,97 @@ public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi {
         private String url = "http://localhost:8181";
 
         /**
-         * The default rest-client
+         * The urls of the OPA replicas, when requests are load balanced across multiple replicas
+         */
+        private List<String> urls = List.of();
+
+        /**
+         * The rest-client, if {@code null} a {@link DefaultOpaHttpClient} is created
          */
-        private OpaHttpClient restClient = new DefaultOpaHttpClient(
-                HttpClient.newBuilder()
-                        .connectTimeout(Duration.ofSeconds(5))
-                        .followRedirects(Redirect.NORMAL)
-                        .build(),
-                JsonMapper.builder()
-                        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-                        .build()
-                        .registerModule(new JavaTimeModule()));
+        private OpaHttpClient restClient;
 
         private Consumer<LogSpecification> httpLogSpec = LogSpecification::verbose;
 
+        private final TransportSpecification transport = new TransportSpecification();
+
+        private final LoadBalancingSpecification loadBalancing = new LoadBalancingSpecification();
+
+        private final HedgingSpecification hedging = new HedgingSpecification();
+
+        private final ConcurrencyLimitSpecification concurrencyLimit = new ConcurrencyLimitSpecification();
+
+        private final ServerMetricsSpecification serverMetrics = new ServerMetricsSpecification();
+
+        private final SingleFlightSpecification singleFlight = new SingleFlightSpecification();
+
+        /**
+         * The micro-batching settings, {@code null} when evaluations are not batched
+         */
+        private MicroBatchingSpecification microBatching;
+
+        /**
+         * The decision cache settings, {@code null} when decisions are not cached
+         */
+        private DecisionCacheSpecification decisionCache;
+
+        /**
+         * The compile cache settings, {@code null} when residuals are not cached
+         */
+        private CompileCacheSpecification compileCache;
+
         /**
-         * @param url URL including protocol and port
+         * The stale-while-revalidate settings of {@link OpaClient#getData}, {@code null} when every read goes to OPA
+         */
+        private StaleWhileRevalidateSpecification staleWhileRevalidate;
+
+        /**
+         * The executor, if {@code null} the work is done on the calling thread and the http client threads
+         */
+        private Executor executor;
+
+        /**
+         * Shared by the transport, the clients around it and the components, so every type is introspected once
+         */
+        private final ObjectMapper objectMapper = createDefaultObjectMapper();
+
+        /**
+         * @param url URL including protocol and port, or {@code unix:///path/to/opa.sock} to connect to OPA over a unix
+         * domain socket
          */
         public Builder url(String url) {
             Objects.requireNonNull(url);
             this.url = url;
+            this.urls = List.of();
+            return this;
+        }
+
+        /**
+         * Spreads the requests across multiple OPA replicas, see {@link LoadBalancingOpaHttpClient}.
+         *
+         * @param urls the URLs of the replicas, including protocol and port
+         */
+        public Builder urls(List<String> urls) {
+            Objects.requireNonNull(urls);
+            if (urls.isEmpty()) {
+                throw new IllegalArgumentException("urls cannot be empty");
+            }
+            this.url = urls.get(0);
+            this.urls = List.copyOf(urls);
+            return this;
+        }
+
+        public Builder urls(String... urls) {
+            return this.urls(List.of(urls));
+        }
+
+        /**
+         * Configures how requests are spread across the replicas configured with {@link #urls(List)}.
+         *
+         * Has no effect when a rest-client is provided with {@link #restClient(OpaHttpClient)}.
+         */
+        public Builder loadBalancing(Consumer<LoadBalancingSpecification> loadBalancingSpec) {
+            Objects.requireNonNull(loadBalancingSpec);
+            loadBalancingSpec.accept(this.loadBalancing);
             return this;
         }
 
@@ -131,27 +477,288 @@ public class OpaClient implements PolicyApi, QueryApi, DataApi, CompileApi {
             return this;
         }
 
+        /**
+         * Configures the transport of the default rest-client, such as the protocol and connection limits.
+         *
+         * Has no effect when a rest-client is provided with {@link #restClient(OpaHttpClient)}.
+         */
+        public Builder transport(Consumer<TransportSpecification> transportSpec) {
+            Objects.requireNonNull(transportSpec);
+            transportSpec.accept(this.transport);
+            return this;
+        }
+
+        /**
+         * Configures the {@link Executor} that is used by the http client, to offload serialization of large request
+         * bodies and to process responses.
+         *
+         * @param executor the executor
+         */
+        public Builder executor(Executor executor) {
+            Objects.requireNonNull(executor);
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Configures an {@link Executor} that starts a new virtual thread for each task.
+         *
+         * @throws UnsupportedOperationException when virtual threads are not supported by the Java runtime
+         */
+        public Builder virtualThreadExecutor() {
+            return this.executor(createVirtualThreadPerTaskExecutor());
+        }
+
+        /**
+         * Enables hedging of read-only requests, see {@link HedgingOpaHttpClient}. Combined with {@link #urls(List)},
+         * hedges are sent to another replica.
+         */
+        public Builder hedging(Consumer<HedgingSpecification> hedgingSpec) {
+            Objects.requireNonNull(hedgingSpec);
+            hedgingSpec.accept(this.hedging);
+            return this;
+        }
+
+        /**
+         * Bounds the number of requests in flight with an adaptive limit, see
+         * {@link ConcurrencyLimitingOpaHttpClient}. Hedges count against the limit.
+         */
+        public Builder concurrencyLimit(Consumer<ConcurrencyLimitSpecification> concurrencyLimitSpec) {
+            Objects.requireNonNull(concurrencyLimitSpec);
+            concurrencyLimitSpec.accept(this.concurrencyLimit.enabled());
+            return this;
+        }
+
+        /**
+         * Asks OPA for its performance metrics on a sample of the calls, see {@link ServerMetricsOpaHttpClient}. The
+         * metrics are passed to the configured listener, for example a
+         * {@link com.contentgrid.opa.client.rest.client.metrics.ServerMetricsHistograms}.
+         */
+        public Builder serverMetrics(Consumer<ServerMetricsSpecification> serverMetricsSpec) {
+            Objects.requireNonNull(serverMetricsSpec);
+            serverMetricsSpec.accept(this.serverMetrics);
+            return this;
+        }
+
+        /**
+         * Coalesces identical read-only calls that are in flight at the same time into one request, see
+         * {@link SingleFlightOpaHttpClient}.
+         */
+        public Builder singleFlight(Consumer<SingleFlightSpecification> singleFlightSpec) {
+            Objects.requireNonNull(singleFlightSpec);
+            singleFlightSpec.accept(this.singleFlight.enabled());
+            return this;
+        }
+
+        /**
+         * Merges concurrent {@link OpaClient#evaluate} calls for the same document into requests to the batch
+         * endpoint {@code /v1/batch/data}, which must be supported by the OPA server.
+         */
+        public Builder microBatching(Consumer<MicroBatchingSpecification> microBatchingSpec) {
+            Objects.requireNonNull(microBatchingSpec);
+            if (this.microBatching == null) {
+                this.microBatching = new MicroBatchingSpecification();
+            }
+            microBatchingSpec.accept(this.microBatching);
+            return this;
+        }
+
+        /**
+         * Caches the results of {@link OpaClient#evaluate} and of prepared decisions, keyed by the path of the
+         * document and the canonical form of the input.
+         */
+        public Builder decisionCache(Consumer<DecisionCacheSpecification> decisionCacheSpec) {
+            Objects.requireNonNull(decisionCacheSpec);
+            if (this.decisionCache == null) {
+                this.decisionCache = new DecisionCacheSpecification();
+            }
+            decisionCacheSpec.accept(this.decisionCache);
+            return this;
+        }
+
+        /**
+         * Caches the responses of {@link OpaClient#compile}, keyed by the query, the unknowns, the compile options
+         * and the canonical form of the input. Instrumented and streamed compilations are not cached.
+         */
+        public Builder compileCache(Consumer<CompileCacheSpecification> compileCacheSpec) {
+            Objects.requireNonNull(compileCacheSpec);
+            if (this.compileCache == null) {
+                this.compileCache = new CompileCacheSpecification();
+            }
+            compileCacheSpec.accept(this.compileCache);
+            return this;
+        }
+
+        /**
+         * Serves the documents read with {@link OpaClient#getData} from memory, refreshing them in the background once
+         * they are older than the soft time-to-live. Readers only wait for OPA when a document is not cached, or is
+         * older than the hard time-to-live.
+         */
+        public Builder staleWhileRevalidate(Consumer<StaleWhileRevalidateSpecification> staleWhileRevalidateSpec) {
+            Objects.requireNonNull(staleWhileRevalidateSpec);
+            if (this.staleWhileRevalidate == null) {
+                this.staleWhileRevalidate = new StaleWhileRevalidateSpecification();
+            }
+            staleWhileRevalidateSpec.accept(this.staleWhileRevalidate);
+            return this;
+        }
+
         public OpaClient build() {
 
-            var opaHttpClient = this.getOrCreateDefaultHttpClient();
+            var extensions = new Extensions();
+            // closed with the client, after the components that use them
+            var transports = new ArrayList<AutoCloseable>();
+            var opaHttpClient = this.createHttpClient(extensions, transports);
+            var objectMapper = this.objectMapper;
+
+            var decisions = this.decisionCache != null ? new DecisionCache(this.decisionCache, objectMapper) : null;
+            var residuals = this.compileCache != null ? new CompileCache(this.compileCache, objectMapper) : null;
+            var documents = this.staleWhileRevalidate != null
+                    ? new StaleWhileRevalidateCache(this.staleWhileRevalidate)
+                    : null;
+            Runnable invalidateCaches = () -> {
+                if (decisions != null) {
+                    decisions.invalidateAll();
+                }
+                if (residuals != null) {
+                    residuals.invalidateAll();
+                }
+                if (documents != null) {
+                    documents.invalidateAll();
+                }
+            };
+
+            extensions.decisionCache = decisions;
+            extensions.compileCache = residuals;
+            extensions.dataCache = documents;
+
+            // watched until the client is closed
+            var health = new HealthComponent(opaHttpClient);
+            if (decisions != null && this.decisionCache.getBundleRevisionPollInterval() != null) {
+                extensions.resources.add(health.watchBundleRevisions(
+                        this.decisionCache.getBundleRevisionPollInterval(), change -> decisions.invalidateAll()));
+            }
+            if (residuals != null && this.compileCache.getBundleRevisionPollInterval() != null) {
+                extensions.resources.add(health.watchBundleRevisions(
+                        this.compileCache.getBundleRevisionPollInterval(), change -> residuals.invalidateAll()));
+            }
+            extensions.resources.add(health);
+            extensions.resources.addAll(transports);
 
             return new OpaClient(
-                    new PolicyComponent(opaHttpClient),
+                    new PolicyComponent(opaHttpClient, invalidateCaches),
                     new QueryComponent(opaHttpClient),
-                    new DataComponent(opaHttpClient),
-                    new CompileComponent(opaHttpClient));
+                    new DataComponent(opaHttpClient, this.microBatching, objectMapper, decisions, documents,
+                            invalidateCaches, this.executor, health),
+                    new CompileComponent(opaHttpClient, residuals),
+                    health,
+                    extensions);
 
         }
 
+        /**
+         * Creates the configured http client, the caller is responsible for closing the transports it creates.
+         * {@link #build()} closes them with the {@link OpaClient}.
+         */
         protected OpaHttpClient getOrCreateDefaultHttpClient() {
-            var client = this.restClient;
+            return this.createHttpClient(new Extensions(), new ArrayList<>());
+        }
+
+        /**
+         * @param extensions receives the clients that report statistics
+         * @param transports collects the transports that are created, which have to be closed
+         */
+        private OpaHttpClient createHttpClient(Extensions extensions, List<AutoCloseable> transports) {
+            OpaHttpClient client;
+            if (this.restClient != null) {
+                client = this.restClient;
+            } else {
+                client = this.createDefaultHttpClient();
+                if (client instanceof LoadBalancingOpaHttpClient) {
+                    extensions.loadBalancer = (LoadBalancingOpaHttpClient) client;
+                }
+                if (client instanceof AutoCloseable) {
+                    // a load balancer closes the clients of its replicas
+                    transports.add((AutoCloseable) client);
+                }
+            }
+            if (this.concurrencyLimit.isEnabled()) {
+                extensions.concurrencyLimiter = new ConcurrencyLimitingOpaHttpClient(client, this.concurrencyLimit);
+                client = extensions.concurrencyLimiter;
+            }
+            if (this.hedging.isEnabled()) {
+                extensions.hedging = new HedgingOpaHttpClient(client, this.hedging, this.objectMapper);
+                client = extensions.hedging;
+            }
+            if (this.serverMetrics.isEnabled()) {
+                // outside the other clients, so the client latency includes the time spent waiting in them
+                client = new ServerMetricsOpaHttpClient(client, this.serverMetrics);
+            }
+            if (this.singleFlight.isEnabled()) {
+                // outermost, so coalesced calls do not take a slot of the limit, and are not hedged or sampled
+                extensions.singleFlight = new SingleFlightOpaHttpClient(client, this.singleFlight, this.objectMapper);
+                client = extensions.singleFlight;
+            }
 
             // configure the provided client
             client.configure(config -> config
                     .baseUrl(this.url)
-                    .logging(this.httpLogSpec));
+                    .logging(this.httpLogSpec)
+                    .executor(this.executor));
 
             return client;
         }
+
+        private OpaHttpClient createDefaultHttpClient() {
+            if (this.urls.size() > 1) {
+                return new LoadBalancingOpaHttpClient(this.urls, this::createDefaultHttpClient, this.loadBalancing);
+            }
+            return this.createDefaultHttpClient(this.url);
+        }
+
+        private OpaHttpClient createDefaultHttpClient(String url) {
+            if (UnixSocketOpaHttpClient.isUnixSocketUrl(url)) {
+                return new UnixSocketOpaHttpClient(
+                        UnixSocketOpaHttpClient.socketPath(url),
+                        this.objectMapper,
+                        this.transport,
+                        this.executor);
+            }
+
+            var httpClient = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .followRedirects(Redirect.NORMAL);
+            if (this.executor != null) {
+                httpClient.executor(this.executor);
+            }
+            if (this.transport.getProtocol() != null) {
+                httpClient.version(this.transport.getProtocol() == Protocol.H2C ? Version.HTTP_2 : Version.HTTP_1_1);
+            }
+
+            return new DefaultOpaHttpClient(
+                    httpClient.build(),
+                    this.objectMapper,
+                    this.transport);
+        }
+
+        private static ObjectMapper createDefaultObjectMapper() {
+            return JsonMapper.builder()
+                    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .build()
+                    .registerModule(new JavaTimeModule());
+        }
+
+        private static Executor createVirtualThreadPerTaskExecutor() {
+            // looked up reflectively, virtual threads require Java 21, while this library targets Java 17
+            try {
+                var factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                        "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+                return (Executor) factory.invoke();
+            } catch (NoSuchMethodException | IllegalAccessException ex) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21 or higher", ex);
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Creating a virtual thread executor failed", ex);
+            }
+        }
     }
 }
@@ -0,0 +1,65 @@
+package com.contentgrid.opa.client;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for stale-while-revalidate reads of {@link OpaClient#getData}: a value that was read is served from memory.
+ * Once it is older than the soft time-to-live, it is still served, while it is refreshed in the background. Only once
+ * it is older than the hard time-to-live, readers wait for a fresh value.
+ *
+ * The cached values are cleared when the same client changes data or policies.
+ */
+@Getter
+public class StaleWhileRevalidateSpecification {
+
+    /**
+     * The age after which a value is refreshed in the background.
+     */
+    private Duration softTimeToLive = Duration.ofSeconds(5);
+
+    /**
+     * The age after which a value is no longer served, the maximum staleness.
+     */
+    private Duration hardTimeToLive = Duration.ofMinutes(1);
+
+    /**
+     * The maximum number of cached documents. Documents beyond this number are read from OPA every time.
+     */
+    private int maximumSize = 1_000;
+
+    /**
+     * The prefixes of the paths that are read this way, like {@code reference/}; empty for all paths.
+     */
+    private List<String> paths = List.of();
+
+    public StaleWhileRevalidateSpecification timeToLive(Duration softTimeToLive, Duration hardTimeToLive) {
+        Objects.requireNonNull(softTimeToLive, "softTimeToLive cannot be null");
+        Objects.requireNonNull(hardTimeToLive, "hardTimeToLive cannot be null");
+        if (softTimeToLive.isNegative() || softTimeToLive.isZero() || softTimeToLive.compareTo(hardTimeToLive) > 0) {
+            throw new IllegalArgumentException("timeToLive must satisfy 0 < softTimeToLive <= hardTimeToLive");
+        }
+        this.softTimeToLive = softTimeToLive;
+        this.hardTimeToLive = hardTimeToLive;
+        return this;
+    }
+
+    public StaleWhileRevalidateSpecification maximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * @param paths the prefixes of the paths that are read this way, like {@code reference/}
+     */
+    public StaleWhileRevalidateSpecification paths(String... paths) {
+        Objects.requireNonNull(paths, "paths cannot be null");
+        this.paths = List.of(paths);
+        return this;
+    }
+}
@@ -1,10 +1,17 @@
 package com.contentgrid.opa.client.api;
 
+import com.contentgrid.opa.client.rest.http.ServerMetrics;
+import com.contentgrid.opa.client.rest.http.ServerMetricsResponse;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.contentgrid.opa.rego.ast.Query;
 import com.contentgrid.opa.rego.ast.QuerySet;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +20,21 @@ public interface CompileApi {
 
     CompletableFuture<PartialEvalResponse> compile(PartialEvaluationRequest request);
 
+    /**
+     * Partially evaluates a query, handing the residual queries to {@code queries} one by one while the response is
+     * read, instead of collecting them in the {@link PartialEvalResult#getQueries() QuerySet} of the response. Meant
+     * for very large residuals: only a single query is kept in memory.
+     *
+     * The {@code QuerySet} of the response is empty when there were residual queries, and {@code null} when no
+     * conditions can make the query true.
+     *
+     * @param request the request
+     * @param queries the consumer of the residual queries, called on the thread that reads the response
+     * @return the response, without the residual queries
+     */
+    CompletableFuture<PartialEvalResponse> compileStreaming(PartialEvaluationRequest request,
+            Consumer<Query> queries);
+
     default CompletableFuture<PartialEvalResponse> compile(String query, Object input, List<String> unknowns) {
         return this.compile(new PartialEvaluationRequest(query, input, unknowns));
     }
@@ -21,6 +43,23 @@ public interface CompileApi {
         return this.compile(new PartialEvaluationRequest(query, input, null));
     }
 
+    /**
+     * Which performance metrics OPA reports in the response, see {@link PartialEvalResponse#getMetrics()}
+     */
+    enum Instrumentation {
+        NONE,
+
+        /**
+         * {@code ?metrics=true}
+         */
+        METRICS,
+
+        /**
+         * {@code ?metrics=true&instrument=true}, which slows down the evaluation
+         */
+        INSTRUMENT
+    }
+
     @Getter
     @RequiredArgsConstructor
     class PartialEvaluationRequest {
@@ -29,11 +68,61 @@ public interface CompileApi {
         final Object input;
         final List<String> unknowns;
 
+        @JsonInclude(Include.NON_NULL)
+        final CompileOptions options;
+
+        /**
+         * Sent as query parameters, not in the body
+         */
+        @JsonIgnore
+        final Instrumentation instrumentation;
+
+        public PartialEvaluationRequest(String query, Object input, List<String> unknowns) {
+            this(query, input, unknowns, null, Instrumentation.NONE);
+        }
+
+        public PartialEvaluationRequest withOptions(CompileOptions options) {
+            return new PartialEvaluationRequest(this.query, this.input, this.unknowns, options, this.instrumentation);
+        }
+
+        public PartialEvaluationRequest withInstrumentation(Instrumentation instrumentation) {
+            return new PartialEvaluationRequest(this.query, this.input, this.unknowns, this.options, instrumentation);
+        }
+    }
+
+    /**
+     * Options of the partial evaluation, to keep the residual queries small.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    @JsonInclude(Include.NON_NULL)
+    class CompileOptions {
+
+        /**
+         * The rules that are not inlined into the residual queries, like {@code data.authz.allowed_groups}, but kept
+         * as support modules
+         */
+        final List<String> disableInlining;
+
+        /**
+         * Whether non-deterministic built-ins, like {@code http.send}, are evaluated during the partial evaluation,
+         * {@code null} for OPA's default
+         */
+        final Boolean nondeterministicBuiltins;
+
+        public static CompileOptions disableInlining(List<String> refs) {
+            return new CompileOptions(List.copyOf(refs), null);
+        }
     }
 
     @Data
-    class PartialEvalResponse {
+    class PartialEvalResponse implements ServerMetricsResponse {
         PartialEvalResult result;
+
+        /**
+         * Only reported when OPA was asked for metrics
+         */
+        ServerMetrics metrics;
     }
 
     @Data
@@ -1,7 +1,19 @@
 package com.contentgrid.opa.client.api;
 
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import com.contentgrid.opa.client.rest.http.ServerMetrics;
+import com.contentgrid.opa.client.rest.http.ServerMetricsResponse;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
 import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 public interface DataApi {
 
@@ -9,9 +21,102 @@ public interface DataApi {
 
     <TData> CompletableFuture<TData> getData(String path, Class<TData> responseType);
 
+    /**
+     * Applies JSON Patch operations to the document at {@code path}, using {@code PATCH /v1/data/{path}}. The paths of
+     * the operations are relative to the document at {@code path}.
+     *
+     * @param path the path of the document, like {@code acl/groups}
+     * @param operations the operations, applied in order
+     */
+    CompletableFuture<Void> patchData(String path, List<PatchOperation> operations);
+
+    /**
+     * Makes the document at {@code path} equal to {@code data}, sending only what changed since the previous
+     * {@code syncData} of the same path.
+     *
+     * The last uploaded snapshot of every path is kept in memory. The next snapshot is diffed against it and sent as
+     * a JSON Patch, unless the patch would not be smaller than the document itself: then the document is uploaded in
+     * full. The first sync of a path, and the sync after a failed upload, always upload in full. Syncs of the same
+     * path are applied in the order of the calls.
+     *
+     * This assumes that this client is the only one writing the document: {@link #upsertData} and {@link #patchData}
+     * for the same path make the next sync upload in full.
+     *
+     * @param path the path of the document, like {@code acl/groups}
+     * @param data the complete new document
+     * @return how the document was synced
+     */
+    <TData> CompletableFuture<SyncDataResult> syncData(String path, TData data);
+
+    /**
+     * Evaluates the document at {@code path} with the provided input, using {@code POST /v1/data/{path}}.
+     *
+     * The {@code result} of the response is bound directly into {@code resultType}. When the document is undefined
+     * for the input, for example because no rule matches, the returned {@link EvaluationResult} is not
+     * {@link EvaluationResult#isDefined() defined}.
+     *
+     * @param path the path of the document, like {@code authz/allow}
+     * @param input the input document, possibly {@code null}
+     * @param resultType the type of the result
+     * @return the result of the evaluation
+     */
+    <TResult> CompletableFuture<EvaluationResult<TResult>> evaluate(String path, Object input,
+            Class<TResult> resultType);
+
+    /**
+     * Prepares the evaluation of the document at {@code path}, for the few documents that are evaluated so often that
+     * resolving the endpoint and the serializers for every call shows up.
+     *
+     * @param path the path of the document, like {@code authz/allow}
+     * @param inputType the type of the input documents
+     * @param resultType the type of the results
+     * @return the prepared decision
+     */
+    <TInput, TResult> PreparedDecision<TInput, TResult> prepareDecision(String path, Class<TInput> inputType,
+            Class<TResult> resultType);
+
+    /**
+     * Mirrors the subtree at {@code path} in memory, for the few documents that are read so often that even a cached
+     * request shows up. See {@link DataMirror}.
+     *
+     * @param path the path of the subtree, like {@code reference/countries}
+     * @param bundleRevisionPollInterval how often the {@link HealthApi#getBundleRevisions() bundle revisions} are
+     * checked, or {@code null} when the subtree is only read again on {@link DataMirror#refresh()}
+     * @return the mirror, once the subtree was read
+     */
+    CompletableFuture<DataMirror> mirrorData(String path, Duration bundleRevisionPollInterval);
+
+    /**
+     * Evaluates the document at {@code path} for many inputs in a single request, using
+     * {@code POST /v1/batch/data/{path}}. The batch endpoint is not available in every OPA distribution.
+     *
+     * @param path the path of the document, like {@code authz/allow}
+     * @param inputs the input documents
+     * @param resultType the type of the results
+     * @return the results of the evaluations, in the order of the inputs; fails when any of the evaluations failed
+     */
+    <TResult> CompletableFuture<List<EvaluationResult<TResult>>> evaluateBatch(String path, List<?> inputs,
+            Class<TResult> resultType);
+
+    /**
+     * Asks OPA for its default decision, using {@code POST /}. The input is sent as-is, without an {@code input}
+     * envelope, and the response is the bare decision. This is the cheapest way to get a decision from OPA.
+     *
+     * The default decision is {@code data.system.main}, unless configured otherwise with OPA's
+     * {@code --set=default_decision} option. When the decision is undefined, OPA answers {@code 404} and the returned
+     * future fails with an {@link HttpStatusException}.
+     *
+     * @param input the input document
+     * @param resultType the type of the decision
+     * @return the decision
+     */
+    <TResult> CompletableFuture<TResult> defaultDecision(Object input, Class<TResult> resultType);
+
     @Data
-    class GetDataResponse<TData> {
+    class GetDataResponse<TData> implements ServerMetricsResponse {
         TData result;
+
+        ServerMetrics metrics;
     }
 
     @Data
@@ -20,4 +125,209 @@ public interface DataApi {
         // HTTP 204 - no content
     }
 
+    /**
+     * A JSON Patch operation, as defined by RFC 6902. The path is a JSON Pointer, see {@link #pointer(String...)}.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class PatchOperation {
+
+        private final String op;
+        private final String path;
+        private final Object value;
+
+        public static PatchOperation add(String path, Object value) {
+            return new PatchOperation("add", path, value);
+        }
+
+        public static PatchOperation remove(String path) {
+            return new PatchOperation("remove", path, null);
+        }
+
+        public static PatchOperation replace(String path, Object value) {
+            return new PatchOperation("replace", path, value);
+        }
+
+        /**
+         * @param segments the unescaped segments, like object keys or array indices
+         * @return the JSON Pointer of the segments, like {@code /users/alice}
+         */
+        public static String pointer(String... segments) {
+            var pointer = new StringBuilder();
+            for (var segment : segments) {
+                pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+            }
+            return pointer.toString();
+        }
+
+        /**
+         * A {@code null} value is written as JSON {@code null}, except for {@code remove} which has no value.
+         */
+        @JsonValue
+        Map<String, Object> toJson() {
+            var json = new LinkedHashMap<String, Object>(4);
+            json.put("op", this.op);
+            json.put("path", this.path);
+            if (!"remove".equals(this.op)) {
+                json.put("value", this.value);
+            }
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return this.op + " " + this.path;
+        }
+    }
+
+    /**
+     * How {@link #syncData} brought the document up to date.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class SyncDataResult {
+
+        public enum Mode {
+            /**
+             * Nothing changed, no request was sent
+             */
+            UNCHANGED,
+
+            /**
+             * The changes were sent as a JSON Patch
+             */
+            PATCH,
+
+            /**
+             * The document was uploaded in full
+             */
+            PUT
+        }
+
+        private final Mode mode;
+
+        /**
+         * The number of patch operations, {@code 0} unless the mode is {@link Mode#PATCH}
+         */
+        private final int operations;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    class EvaluationRequest<TInput> {
+
+        final TInput input;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    class BatchEvaluationRequest {
+
+        /**
+         * The inputs, keyed by an id that is unique within the batch
+         */
+        final Map<String, Object> inputs;
+    }
+
+    @Getter
+    class BatchEvaluationResponse<TResult> implements ServerMetricsResponse {
+
+        /**
+         * The results, keyed by the id of the input
+         */
+        private Map<String, BatchEvaluationResult<TResult>> responses = Map.of();
+
+        @JsonProperty("batch_decision_id")
+        private String batchDecisionId;
+
+        private ServerMetrics metrics;
+    }
+
+    /**
+     * The result of one evaluation in a batch, which either has a result or failed on its own.
+     */
+    @Getter
+    class BatchEvaluationResult<TResult> extends EvaluationResult<TResult> {
+
+        @JsonProperty("http_status_code")
+        private int httpStatusCode;
+
+        private String code;
+
+        private String message;
+
+        public boolean isError() {
+            return this.httpStatusCode >= 400 || this.code != null;
+        }
+
+        public HttpStatusException toException() {
+            int status = this.httpStatusCode >= 400 ? this.httpStatusCode : 500;
+            return new HttpStatusException(status, this.code + ": " + this.message,
+                    this.code != null ? List.of(this.code) : List.of());
+        }
+    }
+
+    /**
+     * The result of evaluating a document. OPA omits the {@code result} when the document is undefined, which is
+     * different from a document that is defined as {@code null}.
+     */
+    @Getter
+    class EvaluationResult<TResult> implements ServerMetricsResponse {
+
+        private TResult result;
+
+        private boolean defined;
+
+        @JsonProperty("decision_id")
+        private String decisionId;
+
+        /**
+         * Only reported when OPA was asked for metrics, see
+         * {@link com.contentgrid.opa.client.rest.ServerMetricsSpecification}
+         */
+        private ServerMetrics metrics;
+
+        public static <TResult> EvaluationResult<TResult> undefined() {
+            return new EvaluationResult<>();
+        }
+
+        public static <TResult> EvaluationResult<TResult> of(TResult result) {
+            var evaluation = new EvaluationResult<TResult>();
+            evaluation.setResult(result);
+            return evaluation;
+        }
+
+        /**
+         * Only called when the response contains a {@code result}, which makes the result defined.
+         */
+        @JsonProperty("result")
+        void setResult(TResult result) {
+            this.result = result;
+            this.defined = true;
+        }
+
+        /**
+         * @return the result
+         * @throws NoSuchElementException if the result is undefined
+         */
+        public TResult getRequiredResult() {
+            if (!this.defined) {
+                throw new NoSuchElementException("The result is undefined");
+            }
+            return this.result;
+        }
+
+        /**
+         * @return the result, or {@code other} if the result is undefined
+         */
+        public TResult orElse(TResult other) {
+            return this.defined ? this.result : other;
+        }
+
+        @Override
+        public String toString() {
+            return this.defined ? "EvaluationResult(" + this.result + ")" : "EvaluationResult(undefined)";
+        }
+    }
+
 }
@@ -0,0 +1,52 @@
+package com.contentgrid.opa.client.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A local, read-only copy of a subtree of {@code data}, created with {@link DataApi#mirrorData}.
+ *
+ * The subtree is read once, and kept as an immutable tree of {@link java.util.Map maps}, {@link java.util.List lists},
+ * strings, numbers and booleans, so lookups never leave the JVM. It is read again when the revision of a bundle moves,
+ * and only replaced when its digest changed. Changes made with {@link DataApi#upsertData} and
+ * {@link DataApi#syncData} of the same client are applied to the mirror in place; changes made with
+ * {@link DataApi#patchData} make the mirror read the subtree again. Mirrors are thread-safe.
+ */
+public interface DataMirror extends AutoCloseable {
+
+    /**
+     * @return the path of the subtree, like {@code reference/countries}
+     */
+    String getPath();
+
+    /**
+     * Looks up a value in the mirrored subtree. The returned maps and lists are immutable, and shared between callers.
+     *
+     * @param path the path, relative to the subtree, like {@code be/name}; an empty path returns the subtree itself
+     * @return the value, or {@code null} when it is undefined or {@code null}
+     */
+    Object get(String path);
+
+    /**
+     * @param path the path, relative to the subtree, like {@code be/name}
+     * @return {@code true} when the value at {@code path} is defined, even if it is {@code null}
+     */
+    boolean contains(String path);
+
+    /**
+     * @return the digest of the mirrored subtree, {@code null} when the subtree is undefined
+     */
+    String getDigest();
+
+    /**
+     * Reads the subtree again, and replaces the mirror when the digest changed.
+     *
+     * @return {@code true} when the mirror was replaced
+     */
+    CompletableFuture<Boolean> refresh();
+
+    /**
+     * Stops following changes. The last mirrored subtree can still be read.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,76 @@
+package com.contentgrid.opa.client.api;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+public interface HealthApi {
+
+    /**
+     * Checks the health of OPA, using {@code GET /health}.
+     *
+     * @param bundles {@code true} to only report healthy once all configured bundles have been activated
+     * @return {@code true} when OPA reports it is healthy, {@code false} when it reports it is not
+     */
+    CompletableFuture<Boolean> isHealthy(boolean bundles);
+
+    /**
+     * Reads the revisions of the active bundles from {@code data.system.bundles}, where OPA keeps the manifests of
+     * the bundles it activated.
+     *
+     * @return the revision of every active bundle, by bundle name; a bundle without revision has an empty revision
+     */
+    CompletableFuture<Map<String, String>> getBundleRevisions();
+
+    /**
+     * Polls the {@link #getBundleRevisions() bundle revisions}, and calls the listener for every bundle whose revision
+     * moved. This lets a cache drop its entries exactly when OPA activated new policies or data.
+     *
+     * The first poll only records the revisions. A failed poll is ignored, the next poll compares with the last
+     * revisions that were read.
+     *
+     * @param interval the delay between the end of a poll and the start of the next one
+     * @param listener the listener, called on the thread that completes the poll
+     * @return the watch, which stops polling when it is closed
+     */
+    BundleRevisionWatch watchBundleRevisions(Duration interval, Consumer<BundleRevisionChange> listener);
+
+    interface BundleRevisionWatch extends AutoCloseable {
+
+        /**
+         * @return the revisions of the last successful poll, empty before the first poll
+         */
+        Map<String, String> getRevisions();
+
+        @Override
+        void close();
+    }
+
+    /**
+     * The revision of a bundle moved.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class BundleRevisionChange {
+
+        private final String bundle;
+
+        /**
+         * The revision before the change, {@code null} when the bundle was not active
+         */
+        private final String previousRevision;
+
+        /**
+         * The revision after the change, {@code null} when the bundle is no longer active
+         */
+        private final String revision;
+
+        @Override
+        public String toString() {
+            return "BundleRevisionChange(" + this.bundle + ": " + this.previousRevision + " -> " + this.revision + ")";
+        }
+    }
+}
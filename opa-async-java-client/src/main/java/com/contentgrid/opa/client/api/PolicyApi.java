@@ -2,8 +2,11 @@ package com.contentgrid.opa.client.api;
 
 import com.contentgrid.opa.rego.ast.AbstractSyntaxTree;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 
 public interface PolicyApi {
 
@@ -15,6 +18,24 @@ public interface PolicyApi {
 
     CompletableFuture<DeletePolicyResponse> deletePolicy(String id);
 
+    /**
+     * Makes OPA hold exactly the provided policies, of the ones that are synced with this method.
+     *
+     * The policies in OPA are listed first, and only the policies whose text differs from the listed one are
+     * uploaded, because every upload makes OPA recompile. The uploads run in parallel, at most
+     * {@code maxConcurrentUploads} at a time. Policies that were synced before by this client, but are no longer
+     * provided, are deleted once all uploads succeeded.
+     *
+     * @param policies the text of the policies, by id
+     * @param maxConcurrentUploads the maximum number of uploads in flight
+     * @return the ids that were uploaded, deleted and left unchanged
+     */
+    CompletableFuture<SyncPoliciesResult> syncPolicies(Map<String, String> policies, int maxConcurrentUploads);
+
+    default CompletableFuture<SyncPoliciesResult> syncPolicies(Map<String, String> policies) {
+        return this.syncPolicies(policies, 4);
+    }
+
     @Data
     class ListPoliciesResponse {
         private List<OpaPolicy> result;
@@ -35,6 +56,15 @@ public interface PolicyApi {
 
     }
 
+    @Getter
+    @RequiredArgsConstructor
+    class SyncPoliciesResult {
+
+        private final List<String> uploaded;
+        private final List<String> deleted;
+        private final List<String> unchanged;
+    }
+
     @Data
     class OpaPolicy {
 
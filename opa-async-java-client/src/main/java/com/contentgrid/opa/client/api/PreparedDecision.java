@@ -0,0 +1,30 @@
+package com.contentgrid.opa.client.api;
+
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A document that is evaluated over and over, prepared once with {@link DataApi#prepareDecision}.
+ *
+ * The endpoint, the input serializer and the response type are resolved when the decision is prepared. Every
+ * evaluation only encodes the input and decodes the result. Prepared decisions are thread-safe, and meant to be kept
+ * for the lifetime of the client.
+ *
+ * @param <TInput> the type of the input documents
+ * @param <TResult> the type of the results
+ */
+public interface PreparedDecision<TInput, TResult> {
+
+    /**
+     * @return the path of the document, like {@code authz/allow}
+     */
+    String getPath();
+
+    /**
+     * Evaluates the document for an input, like {@link DataApi#evaluate}.
+     *
+     * @param input the input document
+     * @return the result of the evaluation
+     */
+    CompletableFuture<EvaluationResult<TResult>> evaluate(TInput input);
+}
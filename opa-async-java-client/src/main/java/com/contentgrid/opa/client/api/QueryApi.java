@@ -1,5 +1,7 @@
 package com.contentgrid.opa.client.api;
 
+import com.contentgrid.opa.client.rest.http.ServerMetrics;
+import com.contentgrid.opa.client.rest.http.ServerMetricsResponse;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -11,8 +13,13 @@ public interface QueryApi {
     <T> CompletableFuture<QueryResponse> query(String query);
 
     @Data
-    class QueryResponse {
+    class QueryResponse implements ServerMetricsResponse {
         private List<QueryResultEntry> result;
+
+        /**
+         * Only reported when OPA was asked for metrics
+         */
+        private ServerMetrics metrics;
     }
 
     @Data
@@ -0,0 +1,40 @@
+package com.contentgrid.opa.client.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A snapshot of the statistics of a cache.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+
+    /**
+     * The number of entries that were dropped because the cache was full or because they expired. Entries that were
+     * invalidated are not counted.
+     */
+    private final long evictionCount;
+
+    /**
+     * The number of entries in the cache, including entries that expired but were not dropped yet
+     */
+    private final long size;
+
+    /**
+     * @return the ratio of lookups that were hits, {@code 0} before the first lookup
+     */
+    public double getHitRate() {
+        long lookups = this.hitCount + this.missCount;
+        return lookups == 0 ? 0 : (double) this.hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats(hits=" + this.hitCount + ", misses=" + this.missCount + ", evictions="
+                + this.evictionCount + ", size=" + this.size + ")";
+    }
+}
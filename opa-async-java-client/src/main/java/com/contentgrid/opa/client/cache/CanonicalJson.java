@@ -0,0 +1,118 @@
+package com.contentgrid.opa.client.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+
+/**
+ * Fingerprints JSON documents: documents that only differ in the order of their object keys or in the notation of
+ * their numbers, like {@code 1} and {@code 1.0}, have the same fingerprint.
+ */
+public final class CanonicalJson {
+
+    private CanonicalJson() {
+    }
+
+    /**
+     * @param objectMapper the object mapper that converts the value to JSON
+     * @param value the value, possibly containing {@link com.contentgrid.opa.client.rest.http.RawJson}
+     * @return the SHA-256 digest of the canonical form of the value, base64url-encoded
+     */
+    public static String fingerprint(ObjectMapper objectMapper, Object value) {
+        var digest = sha256();
+        var tree = value instanceof JsonNode ? (JsonNode) value : objectMapper.valueToTree(value);
+        try (var generator = objectMapper.getFactory()
+                .createGenerator(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            write(objectMapper, generator, tree);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    private static void write(ObjectMapper objectMapper, JsonGenerator generator, JsonNode node) throws IOException {
+        switch (node.getNodeType()) {
+            case OBJECT:
+                var names = new ArrayList<String>(node.size());
+                node.fieldNames().forEachRemaining(names::add);
+                Collections.sort(names);
+                generator.writeStartObject();
+                for (var name : names) {
+                    generator.writeFieldName(name);
+                    write(objectMapper, generator, node.get(name));
+                }
+                generator.writeEndObject();
+                break;
+            case ARRAY:
+                generator.writeStartArray();
+                for (var element : node) {
+                    write(objectMapper, generator, element);
+                }
+                generator.writeEndArray();
+                break;
+            case NUMBER:
+                writeNumber(generator, node);
+                break;
+            case POJO:
+                write(objectMapper, generator, toTree(objectMapper, ((POJONode) node).getPojo()));
+                break;
+            default:
+                generator.writeTree(node);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, JsonNode node) throws IOException {
+        BigDecimal number;
+        if (node.isIntegralNumber()) {
+            number = new BigDecimal(node.bigIntegerValue());
+        } else if (node.isBigDecimal()) {
+            number = node.decimalValue();
+        } else if (Double.isFinite(node.doubleValue())) {
+            // the shortest decimal form, the exact binary expansion would differ from the same number as BigDecimal
+            number = node.isFloat()
+                    ? new BigDecimal(Float.toString(node.floatValue()))
+                    : BigDecimal.valueOf(node.doubleValue());
+        } else {
+            generator.writeNumber(node.doubleValue());
+            return;
+        }
+        generator.writeNumber(number.stripTrailingZeros());
+    }
+
+    /**
+     * Pre-encoded JSON ends up in the tree as a raw value, which is parsed so it is canonicalized as well
+     */
+    private static JsonNode toTree(ObjectMapper objectMapper, Object pojo) throws IOException {
+        if (pojo == null) {
+            return objectMapper.nullNode();
+        }
+        if (pojo instanceof RawValue) {
+            var raw = ((RawValue) pojo).rawValue();
+            return objectMapper.readTree(raw instanceof SerializableString
+                    ? ((SerializableString) raw).getValue()
+                    : String.valueOf(raw));
+        }
+        return objectMapper.valueToTree(pojo);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not supported", ex);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.contentgrid.opa.client.cache;
+
+import com.contentgrid.opa.client.CompileCacheSpecification;
+import com.contentgrid.opa.client.api.CompileApi.PartialEvalResponse;
+import com.contentgrid.opa.client.api.CompileApi.PartialEvaluationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Caches the responses of partial evaluations, keyed by the query, the sorted unknowns, the compile options and the
+ * {@link CanonicalJson#fingerprint fingerprint} of the input.
+ *
+ * Cached responses, including their {@link com.contentgrid.opa.rego.ast.QuerySet}, are shared between callers, and
+ * must not be modified.
+ */
+public class CompileCache {
+
+    private final ObjectMapper objectMapper;
+    private final ExpiringLruCache<CompileKey, PartialEvalResponse> cache;
+
+    public CompileCache(CompileCacheSpecification specification, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.cache = new ExpiringLruCache<>(specification.getMaximumSize(), specification.getTimeToLive().toNanos());
+    }
+
+    /**
+     * @param request the partial evaluation request
+     * @param compilation compiles the request when the response is not cached
+     * @return the cached response, or the response of the compilation
+     */
+    public CompletableFuture<PartialEvalResponse> get(PartialEvaluationRequest request,
+            Supplier<CompletableFuture<PartialEvalResponse>> compilation) {
+        CompileKey key;
+        try {
+            key = new CompileKey(request.getQuery(), sorted(request.getUnknowns()),
+                    CanonicalJson.fingerprint(this.objectMapper, request.getInput()),
+                    request.getOptions() != null
+                            ? CanonicalJson.fingerprint(this.objectMapper, request.getOptions())
+                            : null);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return this.cache.get(key, compilation);
+    }
+
+    /**
+     * Drops all cached responses, for example because data or policies changed
+     */
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return this.cache.getStats();
+    }
+
+    private static List<String> sorted(List<String> unknowns) {
+        if (unknowns == null) {
+            return List.of();
+        }
+        var sorted = new ArrayList<>(unknowns);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static final class CompileKey {
+
+        private final String query;
+        private final List<String> unknowns;
+        private final String inputFingerprint;
+        private final String optionsFingerprint;
+
+        private CompileKey(String query, List<String> unknowns, String inputFingerprint, String optionsFingerprint) {
+            this.query = query;
+            this.unknowns = unknowns;
+            this.inputFingerprint = inputFingerprint;
+            this.optionsFingerprint = optionsFingerprint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CompileKey)) {
+                return false;
+            }
+            var other = (CompileKey) o;
+            return Objects.equals(this.query, other.query) && this.unknowns.equals(other.unknowns)
+                    && this.inputFingerprint.equals(other.inputFingerprint)
+                    && Objects.equals(this.optionsFingerprint, other.optionsFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.query, this.unknowns, this.inputFingerprint, this.optionsFingerprint);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.contentgrid.opa.client.cache;
+
+import com.contentgrid.opa.client.DecisionCacheSpecification;
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of evaluations, keyed by the path of the document, the result type and the
+ * {@link CanonicalJson#fingerprint fingerprint} of the input.
+ *
+ * Cached results are shared between callers, and must not be modified.
+ */
+public class DecisionCache {
+
+    private final ObjectMapper objectMapper;
+    private final ExpiringLruCache<DecisionKey, EvaluationResult<?>> cache;
+
+    public DecisionCache(DecisionCacheSpecification specification, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.cache = new ExpiringLruCache<>(specification.getMaximumSize(),
+                specification.getTimeToLive().toNanos());
+    }
+
+    /**
+     * @param path the path of the document
+     * @param input the input document
+     * @param resultType the type of the result
+     * @param evaluation evaluates the document when the result is not cached
+     * @return the cached result, or the result of the evaluation
+     */
+    @SuppressWarnings("unchecked")
+    public <TResult> CompletableFuture<EvaluationResult<TResult>> get(String path, Object input,
+            Class<TResult> resultType, Supplier<CompletableFuture<EvaluationResult<TResult>>> evaluation) {
+        DecisionKey key;
+        try {
+            key = new DecisionKey(path, resultType, CanonicalJson.fingerprint(this.objectMapper, input));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        var result = this.cache.get(key,
+                () -> (CompletableFuture<EvaluationResult<?>>) (CompletableFuture<?>) evaluation.get());
+        return (CompletableFuture<EvaluationResult<TResult>>) (CompletableFuture<?>) result;
+    }
+
+    /**
+     * Drops all cached results, for example because data or policies changed
+     */
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return this.cache.getStats();
+    }
+
+    private static final class DecisionKey {
+
+        private final String path;
+        private final Class<?> resultType;
+        private final String fingerprint;
+
+        private DecisionKey(String path, Class<?> resultType, String fingerprint) {
+            this.path = path;
+            this.resultType = resultType;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DecisionKey)) {
+                return false;
+            }
+            var other = (DecisionKey) o;
+            return this.path.equals(other.path) && this.resultType.equals(other.resultType)
+                    && this.fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.resultType, this.fingerprint);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.contentgrid.opa.client.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A size-bounded cache of asynchronous values, which evicts the least recently used entry when it is full, and
+ * entries that are older than the time-to-live when they are read.
+ *
+ * The value of a missing key is loaded once: concurrent lookups of the same key share the pending value. A value that
+ * fails is dropped as soon as it completes, so failures are not cached.
+ */
+class ExpiringLruCache<K, V> {
+
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+
+    /**
+     * The entries, in access order
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ExpiringLruCache(int maximumSize, long timeToLiveNanos) {
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (this.size() > ExpiringLruCache.this.maximumSize) {
+                    ExpiringLruCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key the key
+     * @param loader loads the value of a missing key, called on the calling thread
+     * @return a copy of the cached value, so a caller that completes or cancels it does not affect other callers
+     */
+    CompletableFuture<V> get(K key, Supplier<CompletableFuture<V>> loader) {
+        var pending = new CompletableFuture<V>();
+        CompletableFuture<V> cached = null;
+        long now = System.nanoTime();
+
+        synchronized (this) {
+            var entry = this.entries.get(key);
+            if (entry != null && now - entry.loadedAt < this.timeToLiveNanos) {
+                cached = entry.value;
+            } else {
+                if (entry != null) {
+                    this.evictions.increment();
+                }
+                this.entries.put(key, new Entry<>(pending, now));
+            }
+        }
+
+        if (cached != null) {
+            this.hits.increment();
+            return cached.copy();
+        }
+
+        this.misses.increment();
+        CompletableFuture<V> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException ex) {
+            loaded = CompletableFuture.failedFuture(ex);
+        }
+        loaded.whenComplete((value, ex) -> {
+            if (ex != null) {
+                // dropped before any caller sees the failure, so a retry loads the value again
+                this.remove(key, pending);
+                pending.completeExceptionally(ex);
+            } else {
+                pending.complete(value);
+            }
+        });
+        return pending.copy();
+    }
+
+    synchronized void invalidateAll() {
+        this.entries.clear();
+    }
+
+    CacheStats getStats() {
+        int size;
+        synchronized (this) {
+            size = this.entries.size();
+        }
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), size);
+    }
+
+    private synchronized void remove(K key, CompletableFuture<V> value) {
+        var entry = this.entries.get(key);
+        if (entry != null && entry.value == value) {
+            this.entries.remove(key);
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final CompletableFuture<V> value;
+        private final long loadedAt;
+
+        private Entry(CompletableFuture<V> value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.contentgrid.opa.client.cache;
+
+import com.contentgrid.opa.client.StaleWhileRevalidateSpecification;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the documents read with {@code getData}, serving them stale while they are refreshed in the background.
+ *
+ * A fresh value is served right away. A value that is older than the soft time-to-live is served right away as
+ * well, and refreshed once in the background; when the refresh fails, the value is kept. A value that is older than the
+ * hard time-to-live is not served: the reader waits for a fresh value. The age of a value is measured from the moment
+ * it was requested. A read that fails without a value to fall back on is not cached.
+ *
+ * When the cache is full, the documents older than the hard time-to-live are evicted to make room. Documents that still
+ * do not fit are read from OPA every time.
+ *
+ * Cached documents are shared between callers, and must not be modified.
+ */
+@Slf4j
+public class StaleWhileRevalidateCache {
+
+    private final long softTimeToLiveNanos;
+    private final long hardTimeToLiveNanos;
+    private final int maximumSize;
+    private final List<String> paths;
+
+    /**
+     * The clock that measures the age of the values, in nanoseconds
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * The documents, read without locking; documents are only added while holding the lock of the map, so the size
+     * check and the insert are atomic
+     */
+    private final Map<DocumentKey, Document<?>> documents = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StaleWhileRevalidateCache(StaleWhileRevalidateSpecification specification) {
+        this(specification, System::nanoTime);
+    }
+
+    StaleWhileRevalidateCache(StaleWhileRevalidateSpecification specification, LongSupplier nanoTime) {
+        this.softTimeToLiveNanos = specification.getSoftTimeToLive().toNanos();
+        this.hardTimeToLiveNanos = specification.getHardTimeToLive().toNanos();
+        this.maximumSize = specification.getMaximumSize();
+        this.paths = List.copyOf(specification.getPaths());
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return {@code true} when documents at this path are read through the cache
+     */
+    public boolean covers(String path) {
+        if (this.paths.isEmpty()) {
+            return true;
+        }
+        for (var prefix : this.paths) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param path the path of the document
+     * @param responseType the type of the document
+     * @param reader reads the document from OPA
+     * @return the cached document, possibly stale but never older than the hard time-to-live
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> get(String path, Class<T> responseType, Supplier<CompletableFuture<T>> reader) {
+        var key = new DocumentKey(path, responseType);
+        long now = this.nanoTime.getAsLong();
+        var document = (Document<T>) this.documents.get(key);
+        if (document == null) {
+            document = (Document<T>) this.add(key, now);
+            if (document == null) {
+                this.misses.increment();
+                return reader.get();
+            }
+        }
+
+        var value = document.value;
+        if (value != null) {
+            long age = now - value.requestedAt;
+            if (age < this.hardTimeToLiveNanos) {
+                if (age >= this.softTimeToLiveNanos) {
+                    document.refresh(reader);
+                }
+                this.hits.increment();
+                return CompletableFuture.completedFuture(value.document);
+            }
+        }
+
+        this.misses.increment();
+        return document.refresh(reader).copy();
+    }
+
+    /**
+     * Drops all cached documents, for example because data or policies changed. Refreshes in flight are not stored.
+     */
+    public void invalidateAll() {
+        this.documents.clear();
+    }
+
+    /**
+     * @return the statistics; stale documents that were served count as hits, documents that are dropped because they
+     * were older than the hard time-to-live count as evictions
+     */
+    public CacheStats getStats() {
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.documents.size());
+    }
+
+    /**
+     * Adds an empty document. When the cache is full, the documents older than the hard time-to-live are evicted first.
+     *
+     * @return the document of the key, or {@code null} when the cache is full
+     */
+    private Document<?> add(DocumentKey key, long now) {
+        synchronized (this.documents) {
+            var document = this.documents.get(key);
+            if (document != null) {
+                return document;
+            }
+            if (this.documents.size() >= this.maximumSize) {
+                this.documents.values().removeIf(expired -> {
+                    if (expired.isExpired(now)) {
+                        this.evictions.increment();
+                        return true;
+                    }
+                    return false;
+                });
+            }
+            if (this.documents.size() >= this.maximumSize) {
+                return null;
+            }
+            document = new Document<>(key);
+            this.documents.put(key, document);
+            return document;
+        }
+    }
+
+    private class Document<T> {
+
+        private final DocumentKey key;
+
+        private volatile Value<T> value;
+
+        /**
+         * The refresh in flight, {@code null} when none
+         */
+        private CompletableFuture<T> refresh;
+
+        Document(DocumentKey key) {
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            var current = this.value;
+            return current != null && now - current.requestedAt >= hardTimeToLiveNanos;
+        }
+
+        CompletableFuture<T> refresh(Supplier<CompletableFuture<T>> reader) {
+            var refreshed = new CompletableFuture<T>();
+            synchronized (this) {
+                if (this.refresh != null) {
+                    return this.refresh;
+                }
+                this.refresh = refreshed;
+            }
+
+            long requestedAt = nanoTime.getAsLong();
+            CompletableFuture<T> read;
+            try {
+                read = reader.get();
+            } catch (RuntimeException ex) {
+                read = CompletableFuture.failedFuture(ex);
+            }
+            read.whenComplete((document, ex) -> {
+                if (ex == null) {
+                    this.value = new Value<>(document, requestedAt);
+                } else if (this.value == null || this.isExpired(nanoTime.getAsLong())) {
+                    // nothing that can be served, a failed read like a 404 must not take up a place in the cache
+                    documents.remove(this.key, this);
+                } else {
+                    log.debug("Refreshing a document failed, serving the stale document: {}", ex.toString());
+                }
+                synchronized (this) {
+                    this.refresh = null;
+                }
+                if (ex != null) {
+                    refreshed.completeExceptionally(ex);
+                } else {
+                    refreshed.complete(document);
+                }
+            });
+            return refreshed;
+        }
+    }
+
+    private static final class Value<T> {
+
+        private final T document;
+        private final long requestedAt;
+
+        private Value(T document, long requestedAt) {
+            this.document = document;
+            this.requestedAt = requestedAt;
+        }
+    }
+
+    private static final class DocumentKey {
+
+        private final String path;
+        private final Class<?> responseType;
+
+        private DocumentKey(String path, Class<?> responseType) {
+            this.path = path;
+            this.responseType = responseType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DocumentKey)) {
+                return false;
+            }
+            var other = (DocumentKey) o;
+            return this.path.equals(other.path) && this.responseType.equals(other.responseType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.responseType);
+        }
+    }
+}
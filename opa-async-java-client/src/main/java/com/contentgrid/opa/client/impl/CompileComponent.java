@@ -1,19 +1,73 @@
 package com.contentgrid.opa.client.impl;
 
 import com.contentgrid.opa.client.api.CompileApi;
+import com.contentgrid.opa.client.cache.CompileCache;
 import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
+import com.contentgrid.opa.rego.ast.Query;
 import java.util.concurrent.CompletableFuture;
-import lombok.RequiredArgsConstructor;
+import java.util.function.Consumer;
 
-@RequiredArgsConstructor
 public class CompileComponent implements CompileApi {
 
     private static final String COMPILE_ENDPOINT = "/v1/compile";
 
     private final OpaHttpClient restClient;
 
+    /**
+     * Caches the responses, {@code null} when they are not cached
+     */
+    private final CompileCache cache;
+
+    private static final String QUERIES_POINTER = "/result/queries";
+
+    public CompileComponent(OpaHttpClient restClient) {
+        this(restClient, null);
+    }
+
+    /**
+     * @param cache the compile cache, or {@code null} to compile every request
+     */
+    public CompileComponent(OpaHttpClient restClient, CompileCache cache) {
+        this.restClient = restClient;
+        this.cache = cache;
+    }
+
+    /**
+     * Compiles the request, or returns the cached response. Instrumented requests are never cached, they are sent for
+     * the metrics of the compilation.
+     */
     @Override
     public CompletableFuture<PartialEvalResponse> compile(PartialEvaluationRequest request) {
-        return restClient.post(COMPILE_ENDPOINT, request, PartialEvalResponse.class);
+        if (this.cache != null && isUninstrumented(request)) {
+            return this.cache.get(request, () -> restClient.post(endpoint(request), request,
+                    PartialEvalResponse.class));
+        }
+        return restClient.post(endpoint(request), request, PartialEvalResponse.class);
+    }
+
+    @Override
+    public CompletableFuture<PartialEvalResponse> compileStreaming(PartialEvaluationRequest request,
+            Consumer<Query> queries) {
+        return restClient.post(endpoint(request), request,
+                new StreamingResponseType<>(PartialEvalResponse.class, QUERIES_POINTER, Query.class, queries));
+    }
+
+    private static boolean isUninstrumented(PartialEvaluationRequest request) {
+        return request.getInstrumentation() == null || request.getInstrumentation() == Instrumentation.NONE;
+    }
+
+    private static String endpoint(PartialEvaluationRequest request) {
+        if (request.getInstrumentation() == null) {
+            return COMPILE_ENDPOINT;
+        }
+        switch (request.getInstrumentation()) {
+            case METRICS:
+                return COMPILE_ENDPOINT + "?metrics=true";
+            case INSTRUMENT:
+                return COMPILE_ENDPOINT + "?metrics=true&instrument=true";
+            default:
+                return COMPILE_ENDPOINT;
+        }
     }
 }
@@ -1,27 +1,404 @@
 package com.contentgrid.opa.client.impl;
 
+import com.contentgrid.opa.client.MicroBatchingSpecification;
+import com.contentgrid.opa.client.MicroBatchingSpecification.Endpoint;
 import com.contentgrid.opa.client.api.DataApi;
+import com.contentgrid.opa.client.api.DataApi.SyncDataResult.Mode;
+import com.contentgrid.opa.client.api.DataMirror;
+import com.contentgrid.opa.client.api.HealthApi;
+import com.contentgrid.opa.client.api.PreparedDecision;
+import com.contentgrid.opa.client.cache.DecisionCache;
+import com.contentgrid.opa.client.cache.StaleWhileRevalidateCache;
 import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
-@RequiredArgsConstructor
 public class DataComponent implements DataApi {
 
-    private static final String DATA_ENDPOINT = "/v1/data/";
+    static final String DATA_ENDPOINT = "/v1/data/";
+    static final String BATCH_DATA_ENDPOINT = "/v1/batch/data/";
+    static final String DEFAULT_DECISION_ENDPOINT = "/";
 
     private final OpaHttpClient opaHttpClient;
 
+    /**
+     * Merges concurrent evaluations into batches, {@code null} when micro-batching is disabled
+     */
+    private final EvaluationBatcher batcher;
+
+    /**
+     * Evaluates the batches with a multiplexed query, {@code null} when batches go to the batch endpoint
+     */
+    private final QueryComponent multiplexer;
+
+    private final DataSynchronizer synchronizer;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Caches the results of evaluations, {@code null} when decisions are not cached
+     */
+    private final DecisionCache decisionCache;
+
+    /**
+     * Serves documents read with {@link #getData} while they are refreshed, {@code null} when every read goes to OPA
+     */
+    private final StaleWhileRevalidateCache dataCache;
+
+    /**
+     * Called when data changed, or failed to change, {@code null} when nothing needs to know
+     */
+    private final Runnable dataChangeListener;
+
+    /**
+     * The open data mirrors, which follow the changes made through this component
+     */
+    private final Set<DefaultDataMirror> mirrors = new CopyOnWriteArraySet<>();
+
+    /**
+     * Watches the bundle revisions for the data mirrors
+     */
+    private final HealthApi health;
+
+    /**
+     * @param opaHttpClient the client that talks to OPA
+     * @param microBatching the micro-batching settings, or {@code null} to send every evaluation on its own
+     * @param objectMapper the object mapper that converts the documents of {@link #syncData} to JSON trees, and
+     * encodes the inputs of prepared decisions
+     * @param decisionCache the decision cache, or {@code null} to evaluate every decision
+     * @param dataCache the cache of documents read with {@link #getData}, or {@code null} to read every document from
+     * OPA; {@code dataChangeListener} is expected to clear it
+     * @param dataChangeListener called when data was changed, to clear caches of decisions and residuals, or
+     * {@code null}
+     * @param executor the executor that sends the micro-batches of which the window expired, or {@code null} to send
+     * them on the shared timer thread
+     * @param health watches the bundle revisions for the data mirrors, typically shared with the rest of the client,
+     * which closes it
+     */
+    public DataComponent(OpaHttpClient opaHttpClient, MicroBatchingSpecification microBatching,
+            ObjectMapper objectMapper, DecisionCache decisionCache, StaleWhileRevalidateCache dataCache,
+            Runnable dataChangeListener, Executor executor, HealthApi health) {
+        this.opaHttpClient = opaHttpClient;
+        this.objectMapper = objectMapper;
+        this.decisionCache = decisionCache;
+        this.dataCache = dataCache;
+        this.dataChangeListener = dataChangeListener;
+        this.synchronizer = new DataSynchronizer(opaHttpClient, objectMapper);
+        this.health = Objects.requireNonNull(health, "health cannot be null");
+        this.batcher = microBatching != null
+                ? new EvaluationBatcher(this::evaluateEach, microBatching, executor)
+                : null;
+        this.multiplexer = microBatching != null && microBatching.getEndpoint() == Endpoint.QUERY
+                ? new QueryComponent(opaHttpClient)
+                : null;
+    }
+
     @Override
     public <TData> CompletableFuture<UpsertDataResult> upsertData(String path, TData data) {
-        return opaHttpClient.put(DATA_ENDPOINT + path, data).thenApply(nothing -> new UpsertDataResult());
+        this.synchronizer.forget(path);
+        return this.notifyingChange(this.mirroringUpsert(path, data, opaHttpClient.put(DATA_ENDPOINT + path, data)))
+                .thenApply(nothing -> new UpsertDataResult());
     }
 
     @Override
     public <TData> CompletableFuture<TData> getData(String path, Class<TData> responseType) {
+        if (this.dataCache != null && this.dataCache.covers(path)) {
+            return this.dataCache.get(path, responseType, () -> opaHttpClient.get(DATA_ENDPOINT + path, responseType));
+        }
         return opaHttpClient.get(DATA_ENDPOINT + path, responseType);
     }
 
+    @Override
+    public CompletableFuture<Void> patchData(String path, List<PatchOperation> operations) {
+        this.synchronizer.forget(path);
+        return this.notifyingChange(this.mirroringChange(path, opaHttpClient.patch(DATA_ENDPOINT + path,
+                headers -> headers.contentType(MediaType.APPLICATION_JSON_PATCH), operations)));
+    }
+
+    @Override
+    public <TData> CompletableFuture<SyncDataResult> syncData(String path, TData data) {
+        var sync = this.synchronizer.sync(path, data);
+        if (!this.mirrors.isEmpty()) {
+            sync = CompletableFutures.propagateCancellation(sync.whenComplete((result, ex) -> {
+                if (ex == null && result.getMode() == Mode.UNCHANGED) {
+                    return;
+                }
+                this.mirrorChange(path, ex == null ? data : null);
+            }), sync);
+        }
+        return this.notifyingChange(sync);
+    }
 
+    @Override
+    public <TResult> CompletableFuture<EvaluationResult<TResult>> evaluate(String path, Object input,
+            Class<TResult> resultType) {
+        if (this.decisionCache != null) {
+            return this.decisionCache.get(path, input, resultType,
+                    () -> this.evaluateUncached(path, input, resultType));
+        }
+        return this.evaluateUncached(path, input, resultType);
+    }
+
+    private <TResult> CompletableFuture<EvaluationResult<TResult>> evaluateUncached(String path, Object input,
+            Class<TResult> resultType) {
+        if (this.batcher != null) {
+            return this.batcher.submit(path, input, resultType);
+        }
+        return this.evaluateOne(path, input, resultType);
+    }
+
+    @Override
+    public <TInput, TResult> PreparedDecision<TInput, TResult> prepareDecision(String path, Class<TInput> inputType,
+            Class<TResult> resultType) {
+        Objects.requireNonNull(path, "path cannot be null");
+        Objects.requireNonNull(inputType, "inputType cannot be null");
+        Objects.requireNonNull(resultType, "resultType cannot be null");
+        return new DefaultPreparedDecision<>(path, inputType, resultType);
+    }
+
+    @Override
+    public CompletableFuture<DataMirror> mirrorData(String path, Duration bundleRevisionPollInterval) {
+        Objects.requireNonNull(path, "path cannot be null");
+        var mirror = new DefaultDataMirror(path, opaHttpClient, objectMapper, this.mirrors::remove);
+        // registered before the first read, so changes made while reading are not missed
+        this.mirrors.add(mirror);
+        if (bundleRevisionPollInterval != null) {
+            try {
+                mirror.follow(this.health.watchBundleRevisions(bundleRevisionPollInterval,
+                        change -> mirror.refresh()));
+            } catch (RuntimeException ex) {
+                mirror.close();
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        return mirror.load().whenComplete((loaded, ex) -> {
+            if (ex != null) {
+                mirror.close();
+            }
+        });
+    }
+
+    @Override
+    public <TResult> CompletableFuture<List<EvaluationResult<TResult>>> evaluateBatch(String path, List<?> inputs,
+            Class<TResult> resultType) {
+        if (inputs.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        return opaHttpClient.post(BATCH_DATA_ENDPOINT + path, batchRequestOf(inputs), batchResponseOf(resultType))
+                .thenApply(response -> {
+                    var results = new ArrayList<EvaluationResult<TResult>>(inputs.size());
+                    for (int i = 0; i < inputs.size(); i++) {
+                        results.add(batchResult(response, i));
+                    }
+                    return results;
+                });
+    }
+
+    @Override
+    public <TResult> CompletableFuture<TResult> defaultDecision(Object input, Class<TResult> resultType) {
+        return opaHttpClient.post(DEFAULT_DECISION_ENDPOINT, input, resultType);
+    }
+
+    private <TResult> CompletableFuture<EvaluationResult<TResult>> evaluateOne(String path, Object input,
+            Class<TResult> resultType) {
+        return opaHttpClient.post(DATA_ENDPOINT + path, new EvaluationRequest<>(input), evaluationResultOf(resultType));
+    }
+
+    /**
+     * Evaluates a micro-batch. An evaluation that fails inside a batch only fails its own result.
+     */
+    private <TResult> List<CompletableFuture<EvaluationResult<TResult>>> evaluateEach(String path, List<?> inputs,
+            Class<TResult> resultType) {
+        if (inputs.size() == 1) {
+            // no need to batch
+            return List.of(this.evaluateOne(path, inputs.get(0), resultType));
+        }
+
+        var results = new ArrayList<CompletableFuture<EvaluationResult<TResult>>>(inputs.size());
+        if (this.multiplexer != null) {
+            // an evaluation error fails the query as a whole, retrying one by one finds the input that failed
+            var multiplexed = this.multiplexer.evaluateMultiplexed(path, inputs, resultType);
+            for (int i = 0; i < inputs.size(); i++) {
+                int index = i;
+                results.add(multiplexed
+                        .thenApply(all -> all.get(index))
+                        .exceptionallyCompose(ex -> isEvaluationError(ex)
+                                ? this.evaluateOne(path, inputs.get(index), resultType)
+                                : CompletableFuture.failedFuture(ex)));
+            }
+        } else {
+            var batch = opaHttpClient.post(BATCH_DATA_ENDPOINT + path, batchRequestOf(inputs),
+                    batchResponseOf(resultType));
+            for (int i = 0; i < inputs.size(); i++) {
+                int index = i;
+                results.add(batch.thenApply(response -> batchResult(response, index)));
+            }
+        }
+        return results;
+    }
+
+    private <T> CompletableFuture<T> mirroringUpsert(String path, Object data, CompletableFuture<T> upsert) {
+        if (this.mirrors.isEmpty()) {
+            return upsert;
+        }
+        // the caller only sees the change once the mirrors have it
+        return CompletableFutures.propagateCancellation(
+                upsert.whenComplete((result, ex) -> this.mirrorChange(path, ex == null ? data : null)), upsert);
+    }
+
+    private <T> CompletableFuture<T> mirroringChange(String path, CompletableFuture<T> change) {
+        if (this.mirrors.isEmpty()) {
+            return change;
+        }
+        return CompletableFutures.propagateCancellation(
+                change.whenComplete((result, ex) -> this.mirrorChange(path, null)), change);
+    }
+
+    /**
+     * Applies an uploaded document to the mirrors it overlaps with, or makes them read their subtree again when the
+     * document is not known, like after a JSON Patch or a failed upload.
+     *
+     * @param data the document that OPA accepted at {@code path}, or {@code null} when it is not known
+     */
+    private void mirrorChange(String path, Object data) {
+        for (var mirror : this.mirrors) {
+            if (mirror.overlaps(path)) {
+                if (data != null) {
+                    mirror.applyUpsert(path, data);
+                } else {
+                    mirror.refresh();
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies the listener once the data changed, or failed to change, in which case it may have been changed
+     * partially
+     */
+    private <T> CompletableFuture<T> notifyingChange(CompletableFuture<T> change) {
+        if (this.dataChangeListener == null) {
+            return change;
+        }
+        // the caller only sees the change once the listener ran
+        return CompletableFutures.propagateCancellation(
+                change.whenComplete((result, ex) -> this.dataChangeListener.run()), change);
+    }
+
+    private static <TResult> EvaluationResult<TResult> batchResult(BatchEvaluationResponse<TResult> response,
+            int index) {
+        var result = response.getResponses().get(batchId(index));
+        if (result == null) {
+            throw new IllegalStateException("Batch response has no result for input " + index);
+        }
+        if (result.isError()) {
+            throw result.toException();
+        }
+        return result;
+    }
+
+    /**
+     * OPA answers 500 with an {@code eval_*} error code when the evaluation failed for one of the inputs, for example
+     * because of conflicting rule values. Any other failure, like a query that does not compile (400), would fail
+     * every input alike.
+     */
+    private static boolean isEvaluationError(Throwable ex) {
+        var cause = CompletableFutures.unwrap(ex);
+        return cause instanceof HttpStatusException
+                && ((HttpStatusException) cause).getStatusCode() == 500
+                && ((HttpStatusException) cause).getErrorCodes().stream().anyMatch(code -> code.startsWith("eval_"));
+    }
+
+    /**
+     * Encodes the requests with an {@link ObjectWriter} that is bound to {@code EvaluationRequest<TInput>}, so the
+     * serializer of the input is resolved once. The encoded request is sent as {@link RawJson}, which the transport
+     * writes as-is, on the calling thread. With micro-batching, the writer is bound to the input type instead: only the
+     * input is encoded, and spliced into the batch.
+     */
+    private class DefaultPreparedDecision<TInput, TResult> implements PreparedDecision<TInput, TResult> {
+
+        private final String path;
+        private final String endpoint;
+        private final Class<TResult> resultType;
+        private final ResponseType<EvaluationResult<TResult>> responseType;
+        private final ObjectWriter writer;
+
+        DefaultPreparedDecision(String path, Class<TInput> inputType, Class<TResult> resultType) {
+            this.path = path;
+            this.endpoint = DATA_ENDPOINT + path;
+            this.resultType = resultType;
+            this.responseType = evaluationResultOf(resultType);
+            var typeFactory = objectMapper.getTypeFactory();
+            this.writer = objectMapper.writerFor(batcher != null
+                    ? typeFactory.constructType(inputType)
+                    : typeFactory.constructParametricType(EvaluationRequest.class, inputType));
+        }
+
+        @Override
+        public String getPath() {
+            return this.path;
+        }
+
+        @Override
+        public CompletableFuture<EvaluationResult<TResult>> evaluate(TInput input) {
+            if (decisionCache != null) {
+                return decisionCache.get(this.path, input, this.resultType, () -> this.evaluateUncached(input));
+            }
+            return this.evaluateUncached(input);
+        }
+
+        private CompletableFuture<EvaluationResult<TResult>> evaluateUncached(TInput input) {
+            try {
+                if (batcher != null) {
+                    return batcher.submit(this.path, RawJson.of(this.writer.writeValueAsString(input)),
+                            this.resultType);
+                }
+                var request = RawJson.of(this.writer.writeValueAsString(new EvaluationRequest<>(input)));
+                return opaHttpClient.post(this.endpoint, request, this.responseType);
+            } catch (JsonProcessingException ex) {
+                return CompletableFuture.failedFuture(new UncheckedIOException(ex));
+            }
+        }
+    }
+
+    static <TResult> ResponseType<EvaluationResult<TResult>> evaluationResultOf(Class<TResult> resultType) {
+        return ResponseType.parameterized(EvaluationResult.class, resultType);
+    }
+
+    static <TResult> ResponseType<BatchEvaluationResponse<TResult>> batchResponseOf(Class<TResult> resultType) {
+        return ResponseType.parameterized(BatchEvaluationResponse.class, resultType);
+    }
+
+    /**
+     * The inputs are keyed by their index, which is how the results are matched up with the inputs.
+     */
+    static BatchEvaluationRequest batchRequestOf(List<?> inputs) {
+        var keyed = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < inputs.size(); i++) {
+            keyed.put(batchId(i), inputs.get(i));
+        }
+        return new BatchEvaluationRequest(keyed);
+    }
+
+    static String batchId(int index) {
+        return Integer.toString(index);
+    }
 
 }
@@ -0,0 +1,112 @@
+package com.contentgrid.opa.client.impl;
+
+import com.contentgrid.opa.client.api.DataApi;
+import com.contentgrid.opa.client.api.DataApi.SyncDataResult;
+import com.contentgrid.opa.client.api.DataApi.SyncDataResult.Mode;
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements {@link DataApi#syncData}: keeps the last uploaded snapshot of every path, and sends the changes against
+ * that snapshot as a JSON Patch.
+ */
+class DataSynchronizer {
+
+    private final OpaHttpClient opaHttpClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The snapshot of every path after its latest sync, completed once that sync is done. A failed snapshot, or no
+     * snapshot at all, makes the next sync upload in full.
+     */
+    private final Map<String, CompletableFuture<JsonNode>> snapshots = new ConcurrentHashMap<>();
+
+    DataSynchronizer(OpaHttpClient opaHttpClient, ObjectMapper objectMapper) {
+        this.opaHttpClient = opaHttpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    CompletableFuture<SyncDataResult> sync(String path, Object data) {
+        // converted right away, later changes to the data do not leak into the snapshot
+        JsonNode target = this.objectMapper.valueToTree(data);
+
+        // chaining on the previous sync keeps the syncs of a path in order
+        var next = new CompletableFuture<JsonNode>();
+        var previous = this.snapshots.put(path, next);
+        var result = (previous != null ? previous : CompletableFuture.<JsonNode>completedFuture(null))
+                .handle((snapshot, ex) -> ex == null ? snapshot : null)
+                .thenCompose(snapshot -> this.upload(path, snapshot, target));
+
+        result.whenComplete((synced, ex) -> {
+            if (ex != null) {
+                next.completeExceptionally(ex);
+            } else {
+                next.complete(target);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Drops the snapshot of a path, because the document was changed in another way.
+     */
+    void forget(String path) {
+        this.snapshots.remove(path);
+    }
+
+    private CompletableFuture<SyncDataResult> upload(String path, JsonNode snapshot, JsonNode target) {
+        var operations = snapshot != null ? JsonPatchDiff.diff(snapshot, target) : null;
+        if (operations != null && operations.isEmpty()) {
+            return CompletableFuture.completedFuture(new SyncDataResult(Mode.UNCHANGED, 0));
+        }
+
+        // encoded once, for the size comparison and for the upload
+        var document = RawJson.encode(this.objectMapper, target);
+        if (operations == null) {
+            return this.put(path, document);
+        }
+
+        var patch = RawJson.encode(this.objectMapper, operations);
+        if (patch.toString().length() >= document.toString().length()) {
+            return this.put(path, document);
+        }
+
+        return this.opaHttpClient
+                .patch(DataComponent.DATA_ENDPOINT + path,
+                        headers -> headers.contentType(MediaType.APPLICATION_JSON_PATCH), patch)
+                .thenApply(nothing -> new SyncDataResult(Mode.PATCH, operations.size()))
+                .exceptionallyCompose(ex -> isPatchRejected(ex)
+                        ? this.put(path, document)
+                        : CompletableFuture.failedFuture(ex));
+    }
+
+    /**
+     * OPA rejects a patch that does not apply with 400 or 404, for example because it restarted and lost the
+     * document, and a proxy that does not allow {@code PATCH} answers 405, like a client that does not support it.
+     * Other failures, like an overloaded server, would fail the upload as well.
+     */
+    private static boolean isPatchRejected(Throwable ex) {
+        var cause = CompletableFutures.unwrap(ex);
+        if (cause instanceof UnsupportedOperationException) {
+            return true;
+        }
+        if (!(cause instanceof HttpStatusException)) {
+            return false;
+        }
+        int status = ((HttpStatusException) cause).getStatusCode();
+        return status == 400 || status == 404 || status == 405;
+    }
+
+    private CompletableFuture<SyncDataResult> put(String path, RawJson document) {
+        return this.opaHttpClient.put(DataComponent.DATA_ENDPOINT + path, document)
+                .thenApply(nothing -> new SyncDataResult(Mode.PUT, 0));
+    }
+}
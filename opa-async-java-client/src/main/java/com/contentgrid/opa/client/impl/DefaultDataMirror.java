@@ -0,0 +1,416 @@
+package com.contentgrid.opa.client.impl;
+
+import com.contentgrid.opa.client.api.DataMirror;
+import com.contentgrid.opa.client.api.HealthApi.BundleRevisionWatch;
+import com.contentgrid.opa.client.cache.CanonicalJson;
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the mirrored subtree as an immutable snapshot, that is swapped as a whole. Changes are applied by copying the
+ * maps along the changed path, everything else is shared with the previous snapshot.
+ *
+ * Every local change moves the generation. A read that started before a local change does not replace the snapshot,
+ * because it may predate the change; the subtree is read once more instead.
+ */
+@Slf4j
+class DefaultDataMirror implements DataMirror {
+
+    private static final Snapshot NOT_LOADED = new Snapshot(null, false, null);
+
+    private final String path;
+    private final List<String> segments;
+    private final OpaHttpClient opaHttpClient;
+    private final ObjectMapper objectMapper;
+    private final Consumer<DefaultDataMirror> closeListener;
+
+    /**
+     * Completed once the first snapshot is in place
+     */
+    private final CompletableFuture<DataMirror> loaded = new CompletableFuture<>();
+
+    private volatile Snapshot snapshot = NOT_LOADED;
+
+    // guarded by this
+    private long generation;
+    private CompletableFuture<Boolean> running;
+    private CompletableFuture<Boolean> queued;
+    private BundleRevisionWatch watch;
+    private boolean closed;
+
+    DefaultDataMirror(String path, OpaHttpClient opaHttpClient, ObjectMapper objectMapper,
+            Consumer<DefaultDataMirror> closeListener) {
+        this.segments = segmentsOf(path);
+        this.path = String.join("/", this.segments);
+        this.opaHttpClient = opaHttpClient;
+        this.objectMapper = objectMapper;
+        this.closeListener = closeListener;
+    }
+
+    /**
+     * Reads the subtree for the first time.
+     *
+     * @return the mirror, once the first snapshot is in place
+     */
+    CompletableFuture<DataMirror> load() {
+        this.refresh();
+        return this.loaded.copy();
+    }
+
+    synchronized void follow(BundleRevisionWatch watch) {
+        if (this.closed) {
+            watch.close();
+        } else {
+            this.watch = watch;
+        }
+    }
+
+    @Override
+    public String getPath() {
+        return this.path;
+    }
+
+    @Override
+    public Object get(String path) {
+        var node = this.lookup(path);
+        return node == Undefined.INSTANCE ? null : node;
+    }
+
+    @Override
+    public boolean contains(String path) {
+        return this.lookup(path) != Undefined.INSTANCE;
+    }
+
+    @Override
+    public String getDigest() {
+        return this.snapshot.digest(this.objectMapper);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Boolean> refresh() {
+        if (this.closed) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (this.queued != null) {
+            // not started yet, so it sees every change that was made before this call
+            return this.queued;
+        }
+        var refreshed = new CompletableFuture<Boolean>();
+        if (this.running == null) {
+            this.start(refreshed);
+        } else {
+            this.queued = refreshed;
+        }
+        return refreshed;
+    }
+
+    @Override
+    public void close() {
+        BundleRevisionWatch watch;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            watch = this.watch;
+            this.watch = null;
+        }
+        if (watch != null) {
+            watch.close();
+        }
+        this.closeListener.accept(this);
+        this.loaded.completeExceptionally(new IllegalStateException("Mirror of '" + this.path + "' was closed"));
+    }
+
+    /**
+     * @return {@code true} when a change of the document at {@code path} changes the mirrored subtree
+     */
+    boolean overlaps(String path) {
+        var changed = segmentsOf(path);
+        int common = Math.min(changed.size(), this.segments.size());
+        return changed.subList(0, common).equals(this.segments.subList(0, common));
+    }
+
+    /**
+     * Applies an upload of the document at {@code path} that OPA accepted.
+     */
+    void applyUpsert(String path, Object data) {
+        var changed = segmentsOf(path);
+        JsonNode document;
+        try {
+            document = this.objectMapper.readTree(this.objectMapper.writeValueAsBytes(data));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not apply the upload of '{}' to the mirror of '{}', reading it again", path, this.path, ex);
+            this.refresh();
+            return;
+        }
+
+        // converted outside the lock, only the maps along the changed path are copied while holding it
+        Snapshot replacement = null;
+        Object value = null;
+        if (changed.size() <= this.segments.size()) {
+            var subtree = document.at(pointerOf(this.segments.subList(changed.size(), this.segments.size())));
+            replacement = subtree.isMissingNode() ? Snapshot.UNDEFINED : snapshotOf(subtree);
+        } else {
+            value = compact(document, new HashMap<>());
+        }
+
+        synchronized (this) {
+            this.generation++;
+            var current = this.snapshot;
+            if (current == NOT_LOADED) {
+                // the first read is discarded, and made again
+                return;
+            }
+            if (replacement != null) {
+                this.snapshot = replacement;
+            } else {
+                var root = with(current.defined ? current.root : null,
+                        changed.subList(this.segments.size(), changed.size()), value);
+                this.snapshot = new Snapshot(root, true, null);
+            }
+        }
+    }
+
+    // guarded by this
+    private void start(CompletableFuture<Boolean> refreshed) {
+        this.running = refreshed;
+        long startedAt = this.generation;
+        this.opaHttpClient.get(DataComponent.DATA_ENDPOINT + this.path, JsonNode.class)
+                .thenApply(response -> this.replace(response.get("result"), startedAt))
+                .whenComplete((replaced, ex) -> {
+                    CompletableFuture<Boolean> dropped = null;
+                    synchronized (this) {
+                        this.running = null;
+                        if (this.queued != null) {
+                            var next = this.queued;
+                            this.queued = null;
+                            if (this.closed) {
+                                dropped = next;
+                            } else {
+                                this.start(next);
+                            }
+                        }
+                    }
+                    if (dropped != null) {
+                        dropped.complete(false);
+                    }
+                    if (ex != null) {
+                        this.loaded.completeExceptionally(ex);
+                        refreshed.completeExceptionally(ex);
+                    } else {
+                        refreshed.complete(replaced);
+                    }
+                });
+    }
+
+    /**
+     * @param subtree the subtree that was read, {@code null} when it is undefined
+     * @param startedAt the generation when the read started
+     * @return {@code true} when the snapshot was replaced
+     */
+    private boolean replace(JsonNode subtree, long startedAt) {
+        // compared outside the lock; the snapshot cannot have changed when the generation did not
+        var current = this.snapshot;
+        var digest = subtree == null ? null : CanonicalJson.fingerprint(this.objectMapper, subtree);
+        var unchanged = current != NOT_LOADED && Objects.equals(current.digest(this.objectMapper), digest);
+        var replacement = unchanged || subtree == null
+                ? Snapshot.UNDEFINED
+                : new Snapshot(compact(subtree, new HashMap<>()), true, digest);
+
+        synchronized (this) {
+            if (this.generation != startedAt) {
+                // changed locally while reading
+                this.refresh();
+                return false;
+            }
+            if (unchanged) {
+                return false;
+            }
+            this.snapshot = replacement;
+            this.generation++;
+        }
+        this.loaded.complete(this);
+        return true;
+    }
+
+    private static Snapshot snapshotOf(JsonNode subtree) {
+        return new Snapshot(compact(subtree, new HashMap<>()), true, null);
+    }
+
+    private Object lookup(String path) {
+        var current = this.snapshot;
+        if (!current.defined) {
+            return Undefined.INSTANCE;
+        }
+        Object node = current.root;
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                node = child(node, path.substring(start, end));
+                if (node == Undefined.INSTANCE) {
+                    return node;
+                }
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private static Object child(Object node, String segment) {
+        if (node instanceof Map) {
+            var map = (Map<?, ?>) node;
+            var child = map.get(segment);
+            return child != null || map.containsKey(segment) ? child : Undefined.INSTANCE;
+        }
+        if (node instanceof List) {
+            var list = (List<?>) node;
+            try {
+                int index = Integer.parseInt(segment);
+                return index >= 0 && index < list.size() ? list.get(index) : Undefined.INSTANCE;
+            } catch (NumberFormatException ex) {
+                return Undefined.INSTANCE;
+            }
+        }
+        return Undefined.INSTANCE;
+    }
+
+    /**
+     * Copies the maps along {@code path}, and puts {@code value} at its end. Like OPA, missing objects along the path
+     * are created.
+     */
+    private static Object with(Object node, List<String> path, Object value) {
+        if (path.isEmpty()) {
+            return value;
+        }
+        var copy = node instanceof Map ? new HashMap<String, Object>(castMap(node)) : new HashMap<String, Object>();
+        var key = path.get(0);
+        copy.put(key, with(copy.get(key), path.subList(1, path.size()), value));
+        return freeze(copy);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object node) {
+        return (Map<String, Object>) node;
+    }
+
+    /**
+     * Converts a JSON tree to immutable maps and lists. Strings that occur more than once, as keys or as values, are
+     * shared.
+     */
+    private static Object compact(JsonNode node, Map<String, String> strings) {
+        switch (node.getNodeType()) {
+            case OBJECT:
+                var map = new HashMap<String, Object>((int) (node.size() / 0.75f) + 1);
+                var fields = node.fields();
+                while (fields.hasNext()) {
+                    var field = fields.next();
+                    map.put(intern(field.getKey(), strings), compact(field.getValue(), strings));
+                }
+                return freeze(map);
+            case ARRAY:
+                var elements = new Object[node.size()];
+                boolean nulls = false;
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = compact(node.get(i), strings);
+                    nulls |= elements[i] == null;
+                }
+                return nulls ? Collections.unmodifiableList(Arrays.asList(elements)) : List.of(elements);
+            case STRING:
+                return intern(node.textValue(), strings);
+            case NUMBER:
+                return node.numberValue();
+            case BOOLEAN:
+                return node.booleanValue();
+            case NULL:
+            case MISSING:
+                return null;
+            default:
+                throw new IllegalArgumentException("Unexpected " + node.getNodeType() + " in the mirrored data");
+        }
+    }
+
+    private static Map<String, Object> freeze(HashMap<String, Object> map) {
+        // the compact immutable maps do not allow null values
+        return map.containsValue(null) ? Collections.unmodifiableMap(map) : Map.copyOf(map);
+    }
+
+    private static String intern(String value, Map<String, String> strings) {
+        var shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    private static List<String> segmentsOf(String path) {
+        var segments = new ArrayList<String>();
+        for (var segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static String pointerOf(List<String> segments) {
+        var pointer = new StringBuilder();
+        for (var segment : segments) {
+            pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+        }
+        return pointer.toString();
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot UNDEFINED = new Snapshot(null, false, null);
+
+        private final Object root;
+        private final boolean defined;
+
+        /**
+         * The fingerprint of the root, computed on first use, because it covers the whole subtree
+         */
+        private volatile String digest;
+
+        private Snapshot(Object root, boolean defined, String digest) {
+            this.root = root;
+            this.defined = defined;
+            this.digest = digest;
+        }
+
+        /**
+         * @return the fingerprint of the root, {@code null} when the subtree is undefined
+         */
+        String digest(ObjectMapper objectMapper) {
+            if (!this.defined) {
+                return null;
+            }
+            var current = this.digest;
+            if (current == null) {
+                // computed at most a few times by concurrent callers, with the same outcome
+                current = CanonicalJson.fingerprint(objectMapper, this.root);
+                this.digest = current;
+            }
+            return current;
+        }
+    }
+
+    private enum Undefined {
+        INSTANCE
+    }
+}
@@ -0,0 +1,175 @@
+package com.contentgrid.opa.client.impl;
+
+import com.contentgrid.opa.client.MicroBatchingSpecification;
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.client.DelayedExecution;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent evaluations of the same document into batches. A batch is sent when its window expires, on the
+ * configured executor, or as soon as it is full, on the thread that filled it. The results of the batch are handed
+ * back to the future of each evaluation.
+ */
+class EvaluationBatcher {
+
+    /**
+     * Evaluates the inputs of a batch, as one or more requests.
+     */
+    interface BatchEvaluator {
+
+        /**
+         * @return a result for every input, in the order of the inputs
+         */
+        <TResult> List<CompletableFuture<EvaluationResult<TResult>>> evaluate(String path, List<?> inputs,
+                Class<TResult> resultType);
+    }
+
+    private final BatchEvaluator evaluator;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    /**
+     * The executor that sends the batches of which the window expired, {@code null} to send them on the timer thread
+     */
+    private final Executor executor;
+
+    /**
+     * The batches that are still collecting evaluations, guarded by {@code this}
+     */
+    private final Map<BatchKey, Batch<?>> open = new HashMap<>();
+
+    EvaluationBatcher(BatchEvaluator evaluator, MicroBatchingSpecification microBatching, Executor executor) {
+        this.evaluator = evaluator;
+        this.windowNanos = microBatching.getWindow().toNanos();
+        this.maxBatchSize = microBatching.getMaxBatchSize();
+        this.executor = executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    <TResult> CompletableFuture<EvaluationResult<TResult>> submit(String path, Object input,
+            Class<TResult> resultType) {
+        var result = new CompletableFuture<EvaluationResult<TResult>>();
+        var key = new BatchKey(path, resultType);
+
+        Batch<TResult> full = null;
+        synchronized (this) {
+            var batch = (Batch<TResult>) this.open.get(key);
+            if (batch == null) {
+                batch = new Batch<>(key, resultType);
+                this.open.put(key, batch);
+                batch.flush = this.scheduleFlush(batch);
+            }
+            batch.add(input, result);
+            if (batch.size() >= this.maxBatchSize) {
+                this.open.remove(key);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            full.flush.cancel(false);
+            this.send(full);
+        }
+        return result;
+    }
+
+    private ScheduledFuture<?> scheduleFlush(Batch<?> batch) {
+        return DelayedExecution.schedule(() -> {
+            boolean expired;
+            synchronized (this) {
+                expired = this.open.remove(batch.key, batch);
+            }
+            if (expired) {
+                this.send(batch);
+            }
+        }, this.windowNanos, TimeUnit.NANOSECONDS, this.executor);
+    }
+
+    private <TResult> void send(Batch<TResult> batch) {
+        List<CompletableFuture<EvaluationResult<TResult>>> results;
+        try {
+            results = this.evaluator.evaluate(batch.key.path, batch.inputs, batch.resultType);
+        } catch (RuntimeException ex) {
+            results = Collections.nCopies(batch.size(), CompletableFuture.failedFuture(ex));
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            int index = i;
+            results.get(i).whenComplete((result, ex) -> batch.complete(index, result, ex));
+        }
+    }
+
+    private static final class BatchKey {
+
+        private final String path;
+        private final Class<?> resultType;
+
+        private BatchKey(String path, Class<?> resultType) {
+            this.path = path;
+            this.resultType = resultType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            var other = (BatchKey) o;
+            return this.path.equals(other.path) && this.resultType.equals(other.resultType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.resultType);
+        }
+    }
+
+    private static final class Batch<TResult> {
+
+        private final BatchKey key;
+        private final Class<TResult> resultType;
+
+        private final List<Object> inputs = new ArrayList<>();
+        private final List<CompletableFuture<EvaluationResult<TResult>>> results = new ArrayList<>();
+
+        /**
+         * Sends the batch when its window expires, guarded by the batcher
+         */
+        private ScheduledFuture<?> flush;
+
+        private Batch(BatchKey key, Class<TResult> resultType) {
+            this.key = key;
+            this.resultType = resultType;
+        }
+
+        private void add(Object input, CompletableFuture<EvaluationResult<TResult>> result) {
+            this.inputs.add(input);
+            this.results.add(result);
+        }
+
+        private int size() {
+            return this.inputs.size();
+        }
+
+        private void complete(int index, EvaluationResult<TResult> result, Throwable ex) {
+            if (ex != null) {
+                this.results.get(index).completeExceptionally(CompletableFutures.unwrap(ex));
+            } else {
+                this.results.get(index).complete(result);
+            }
+        }
+    }
+}
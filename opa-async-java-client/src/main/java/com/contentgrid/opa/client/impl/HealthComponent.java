@@ -0,0 +1,230 @@
+package com.contentgrid.opa.client.impl;
+
+import com.contentgrid.opa.client.api.HealthApi;
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class HealthComponent implements HealthApi, AutoCloseable {
+
+    private static final String HEALTH_ENDPOINT = "/health";
+    private static final String BUNDLES_HEALTH_ENDPOINT = "/health?bundles";
+    private static final String BUNDLES_ENDPOINT = "/v1/data/system/bundles";
+
+    private final OpaHttpClient httpClient;
+
+    /**
+     * Schedules the polls of the watches, created with the first watch, guarded by {@code this}
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Set when the component is closed, guarded by {@code this}
+     */
+    private boolean closed;
+
+    public HealthComponent(OpaHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isHealthy(boolean bundles) {
+        return this.httpClient.get(bundles ? BUNDLES_HEALTH_ENDPOINT : HEALTH_ENDPOINT, Void.class)
+                .thenApply(nothing -> true)
+                .exceptionallyCompose(ex -> {
+                    // OPA answers 500 when it is not healthy
+                    var cause = CompletableFutures.unwrap(ex);
+                    return cause instanceof HttpStatusException
+                            && ((HttpStatusException) cause).getStatusCode() == 500
+                            ? CompletableFuture.completedFuture(false)
+                            : CompletableFuture.failedFuture(ex);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getBundleRevisions() {
+        return this.httpClient.get(BUNDLES_ENDPOINT, BundlesResponse.class).thenApply(response -> {
+            var revisions = new LinkedHashMap<String, String>();
+            if (response.getResult() != null) {
+                response.getResult().forEach((name, bundle) -> revisions.put(name,
+                        bundle.getManifest() != null && bundle.getManifest().getRevision() != null
+                                ? bundle.getManifest().getRevision()
+                                : ""));
+            }
+            return Collections.unmodifiableMap(revisions);
+        });
+    }
+
+    @Override
+    public BundleRevisionWatch watchBundleRevisions(Duration interval, Consumer<BundleRevisionChange> listener) {
+        Objects.requireNonNull(interval, "interval cannot be null");
+        Objects.requireNonNull(listener, "listener cannot be null");
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("The health component is closed");
+            }
+        }
+
+        var watch = new Watch(interval, listener);
+        watch.poll();
+        return watch;
+    }
+
+    /**
+     * Stops the polls of all watches.
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the scheduler, or {@code null} when the component is closed
+     */
+    private synchronized ScheduledExecutorService scheduler() {
+        if (this.closed) {
+            return null;
+        }
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "opa-bundle-watch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.scheduler;
+    }
+
+    private class Watch implements BundleRevisionWatch {
+
+        private final Duration interval;
+        private final Consumer<BundleRevisionChange> listener;
+
+        /**
+         * The revisions of the last successful poll, {@code null} before the first poll
+         */
+        private volatile Map<String, String> revisions;
+
+        private volatile boolean closed;
+        private ScheduledFuture<?> next;
+
+        Watch(Duration interval, Consumer<BundleRevisionChange> listener) {
+            this.interval = interval;
+            this.listener = listener;
+        }
+
+        @Override
+        public Map<String, String> getRevisions() {
+            var current = this.revisions;
+            return current != null ? current : Map.of();
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+            synchronized (this) {
+                if (this.next != null) {
+                    this.next.cancel(false);
+                }
+            }
+        }
+
+        void poll() {
+            if (this.closed) {
+                return;
+            }
+
+            CompletableFuture<Map<String, String>> poll;
+            try {
+                poll = getBundleRevisions();
+            } catch (RuntimeException ex) {
+                poll = CompletableFuture.failedFuture(ex);
+            }
+
+            poll.whenComplete((current, ex) -> {
+                if (ex != null) {
+                    log.debug("Polling the bundle revisions failed: {}", ex.toString());
+                } else {
+                    this.update(current);
+                }
+                this.scheduleNext();
+            });
+        }
+
+        private void update(Map<String, String> current) {
+            var previous = this.revisions;
+            this.revisions = current;
+            if (previous == null || this.closed) {
+                return;
+            }
+
+            current.forEach((bundle, revision) -> {
+                var previousRevision = previous.get(bundle);
+                if (!revision.equals(previousRevision)) {
+                    this.fire(new BundleRevisionChange(bundle, previousRevision, revision));
+                }
+            });
+            previous.forEach((bundle, revision) -> {
+                if (!current.containsKey(bundle)) {
+                    this.fire(new BundleRevisionChange(bundle, revision, null));
+                }
+            });
+        }
+
+        private void fire(BundleRevisionChange change) {
+            try {
+                this.listener.accept(change);
+            } catch (RuntimeException ex) {
+                log.warn("Bundle revision listener failed for {}", change, ex);
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            var scheduler = scheduler();
+            if (!this.closed && scheduler != null) {
+                try {
+                    this.next = scheduler.schedule(this::poll, this.interval.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException ex) {
+                    // the component was closed in the meantime
+                }
+            }
+        }
+    }
+
+    @Data
+    static class BundlesResponse {
+        private Map<String, BundleStatus> result;
+    }
+
+    @Data
+    static class BundleStatus {
+        private BundleManifest manifest;
+    }
+
+    @Data
+    static class BundleManifest {
+        private String revision;
+    }
+}
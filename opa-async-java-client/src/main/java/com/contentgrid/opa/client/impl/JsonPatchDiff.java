@@ -0,0 +1,86 @@
+package com.contentgrid.opa.client.impl;
+
+import com.contentgrid.opa.client.api.DataApi.PatchOperation;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the JSON Patch that turns one JSON document into another.
+ *
+ * Objects are compared key by key. Arrays are compared index by index: elements are appended or removed at the end,
+ * an element inserted at the front replaces every element after it. Such a patch is usually larger than the
+ * document, which makes {@link DataSynchronizer} upload the document instead.
+ */
+final class JsonPatchDiff {
+
+    private JsonPatchDiff() {
+    }
+
+    /**
+     * @return the operations that turn {@code source} into {@code target}, or {@code null} when the root itself has
+     * to be replaced because it is not an object or array of the same kind in both documents
+     */
+    static List<PatchOperation> diff(JsonNode source, JsonNode target) {
+        if (!(source.isObject() && target.isObject()) && !(source.isArray() && target.isArray())) {
+            return null;
+        }
+
+        var operations = new ArrayList<PatchOperation>();
+        diff("", source, target, operations);
+        return operations;
+    }
+
+    private static void diff(String pointer, JsonNode source, JsonNode target, List<PatchOperation> operations) {
+        if (source.equals(target)) {
+            return;
+        }
+
+        if (source.isObject() && target.isObject()) {
+            diffObjects(pointer, source, target, operations);
+        } else if (source.isArray() && target.isArray()) {
+            diffArrays(pointer, source, target, operations);
+        } else {
+            operations.add(PatchOperation.replace(pointer, target));
+        }
+    }
+
+    private static void diffObjects(String pointer, JsonNode source, JsonNode target,
+            List<PatchOperation> operations) {
+        var names = source.fieldNames();
+        while (names.hasNext()) {
+            var name = names.next();
+            if (!target.has(name)) {
+                operations.add(PatchOperation.remove(pointer + PatchOperation.pointer(name)));
+            }
+        }
+
+        var fields = target.fields();
+        while (fields.hasNext()) {
+            var field = fields.next();
+            var child = pointer + PatchOperation.pointer(field.getKey());
+            var previous = source.get(field.getKey());
+            if (previous == null) {
+                operations.add(PatchOperation.add(child, field.getValue()));
+            } else {
+                diff(child, previous, field.getValue(), operations);
+            }
+        }
+    }
+
+    private static void diffArrays(String pointer, JsonNode source, JsonNode target,
+            List<PatchOperation> operations) {
+        int common = Math.min(source.size(), target.size());
+        for (int i = 0; i < common; i++) {
+            diff(pointer + "/" + i, source.get(i), target.get(i), operations);
+        }
+
+        // remove from the end, so the indices of the elements that are still to be removed do not shift
+        for (int i = source.size() - 1; i >= common; i--) {
+            operations.add(PatchOperation.remove(pointer + "/" + i));
+        }
+        for (int i = common; i < target.size(); i++) {
+            operations.add(PatchOperation.add(pointer + "/-", target.get(i)));
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package com.contentgrid.opa.client.impl;
 
 import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
 import com.contentgrid.opa.client.api.PolicyApi;
 import com.contentgrid.opa.client.rest.http.MediaType;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import lombok.RequiredArgsConstructor;
 
-@RequiredArgsConstructor
 public class PolicyComponent implements PolicyApi {
 
     private static final String POLICY_ENDPOINT = "/v1/policies/";
 
     private final OpaHttpClient restClient;
 
+    private final PolicySynchronizer synchronizer = new PolicySynchronizer(this);
+
+    /**
+     * Called when policies changed, or failed to change
+     */
+    private final Runnable policyChangeListener;
+
+    public PolicyComponent(OpaHttpClient restClient) {
+        this(restClient, () -> { });
+    }
+
+    /**
+     * @param policyChangeListener called when a policy was uploaded or deleted, to clear caches of decisions
+     */
+    public PolicyComponent(OpaHttpClient restClient, Runnable policyChangeListener) {
+        this.restClient = restClient;
+        this.policyChangeListener = policyChangeListener;
+    }
+
     @Override
     public CompletableFuture<ListPoliciesResponse> listPolicies() {
         return this.restClient.get(POLICY_ENDPOINT, ListPoliciesResponse.class);
@@ -20,9 +39,9 @@ public class PolicyComponent implements PolicyApi {
 
     @Override
     public CompletableFuture<UpsertPolicyResponse> upsertPolicy(String id, String policy) {
-        return this.restClient.put(POLICY_ENDPOINT + id,
+        return this.notifyingChange(this.restClient.put(POLICY_ENDPOINT + id,
                 headers -> headers.contentType(MediaType.TEXT_PLAIN),
-                policy, UpsertPolicyResponse.class);
+                policy, UpsertPolicyResponse.class));
 
     }
 
@@ -33,6 +52,18 @@ public class PolicyComponent implements PolicyApi {
 
     @Override
     public CompletableFuture<DeletePolicyResponse> deletePolicy(String id) {
-        return this.restClient.delete(POLICY_ENDPOINT + id, DeletePolicyResponse.class);
+        return this.notifyingChange(this.restClient.delete(POLICY_ENDPOINT + id, DeletePolicyResponse.class));
+    }
+
+    @Override
+    public CompletableFuture<SyncPoliciesResult> syncPolicies(Map<String, String> policies,
+            int maxConcurrentUploads) {
+        return this.synchronizer.sync(policies, maxConcurrentUploads);
+    }
+
+    private <T> CompletableFuture<T> notifyingChange(CompletableFuture<T> change) {
+        // the caller only sees the change once the listener ran
+        return CompletableFutures.propagateCancellation(
+                change.whenComplete((result, ex) -> this.policyChangeListener.run()), change);
     }
 }
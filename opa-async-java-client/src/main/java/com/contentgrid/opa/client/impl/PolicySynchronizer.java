@@ -0,0 +1,146 @@
+package com.contentgrid.opa.client.impl;
+
+import com.contentgrid.opa.client.api.PolicyApi;
+import com.contentgrid.opa.client.api.PolicyApi.OpaPolicy;
+import com.contentgrid.opa.client.api.PolicyApi.SyncPoliciesResult;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implements {@link PolicyApi#syncPolicies}, keeping a registry of the digests of the policies it uploaded.
+ *
+ * The registry knows which policies are managed by the sync, so only those are deleted when they are no longer
+ * provided. Whether a policy is unchanged is checked against the policies listed by OPA, not against the registry,
+ * so a policy that was changed or lost in OPA behind the back of the client is uploaded again.
+ */
+class PolicySynchronizer {
+
+    private final PolicyApi policies;
+
+    /**
+     * The SHA-256 digest of every policy that was synced, by id
+     */
+    private final Map<String, String> digests = new ConcurrentHashMap<>();
+
+    PolicySynchronizer(PolicyApi policies) {
+        this.policies = policies;
+    }
+
+    CompletableFuture<SyncPoliciesResult> sync(Map<String, String> policies, int maxConcurrentUploads) {
+        if (maxConcurrentUploads < 1) {
+            throw new IllegalArgumentException("maxConcurrentUploads must be at least 1");
+        }
+
+        var wanted = new HashMap<String, String>();
+        policies.forEach((id, text) -> wanted.put(id, digest(text)));
+
+        return this.policies.listPolicies().thenCompose(listed -> {
+            var current = new HashMap<String, String>();
+            if (listed.getResult() != null) {
+                for (OpaPolicy policy : listed.getResult()) {
+                    if (wanted.containsKey(policy.getId()) && policy.getRaw() != null) {
+                        current.put(policy.getId(), digest(policy.getRaw()));
+                    }
+                }
+            }
+
+            var uploaded = new ArrayList<String>();
+            var unchanged = new ArrayList<String>();
+            wanted.forEach((id, digest) -> {
+                if (digest.equals(current.get(id))) {
+                    this.digests.put(id, digest);
+                    unchanged.add(id);
+                } else {
+                    uploaded.add(id);
+                }
+            });
+
+            var deleted = new ArrayList<String>();
+            for (var id : this.digests.keySet()) {
+                if (!wanted.containsKey(id)) {
+                    deleted.add(id);
+                }
+            }
+
+            // upload first: a policy can only be deleted when the new versions of the others no longer import it
+            return this.upload(uploaded, policies, wanted, maxConcurrentUploads)
+                    .thenCompose(nothing -> this.delete(deleted))
+                    .thenApply(nothing -> new SyncPoliciesResult(uploaded, deleted, unchanged));
+        });
+    }
+
+    private CompletableFuture<Void> upload(List<String> ids, Map<String, String> policies,
+            Map<String, String> digests, int maxConcurrentUploads) {
+        var queue = new ArrayDeque<>(ids);
+        var uploads = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < Math.min(maxConcurrentUploads, ids.size()); i++) {
+            uploads.add(this.uploadNext(queue, policies, digests));
+        }
+        return CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Uploads the policies in the queue one after the other, every chain of uploads holds one slot.
+     */
+    private CompletableFuture<Void> uploadNext(Queue<String> queue, Map<String, String> policies,
+            Map<String, String> digests) {
+        String id;
+        synchronized (queue) {
+            id = queue.poll();
+        }
+        if (id == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return this.policies.upsertPolicy(id, policies.get(id))
+                .thenCompose(response -> {
+                    this.digests.put(id, digests.get(id));
+                    return this.uploadNext(queue, policies, digests);
+                });
+    }
+
+    private CompletableFuture<Void> delete(List<String> ids) {
+        var deletes = new ArrayList<CompletableFuture<?>>();
+        for (var id : ids) {
+            deletes.add(this.policies.deletePolicy(id)
+                    .exceptionallyCompose(ex -> isNotFound(ex)
+                            ? CompletableFuture.completedFuture(null)
+                            : CompletableFuture.failedFuture(ex))
+                    .thenRun(() -> this.digests.remove(id)));
+        }
+        return CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * A policy that is already gone does not have to be deleted
+     */
+    private static boolean isNotFound(Throwable ex) {
+        var cause = CompletableFutures.unwrap(ex);
+        return cause instanceof HttpStatusException && ((HttpStatusException) cause).getStatusCode() == 404;
+    }
+
+    static String digest(String text) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            var hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
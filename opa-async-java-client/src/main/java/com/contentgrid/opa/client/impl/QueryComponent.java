@@ -1,7 +1,16 @@
 package com.contentgrid.opa.client.impl;
 
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
 import com.contentgrid.opa.client.api.QueryApi;
 import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.contentgrid.opa.client.rest.http.ServerMetrics;
+import com.contentgrid.opa.client.rest.http.ServerMetricsResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,22 +26,86 @@ public class QueryComponent implements QueryApi {
 
     @Override
     public CompletableFuture<QueryResponse> query(String query) {
-        return this.query(new QueryRequest(query));
+        return this.query(new QueryRequest(query, null));
     }
 
     CompletableFuture<QueryResponse> query(QueryRequest request) {
         return this.httpClient.post(QUERY_ENDPOINT, request, QueryResponse.class);
     }
 
+    /**
+     * Evaluates the document at {@code path} for every input, with a single ad-hoc query. The inputs are sent as one
+     * array, and the query binds the document for the input at index {@code i} to the variable {@code r<i>}.
+     *
+     * Every document is collected in an array comprehension, which is empty when the document is undefined for that
+     * input. Without it, a single undefined document would make the whole query undefined.
+     *
+     * @return the results of the evaluations, in the order of the inputs; fails when the query as a whole failed
+     */
+    <TResult> CompletableFuture<List<EvaluationResult<TResult>>> evaluateMultiplexed(String path, List<?> inputs,
+            Class<TResult> resultType) {
+        var request = new QueryRequest(multiplexedQuery(path, inputs.size()), inputs);
+        ResponseType<MultiplexedQueryResponse<TResult>> responseType =
+                ResponseType.parameterized(MultiplexedQueryResponse.class, resultType);
+
+        return this.httpClient.post(QUERY_ENDPOINT, request, responseType).thenApply(response -> {
+            var bindings = response.getResult() == null || response.getResult().isEmpty()
+                    ? Map.<String, List<TResult>>of()
+                    : response.getResult().get(0);
+
+            var results = new ArrayList<EvaluationResult<TResult>>(inputs.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                var values = bindings.get(resultVariable(i));
+                results.add(values == null || values.isEmpty()
+                        ? EvaluationResult.undefined()
+                        : EvaluationResult.of(values.get(0)));
+            }
+            return results;
+        });
+    }
+
+    static String multiplexedQuery(String path, int inputs) {
+        var document = new StringBuilder("data");
+        for (var segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                document.append("[\"").append(segment.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]");
+            }
+        }
+
+        var query = new StringBuilder();
+        for (int i = 0; i < inputs; i++) {
+            if (i > 0) {
+                query.append("; ");
+            }
+            query.append(resultVariable(i)).append(" := [x | x := ").append(document)
+                    .append(" with input as input[").append(i).append("]]");
+        }
+        return query.toString();
+    }
+
+    private static String resultVariable(int index) {
+        return "r" + index;
+    }
+
     @Data
     static class AdHocQueryResponse<T> {
         T result;
     }
 
+    @Data
+    static class MultiplexedQueryResponse<T> implements ServerMetricsResponse {
+        List<Map<String, List<T>>> result;
+
+        ServerMetrics metrics;
+    }
+
     @Data
     @AllArgsConstructor
     private class QueryRequest {
         @NonNull
         String query;
+
+        @JsonInclude(Include.NON_NULL)
+        Object input;
     }
 }
@@ -0,0 +1,99 @@
+package com.contentgrid.opa.client.rest;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for the adaptive concurrency limit: the number of requests in flight grows while latencies stay low and
+ * shrinks when latencies go up or requests fail (additive increase, multiplicative decrease).
+ */
+@Getter
+public class ConcurrencyLimitSpecification {
+
+    private boolean enabled;
+
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+
+    /**
+     * The factor the limit is multiplied with when OPA gets overloaded.
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Latencies above this threshold are a sign of overload, {@code null} to derive the threshold from the lowest
+     * recently observed latency, multiplied by the {@link #latencyTolerance}.
+     */
+    private Duration latencyThreshold;
+
+    private double latencyTolerance = 2.0;
+
+    /**
+     * The number of requests that wait when the limit is reached, further requests are rejected.
+     */
+    private int maxQueueSize = 100;
+
+    /**
+     * Enables the adaptive limit with the default settings.
+     */
+    public ConcurrencyLimitSpecification enabled() {
+        this.enabled = true;
+        return this;
+    }
+
+    public ConcurrencyLimitSpecification limits(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        return this.enabled();
+    }
+
+    public ConcurrencyLimitSpecification backoffRatio(double backoffRatio) {
+        if (!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("backoffRatio must be between 0.5 and 1");
+        }
+        this.backoffRatio = backoffRatio;
+        return this.enabled();
+    }
+
+    /**
+     * Treats latencies above the fixed threshold as overload.
+     */
+    public ConcurrencyLimitSpecification latencyThreshold(Duration latencyThreshold) {
+        Objects.requireNonNull(latencyThreshold, "latencyThreshold cannot be null");
+        if (latencyThreshold.isNegative() || latencyThreshold.isZero()) {
+            throw new IllegalArgumentException("latencyThreshold must be positive");
+        }
+        this.latencyThreshold = latencyThreshold;
+        return this.enabled();
+    }
+
+    /**
+     * Treats latencies above the lowest recently observed latency, multiplied by the tolerance, as overload. Only
+     * used when no fixed {@link #latencyThreshold(Duration) threshold} is configured.
+     */
+    public ConcurrencyLimitSpecification latencyTolerance(double latencyTolerance) {
+        if (!(latencyTolerance > 1)) {
+            throw new IllegalArgumentException("latencyTolerance must be greater than 1");
+        }
+        this.latencyTolerance = latencyTolerance;
+        return this.enabled();
+    }
+
+    /**
+     * @param maxQueueSize the number of requests that wait for a slot when the limit is reached, {@code 0} rejects
+     * requests as soon as the limit is reached
+     */
+    public ConcurrencyLimitSpecification maxQueueSize(int maxQueueSize) {
+        if (maxQueueSize < 0) {
+            throw new IllegalArgumentException("maxQueueSize cannot be negative");
+        }
+        this.maxQueueSize = maxQueueSize;
+        return this.enabled();
+    }
+}
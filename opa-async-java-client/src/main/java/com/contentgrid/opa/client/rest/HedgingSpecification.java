@@ -0,0 +1,72 @@
+package com.contentgrid.opa.client.rest;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for hedged requests: when a read-only request does not get a response in time, a duplicate is sent and the
+ * first response wins.
+ */
+@Getter
+public class HedgingSpecification {
+
+    /**
+     * The fixed delay before a hedge is sent, or the delay until enough latencies are tracked when a
+     * {@link #percentile} is configured. {@code null} when no fixed delay is configured.
+     */
+    private Duration delay;
+
+    /**
+     * The percentile of recent latencies after which a hedge is sent, {@code 0} when disabled.
+     */
+    private double percentile;
+
+    /**
+     * The maximum number of hedges, as a percentage of the number of requests.
+     */
+    private double budgetPercent = 10;
+
+    /**
+     * Sends a hedge when no response arrived after a fixed delay.
+     */
+    public HedgingSpecification delay(Duration delay) {
+        Objects.requireNonNull(delay, "delay cannot be null");
+        if (delay.isNegative() || delay.isZero()) {
+            throw new IllegalArgumentException("delay must be positive");
+        }
+        this.delay = delay;
+        return this;
+    }
+
+    /**
+     * Sends a hedge when no response arrived after the given percentile of recent latencies, for example {@code 95}.
+     * Until enough latencies are tracked, the fixed {@link #delay(Duration) delay} is used, if any.
+     */
+    public HedgingSpecification percentile(double percentile) {
+        if (!(percentile > 0 && percentile < 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Caps the number of hedges to a percentage of the number of requests, so hedging cannot multiply the load on OPA
+     * when it slows down.
+     */
+    public HedgingSpecification budgetPercent(double budgetPercent) {
+        if (!(budgetPercent > 0 && budgetPercent <= 100)) {
+            throw new IllegalArgumentException("budgetPercent must be between 0 and 100");
+        }
+        this.budgetPercent = budgetPercent;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if a delay or percentile is configured
+     */
+    public boolean isEnabled() {
+        return this.delay != null || this.percentile > 0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.contentgrid.opa.client.rest;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for client-side load balancing across multiple OPA replicas.
+ */
+@Getter
+public class LoadBalancingSpecification {
+
+    public enum Strategy {
+        /**
+         * Sends every request to the replica with the fewest requests in flight.
+         */
+        LEAST_OUTSTANDING_REQUESTS,
+
+        /**
+         * Picks two random replicas and sends the request to the one with the fewest requests in flight. This
+         * avoids that many clients pile onto the same least loaded replica.
+         */
+        POWER_OF_TWO_CHOICES
+    }
+
+    private Strategy strategy = Strategy.LEAST_OUTSTANDING_REQUESTS;
+
+    /**
+     * How often the {@code /health} endpoint of every replica is checked.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * How long to wait for a response before the replica is considered unhealthy, {@code null} waits indefinitely.
+     */
+    private Duration requestTimeout;
+
+    public LoadBalancingSpecification strategy(Strategy strategy) {
+        this.strategy = Objects.requireNonNull(strategy, "strategy cannot be null");
+        return this;
+    }
+
+    public LoadBalancingSpecification healthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = requirePositive(healthCheckInterval, "healthCheckInterval");
+        return this;
+    }
+
+    /**
+     * Fails requests that take longer than the timeout with a {@link java.util.concurrent.TimeoutException}, and
+     * ejects the replica until its {@code /health} endpoint reports it is healthy again.
+     */
+    public LoadBalancingSpecification requestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requirePositive(requestTimeout, "requestTimeout");
+        return this;
+    }
+
+    private static Duration requirePositive(Duration duration, String name) {
+        Objects.requireNonNull(duration, name + " cannot be null");
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return duration;
+    }
+}
@@ -1,6 +1,8 @@
 package com.contentgrid.opa.client.rest;
 
 import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
@@ -20,6 +22,61 @@ public interface OpaHttpClient {
     <TResponse> CompletableFuture<TResponse> delete(String path,
             Consumer<HttpRequestHeaders> headersCallback, Class<TResponse> responseType);
 
+    /**
+     * Sends a {@code GET} request, with a response type that can carry type arguments or stream the response.
+     *
+     * The default implementation only supports plain classes, which it passes on to
+     * {@link #get(String, Consumer, Class)}. Other response types fail with an {@link UnsupportedOperationException}.
+     */
+    default <TResponse> CompletableFuture<TResponse> get(String path,
+            Consumer<HttpRequestHeaders> headersCallback, ResponseType<TResponse> responseType) {
+        var type = responseClass(responseType);
+        return type != null ? this.get(path, headersCallback, type) : this.unsupported(responseType);
+    }
+
+    /**
+     * Sends a {@code POST} request, see {@link #get(String, Consumer, ResponseType)} for the supported response types.
+     */
+    default <TRequest, TResponse> CompletableFuture<TResponse> post(
+            String path, Consumer<HttpRequestHeaders> headersCallback,
+            TRequest requestBody, ResponseType<TResponse> responseType) {
+        var type = responseClass(responseType);
+        return type != null ? this.post(path, headersCallback, requestBody, type) : this.unsupported(responseType);
+    }
+
+    /**
+     * Sends a {@code PUT} request, see {@link #get(String, Consumer, ResponseType)} for the supported response types.
+     */
+    default <TRequest, TResponse> CompletableFuture<TResponse> put(
+            String path, Consumer<HttpRequestHeaders> headersCallback,
+            TRequest requestBody, ResponseType<TResponse> responseType) {
+        var type = responseClass(responseType);
+        return type != null ? this.put(path, headersCallback, requestBody, type) : this.unsupported(responseType);
+    }
+
+    /**
+     * Sends a {@code DELETE} request, see {@link #get(String, Consumer, ResponseType)} for the supported response
+     * types.
+     */
+    default <TResponse> CompletableFuture<TResponse> delete(String path,
+            Consumer<HttpRequestHeaders> headersCallback, ResponseType<TResponse> responseType) {
+        var type = responseClass(responseType);
+        return type != null ? this.delete(path, headersCallback, type) : this.unsupported(responseType);
+    }
+
+    /**
+     * Sends a {@code PATCH} request, used for {@code patchData} and {@code syncData}.
+     *
+     * The default implementation fails with an {@link UnsupportedOperationException}, so clients written before
+     * {@code PATCH} was supported keep compiling; {@code syncData} then uploads the documents in full.
+     */
+    default <TRequest, TResponse> CompletableFuture<TResponse> patch(
+            String path, Consumer<HttpRequestHeaders> headersCallback,
+            TRequest requestBody, ResponseType<TResponse> responseType) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException(this.getClass().getName() + " does not support PATCH"));
+    }
+
     default <T> CompletableFuture<T> get(String path, Class<T> responseType) {
         return this.get(path, null, responseType);
     }
@@ -29,6 +86,11 @@ public interface OpaHttpClient {
         return this.post(path, null, requestBody, responseType);
     }
 
+    default <TRequest, TResponse> CompletableFuture<TResponse> post(
+            String path, TRequest requestBody, ResponseType<TResponse> responseType) {
+        return this.post(path, null, requestBody, responseType);
+    }
+
     default <TRequest, TResponse> CompletableFuture<TResponse> put(
             String path, TRequest requestBody, Class<TResponse> responseType) {
         return this.put(path, null, requestBody, responseType);
@@ -38,10 +100,30 @@ public interface OpaHttpClient {
         return this.put(path, null, requestBody, Void.class);
     }
 
+    default <TRequest> CompletableFuture<Void> patch(String path, Consumer<HttpRequestHeaders> headersCallback,
+            TRequest requestBody) {
+        return this.patch(path, headersCallback, requestBody, ResponseType.of(Void.class));
+    }
+
     default <TResponse> CompletableFuture<TResponse> delete(String path, Class<TResponse> responseType) {
         return this.delete(path, null, responseType);
     }
 
     void configure(Consumer<RestClientConfiguration> callback);
 
+    private <TResponse> CompletableFuture<TResponse> unsupported(ResponseType<TResponse> responseType) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException(
+                this.getClass().getName() + " does not support response type " + responseType.getType().getTypeName()));
+    }
+
+    /**
+     * @return the class of a response type that is a plain class, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    private static <TResponse> Class<TResponse> responseClass(ResponseType<TResponse> responseType) {
+        if (responseType instanceof StreamingResponseType || !(responseType.getType() instanceof Class)) {
+            return null;
+        }
+        return (Class<TResponse>) responseType.getType();
+    }
 }
@@ -0,0 +1,81 @@
+package com.contentgrid.opa.client.rest;
+
+import com.contentgrid.opa.client.rest.http.HttpMethod;
+import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import lombok.Getter;
+
+/**
+ * A single call on an {@link OpaHttpClient}, captured so it can be sent through another {@link OpaHttpClient}, or
+ * sent more than once.
+ *
+ * @param <TResponse> the response type
+ */
+@Getter
+public final class OpaHttpExchange<TResponse> {
+
+    private final HttpMethod method;
+    private final String path;
+    private final Consumer<HttpRequestHeaders> headersCallback;
+    private final Object requestBody;
+    private final ResponseType<TResponse> responseType;
+
+    /**
+     * State attached to the exchange by the clients it passes through, for example to remember which replica it
+     * was sent to when the exchange is sent more than once.
+     */
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    public OpaHttpExchange(HttpMethod method, String path, Consumer<HttpRequestHeaders> headersCallback,
+            Object requestBody, ResponseType<TResponse> responseType) {
+        this.method = Objects.requireNonNull(method, "method cannot be null");
+        this.path = Objects.requireNonNull(path, "path cannot be null");
+        this.headersCallback = headersCallback;
+        this.requestBody = requestBody;
+        this.responseType = responseType;
+    }
+
+    /**
+     * Checks if the exchange does not modify the state of OPA, so it can safely be retried or duplicated.
+     *
+     * OPA only uses {@code POST} to evaluate policies and queries with an input document, which is read-only.
+     *
+     * @return {@code true} for {@code GET} and {@code POST} exchanges
+     */
+    public boolean isReadOnly() {
+        return this.method == HttpMethod.GET || this.method == HttpMethod.POST;
+    }
+
+    /**
+     * Sends the exchange with the provided client.
+     *
+     * @param client the client to send the exchange with
+     * @return the response
+     */
+    public CompletableFuture<TResponse> send(OpaHttpClient client) {
+        switch (this.method) {
+            case GET:
+                return client.get(this.path, this.headersCallback, this.responseType);
+            case POST:
+                return client.post(this.path, this.headersCallback, this.requestBody, this.responseType);
+            case PUT:
+                return client.put(this.path, this.headersCallback, this.requestBody, this.responseType);
+            case PATCH:
+                return client.patch(this.path, this.headersCallback, this.requestBody, this.responseType);
+            case DELETE:
+                return client.delete(this.path, this.headersCallback, this.responseType);
+            default:
+                throw new UnsupportedOperationException("Unsupported method " + this.method);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.method + " " + this.path;
+    }
+}
@@ -1,5 +1,6 @@
 package com.contentgrid.opa.client.rest;
 
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public interface RestClientConfiguration {
@@ -8,6 +9,19 @@ public interface RestClientConfiguration {
 
     RestClientConfiguration logging(Consumer<LogSpecification> logging);
 
+    /**
+     * Configures the {@link Executor} used to offload work of the http client, such as serializing large request
+     * bodies.
+     *
+     * The default implementation ignores the executor, for clients that do not offload any work.
+     *
+     * @param executor the executor, or {@code null} to do this work on the calling thread
+     * @return The configuration
+     */
+    default RestClientConfiguration executor(Executor executor) {
+        return this;
+    }
+
     interface LogSpecification {
 
         LogSpecification none();
@@ -0,0 +1,20 @@
+package com.contentgrid.opa.client.rest;
+
+import com.contentgrid.opa.client.rest.http.ServerMetrics;
+
+/**
+ * Receives the {@link ServerMetrics} of the calls that were sampled, see {@link ServerMetricsSpecification}.
+ */
+@FunctionalInterface
+public interface ServerMetricsListener {
+
+    /**
+     * Called when the response of a sampled call arrived. Runs on the thread that completes the response, so it
+     * should be quick.
+     *
+     * @param exchange the call
+     * @param metrics the metrics OPA reported
+     * @param clientNanos the latency of the call as seen by the client, including time spent waiting in the client
+     */
+    void onMetrics(OpaHttpExchange<?> exchange, ServerMetrics metrics, long clientNanos);
+}
@@ -0,0 +1,56 @@
+package com.contentgrid.opa.client.rest;
+
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Settings for collecting the performance metrics of OPA: a sample of the calls asks OPA for its metrics with
+ * {@code ?metrics=true}, and passes them to a {@link ServerMetricsListener}.
+ *
+ * Only calls that evaluate policies or read data are sampled: {@code /v1/data}, {@code /v1/batch/data},
+ * {@code /v1/query} and {@code /v1/compile}.
+ */
+@Getter
+public class ServerMetricsSpecification {
+
+    /**
+     * The fraction of calls that are sampled, {@code 1} to sample every call.
+     */
+    private double sampleRate = 1;
+
+    /**
+     * Asks OPA for the detailed metrics of {@code ?instrument=true} as well, which slows down the evaluation.
+     */
+    private boolean instrument;
+
+    /**
+     * The listener, {@code null} when no metrics are collected.
+     */
+    private ServerMetricsListener listener;
+
+    public ServerMetricsSpecification sampleRate(double sampleRate) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public ServerMetricsSpecification instrument(boolean instrument) {
+        this.instrument = instrument;
+        return this;
+    }
+
+    public ServerMetricsSpecification listener(ServerMetricsListener listener) {
+        Objects.requireNonNull(listener, "listener cannot be null");
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if a listener is configured
+     */
+    public boolean isEnabled() {
+        return this.listener != null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.contentgrid.opa.client.rest;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Settings for single-flight: identical read-only calls that are in flight at the same time share one exchange with
+ * OPA, and one response.
+ */
+@Getter
+public class SingleFlightSpecification {
+
+    public enum Endpoint {
+        /**
+         * Evaluations and reads of documents, {@code /v1/data} and {@code /v1/batch/data}
+         */
+        DATA,
+
+        /**
+         * Ad-hoc queries, {@code /v1/query}
+         */
+        QUERY,
+
+        /**
+         * Partial evaluations, {@code /v1/compile}
+         */
+        COMPILE,
+
+        /**
+         * Reads of policies, {@code GET /v1/policies}
+         */
+        POLICIES
+    }
+
+    private boolean enabled;
+
+    /**
+     * The endpoints of which calls are coalesced.
+     */
+    private Set<Endpoint> endpoints = EnumSet.of(Endpoint.DATA, Endpoint.QUERY, Endpoint.COMPILE);
+
+    /**
+     * Enables single-flight with the default settings.
+     */
+    public SingleFlightSpecification enabled() {
+        this.enabled = true;
+        return this;
+    }
+
+    /**
+     * @param endpoints the endpoints of which calls are coalesced
+     */
+    public SingleFlightSpecification endpoints(Endpoint... endpoints) {
+        Objects.requireNonNull(endpoints, "endpoints cannot be null");
+        if (endpoints.length == 0) {
+            throw new IllegalArgumentException("endpoints cannot be empty");
+        }
+        this.endpoints = EnumSet.of(endpoints[0], endpoints);
+        return this.enabled();
+    }
+}
@@ -0,0 +1,147 @@
+package com.contentgrid.opa.client.rest;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Transport settings for the default http client.
+ */
+@Getter
+public class TransportSpecification {
+
+    public enum Protocol {
+        /**
+         * HTTP/1.1 with a pool of keep-alive connections, one connection for every request in flight.
+         */
+        HTTP_1_1,
+
+        /**
+         * HTTP/2 over cleartext, multiplexing concurrent requests as streams over a single connection.
+         *
+         * OPA only accepts h2c when it is started with the {@code --h2c} flag.
+         */
+        H2C
+    }
+
+    /**
+     * The protocol, {@code null} uses the default of the http client.
+     */
+    private Protocol protocol;
+
+    /**
+     * The maximum number of connections per host, {@code 0} is unlimited.
+     */
+    private int maxConnectionsPerHost;
+
+    /**
+     * The maximum number of concurrent HTTP/2 streams, {@code 0} is unlimited.
+     */
+    private int maxConcurrentStreams;
+
+    /**
+     * How long an idle unix domain socket connection is kept alive, {@code null} uses the default.
+     */
+    private Duration idleTimeout;
+
+    /**
+     * How long to wait for the response to a request, {@code null} waits indefinitely.
+     */
+    private Duration readTimeout;
+
+    /**
+     * The minimum size in bytes of a request body to be gzip compressed, {@code -1} when compression is disabled.
+     */
+    private int compressionThreshold = -1;
+
+    public TransportSpecification protocol(Protocol protocol) {
+        this.protocol = Objects.requireNonNull(protocol, "protocol cannot be null");
+        return this;
+    }
+
+    /**
+     * Caps the number of connections per host. Requests that would need another connection wait until a request
+     * in flight completes.
+     *
+     * Only applies to {@link Protocol#HTTP_1_1}, h2c multiplexes all requests over a single connection.
+     */
+    public TransportSpecification maxConnectionsPerHost(int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost < 0) {
+            throw new IllegalArgumentException("maxConnectionsPerHost cannot be negative");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        return this;
+    }
+
+    /**
+     * Caps the number of concurrent streams on a h2c connection. Requests that would exceed the limit wait until a
+     * request in flight completes.
+     *
+     * Only applies to {@link Protocol#H2C}.
+     */
+    public TransportSpecification maxConcurrentStreams(int maxConcurrentStreams) {
+        if (maxConcurrentStreams < 0) {
+            throw new IllegalArgumentException("maxConcurrentStreams cannot be negative");
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * Sets how long an idle connection to a unix domain socket is kept alive.
+     *
+     * Does not apply to the JDK http client: it only reads its keep-alive timeout from the JVM-wide system properties
+     * {@code jdk.httpclient.keepalive.timeout} and {@code jdk.httpclient.keepalive.timeout.h2}, once, and shares it
+     * with every other {@link java.net.http.HttpClient} in the process. Applications that need another timeout set
+     * these properties themselves, for example with {@code -Djdk.httpclient.keepalive.timeout=30}.
+     */
+    public TransportSpecification idleTimeout(Duration idleTimeout) {
+        Objects.requireNonNull(idleTimeout, "idleTimeout cannot be null");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for OPA to answer a request. A request that takes longer fails with a
+     * {@link java.net.http.HttpTimeoutException}.
+     *
+     * The JDK http client waits until the response headers have been received, the unix domain socket client until
+     * the whole response has been read.
+     */
+    public TransportSpecification readTimeout(Duration readTimeout) {
+        Objects.requireNonNull(readTimeout, "readTimeout cannot be null");
+        if (readTimeout.isNegative() || readTimeout.isZero()) {
+            throw new IllegalArgumentException("readTimeout must be positive");
+        }
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * Enables gzip compression: request bodies of at least {@code threshold} bytes are sent with
+     * {@code Content-Encoding: gzip}, and gzip compressed responses are accepted.
+     *
+     * @param threshold the minimum size in bytes of a request body to be compressed
+     */
+    public TransportSpecification compression(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold cannot be negative");
+        }
+        this.compressionThreshold = threshold;
+        return this;
+    }
+
+    public boolean isCompressionEnabled() {
+        return this.compressionThreshold >= 0;
+    }
+
+    /**
+     * @return the maximum number of requests in flight per host for the configured protocol, {@code 0} is unlimited
+     */
+    public int getMaxRequestsInFlight() {
+        return this.protocol == Protocol.H2C ? this.maxConcurrentStreams : this.maxConnectionsPerHost;
+    }
+}
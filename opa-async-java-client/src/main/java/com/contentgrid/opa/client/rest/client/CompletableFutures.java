@@ -0,0 +1,38 @@
+package com.contentgrid.opa.client.rest.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for the {@link CompletableFuture}s returned by the http clients.
+ */
+public final class CompletableFutures {
+
+    private CompletableFutures() {
+    }
+
+    /**
+     * Cancels the {@code upstream} future when the {@code downstream} future, derived from it, is cancelled. A
+     * dependent {@link CompletableFuture} does not pass cancellation on to the future it depends on by itself.
+     *
+     * @return the downstream future
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> downstream,
+            CompletableFuture<?> upstream) {
+        downstream.whenComplete((result, ex) -> {
+            if (downstream.isCancelled()) {
+                upstream.cancel(true);
+            }
+        });
+        return downstream;
+    }
+
+    /**
+     * Dependent stages wrap the failure of the stage they depend on in a {@link CompletionException}.
+     *
+     * @return the failure that is wrapped, or {@code ex} itself
+     */
+    public static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
@@ -0,0 +1,57 @@
+package com.contentgrid.opa.client.rest.client;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks after a delay on an executor of choice. A single daemon thread, shared by all clients, waits out the
+ * delays and only hands the tasks over, unlike {@link java.util.concurrent.CompletableFuture#delayedExecutor}, which
+ * runs them on the common pool.
+ */
+public final class DelayedExecution {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private DelayedExecution() {
+    }
+
+    /**
+     * Schedules a task. When the executor is {@code null}, or rejects the task, the task runs on the scheduler thread
+     * itself, so it must be short.
+     *
+     * @param task the task to run
+     * @param delay the delay before the task runs
+     * @param unit the unit of the delay
+     * @param executor the executor the task is handed to, may be {@code null}
+     * @return the scheduled task, cancelling it before the delay expired prevents it from running
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit, Executor executor) {
+        return SCHEDULER.schedule(() -> handOver(task, executor), delay, unit);
+    }
+
+    private static void handOver(Runnable task, Executor executor) {
+        if (executor != null) {
+            try {
+                executor.execute(task);
+                return;
+            } catch (RejectedExecutionException ex) {
+                // the executor shuts down, dropping the task could leave a future incomplete forever
+            }
+        }
+        task.run();
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        var scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var thread = new Thread(runnable, "opa-delayed-execution");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // most delays are cancelled, because the awaited response arrived first
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
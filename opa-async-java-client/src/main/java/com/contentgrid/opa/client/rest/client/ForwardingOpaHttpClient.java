@@ -0,0 +1,82 @@
+package com.contentgrid.opa.client.rest.client;
+
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.http.HttpMethod;
+import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Base class for an {@link OpaHttpClient} that decorates the calls of one or more other {@link OpaHttpClient}s, for
+ * example to route, limit or duplicate them. Every call is turned into an {@link OpaHttpExchange} and passed on to
+ * {@link #exchange(OpaHttpExchange)}.
+ */
+public abstract class ForwardingOpaHttpClient implements OpaHttpClient {
+
+    /**
+     * Handles a call, typically by {@link OpaHttpExchange#send(OpaHttpClient) sending} it with another client.
+     *
+     * @param exchange the call
+     * @return the response
+     */
+    protected abstract <TResponse> CompletableFuture<TResponse> exchange(OpaHttpExchange<TResponse> exchange);
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
+            ResponseType<TResponse> responseType) {
+        return this.exchange(new OpaHttpExchange<>(HttpMethod.GET, path, headersCallback, null, responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.exchange(new OpaHttpExchange<>(HttpMethod.POST, path, headersCallback, requestBody, responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.exchange(new OpaHttpExchange<>(HttpMethod.PUT, path, headersCallback, requestBody, responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> patch(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.exchange(new OpaHttpExchange<>(HttpMethod.PATCH, path, headersCallback, requestBody, responseType));
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> delete(String path, Consumer<HttpRequestHeaders> headersCallback,
+            ResponseType<TResponse> responseType) {
+        return this.exchange(new OpaHttpExchange<>(HttpMethod.DELETE, path, headersCallback, null, responseType));
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
+            Class<TResponse> responseType) {
+        return this.get(path, headersCallback, ResponseType.of(responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+        return this.post(path, headersCallback, requestBody, ResponseType.of(responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+        return this.put(path, headersCallback, requestBody, ResponseType.of(responseType));
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> delete(String path, Consumer<HttpRequestHeaders> headersCallback,
+            Class<TResponse> responseType) {
+        return this.delete(path, headersCallback, ResponseType.of(responseType));
+    }
+}
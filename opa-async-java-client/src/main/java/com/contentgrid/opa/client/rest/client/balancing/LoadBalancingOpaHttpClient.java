@@ -0,0 +1,339 @@
+package com.contentgrid.opa.client.rest.client.balancing;
+
+import com.contentgrid.opa.client.rest.LoadBalancingSpecification;
+import com.contentgrid.opa.client.rest.LoadBalancingSpecification.Strategy;
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.RestClientConfiguration;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.client.ForwardingOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An {@link OpaHttpClient} that spreads requests across multiple OPA replicas, without a load balancer in between.
+ *
+ * Read-only requests are routed to a single replica, picked by the configured {@link Strategy}. Requests that modify
+ * OPA, like pushing data or policies, are sent to every replica that is not ejected, so the replicas stay in sync. The
+ * response of the first replica is returned once all of them have responded. When any replica fails, the write fails
+ * with the failure of the first replica that failed, and the failures of the other replicas are added to it as
+ * {@linkplain Throwable#getSuppressed() suppressed} exceptions. An ejected replica misses the writes that are sent
+ * while it is ejected: it has to load its state from bundles, or the application has to push it again.
+ *
+ * A replica is ejected when a request fails on the transport level or times out, both count as a failure of the
+ * replica. The {@code /health} endpoint of every replica is checked periodically, a replica is ejected when it
+ * reports it is unhealthy and restored when it reports it is healthy again. When all replicas are ejected, requests
+ * are still routed to the least loaded replica, and writes are sent to all of them.
+ */
+@Slf4j
+public class LoadBalancingOpaHttpClient extends ForwardingOpaHttpClient implements AutoCloseable {
+
+    private static final String HEALTH_ENDPOINT = "/health";
+    private static final String ENDPOINTS_ATTRIBUTE = LoadBalancingOpaHttpClient.class.getName() + ".endpoints";
+
+    private final List<OpaEndpoint> endpoints;
+    private final Strategy strategy;
+    private final Duration healthCheckInterval;
+    private final Duration requestTimeout;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param urls the base urls of the replicas
+     * @param clientFactory creates the {@link OpaHttpClient} for a replica, the base url is configured on the client
+     * when this client is configured. Clients that are {@link AutoCloseable} are closed with this client.
+     * @param loadBalancing the load balancing settings
+     */
+    public LoadBalancingOpaHttpClient(List<String> urls, Function<String, OpaHttpClient> clientFactory,
+            LoadBalancingSpecification loadBalancing) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("at least one url is required");
+        }
+        this.endpoints = urls.stream()
+                .map(url -> new OpaEndpoint(url, clientFactory.apply(url)))
+                .collect(Collectors.toUnmodifiableList());
+        this.strategy = loadBalancing.getStrategy();
+        this.healthCheckInterval = loadBalancing.getHealthCheckInterval();
+        this.requestTimeout = loadBalancing.getRequestTimeout();
+    }
+
+    /**
+     * @return the replicas, with their request counters
+     */
+    public List<OpaEndpoint> getEndpoints() {
+        return this.endpoints;
+    }
+
+    @Override
+    protected <TResponse> CompletableFuture<TResponse> exchange(OpaHttpExchange<TResponse> exchange) {
+        if (exchange.isReadOnly() || this.endpoints.size() == 1) {
+            // remember the replica, so the exchange goes to another replica when it is sent again, like a hedge
+            @SuppressWarnings("unchecked")
+            var tried = (Set<OpaEndpoint>) exchange.getAttributes()
+                    .computeIfAbsent(ENDPOINTS_ATTRIBUTE, key -> ConcurrentHashMap.newKeySet());
+            var endpoint = this.select(tried);
+            tried.add(endpoint);
+            return this.send(endpoint, exchange);
+        }
+
+        // broadcast, the response of the first replica is returned once all replicas have responded
+        var targets = this.candidates(endpoint -> !endpoint.isEjected());
+        if (targets.isEmpty()) {
+            targets = this.endpoints;
+        }
+        var responses = new ArrayList<CompletableFuture<TResponse>>(targets.size());
+        for (var endpoint : targets) {
+            responses.add(this.send(endpoint, exchange));
+        }
+
+        var replicas = targets;
+        var result = CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .handle((done, ex) -> this.collect(replicas, responses, exchange))
+                .thenCompose(Function.identity());
+        for (var response : responses) {
+            CompletableFutures.propagateCancellation(result, response);
+        }
+        return result;
+    }
+
+    /**
+     * Combines the responses of a broadcast, once all of them are complete.
+     */
+    private <TResponse> CompletableFuture<TResponse> collect(List<OpaEndpoint> replicas,
+            List<CompletableFuture<TResponse>> responses, OpaHttpExchange<TResponse> exchange) {
+        Throwable failure = null;
+        int failed = 0;
+        for (var response : responses) {
+            var cause = response.handle((result, ex) -> ex).join();
+            if (cause == null) {
+                continue;
+            }
+            cause = CompletableFutures.unwrap(cause);
+            failed++;
+            if (failure == null) {
+                failure = cause;
+            } else if (failure != cause) {
+                failure.addSuppressed(cause);
+            }
+        }
+
+        if (failure == null) {
+            return responses.get(0);
+        }
+        if (failed < responses.size()) {
+            // the replicas are out of sync now
+            for (int i = 0; i < responses.size(); i++) {
+                log.warn("{} on OPA endpoint {}: {}", exchange, replicas.get(i).getUrl(),
+                        responses.get(i).isCompletedExceptionally() ? "failed" : "succeeded");
+            }
+        }
+        return CompletableFuture.failedFuture(failure);
+    }
+
+    @Override
+    public void configure(Consumer<RestClientConfiguration> callback) {
+        for (var endpoint : this.endpoints) {
+            endpoint.getClient().configure(config -> {
+                callback.accept(new EndpointConfiguration(config));
+                config.baseUrl(endpoint.getUrl());
+            });
+        }
+
+        synchronized (this) {
+            if (this.scheduler == null) {
+                this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    var thread = new Thread(runnable, "opa-health-check");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long interval = this.healthCheckInterval.toMillis();
+                this.scheduler.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stops the health checks, and closes the clients of the replicas.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+        for (var endpoint : this.endpoints) {
+            if (endpoint.getClient() instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) endpoint.getClient()).close();
+                } catch (Exception ex) {
+                    log.warn("Closing the client of OPA endpoint {} failed", endpoint.getUrl(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Selects a replica, preferring replicas that are not ejected and that the exchange was not sent to before.
+     */
+    OpaEndpoint select(Set<OpaEndpoint> excluded) {
+        var candidates = this.candidates(endpoint -> !endpoint.isEjected() && !excluded.contains(endpoint));
+        if (candidates.isEmpty()) {
+            candidates = this.candidates(endpoint -> !endpoint.isEjected());
+        }
+        if (candidates.isEmpty()) {
+            candidates = this.endpoints;
+        }
+
+        var random = ThreadLocalRandom.current();
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+
+        if (this.strategy == Strategy.POWER_OF_TWO_CHOICES) {
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            var a = candidates.get(first);
+            var b = candidates.get(second);
+            return b.getInFlight() < a.getInFlight() ? b : a;
+        }
+
+        // least outstanding requests, starting at a random offset to spread ties
+        int offset = random.nextInt(size);
+        OpaEndpoint selected = null;
+        for (int i = 0; i < size; i++) {
+            var candidate = candidates.get((offset + i) % size);
+            if (selected == null || candidate.getInFlight() < selected.getInFlight()) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    private List<OpaEndpoint> candidates(Predicate<OpaEndpoint> filter) {
+        var candidates = new ArrayList<OpaEndpoint>(this.endpoints.size());
+        for (var endpoint : this.endpoints) {
+            if (filter.test(endpoint)) {
+                candidates.add(endpoint);
+            }
+        }
+        return candidates;
+    }
+
+    private <TResponse> CompletableFuture<TResponse> send(OpaEndpoint endpoint, OpaHttpExchange<TResponse> exchange) {
+        endpoint.onSend();
+
+        CompletableFuture<TResponse> response;
+        try {
+            response = exchange.send(endpoint.getClient());
+        } catch (RuntimeException ex) {
+            response = CompletableFuture.failedFuture(ex);
+        }
+
+        var upstream = response;
+        var timed = this.requestTimeout == null ? response
+                : response.copy().orTimeout(this.requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        // completes after the request itself, which is aborted on a timeout, so a timeout counts as a failure
+        return CompletableFutures.propagateCancellation(timed.whenComplete((result, ex) -> {
+            boolean failed = ex != null && isTransportFailure(ex);
+            if (failed) {
+                // abort the request when it timed out
+                upstream.cancel(true);
+                if (!endpoint.isEjected()) {
+                    log.warn("Ejecting OPA endpoint {} after {} failed: {}", endpoint.getUrl(), exchange,
+                            ex.toString());
+                    endpoint.setEjected(true);
+                }
+            }
+            endpoint.onComplete(failed);
+        }), upstream);
+    }
+
+    private void checkHealth() {
+        for (var endpoint : this.endpoints) {
+            if (!endpoint.startProbe()) {
+                // the previous check did not complete yet
+                continue;
+            }
+
+            CompletableFuture<Void> health;
+            try {
+                health = endpoint.getClient().get(HEALTH_ENDPOINT, Void.class);
+            } catch (RuntimeException ex) {
+                health = CompletableFuture.failedFuture(ex);
+            }
+
+            var timeout = this.requestTimeout != null ? this.requestTimeout : this.healthCheckInterval;
+            health.copy()
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((result, ex) -> {
+                        boolean healthy = ex == null;
+                        if (healthy && endpoint.isEjected()) {
+                            log.info("Restoring OPA endpoint {}, it reports healthy", endpoint.getUrl());
+                        } else if (!healthy && !endpoint.isEjected()) {
+                            log.warn("Ejecting OPA endpoint {}, health check failed: {}", endpoint.getUrl(),
+                                    ex.toString());
+                        }
+                        endpoint.setEjected(!healthy);
+                        endpoint.endProbe();
+                    });
+        }
+    }
+
+    /**
+     * An error response proves the replica is reachable and a cancelled request says nothing about the replica, only
+     * other failures and timeouts count against it.
+     */
+    private static boolean isTransportFailure(Throwable ex) {
+        var cause = CompletableFutures.unwrap(ex);
+        return !(cause instanceof HttpStatusException || cause instanceof CancellationException);
+    }
+
+    /**
+     * Passes the configuration on to the client of a replica, except for the base url, which is fixed per replica.
+     */
+    private static class EndpointConfiguration implements RestClientConfiguration {
+
+        private final RestClientConfiguration delegate;
+
+        EndpointConfiguration(RestClientConfiguration delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RestClientConfiguration baseUrl(String baseUrl) {
+            return this;
+        }
+
+        @Override
+        public RestClientConfiguration logging(Consumer<LogSpecification> logging) {
+            this.delegate.logging(logging);
+            return this;
+        }
+
+        @Override
+        public RestClientConfiguration executor(Executor executor) {
+            this.delegate.executor(executor);
+            return this;
+        }
+    }
+}
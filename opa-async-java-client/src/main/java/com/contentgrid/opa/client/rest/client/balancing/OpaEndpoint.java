@@ -0,0 +1,93 @@
+package com.contentgrid.opa.client.rest.client.balancing;
+
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single OPA replica behind a {@link LoadBalancingOpaHttpClient}, with its request counters.
+ */
+public class OpaEndpoint {
+
+    private final String url;
+    private final OpaHttpClient client;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile boolean ejected;
+
+    OpaEndpoint(String url, OpaHttpClient client) {
+        this.url = url;
+        this.client = client;
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    /**
+     * @return the number of requests that have been sent to the replica and did not complete yet
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * @return the total number of requests that have been sent to the replica
+     */
+    public long getRequestCount() {
+        return this.requests.get();
+    }
+
+    /**
+     * @return the number of requests that failed or timed out
+     */
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+    /**
+     * @return {@code true} if the replica does not receive requests until its {@code /health} endpoint reports it is
+     * healthy again
+     */
+    public boolean isEjected() {
+        return this.ejected;
+    }
+
+    OpaHttpClient getClient() {
+        return this.client;
+    }
+
+    void onSend() {
+        this.inFlight.incrementAndGet();
+        this.requests.incrementAndGet();
+    }
+
+    void onComplete(boolean failed) {
+        this.inFlight.decrementAndGet();
+        if (failed) {
+            this.failures.incrementAndGet();
+        }
+    }
+
+    void setEjected(boolean ejected) {
+        this.ejected = ejected;
+    }
+
+    boolean startProbe() {
+        return this.probing.compareAndSet(false, true);
+    }
+
+    void endProbe() {
+        this.probing.set(false);
+    }
+
+    @Override
+    public String toString() {
+        return this.url + " (in flight: " + this.getInFlight() + (this.ejected ? ", ejected)" : ")");
+    }
+}
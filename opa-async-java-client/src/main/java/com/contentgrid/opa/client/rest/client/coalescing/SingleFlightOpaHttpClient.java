@@ -0,0 +1,256 @@
+package com.contentgrid.opa.client.rest.client.coalescing;
+
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.RestClientConfiguration;
+import com.contentgrid.opa.client.rest.SingleFlightSpecification;
+import com.contentgrid.opa.client.rest.SingleFlightSpecification.Endpoint;
+import com.contentgrid.opa.client.rest.client.ForwardingOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.HttpMethod;
+import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * An {@link OpaHttpClient} that coalesces identical read-only calls: a call that is identical to a call in flight
+ * does not send a request, but shares the response of the call in flight. The response object is shared as well, it
+ * must not be modified.
+ *
+ * Calls are identical when they have the same method, path, response type, headers callback and request body. To
+ * compare them, request bodies are encoded once as {@link RawJson}, which is sent as-is. The shared request is only
+ * cancelled once all callers cancelled.
+ */
+public class SingleFlightOpaHttpClient extends ForwardingOpaHttpClient {
+
+    private final OpaHttpClient delegate;
+    private final ObjectMapper objectMapper;
+    private final Set<Endpoint> endpoints;
+
+    private final Map<FlightKey, Flight<?>> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param delegate the client that sends the requests
+     * @param singleFlight the single-flight settings
+     * @param objectMapper the object mapper that encodes the request bodies
+     */
+    public SingleFlightOpaHttpClient(OpaHttpClient delegate, SingleFlightSpecification singleFlight,
+            ObjectMapper objectMapper) {
+        this.delegate = delegate;
+        this.objectMapper = objectMapper;
+        this.endpoints = Set.copyOf(singleFlight.getEndpoints());
+    }
+
+    /**
+     * @return the number of calls that shared the response of a call in flight, instead of sending a request
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * @return a snapshot of the coalesced calls and the calls in flight
+     */
+    public SingleFlightStats getStats() {
+        return new SingleFlightStats(this.coalesced.sum(), this.flights.size());
+    }
+
+    @Override
+    public void configure(Consumer<RestClientConfiguration> callback) {
+        this.delegate.configure(callback);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <TResponse> CompletableFuture<TResponse> exchange(OpaHttpExchange<TResponse> exchange) {
+        if (!this.isCoalesced(exchange)) {
+            return exchange.send(this.delegate);
+        }
+
+        Object body;
+        try {
+            body = this.encode(exchange.getRequestBody());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        var key = new FlightKey(exchange.getMethod(), exchange.getPath(), exchange.getResponseType(),
+                exchange.getHeadersCallback(), body);
+
+        var flight = new Flight<TResponse>();
+        var current = (Flight<TResponse>) this.flights.putIfAbsent(key, flight);
+        if (current != null) {
+            var joined = current.join();
+            if (joined != null) {
+                this.coalesced.increment();
+                return joined;
+            }
+            // the flight is landing, it can no longer be joined
+            this.flights.remove(key, current);
+            return this.exchange(exchange);
+        }
+
+        var caller = flight.caller();
+        CompletableFuture<TResponse> response;
+        try {
+            response = new OpaHttpExchange<>(exchange.getMethod(), exchange.getPath(), exchange.getHeadersCallback(),
+                    body, exchange.getResponseType()).send(this.delegate);
+        } catch (RuntimeException ex) {
+            response = CompletableFuture.failedFuture(ex);
+        }
+        flight.depart(response, () -> this.flights.remove(key, flight));
+        return caller;
+    }
+
+    private boolean isCoalesced(OpaHttpExchange<?> exchange) {
+        if (!exchange.isReadOnly() || exchange.getResponseType() instanceof StreamingResponseType) {
+            // every caller of a streamed response has its own consumer
+            return false;
+        }
+
+        var path = exchange.getPath();
+        if (path.startsWith("/v1/data/") || path.startsWith("/v1/batch/data/")) {
+            return this.endpoints.contains(Endpoint.DATA);
+        }
+        if (path.startsWith("/v1/query")) {
+            return this.endpoints.contains(Endpoint.QUERY);
+        }
+        if (path.startsWith("/v1/compile")) {
+            return this.endpoints.contains(Endpoint.COMPILE);
+        }
+        if (path.startsWith("/v1/policies")) {
+            return exchange.getMethod() == HttpMethod.GET && this.endpoints.contains(Endpoint.POLICIES);
+        }
+        return false;
+    }
+
+    private Object encode(Object body) {
+        if (body == null || body instanceof CharSequence || body instanceof RawJson) {
+            return body instanceof CharSequence ? body.toString() : body;
+        }
+        return RawJson.encode(this.objectMapper, body);
+    }
+
+    /**
+     * The callers of a request in flight. Every caller gets its own future, so a caller that cancels does not affect
+     * the others; the request is cancelled when the last caller cancels.
+     */
+    private static class Flight<T> {
+
+        private final CompletableFuture<T> response = new CompletableFuture<>();
+
+        /**
+         * The number of callers that are waiting for the response, starting with the caller that sends the request.
+         * The flight cannot be joined once it dropped to {@code 0}, because every caller cancelled, or to {@code -1},
+         * because the response is known.
+         */
+        private final AtomicInteger callers = new AtomicInteger(1);
+
+        private volatile CompletableFuture<T> request;
+
+        /**
+         * @return a future for the response, or {@code null} when the flight can no longer be joined
+         */
+        CompletableFuture<T> join() {
+            int current;
+            do {
+                current = this.callers.get();
+                if (current <= 0) {
+                    return null;
+                }
+            } while (!this.callers.compareAndSet(current, current + 1));
+            return this.caller();
+        }
+
+        /**
+         * @return a future for the response, for a caller that is already counted
+         */
+        CompletableFuture<T> caller() {
+            var caller = this.response.copy();
+            caller.whenComplete((value, ex) -> {
+                if (caller.isCancelled()) {
+                    this.leave();
+                }
+            });
+            return caller;
+        }
+
+        void depart(CompletableFuture<T> request, Runnable landed) {
+            this.request = request;
+            request.whenComplete((value, ex) -> {
+                // no caller can join once the response is known, later calls send a new request
+                this.callers.set(-1);
+                landed.run();
+                if (ex != null) {
+                    this.response.completeExceptionally(ex);
+                } else {
+                    this.response.complete(value);
+                }
+            });
+            if (this.callers.get() <= 0) {
+                // all callers cancelled before the request was sent, or the request completed already
+                request.cancel(true);
+            }
+        }
+
+        private void leave() {
+            // only the last caller to leave sees 0, callers that leave after the response is known never do
+            if (this.callers.decrementAndGet() == 0) {
+                var inFlight = this.request;
+                if (inFlight != null) {
+                    inFlight.cancel(true);
+                }
+            }
+        }
+    }
+
+    private static final class FlightKey {
+
+        private final HttpMethod method;
+        private final String path;
+        private final ResponseType<?> responseType;
+        private final Consumer<HttpRequestHeaders> headersCallback;
+        private final Object body;
+
+        private FlightKey(HttpMethod method, String path, ResponseType<?> responseType,
+                Consumer<HttpRequestHeaders> headersCallback, Object body) {
+            this.method = method;
+            this.path = path;
+            this.responseType = responseType;
+            this.headersCallback = headersCallback;
+            this.body = body;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FlightKey)) {
+                return false;
+            }
+            var other = (FlightKey) o;
+            // headers callbacks are compared by identity, a lambda that captures nothing is a single instance
+            return this.method == other.method && this.path.equals(other.path)
+                    && Objects.equals(this.responseType, other.responseType)
+                    && this.headersCallback == other.headersCallback
+                    && Objects.equals(this.body, other.body);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.method, this.path, this.responseType, System.identityHashCode(this.headersCallback),
+                    this.body);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.contentgrid.opa.client.rest.client.coalescing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A snapshot of the statistics of a {@link SingleFlightOpaHttpClient}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SingleFlightStats {
+
+    /**
+     * The number of calls that shared the response of a call in flight, instead of sending a request
+     */
+    private final long coalescedCount;
+
+    /**
+     * The number of distinct calls in flight
+     */
+    private final int flightCount;
+
+    @Override
+    public String toString() {
+        return "SingleFlightStats(coalesced=" + this.coalescedCount + ", flights=" + this.flightCount + ")";
+    }
+}
@@ -0,0 +1,258 @@
+package com.contentgrid.opa.client.rest.client.hedging;
+
+import com.contentgrid.opa.client.rest.HedgingSpecification;
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.RestClientConfiguration;
+import com.contentgrid.opa.client.rest.client.DelayedExecution;
+import com.contentgrid.opa.client.rest.client.ForwardingOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * An {@link OpaHttpClient} that hedges read-only requests: when no response arrived after a delay, the request is sent
+ * a second time and the first response wins. The other request is cancelled.
+ *
+ * The delay is either fixed, or a percentile of recent latencies. Hedges are capped by a budget, a percentage of the
+ * number of requests, so a slow OPA does not get even more load. When the delegate is a
+ * {@link com.contentgrid.opa.client.rest.client.balancing.LoadBalancingOpaHttpClient}, the hedge goes to another
+ * replica.
+ *
+ * The delay is waited out by {@link DelayedExecution}, which hands the hedge to the configured
+ * {@linkplain RestClientConfiguration#executor(Executor) executor}. The original request is sent with its body as is.
+ * When an object mapper is provided, the body of a hedge is encoded as {@link RawJson} on that executor, only once
+ * the hedge is actually sent.
+ */
+public class HedgingOpaHttpClient extends ForwardingOpaHttpClient {
+
+    private static final int LATENCY_WINDOW = 1024;
+
+    /**
+     * The budget is tracked in thousandths of a hedge, and can save up for a burst of hedges.
+     */
+    private static final long HEDGE_COST = 1000;
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+    private final OpaHttpClient delegate;
+    private final ObjectMapper objectMapper;
+
+    private final long delayNanos;
+    private final LatencyTracker latencies;
+    private final long budgetPerRequest;
+
+    private final AtomicLong budget = new AtomicLong();
+
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+
+    private volatile Executor executor;
+
+    /**
+     * Hedges without encoding the request bodies, the delegate serializes the body of a hedge.
+     *
+     * @param delegate the client that sends the requests
+     * @param hedging the hedging settings, a delay or percentile is required
+     */
+    public HedgingOpaHttpClient(OpaHttpClient delegate, HedgingSpecification hedging) {
+        this(delegate, hedging, null);
+    }
+
+    /**
+     * @param delegate the client that sends the requests
+     * @param hedging the hedging settings, a delay or percentile is required
+     * @param objectMapper the object mapper that encodes the request bodies of hedges, or {@code null}
+     */
+    public HedgingOpaHttpClient(OpaHttpClient delegate, HedgingSpecification hedging, ObjectMapper objectMapper) {
+        if (!hedging.isEnabled()) {
+            throw new IllegalArgumentException("hedging requires a delay or a percentile");
+        }
+        this.delegate = delegate;
+        this.objectMapper = objectMapper;
+        this.delayNanos = hedging.getDelay() != null ? hedging.getDelay().toNanos() : -1;
+        this.latencies = hedging.getPercentile() > 0 ? new LatencyTracker(hedging.getPercentile(), LATENCY_WINDOW) : null;
+        this.budgetPerRequest = Math.round(hedging.getBudgetPercent() / 100 * HEDGE_COST);
+    }
+
+    /**
+     * @return the number of hedges that have been sent
+     */
+    public long getHedgeCount() {
+        return this.hedges.get();
+    }
+
+    /**
+     * @return the number of hedges that responded before the original request
+     */
+    public long getHedgeWinCount() {
+        return this.hedgeWins.get();
+    }
+
+    /**
+     * @return the number of hedges that were not sent because the budget was exhausted
+     */
+    public long getBudgetExhaustedCount() {
+        return this.budgetExhausted.get();
+    }
+
+    /**
+     * @return a snapshot of the hedge counters
+     */
+    public HedgingStats getStats() {
+        return new HedgingStats(this.hedges.get(), this.hedgeWins.get(), this.budgetExhausted.get());
+    }
+
+    @Override
+    public void configure(Consumer<RestClientConfiguration> callback) {
+        this.delegate.configure(config -> callback.accept(new ExecutorCapturingConfiguration(config)));
+    }
+
+    @Override
+    protected <TResponse> CompletableFuture<TResponse> exchange(OpaHttpExchange<TResponse> exchange) {
+        if (!exchange.isReadOnly() || exchange.getResponseType() instanceof StreamingResponseType) {
+            // a hedge of a streamed response would hand the elements to the consumer twice
+            return exchange.send(this.delegate);
+        }
+
+        this.budget.getAndUpdate(current -> Math.min(MAX_BUDGET, current + this.budgetPerRequest));
+
+        long delay = this.currentDelayNanos();
+        long start = System.nanoTime();
+        if (delay < 0) {
+            return this.track(exchange.send(this.delegate), start);
+        }
+
+        var primary = exchange.send(this.delegate);
+
+        var result = new CompletableFuture<TResponse>();
+        var outstanding = new AtomicInteger(1);
+        this.complete(result, primary, outstanding, false);
+        this.track(primary, start);
+
+        var timer = DelayedExecution.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (!this.tryAcquireBudget()) {
+                this.budgetExhausted.incrementAndGet();
+                return;
+            }
+
+            this.hedges.incrementAndGet();
+            outstanding.incrementAndGet();
+            CompletableFuture<TResponse> hedge;
+            try {
+                // most requests are answered before the delay, only the hedges pay for encoding the body
+                hedge = this.encode(exchange).send(this.delegate);
+            } catch (RuntimeException ex) {
+                hedge = CompletableFuture.failedFuture(ex);
+            }
+            this.complete(result, hedge, outstanding, true);
+        }, delay, TimeUnit.NANOSECONDS, this.executor);
+        result.whenComplete((response, ex) -> timer.cancel(false));
+
+        return result;
+    }
+
+    private <TResponse> OpaHttpExchange<TResponse> encode(OpaHttpExchange<TResponse> exchange) {
+        var body = exchange.getRequestBody();
+        if (this.objectMapper == null || body == null || body instanceof CharSequence || body instanceof RawJson) {
+            return exchange;
+        }
+        return new OpaHttpExchange<>(exchange.getMethod(), exchange.getPath(), exchange.getHeadersCallback(),
+                RawJson.encode(this.objectMapper, body), exchange.getResponseType());
+    }
+
+    /**
+     * Completes the result with the first response. A failure only completes the result when no other request is
+     * outstanding. Once the result is complete, the attempt is cancelled if it is still in flight.
+     */
+    private <TResponse> void complete(CompletableFuture<TResponse> result, CompletableFuture<TResponse> attempt,
+            AtomicInteger outstanding, boolean isHedge) {
+        result.whenComplete((response, ex) -> attempt.cancel(true));
+        attempt.whenComplete((response, ex) -> {
+            int remaining = outstanding.decrementAndGet();
+            if (ex == null) {
+                if (result.complete(response) && isHedge) {
+                    this.hedgeWins.incrementAndGet();
+                }
+            } else if (remaining == 0) {
+                result.completeExceptionally(ex);
+            }
+        });
+    }
+
+    private <TResponse> CompletableFuture<TResponse> track(CompletableFuture<TResponse> primary, long start) {
+        if (this.latencies != null) {
+            primary.whenComplete((response, ex) -> {
+                // a primary that is cancelled because the hedge won took at least this long
+                if (ex == null || primary.isCancelled()) {
+                    this.latencies.record(System.nanoTime() - start);
+                }
+            });
+        }
+        return primary;
+    }
+
+    /**
+     * @return the delay before a hedge is sent, or {@code -1} if no hedge should be sent
+     */
+    private long currentDelayNanos() {
+        if (this.latencies != null) {
+            long percentile = this.latencies.getPercentileNanos();
+            if (percentile >= 0) {
+                return Math.max(percentile, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        return this.delayNanos;
+    }
+
+    private boolean tryAcquireBudget() {
+        long current;
+        do {
+            current = this.budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!this.budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    /**
+     * Remembers the executor the hedges are handed to, and passes the configuration on to the delegate.
+     */
+    private class ExecutorCapturingConfiguration implements RestClientConfiguration {
+
+        private final RestClientConfiguration delegate;
+
+        ExecutorCapturingConfiguration(RestClientConfiguration delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RestClientConfiguration baseUrl(String baseUrl) {
+            this.delegate.baseUrl(baseUrl);
+            return this;
+        }
+
+        @Override
+        public RestClientConfiguration logging(Consumer<LogSpecification> logging) {
+            this.delegate.logging(logging);
+            return this;
+        }
+
+        @Override
+        public RestClientConfiguration executor(Executor executor) {
+            HedgingOpaHttpClient.this.executor = executor;
+            this.delegate.executor(executor);
+            return this;
+        }
+    }
+}
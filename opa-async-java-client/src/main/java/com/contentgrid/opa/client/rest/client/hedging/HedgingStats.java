@@ -0,0 +1,33 @@
+package com.contentgrid.opa.client.rest.client.hedging;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A snapshot of the statistics of a {@link HedgingOpaHttpClient}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class HedgingStats {
+
+    /**
+     * The number of hedges that have been sent
+     */
+    private final long hedgeCount;
+
+    /**
+     * The number of hedges that responded before the original request
+     */
+    private final long hedgeWinCount;
+
+    /**
+     * The number of hedges that were not sent because the budget was exhausted
+     */
+    private final long budgetExhaustedCount;
+
+    @Override
+    public String toString() {
+        return "HedgingStats(hedges=" + this.hedgeCount + ", wins=" + this.hedgeWinCount + ", budgetExhausted="
+                + this.budgetExhaustedCount + ")";
+    }
+}
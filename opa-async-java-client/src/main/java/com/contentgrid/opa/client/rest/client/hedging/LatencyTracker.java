@@ -0,0 +1,56 @@
+package com.contentgrid.opa.client.rest.client.hedging;
+
+import java.util.Arrays;
+
+/**
+ * Tracks a percentile over a sliding window of recent latencies. The percentile is recomputed every few samples,
+ * rather than for every request.
+ */
+class LatencyTracker {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final double percentile;
+    private final long[] window;
+
+    private int count;
+    private int next;
+    private int sinceRecompute;
+
+    private volatile long percentileNanos = -1;
+
+    LatencyTracker(double percentile, int windowSize) {
+        this.percentile = percentile;
+        this.window = new long[windowSize];
+    }
+
+    void record(long nanos) {
+        long[] snapshot = null;
+        synchronized (this) {
+            this.window[this.next] = nanos;
+            this.next = (this.next + 1) % this.window.length;
+            this.count = Math.min(this.count + 1, this.window.length);
+
+            if (this.count >= MIN_SAMPLES
+                    && (this.percentileNanos < 0 || ++this.sinceRecompute >= RECOMPUTE_INTERVAL)) {
+                this.sinceRecompute = 0;
+                snapshot = Arrays.copyOf(this.window, this.count);
+            }
+        }
+
+        if (snapshot != null) {
+            // sort outside of the lock
+            Arrays.sort(snapshot);
+            int index = (int) Math.ceil(this.percentile / 100 * snapshot.length) - 1;
+            this.percentileNanos = snapshot[Math.max(0, Math.min(index, snapshot.length - 1))];
+        }
+    }
+
+    /**
+     * @return the percentile in nanoseconds, or {@code -1} when not enough latencies have been recorded yet
+     */
+    long getPercentileNanos() {
+        return this.percentileNanos;
+    }
+}
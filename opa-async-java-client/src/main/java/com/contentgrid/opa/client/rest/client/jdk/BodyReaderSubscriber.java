@@ -0,0 +1,81 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+
+/**
+ * A {@link BodySubscriber} that pushes every received chunk of the response body into a {@link BodyReader}, so the
+ * response is converted while it arrives instead of after buffering the complete body.
+ *
+ * @param <T> the response body type
+ */
+class BodyReaderSubscriber<T> implements BodySubscriber<T> {
+
+    private final BodyReader<T> reader;
+    private final CompletableFuture<T> body = new CompletableFuture<>();
+
+    private Subscription subscription;
+
+    BodyReaderSubscriber(BodyReader<T> reader) {
+        this.reader = Objects.requireNonNull(reader, "reader is required");
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return this.body;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> chunks) {
+        if (this.body.isDone()) {
+            return;
+        }
+
+        try {
+            for (ByteBuffer chunk : chunks) {
+                this.reader.onNext(chunk);
+            }
+        } catch (RuntimeException ex) {
+            this.subscription.cancel();
+            this.body.completeExceptionally(ex);
+            return;
+        }
+
+        this.subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (this.body.isDone()) {
+            return;
+        }
+
+        try {
+            this.body.complete(this.reader.complete());
+        } catch (RuntimeException ex) {
+            this.body.completeExceptionally(ex);
+        }
+    }
+}
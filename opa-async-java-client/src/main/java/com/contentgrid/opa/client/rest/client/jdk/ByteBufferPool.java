@@ -0,0 +1,78 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of fixed-size heap {@link ByteBuffer} segments, used to serialize request bodies without allocating
+ * a new large array for every request.
+ */
+public class ByteBufferPool {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024;
+    public static final int DEFAULT_MAX_POOLED_SEGMENTS = 256;
+
+    private final int segmentSize;
+    private final int maxPooledSegments;
+
+    private final Queue<ByteBuffer> segments = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public ByteBufferPool() {
+        this(DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_POOLED_SEGMENTS);
+    }
+
+    /**
+     * @param segmentSize the size in bytes of a segment
+     * @param maxPooledSegments the maximum number of idle segments kept in the pool, additional segments are left to
+     * the garbage collector
+     */
+    public ByteBufferPool(int segmentSize, int maxPooledSegments) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive");
+        }
+        if (maxPooledSegments < 0) {
+            throw new IllegalArgumentException("maxPooledSegments cannot be negative");
+        }
+        this.segmentSize = segmentSize;
+        this.maxPooledSegments = maxPooledSegments;
+    }
+
+    /**
+     * @return an empty segment, ready to be written
+     */
+    public ByteBuffer acquire() {
+        var segment = this.segments.poll();
+        if (segment == null) {
+            return ByteBuffer.allocate(this.segmentSize);
+        }
+
+        this.pooled.decrementAndGet();
+        return segment;
+    }
+
+    /**
+     * Returns a segment to the pool. The segment must not be used anymore by the caller.
+     *
+     * @param segment the segment, acquired from this pool
+     */
+    public void release(ByteBuffer segment) {
+        if (segment.capacity() != this.segmentSize || segment.isReadOnly()) {
+            return;
+        }
+
+        if (this.pooled.incrementAndGet() > this.maxPooledSegments) {
+            this.pooled.decrementAndGet();
+            return;
+        }
+
+        segment.clear();
+        this.segments.offer(segment);
+    }
+
+    public int getSegmentSize() {
+        return this.segmentSize;
+    }
+}
@@ -0,0 +1,56 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking semaphore: callers that exceed the limit get a future that completes once a permit is released.
+ */
+class ConcurrencyGate {
+
+    private static final CompletableFuture<Void> ACQUIRED = CompletableFuture.completedFuture(null);
+
+    private final int limit;
+    private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    private int inFlight;
+
+    ConcurrencyGate(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * @return a future that completes when the caller holds a permit
+     */
+    synchronized CompletableFuture<Void> acquire() {
+        if (this.inFlight < this.limit) {
+            this.inFlight++;
+            return ACQUIRED;
+        }
+
+        var permit = new CompletableFuture<Void>();
+        this.waiting.add(permit);
+        return permit;
+    }
+
+    /**
+     * Releases a permit, handing it over to the first waiting caller, if any.
+     */
+    void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            next = this.waiting.poll();
+            if (next == null) {
+                this.inFlight--;
+                return;
+            }
+        }
+
+        // complete outside the lock, this runs the next request on the current thread
+        next.complete(null);
+    }
+}
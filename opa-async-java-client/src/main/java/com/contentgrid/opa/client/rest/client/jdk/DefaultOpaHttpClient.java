@@ -1,7 +1,10 @@
 package com.contentgrid.opa.client.rest.client.jdk;
 
 import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.TransportSpecification;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
 import com.contentgrid.opa.client.rest.client.jdk.converter.ConverterProcessor;
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
 import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.DeserializationContext;
 import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.SerializationContext;
 import com.contentgrid.opa.client.rest.client.jdk.converter.JacksonBodyConverter;
@@ -9,29 +12,48 @@ import com.contentgrid.opa.client.rest.client.jdk.converter.StringConverter;
 import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
 import com.contentgrid.opa.client.rest.http.HttpStatusException;
 import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.contentgrid.opa.client.rest.http.ResponseType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.contentgrid.opa.client.rest.RestClientConfiguration;
 import com.contentgrid.opa.client.rest.http.HttpMethod;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class DefaultOpaHttpClient implements OpaHttpClient {
 
     private final HttpClient httpClient;
+    private final ConcurrencyGate gate;
+    private final int compressionThreshold;
+    private final Duration readTimeout;
+    private final ByteBufferPool bufferPool = new ByteBufferPool();
+    private final GzipEncoder gzipEncoder = new GzipEncoder(this.bufferPool.getSegmentSize());
 
     final ConverterProcessor converterProcessor;
 
     private URI baseUrl;
     private RequestLogger logger;
+    private Executor executor;
 
     private static final String MEDIA_APPLICATION_JSON = "application/json";
     private static final String MEDIA_TEXT_PLAIN_CHARSET_UTF8 = "text/plain; charset=utf-8";
@@ -39,50 +61,144 @@ public class DefaultOpaHttpClient implements OpaHttpClient {
 
     private static final String HEADER_ACCEPT = "Accept";
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String GZIP = "gzip";
+
+    /**
+     * Request URIs and content types are parsed once, the caches stop growing beyond this size.
+     */
+    private static final int MAX_CACHED_VALUES = 256;
+
+    private final Map<String, URI> uris = new ConcurrentHashMap<>();
+    private final Map<String, MediaType> contentTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Request bodies that are expected to be smaller than this many bytes are serialized on the calling thread, even
+     * when an {@link Executor} is configured.
+     */
+    static final int INLINE_SERIALIZATION_THRESHOLD = 16 * 1024;
+
+    /**
+     * The size of the latest serialized body of every type of request body, which is the expected size of the next
+     * one. The map stops growing beyond {@link #MAX_CACHED_VALUES} types.
+     */
+    private final Map<Class<?>, Long> bodySizes = new ConcurrentHashMap<>();
 
     public DefaultOpaHttpClient(HttpClient httpClient, ObjectMapper objectMapper) {
+        this(httpClient, objectMapper, new TransportSpecification());
+    }
+
+    /**
+     * @param httpClient the JDK http client
+     * @param objectMapper the object mapper for json request and response bodies
+     * @param transport the transport settings: excess requests beyond the maximum number of requests in flight wait
+     * until a request in flight completes, bodies are compressed when compression is enabled, requests time out after
+     * the read timeout
+     */
+    public DefaultOpaHttpClient(HttpClient httpClient, ObjectMapper objectMapper, TransportSpecification transport) {
         this.httpClient = httpClient;
 
+        int maxRequestsInFlight = transport.getMaxRequestsInFlight();
+        this.gate = maxRequestsInFlight > 0 ? new ConcurrencyGate(maxRequestsInFlight) : null;
+        this.compressionThreshold = transport.getCompressionThreshold();
+        this.readTimeout = transport.getReadTimeout();
+
         this.converterProcessor = new ConverterProcessor(List.of(
                 new StringConverter(),
                 new JacksonBodyConverter(objectMapper)
-        ));
+        ), this.bufferPool);
     }
 
 
+    /**
+     * Maps the configured base url onto the base url used for the requests.
+     *
+     * @param configuredUrl the configured base url
+     * @return the base url to resolve request paths against
+     */
+    protected URI toBaseUrl(URI configuredUrl) {
+        return configuredUrl;
+    }
+
     private URI createUri(String path) {
-        return this.baseUrl.resolve(path);
+        var uri = this.uris.get(path);
+        if (uri == null) {
+            uri = this.baseUrl.resolve(path);
+            if (this.uris.size() < MAX_CACHED_VALUES) {
+                this.uris.put(path, uri);
+            }
+        }
+        return uri;
     }
 
     @Override
     public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
-            Class<TResponse> responseType) {
+            ResponseType<TResponse> responseType) {
         return this.execute(HttpMethod.GET, this.createUri(path), headersCallback, null, responseType);
     }
 
     @Override
     public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
-            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
         return this.execute(HttpMethod.POST, this.createUri(path), headersCallback, requestBody, responseType);
     }
 
     @Override
     public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
-            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
         return this.execute(HttpMethod.PUT, this.createUri(path), headersCallback, requestBody, responseType);
     }
 
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> patch(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.execute(HttpMethod.PATCH, this.createUri(path), headersCallback, requestBody, responseType);
+    }
+
     @Override
     public <TResponse> CompletableFuture<TResponse> delete(String path, Consumer<HttpRequestHeaders> headersCallback,
-            Class<TResponse> responseType) {
+            ResponseType<TResponse> responseType) {
         return this.execute(HttpMethod.DELETE, this.createUri(path), headersCallback, null, responseType);
     }
 
+    @Override
+    public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
+            Class<TResponse> responseType) {
+        return this.get(path, headersCallback, ResponseType.of(responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+        return this.post(path, headersCallback, requestBody, ResponseType.of(responseType));
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+        return this.put(path, headersCallback, requestBody, ResponseType.of(responseType));
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> delete(String path, Consumer<HttpRequestHeaders> headersCallback,
+            Class<TResponse> responseType) {
+        return this.delete(path, headersCallback, ResponseType.of(responseType));
+    }
+
     @Override
     public void configure(Consumer<RestClientConfiguration> callback) {
         var config = new DefaultRestClientConfiguration(
-                uri -> this.baseUrl = uri,
-                logConfig -> this.logger = new RequestLogger(logConfig, log::debug)
+                uri -> {
+                    this.baseUrl = this.toBaseUrl(uri);
+                    this.uris.clear();
+                },
+                logConfig -> this.logger = new RequestLogger(logConfig, log::debug),
+                executor -> this.executor = executor
         );
 
         callback.accept(config);
@@ -92,58 +208,320 @@ public class DefaultOpaHttpClient implements OpaHttpClient {
     private <TRequest, TResponse> CompletableFuture<TResponse> execute(
             HttpMethod method, URI uri,
             Consumer<HttpRequestHeaders> headersCallback,
-            TRequest requestBody, Class<TResponse> responseType) {
+            TRequest requestBody, ResponseType<TResponse> responseType) {
 
         HttpHeadersBuilder headers = createDefaultRequestHeaders();
         if (headersCallback != null) {
             headersCallback.accept(headers);
         }
 
-        return CompletableFuture.completedFuture(SerializationContext.of(requestBody, headers))
-                .thenApplyAsync(this.converterProcessor::write)
-                .thenApply(httpEntity -> {
-                    var request = HttpRequest.newBuilder(uri);
+        var contentType = headers.getFirst(HEADER_CONTENT_TYPE)
+                .filter(value -> !value.isEmpty())
+                .map(this::parseContentType)
+                .orElse(null);
+        var context = SerializationContext.of(requestBody, headers, contentType);
 
-                    // convert httpEntity in proper request
-                    // 1. apply headers
-                    httpEntity.getHeaders().forEach((key, values) -> {
-                        values.forEach(val -> {
-                            request.header(key, val);
-                        });
-                    });
+        var error = new AtomicReference<ErrorResponse>();
+        var bodyHandler = this.createBodyHandler(responseType, error);
 
-                    // 2. apply optional payload
-                    var requestBodyPublisher = httpEntity.getBody().map(BodyPublishers::ofByteArray)
-                            .orElse(BodyPublishers.noBody());
-                    request.method(method.toString(), requestBodyPublisher);
+        CompletableFuture<HttpEntity> entity;
+        if (this.executor == null || this.isInlineSerializable(context)) {
+            // serialize on the calling thread, avoiding a hop to another thread before the request is sent
+            try {
+                entity = CompletableFuture.completedFuture(this.createEntity(context));
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        } else {
+            entity = CompletableFuture.supplyAsync(() -> this.createEntity(context), this.executor);
+        }
 
-                    return request;
+        // cancelling the result aborts the exchange
+        var sent = new AtomicReference<CompletableFuture<?>>();
+        var result = entity
+                .thenCompose(httpEntity -> {
+                    var response = this.exchange(method, uri, httpEntity, bodyHandler);
+                    sent.set(response);
+                    return response;
                 })
-                .thenApply(HttpRequest.Builder::build)
-                .thenApply(this::logRequest)
-                .thenCompose(request -> this.httpClient.sendAsync(request, BodyHandlers.ofByteArray()))
-                .whenComplete(this::logResponse)
-                .whenComplete(this::handleStatusCode)
-                .thenApply(response -> {
-                    var responseContentType = response.headers().firstValue("Content-Type")
-                            .map(MediaType::parseMediaType)
-                            .orElse(null);
-                    var context = DeserializationContext.of(response.body(), responseContentType);
-                    return this.converterProcessor.read(context, responseType);
-                });
+                .thenApply(response -> this.handleResponse(response, error));
+        result.whenComplete((response, ex) -> {
+            var inFlight = sent.get();
+            if (result.isCancelled() && inFlight != null) {
+                inFlight.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends the request and releases the (pooled) request body once the exchange has completed. When the exchange was
+     * cancelled or failed, the HTTP client may still be writing the body, so its segments are not recycled.
+     */
+    private <TResponse> CompletableFuture<HttpResponse<TResponse>> exchange(HttpMethod method, URI uri,
+            HttpEntity httpEntity, BodyHandler<TResponse> bodyHandler) {
+        CompletableFuture<HttpResponse<TResponse>> response;
+        try {
+            response = this.send(this.createRequest(method, uri, httpEntity), bodyHandler);
+        } catch (RuntimeException ex) {
+            response = CompletableFuture.failedFuture(ex);
+        }
+        return CompletableFutures.propagateCancellation(
+                response.whenComplete((httpResponse, ex) -> {
+                    if (ex == null) {
+                        httpEntity.release();
+                    } else {
+                        httpEntity.discard();
+                    }
+                }), response);
+    }
+
+    private <TResponse> CompletableFuture<HttpResponse<TResponse>> send(HttpRequest request,
+            BodyHandler<TResponse> bodyHandler) {
+        if (this.gate == null) {
+            return this.httpClient.sendAsync(request, bodyHandler);
+        }
+
+        var result = new CompletableFuture<HttpResponse<TResponse>>();
+        this.gate.acquire().thenRun(() -> {
+            if (result.isDone()) {
+                // cancelled while waiting for a permit
+                this.gate.release();
+                return;
+            }
+
+            CompletableFuture<HttpResponse<TResponse>> response;
+            try {
+                response = this.httpClient.sendAsync(request, bodyHandler);
+            } catch (RuntimeException ex) {
+                this.gate.release();
+                result.completeExceptionally(ex);
+                return;
+            }
+            CompletableFutures.propagateCancellation(result, response);
+            response.whenComplete((httpResponse, ex) -> {
+                this.gate.release();
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(httpResponse);
+                }
+            });
+        });
+        return result;
     }
 
+    /**
+     * Serializes the request body, compressing it when it is large enough.
+     */
+    private HttpEntity createEntity(SerializationContext context) {
+        var httpEntity = this.converterProcessor.write(context);
+
+        var body = httpEntity.getBody().orElse(null);
+        if (!context.isEmpty()) {
+            this.recordBodySize(context.getSource(), body == null ? 0 : body.getContentLength());
+        }
+        if (body == null || this.compressionThreshold < 0 || body.getContentLength() < this.compressionThreshold) {
+            return httpEntity;
+        }
 
-    private void handleStatusCode(HttpResponse<byte[]> response, Throwable exception) {
-        if (response != null && response.statusCode() >= 400) {
-            throw new HttpStatusException(response.statusCode());
+        try {
+            var compressed = this.gzip(body);
+            httpEntity.getHeaders().set(HEADER_CONTENT_ENCODING, GZIP);
+            return new HttpEntity(httpEntity.getHeaders(), compressed);
+        } finally {
+            httpEntity.release();
         }
     }
 
+    private HttpRequest createRequest(HttpMethod method, URI uri, HttpEntity httpEntity) {
+        var request = HttpRequest.newBuilder(uri);
+
+        // convert httpEntity in proper request
+        // 1. apply headers
+        httpEntity.getHeaders().forEach((key, values) -> {
+            values.forEach(val -> {
+                request.header(key, val);
+            });
+        });
+
+        // 2. apply optional payload, published straight from the body segments
+        var requestBodyPublisher = httpEntity.getBody()
+                .map(SegmentedBody::toBodyPublisher)
+                .orElse(BodyPublishers.noBody());
+        request.method(method.toString(), requestBodyPublisher);
+
+        // 3. apply the optional timeout
+        if (this.readTimeout != null) {
+            request.timeout(this.readTimeout);
+        }
+
+        return this.logRequest(request.build());
+    }
+
+    /**
+     * Checks if the request body is small enough to be serialized on the calling thread, even when an
+     * {@link Executor} is configured: requests without a body, and bodies that are expected to be smaller than
+     * {@link #INLINE_SERIALIZATION_THRESHOLD}.
+     *
+     * The size of text and pre-encoded {@link RawJson} bodies is known up front. The size of other bodies is only known
+     * after serializing them, so a body is expected to be as large as the latest body of the same type: the first body
+     * of every type is serialized on the executor.
+     */
+    protected boolean isInlineSerializable(SerializationContext context) {
+        if (context.isEmpty()) {
+            return true;
+        }
+        var size = this.expectedBodySize(context.getSource());
+        return size >= 0 && size < INLINE_SERIALIZATION_THRESHOLD;
+    }
+
+    /**
+     * @return the expected size in bytes of the serialized body, {@code -1} when it is not known
+     */
+    private long expectedBodySize(Object source) {
+        if (source instanceof CharSequence) {
+            return ((CharSequence) source).length();
+        }
+        if (source instanceof RawJson) {
+            return source.toString().length();
+        }
+        return this.bodySizes.getOrDefault(source.getClass(), -1L);
+    }
+
+    private void recordBodySize(Object source, long size) {
+        if (source instanceof CharSequence || source instanceof RawJson) {
+            return;
+        }
+        var type = source.getClass();
+        if (this.bodySizes.containsKey(type) || this.bodySizes.size() < MAX_CACHED_VALUES) {
+            this.bodySizes.put(type, size);
+        }
+    }
+
+    /**
+     * Creates a {@link BodyHandler} that converts the response body into the response type while it arrives.
+     *
+     * The body of an error response is read into {@code error}, {@link #handleResponse(HttpResponse, AtomicReference)}
+     * fails the exchange afterwards.
+     */
+    private <TResponse> BodyHandler<TResponse> createBodyHandler(ResponseType<TResponse> responseType,
+            AtomicReference<ErrorResponse> error) {
+        return responseInfo -> {
+            this.logResponse(responseInfo);
+
+            var responseContentType = responseInfo.headers().firstValue(HEADER_CONTENT_TYPE)
+                    .map(this::parseContentType)
+                    .orElse(null);
+            var context = DeserializationContext.of(responseContentType);
+
+            BodyReader<TResponse> reader;
+            if (responseInfo.statusCode() >= 400) {
+                reader = this.createErrorReader(context, error);
+            } else {
+                reader = this.converterProcessor.reader(context, responseType);
+            }
+
+            // log the decoded body, decompress before converting it
+            reader = this.logger.logResponseBody(responseInfo, reader);
+            if (isGzipEncoded(responseInfo)) {
+                reader = new GzipDecodingBodyReader<>(reader);
+            }
+
+            return new BodyReaderSubscriber<>(reader);
+        };
+    }
+
+    private MediaType parseContentType(String contentType) {
+        var mediaType = this.contentTypes.get(contentType);
+        if (mediaType == null) {
+            mediaType = MediaType.parseMediaType(contentType);
+            if (this.contentTypes.size() < MAX_CACHED_VALUES) {
+                this.contentTypes.put(contentType, mediaType);
+            }
+        }
+        return mediaType;
+    }
+
+    /**
+     * Creates a {@link BodyReader} that reads the OPA error in the body of an error response into {@code error}. A body
+     * that is not an OPA error, like the error page of a proxy, is ignored.
+     */
+    private <TResponse> BodyReader<TResponse> createErrorReader(DeserializationContext context,
+            AtomicReference<ErrorResponse> error) {
+        BodyReader<ErrorResponse> errorReader;
+        try {
+            errorReader = this.converterProcessor.reader(context, ResponseType.of(ErrorResponse.class));
+        } catch (UncheckedIOException ex) {
+            return BodyReader.discarding();
+        }
+
+        return new BodyReader<>() {
+            private boolean failed;
+
+            @Override
+            public void onNext(ByteBuffer chunk) {
+                if (!this.failed) {
+                    try {
+                        errorReader.onNext(chunk);
+                    } catch (RuntimeException ex) {
+                        this.failed = true;
+                    }
+                }
+                chunk.position(chunk.limit());
+            }
+
+            @Override
+            public TResponse complete() {
+                if (!this.failed) {
+                    try {
+                        error.set(errorReader.complete());
+                    } catch (RuntimeException ex) {
+                        // not an OPA error
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private <TResponse> TResponse handleResponse(HttpResponse<TResponse> response,
+            AtomicReference<ErrorResponse> error) {
+        if (response.statusCode() >= 400) {
+            var body = error.get();
+            if (body == null || body.getCode() == null) {
+                throw new HttpStatusException(response.statusCode());
+            }
+            throw new HttpStatusException(response.statusCode(), body.getCode() + ": " + body.getMessage(),
+                    body.getErrorCodes());
+        }
+        return response.body();
+    }
+
+    private static boolean isGzipEncoded(ResponseInfo responseInfo) {
+        return responseInfo.headers().firstValue(HEADER_CONTENT_ENCODING)
+                .map(encoding -> encoding.trim().equalsIgnoreCase(GZIP))
+                .orElse(false);
+    }
+
+    private SegmentedBody gzip(SegmentedBody body) {
+        var buffer = new PooledByteBufferOutputStream(this.bufferPool);
+        try {
+            this.gzipEncoder.encode(body.getSegments(), buffer);
+        } catch (IOException ex) {
+            buffer.discard();
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toBody();
+    }
+
     protected HttpHeadersBuilder createDefaultRequestHeaders() {
         var headers = new HttpHeadersBuilder();
-        headers.contentType(MediaType.APPLICATION_JSON);
-        headers.accept(MediaType.APPLICATION_JSON);
+        headers.set(HEADER_CONTENT_TYPE, MEDIA_APPLICATION_JSON);
+        headers.set(HEADER_ACCEPT, MEDIA_APPLICATION_JSON);
+        if (this.compressionThreshold >= 0) {
+            headers.set(HEADER_ACCEPT_ENCODING, GZIP);
+        }
         return headers;
     }
 
@@ -152,8 +530,35 @@ public class DefaultOpaHttpClient implements OpaHttpClient {
         return request;
     }
 
-    protected void logResponse(HttpResponse<byte[]> response, Throwable exception) {
-        logger.logResponse(response, exception);
+    protected void logResponse(ResponseInfo response) {
+        logger.logResponse(response);
+    }
+
+    /**
+     * The body of an OPA error response, like
+     * {@code {"code": "internal_error", "message": "...", "errors": [{"code": "eval_conflict_error", ...}]}}
+     */
+    @Data
+    static class ErrorResponse {
+
+        private String code;
+
+        private String message;
+
+        private List<ErrorResponse> errors;
+
+        List<String> getErrorCodes() {
+            var codes = new ArrayList<String>();
+            codes.add(this.code);
+            if (this.errors != null) {
+                for (var nested : this.errors) {
+                    if (nested != null && nested.getCode() != null) {
+                        codes.add(nested.getCode());
+                    }
+                }
+            }
+            return codes;
+        }
     }
 
 }
@@ -5,16 +5,20 @@ import com.contentgrid.opa.client.rest.client.jdk.RequestLoggerConfiguration.Log
 import java.net.URI;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 class DefaultRestClientConfiguration implements RestClientConfiguration {
 
     private final Consumer<URI> uriCallback;
     private final Consumer<RequestLoggerConfiguration> logConfig;
+    private final Consumer<Executor> executorCallback;
 
-    DefaultRestClientConfiguration(Consumer<URI> uriConfig, Consumer<RequestLoggerConfiguration> logConfig) {
+    DefaultRestClientConfiguration(Consumer<URI> uriConfig, Consumer<RequestLoggerConfiguration> logConfig,
+            Consumer<Executor> executorConfig) {
         this.uriCallback = uriConfig;
         this.logConfig = logConfig;
+        this.executorCallback = executorConfig;
     }
 
     @Override
@@ -33,6 +37,12 @@ class DefaultRestClientConfiguration implements RestClientConfiguration {
         return this;
     }
 
+    @Override
+    public RestClientConfiguration executor(Executor executor) {
+        this.executorCallback.accept(executor);
+        return this;
+    }
+
     static class DefaultLogSpecification implements LogSpecification {
 
         private final Set<LogDetail> details = new HashSet<>();
@@ -0,0 +1,199 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
+import java.io.EOFException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a {@code Content-Encoding: gzip} body chunk by chunk, passing the decompressed chunks on to another
+ * {@link BodyReader}.
+ *
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc1952">RFC 1952 - GZIP file format specification</a>
+ */
+class GzipDecodingBodyReader<T> implements BodyReader<T> {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int TRAILER_LENGTH = 8;
+
+    private enum State {
+        HEADER, DATA, TRAILER
+    }
+
+    private final BodyReader<T> delegate;
+
+    private final Inflater inflater;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer output = ByteBuffer.allocate(8 * 1024);
+
+    /**
+     * Collects the bytes of the header or trailer, which can be split across chunks.
+     */
+    private byte[] pending = new byte[32];
+    private int pendingLength;
+
+    private State state = State.HEADER;
+
+    GzipDecodingBodyReader(BodyReader<T> delegate) {
+        this(delegate, new Inflater(true));
+    }
+
+    GzipDecodingBodyReader(BodyReader<T> delegate, Inflater inflater) {
+        this.delegate = delegate;
+        this.inflater = inflater;
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk) {
+        try {
+            while (chunk.hasRemaining()) {
+                switch (this.state) {
+                    case HEADER:
+                        this.appendPending(chunk.get());
+                        if (this.headerLength() >= 0) {
+                            this.pendingLength = 0;
+                            this.state = State.DATA;
+                        }
+                        break;
+                    case DATA:
+                        this.inflater.setInput(chunk);
+                        this.inflate();
+                        if (this.inflater.finished()) {
+                            this.state = State.TRAILER;
+                        }
+                        break;
+                    case TRAILER:
+                        this.appendPending(chunk.get());
+                        if (this.pendingLength == TRAILER_LENGTH) {
+                            this.verifyTrailer();
+
+                            // a gzip body can consist of multiple members
+                            this.inflater.reset();
+                            this.crc.reset();
+                            this.pendingLength = 0;
+                            this.state = State.HEADER;
+                        }
+                        break;
+                }
+            }
+        } catch (ZipException ex) {
+            this.inflater.end();
+            throw new UncheckedIOException(ex);
+        } catch (RuntimeException | Error ex) {
+            // the delegate failed, no more chunks will follow
+            this.inflater.end();
+            throw ex;
+        }
+    }
+
+    @Override
+    public T complete() {
+        this.inflater.end();
+        if (this.state != State.HEADER || this.pendingLength > 0) {
+            throw new UncheckedIOException(new EOFException("Unexpected end of gzip body"));
+        }
+        return this.delegate.complete();
+    }
+
+    private void inflate() throws ZipException {
+        try {
+            while (!this.inflater.finished()) {
+                this.output.clear();
+                int count = this.inflater.inflate(this.output);
+                if (count > 0) {
+                    this.output.flip();
+                    this.crc.update(this.output.duplicate());
+                    this.delegate.onNext(this.output);
+                } else if (this.inflater.needsInput()) {
+                    return;
+                } else if (this.inflater.needsDictionary()) {
+                    throw new ZipException("Invalid gzip body: preset dictionary required");
+                }
+            }
+        } catch (DataFormatException ex) {
+            throw new ZipException("Invalid gzip body: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @return the length of the header, or {@code -1} if the header is not complete yet
+     */
+    private int headerLength() throws ZipException {
+        if (this.pendingLength < 10) {
+            return -1;
+        }
+        if ((this.pending[0] & 0xFF) != 0x1F || (this.pending[1] & 0xFF) != 0x8B) {
+            throw new ZipException("Invalid gzip body: not in gzip format");
+        }
+        if (this.pending[2] != 8) {
+            throw new ZipException("Invalid gzip body: unsupported compression method");
+        }
+
+        int flags = this.pending[3] & 0xFF;
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (this.pendingLength < position + 2) {
+                return -1;
+            }
+            position += 2 + ((this.pending[position] & 0xFF) | (this.pending[position + 1] & 0xFF) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            position = this.skipZeroTerminated(position);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            position = this.skipZeroTerminated(position);
+        }
+        if ((flags & FHCRC) != 0 && position >= 0) {
+            position += 2;
+        }
+
+        return position >= 0 && position <= this.pendingLength ? position : -1;
+    }
+
+    private int skipZeroTerminated(int position) {
+        if (position < 0) {
+            return -1;
+        }
+        for (int i = position; i < this.pendingLength; i++) {
+            if (this.pending[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private void verifyTrailer() throws ZipException {
+        long crc32 = readUInt32(this.pending, 0);
+        long size = readUInt32(this.pending, 4);
+
+        if (crc32 != this.crc.getValue()) {
+            throw new ZipException("Invalid gzip body: CRC mismatch");
+        }
+        if (size != (this.inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+            throw new ZipException("Invalid gzip body: size mismatch");
+        }
+    }
+
+    private void appendPending(byte value) {
+        if (this.pendingLength == this.pending.length) {
+            this.pending = Arrays.copyOf(this.pending, this.pending.length * 2);
+        }
+        this.pending[this.pendingLength++] = value;
+    }
+
+    private static long readUInt32(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+}
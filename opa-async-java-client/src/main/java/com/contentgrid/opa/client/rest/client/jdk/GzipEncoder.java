@@ -0,0 +1,119 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compresses request bodies in the gzip format, like a {@link java.util.zip.GZIPOutputStream}, but with
+ * {@link Deflater}s that are reused between requests. A {@code GZIPOutputStream} creates a new deflater every time,
+ * and with it native memory that is only freed by the garbage collector.
+ */
+class GzipEncoder {
+
+    static final int DEFAULT_MAX_POOLED_DEFLATERS = 16;
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, // magic number
+            Deflater.DEFLATED, // compression method
+            0, // flags
+            0, 0, 0, 0, // modification time
+            0, // extra flags
+            (byte) 0xff // operating system: unknown
+    };
+
+    private final int maxPooledDeflaters;
+    private final int bufferSize;
+
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    GzipEncoder(int bufferSize) {
+        this(bufferSize, DEFAULT_MAX_POOLED_DEFLATERS);
+    }
+
+    /**
+     * @param bufferSize the size of the buffer the compressed bytes are collected in before they are written
+     * @param maxPooledDeflaters the maximum number of idle deflaters kept in the pool, additional deflaters are ended
+     */
+    GzipEncoder(int bufferSize, int maxPooledDeflaters) {
+        if (maxPooledDeflaters < 0) {
+            throw new IllegalArgumentException("maxPooledDeflaters cannot be negative");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooledDeflaters = maxPooledDeflaters;
+    }
+
+    /**
+     * Writes the segments, gzip compressed, into the output.
+     */
+    void encode(Iterable<ByteBuffer> segments, OutputStream output) throws IOException {
+        var deflater = this.acquire();
+        try {
+            var crc = new CRC32();
+            long length = 0;
+
+            output.write(HEADER);
+            var deflating = new DeflaterOutputStream(output, deflater, this.bufferSize);
+            for (var segment : segments) {
+                var view = segment.duplicate();
+                length += view.remaining();
+                crc.update(view.duplicate());
+                if (view.hasArray()) {
+                    deflating.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+                } else {
+                    byte[] bytes = new byte[view.remaining()];
+                    view.get(bytes);
+                    deflating.write(bytes);
+                }
+            }
+            deflating.finish();
+
+            writeInt(output, (int) crc.getValue());
+            writeInt(output, (int) length);
+        } finally {
+            this.release(deflater);
+        }
+    }
+
+    int getPooledDeflaters() {
+        return this.pooled.get();
+    }
+
+    private Deflater acquire() {
+        var deflater = this.deflaters.poll();
+        if (deflater == null) {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+
+        this.pooled.decrementAndGet();
+        return deflater;
+    }
+
+    private void release(Deflater deflater) {
+        if (this.pooled.incrementAndGet() > this.maxPooledDeflaters) {
+            this.pooled.decrementAndGet();
+            deflater.end();
+            return;
+        }
+
+        deflater.reset();
+        this.deflaters.offer(deflater);
+    }
+
+    /**
+     * The gzip trailer is little-endian
+     */
+    private static void writeInt(OutputStream output, int value) throws IOException {
+        output.write(value & 0xff);
+        output.write((value >> 8) & 0xff);
+        output.write((value >> 16) & 0xff);
+        output.write((value >> 24) & 0xff);
+    }
+}
@@ -6,22 +6,44 @@ import java.util.Optional;
 public class HttpEntity {
 
     private final HttpRequestHeaders headers;
-    private final byte[] body;
+    private final SegmentedBody body;
 
-    public HttpEntity(HttpRequestHeaders headers, byte[] body) {
+    public HttpEntity(HttpRequestHeaders headers, SegmentedBody body) {
         this.headers = headers;
         this.body = body;
     }
 
+    public HttpEntity(HttpRequestHeaders headers, byte[] body) {
+        this(headers, body == null ? null : SegmentedBody.of(body));
+    }
+
     public HttpEntity(HttpRequestHeaders headers) {
-        this(headers, null);
+        this(headers, (SegmentedBody) null);
     }
 
     public HttpRequestHeaders getHeaders() {
         return headers;
     }
 
-    public Optional<byte[]> getBody() {
+    public Optional<SegmentedBody> getBody() {
         return Optional.ofNullable(body);
     }
+
+    /**
+     * Releases the body after the exchange completed normally, returning pooled segments to their pool.
+     */
+    public void release() {
+        if (this.body != null) {
+            this.body.release();
+        }
+    }
+
+    /**
+     * Gives up the body after the exchange was cancelled or failed, without recycling its segments.
+     */
+    public void discard() {
+        if (this.body != null) {
+            this.body.discard();
+        }
+    }
 }
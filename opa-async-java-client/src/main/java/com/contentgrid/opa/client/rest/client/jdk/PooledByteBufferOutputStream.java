@@ -0,0 +1,86 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link OutputStream} that writes into segments from a {@link ByteBufferPool}, growing by adding segments instead
+ * of copying into ever larger arrays.
+ */
+public class PooledByteBufferOutputStream extends OutputStream {
+
+    private final ByteBufferPool pool;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    private ByteBuffer current;
+    private boolean detached;
+
+    public PooledByteBufferOutputStream(ByteBufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) {
+        this.writableSegment().put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            var segment = this.writableSegment();
+            int count = Math.min(length, segment.remaining());
+            segment.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Closing has no effect, the segments are handed over with {@link #toBody()} or returned with {@link #discard()}.
+     */
+    @Override
+    public void close() {
+        // nothing to do
+    }
+
+    /**
+     * Hands the written segments over to a {@link SegmentedBody}, which returns them to the pool when it is released.
+     *
+     * @return the written body
+     */
+    public SegmentedBody toBody() {
+        this.assertNotDetached();
+        this.detached = true;
+
+        this.segments.forEach(ByteBuffer::flip);
+        return new SegmentedBody(this.segments, this.pool::release);
+    }
+
+    /**
+     * Returns the written segments to the pool.
+     */
+    public void discard() {
+        if (this.detached) {
+            return;
+        }
+        this.detached = true;
+        this.segments.forEach(this.pool::release);
+    }
+
+    private ByteBuffer writableSegment() {
+        this.assertNotDetached();
+        if (this.current == null || !this.current.hasRemaining()) {
+            this.current = this.pool.acquire();
+            this.segments.add(this.current);
+        }
+        return this.current;
+    }
+
+    private void assertNotDetached() {
+        if (this.detached) {
+            throw new IllegalStateException("The segments have already been handed over");
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package com.contentgrid.opa.client.rest.client.jdk;
 
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
-import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.ResponseInfo;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.concurrent.Flow.Subscriber;
 import java.util.concurrent.Flow.Subscription;
 import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -40,29 +44,65 @@ public class RequestLogger {
             var body = request.bodyPublisher().get();
 
             if (body.contentLength() > 0) {
-                var subscriber = new RequestLoggerBodySubscriber(body);
+                var gzip = request.headers().firstValue("Content-Encoding")
+                        .map(encoding -> encoding.trim().equalsIgnoreCase("gzip"))
+                        .orElse(false);
+                var subscriber = new RequestLoggerBodySubscriber(body, gzip);
                 body.subscribe(subscriber);
             }
 
         }
     }
 
-    public void logResponse(HttpResponse<byte[]> response, Throwable exception) {
-        if (response != null) {
-            if (config.isStatusCodeEnabled()) {
-                output("HTTP/{} {}", asString(response.version()), response.statusCode());
-            }
+    public void logResponse(ResponseInfo response) {
+        if (config.isStatusCodeEnabled()) {
+            output("HTTP/{} {}", asString(response.version()), response.statusCode());
+        }
+
+        if (config.isResponseHeadersEnabled()) {
+            this.printHeaders(response.headers());
+        }
+    }
+
+    /**
+     * Decorates the provided {@link BodyReader}, so the response body is logged once the body has been read.
+     *
+     * @param response the response info
+     * @param reader the reader that consumes the response body
+     * @return a {@link BodyReader} that also captures the body for logging, or the original reader if response body
+     * logging is not enabled
+     */
+    public <T> BodyReader<T> logResponseBody(ResponseInfo response, BodyReader<T> reader) {
+        if (!config.isLogResponseBodyEnabled() || response.statusCode() == 204) {
+            return reader;
+        }
 
-            if (config.isResponseHeadersEnabled()) {
-                this.printHeaders(response.headers());
+        var outputStream = new ByteArrayOutputStream();
+        return new BodyReader<>() {
+            @Override
+            public void onNext(ByteBuffer chunk) {
+                if (chunk.hasArray()) {
+                    outputStream.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                } else {
+                    byte[] bytes = new byte[chunk.remaining()];
+                    chunk.duplicate().get(bytes);
+                    outputStream.writeBytes(bytes);
+                }
+                reader.onNext(chunk);
             }
 
-            if (config.isLogResponseBodyEnabled() && response.statusCode() != 204) {
+            @Override
+            public T complete() {
                 // idea for improvement: look if there is a charset encoding ?
-                // additionally, what if we need gzip/deflate first ?
-                output("<{} bytes>{}{}", response.body().length, System.lineSeparator(), new String(response.body(), StandardCharsets.UTF_8));
+                // the reader receives the decoded body, the content-encoding only applies on the wire
+                var contentEncoding = response.headers().firstValue("Content-Encoding")
+                        .map(encoding -> ", content-encoding: " + encoding)
+                        .orElse("");
+                output("<{} bytes{}>{}{}", outputStream.size(), contentEncoding, System.lineSeparator(),
+                        outputStream.toString(StandardCharsets.UTF_8));
+                return reader.complete();
             }
-        }
+        };
     }
 
     private void printHeaders(HttpHeaders headers) {
@@ -90,14 +130,16 @@ public class RequestLogger {
     private class RequestLoggerBodySubscriber implements Subscriber<ByteBuffer> {
 
         private final BodyPublisher body;
+        private final boolean gzip;
         private final ByteArrayOutputStream outputStream;
 
-        public RequestLoggerBodySubscriber(BodyPublisher body) {
+        public RequestLoggerBodySubscriber(BodyPublisher body, boolean gzip) {
             Objects.requireNonNull(body, "body is required");
             if (body.contentLength() <= 0) {
                 throw new IllegalArgumentException("request body is empty, content-length: "+body.contentLength());
             }
             this.body = body;
+            this.gzip = gzip;
             this.outputStream = new ByteArrayOutputStream();
         }
 
@@ -108,7 +150,14 @@ public class RequestLogger {
 
         @Override
         public void onNext(ByteBuffer byteBuffer) {
-            outputStream.write(byteBuffer.array(), 0, byteBuffer.limit());
+            if (byteBuffer.hasArray()) {
+                outputStream.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+                        byteBuffer.remaining());
+            } else {
+                byte[] bytes = new byte[byteBuffer.remaining()];
+                byteBuffer.duplicate().get(bytes);
+                outputStream.writeBytes(bytes);
+            }
         }
 
         @Override
@@ -118,8 +167,19 @@ public class RequestLogger {
 
         @Override
         public void onComplete() {
-            var content = outputStream.toString(StandardCharsets.UTF_8);
-            output("<{} bytes>{}{}", outputStream.size(), System.lineSeparator(), content);
+            if (!this.gzip) {
+                var content = outputStream.toString(StandardCharsets.UTF_8);
+                output("<{} bytes>{}{}", outputStream.size(), System.lineSeparator(), content);
+                return;
+            }
+
+            try (var decoded = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+                var content = decoded.readAllBytes();
+                output("<{} bytes, gzip compressed to {} bytes>{}{}", content.length, outputStream.size(),
+                        System.lineSeparator(), new String(content, StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                log.warn("Logging gzip compressed request body failed:", ex);
+            }
         }
 
 
@@ -0,0 +1,201 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.Consumer;
+
+/**
+ * A request body made up of {@link ByteBuffer} segments, possibly borrowed from a {@link ByteBufferPool}.
+ *
+ * The segments are published as views, without copying. A subscriber that received a segment may still hold it, for
+ * example queued for the socket, after its subscription completed or was cancelled. That is why the segments are only
+ * returned to the pool when the owner {@linkplain #release() releases} the body after the exchange completed normally,
+ * and every subscription completed. A body that is {@linkplain #discard() discarded}, or that has a subscription that
+ * was cancelled, failed or is still active, leaves its segments to the garbage collector.
+ */
+public class SegmentedBody {
+
+    private final List<ByteBuffer> segments;
+    private final Consumer<ByteBuffer> recycler;
+    private final long contentLength;
+
+    // guarded by this
+    private int activeSubscriptions;
+    private boolean abandoned;
+    private boolean released;
+
+    /**
+     * @param segments the segments, ready to be read
+     * @param recycler called with every segment once the body is no longer used, possibly {@code null}
+     */
+    public SegmentedBody(List<ByteBuffer> segments, Consumer<ByteBuffer> recycler) {
+        this.segments = List.copyOf(segments);
+        this.recycler = recycler;
+        this.contentLength = this.segments.stream().mapToLong(ByteBuffer::remaining).sum();
+    }
+
+    public static SegmentedBody of(byte[] body) {
+        return new SegmentedBody(List.of(ByteBuffer.wrap(body)), null);
+    }
+
+    public long getContentLength() {
+        return this.contentLength;
+    }
+
+    /**
+     * @return views of the segments
+     */
+    public List<ByteBuffer> getSegments() {
+        return this.segments.stream().map(ByteBuffer::duplicate).toList();
+    }
+
+    /**
+     * Creates a {@link BodyPublisher} that emits the segments. The publisher can be subscribed to multiple times,
+     * until the body is released or discarded.
+     */
+    public BodyPublisher toBodyPublisher() {
+        if (this.contentLength == 0) {
+            return BodyPublishers.noBody();
+        }
+        return BodyPublishers.fromPublisher(subscriber -> {
+            if (this.subscribe()) {
+                subscriber.onSubscribe(new SegmentSubscription(subscriber));
+            } else {
+                subscriber.onSubscribe(new SegmentSubscription(subscriber, true));
+                subscriber.onError(new IllegalStateException("The body has already been released"));
+            }
+        }, this.contentLength);
+    }
+
+    /**
+     * Gives up the body once the exchange completed normally. The segments are recycled, unless a subscription is
+     * still active or did not complete.
+     */
+    public void release() {
+        synchronized (this) {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            if (this.abandoned || this.activeSubscriptions > 0) {
+                return;
+            }
+        }
+
+        if (this.recycler != null) {
+            this.segments.forEach(this.recycler);
+        }
+    }
+
+    /**
+     * Gives up the body without recycling the segments, for an exchange that was cancelled or failed: the segments may
+     * still be in use by the HTTP client.
+     */
+    public synchronized void discard() {
+        this.released = true;
+        this.abandoned = true;
+    }
+
+    private synchronized boolean subscribe() {
+        if (this.released) {
+            return false;
+        }
+        this.activeSubscriptions++;
+        return true;
+    }
+
+    private synchronized void unsubscribe(boolean completed) {
+        this.activeSubscriptions--;
+        if (!completed) {
+            this.abandoned = true;
+        }
+    }
+
+    private class SegmentSubscription implements Subscription {
+
+        private final Subscriber<? super ByteBuffer> subscriber;
+
+        private int index;
+        private long demand;
+        private boolean emitting;
+        private boolean done;
+
+        SegmentSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this(subscriber, false);
+        }
+
+        SegmentSubscription(Subscriber<? super ByteBuffer> subscriber, boolean done) {
+            this.subscriber = subscriber;
+            this.done = done;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (this.terminate(false)) {
+                    this.subscriber.onError(new IllegalArgumentException("non-positive subscription request: " + n));
+                }
+                return;
+            }
+
+            synchronized (this) {
+                this.demand = this.demand + n < 0 ? Long.MAX_VALUE : this.demand + n;
+                if (this.emitting) {
+                    // the emitting loop on the stack picks up the new demand
+                    return;
+                }
+                this.emitting = true;
+            }
+
+            while (true) {
+                ByteBuffer next;
+                synchronized (this) {
+                    if (this.done) {
+                        this.emitting = false;
+                        return;
+                    }
+                    if (this.index < segments.size() && this.demand == 0) {
+                        this.emitting = false;
+                        return;
+                    }
+                    next = this.index < segments.size() ? segments.get(this.index++).duplicate() : null;
+                    if (next != null) {
+                        this.demand--;
+                    }
+                }
+
+                if (next == null) {
+                    if (this.terminate(true)) {
+                        this.subscriber.onComplete();
+                    }
+                    return;
+                }
+                this.subscriber.onNext(next);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            this.terminate(false);
+        }
+
+        /**
+         * @param completed {@code true} when every segment was emitted
+         * @return {@code true} if this call terminated the subscription
+         */
+        private boolean terminate(boolean completed) {
+            synchronized (this) {
+                if (this.done) {
+                    return false;
+                }
+                this.done = true;
+            }
+            unsubscribe(completed);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,796 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import com.contentgrid.opa.client.rest.client.DelayedExecution;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.PushPromiseHandler;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+/**
+ * A minimal {@link HttpClient} that speaks HTTP/1.1 over a unix domain socket.
+ *
+ * Exchanges use blocking {@link SocketChannel}s, run on the executor. Connections are kept alive in a pool and reused
+ * until they have been idle longer than the idle timeout. Cancelling the future of {@link #sendAsync}, or the
+ * {@linkplain HttpRequest#timeout() timeout} of the request expiring, closes the connection of the exchange, which ends
+ * a blocked read. Redirects, authentication, cookies and proxies are not supported, OPA does not need them.
+ */
+class UnixSocketHttpClient extends HttpClient implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_HEADER_LINE_LENGTH = 16 * 1024;
+
+    /**
+     * The methods that can be sent again when a reused connection turns out to be closed after the request was sent.
+     */
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    private final UnixDomainSocketAddress address;
+    private final long idleTimeoutNanos;
+    private final Executor executor;
+
+    /**
+     * The default pool, shut down when this client is closed, {@code null} when the executor was provided
+     */
+    private final ExecutorService defaultExecutor;
+
+    private final Deque<PooledChannel> idleChannels = new ArrayDeque<>();
+
+    // guarded by idleChannels
+    private boolean closed;
+
+    /**
+     * @param executor the executor that runs the blocking exchanges, or {@code null} for a default pool of daemon
+     * threads, which is shut down when this client is closed
+     */
+    UnixSocketHttpClient(Path socketPath, Duration idleTimeout, Executor executor) {
+        this.address = UnixDomainSocketAddress.of(socketPath);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.defaultExecutor = executor == null ? createDefaultExecutor() : null;
+        this.executor = executor != null ? executor : this.defaultExecutor;
+    }
+
+    /**
+     * Shuts down the default pool and closes the idle connections. A provided executor is left alone. Exchanges in
+     * flight still complete, their connections are closed afterwards.
+     */
+    @Override
+    public void close() {
+        if (this.defaultExecutor != null) {
+            this.defaultExecutor.shutdown();
+        }
+        List<PooledChannel> idle;
+        synchronized (this.idleChannels) {
+            this.closed = true;
+            idle = new ArrayList<>(this.idleChannels);
+            this.idleChannels.clear();
+        }
+        for (var pooled : idle) {
+            closeQuietly(pooled.channel);
+        }
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        var counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "opa-unix-socket-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        return this.send(request, responseBodyHandler, new Abort());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> responseBodyHandler, Abort abort)
+            throws IOException, InterruptedException {
+        // closing the channel from the shared timer thread is short
+        ScheduledFuture<?> timeout = request.timeout()
+                .map(duration -> DelayedExecution.schedule(abort::timeout, duration.toNanos(), TimeUnit.NANOSECONDS,
+                        null))
+                .orElse(null);
+        try {
+            return this.sendWithRetry(request, responseBodyHandler, abort);
+        } catch (IOException ex) {
+            if (abort.isTimedOut()) {
+                var timedOut = new HttpTimeoutException("Request timed out after " + request.timeout().get());
+                timedOut.initCause(ex);
+                throw timedOut;
+            }
+            throw ex;
+        } finally {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+    }
+
+    private <T> HttpResponse<T> sendWithRetry(HttpRequest request, BodyHandler<T> responseBodyHandler, Abort abort)
+            throws IOException, InterruptedException {
+        var body = collectBody(request);
+
+        var pooled = this.acquireIdleChannel();
+        if (pooled != null) {
+            try {
+                return this.exchange(pooled, request, body, responseBodyHandler, abort);
+            } catch (StaleConnectionException ex) {
+                if (abort.isAborted()) {
+                    throw ex.getCause();
+                }
+                // the server closed the idle connection, retry once on a new connection
+            }
+        }
+
+        try {
+            return this.exchange(this.openChannel(), request, body, responseBodyHandler, abort);
+        } catch (StaleConnectionException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            BodyHandler<T> responseBodyHandler) {
+        var abort = new Abort();
+        var result = new CompletableFuture<HttpResponse<T>>();
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                abort.abort();
+            }
+        });
+
+        try {
+            this.executor.execute(() -> {
+                if (result.isDone()) {
+                    // cancelled before it started
+                    return;
+                }
+                try {
+                    result.complete(this.send(request, responseBodyHandler, abort));
+                } catch (IOException | RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> responseBodyHandler,
+            PushPromiseHandler<T> pushPromiseHandler) {
+        // push promises are an HTTP/2 feature
+        return this.sendAsync(request, responseBodyHandler);
+    }
+
+    private <T> HttpResponse<T> exchange(SocketChannel channel, HttpRequest request, List<ByteBuffer> body,
+            BodyHandler<T> responseBodyHandler, Abort abort) throws IOException, InterruptedException {
+        var reusable = false;
+        try {
+            abort.watch(channel);
+            var reader = new ChannelReader(channel);
+            this.writeRequest(channel, request, body);
+            try {
+                reader.fill();
+            } catch (IOException ex) {
+                // nothing has been received yet, the connection could have been closed while it was idle. The server
+                // could also have received the request and failed before answering, so only idempotent requests are
+                // sent again.
+                if (IDEMPOTENT_METHODS.contains(request.method())) {
+                    throw new StaleConnectionException(ex);
+                }
+                throw ex;
+            }
+
+            var statusCode = parseStatusLine(reader.readLine());
+            var headers = parseHeaders(reader);
+            var responseInfo = new UnixSocketResponseInfo(statusCode, headers);
+
+            var subscriber = responseBodyHandler.apply(responseInfo);
+            var keepAlive = this.readBody(reader, request, responseInfo, subscriber);
+
+            T responseBody;
+            try {
+                responseBody = subscriber.getBody().toCompletableFuture().get();
+            } catch (ExecutionException ex) {
+                throw new IOException(ex.getCause());
+            }
+
+            reusable = keepAlive && abort.unwatch();
+            return new UnixSocketHttpResponse<>(request, responseInfo, responseBody);
+        } finally {
+            if (reusable) {
+                this.releaseChannel(channel);
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    private void writeRequest(SocketChannel channel, HttpRequest request, List<ByteBuffer> body)
+            throws IOException {
+        var uri = request.uri();
+        var head = new StringBuilder()
+                .append(request.method()).append(' ').append(requestTarget(uri)).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(uri.getHost() != null ? uri.getHost() : "localhost").append("\r\n");
+
+        request.headers().map().forEach((name, values) -> values.forEach(value ->
+                head.append(name).append(": ").append(value).append("\r\n")));
+
+        long contentLength = body.stream().mapToLong(ByteBuffer::remaining).sum();
+        if (contentLength > 0 || !"GET".equals(request.method()) && !"DELETE".equals(request.method())) {
+            head.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        head.append("\r\n");
+
+        var buffers = new ArrayList<ByteBuffer>(body.size() + 1);
+        buffers.add(ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        body.forEach(buffer -> buffers.add(buffer.duplicate()));
+
+        var array = buffers.toArray(ByteBuffer[]::new);
+        long written = 0;
+        try {
+            while (buffers.stream().anyMatch(ByteBuffer::hasRemaining)) {
+                written += channel.write(array);
+            }
+        } catch (IOException ex) {
+            // writing to a unix domain socket that the server closed fails right away, when nothing has been written
+            // the request can safely be sent again
+            throw written == 0 ? new StaleConnectionException(ex) : ex;
+        }
+    }
+
+    private static String requestTarget(URI uri) {
+        var path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+    }
+
+    /**
+     * Pushes the response body into the subscriber.
+     *
+     * @return {@code true} if the connection can be reused for another request
+     */
+    private boolean readBody(ChannelReader reader, HttpRequest request, ResponseInfo responseInfo,
+            BodySubscriber<?> subscriber) throws IOException, InterruptedException {
+        var subscription = new BlockingSubscription();
+        subscriber.onSubscribe(subscription);
+
+        try {
+            var headers = responseInfo.headers();
+            var keepAlive = !headers.firstValue("Connection").map(value -> value.equalsIgnoreCase("close"))
+                    .orElse(false);
+
+            if ("HEAD".equals(request.method()) || responseInfo.statusCode() == 204
+                    || responseInfo.statusCode() == 304 || responseInfo.statusCode() / 100 == 1) {
+                // no body
+            } else if (headers.firstValue("Transfer-Encoding").map(value -> value.toLowerCase(Locale.ROOT))
+                    .filter(value -> value.endsWith("chunked")).isPresent()) {
+                long chunkSize;
+                while ((chunkSize = parseChunkSize(reader.readLine())) > 0) {
+                    reader.transfer(chunkSize, subscription, subscriber);
+                    reader.readLine();
+                }
+                // skip the trailers
+                while (!reader.readLine().isEmpty()) {
+                    // ignore
+                }
+            } else if (headers.firstValue("Content-Length").isPresent()) {
+                reader.transfer(headers.firstValueAsLong("Content-Length").orElse(0), subscription, subscriber);
+            } else {
+                // the body is delimited by closing the connection
+                reader.transfer(Long.MAX_VALUE, subscription, subscriber);
+                keepAlive = false;
+            }
+
+            if (!subscription.isCancelled()) {
+                subscriber.onComplete();
+            }
+            return keepAlive;
+        } catch (IOException | RuntimeException ex) {
+            subscriber.onError(ex);
+            throw ex;
+        }
+    }
+
+    private static int parseStatusLine(String statusLine) throws IOException {
+        // HTTP/1.1 200 OK
+        var parts = statusLine.split(" ", 3);
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/1.")) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid status line: " + statusLine, ex);
+        }
+    }
+
+    private static HttpHeaders parseHeaders(ChannelReader reader) throws IOException {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        String line;
+        while (!(line = reader.readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                throw new IOException("Invalid header line: " + line);
+            }
+            headers.computeIfAbsent(line.substring(0, colon).trim(), name -> new ArrayList<>(1))
+                    .add(line.substring(colon + 1).trim());
+        }
+        return HttpHeaders.of(headers, (name, value) -> true);
+    }
+
+    private static long parseChunkSize(String line) throws IOException {
+        int extension = line.indexOf(';');
+        var size = (extension >= 0 ? line.substring(0, extension) : line).trim();
+        try {
+            return Long.parseLong(size, 16);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid chunk size: " + line, ex);
+        }
+    }
+
+    private static List<ByteBuffer> collectBody(HttpRequest request) throws IOException {
+        var publisher = request.bodyPublisher().orElse(null);
+        if (publisher == null || publisher.contentLength() == 0) {
+            return List.of();
+        }
+
+        var result = new CompletableFuture<List<ByteBuffer>>();
+        publisher.subscribe(new Subscriber<>() {
+            private final List<ByteBuffer> buffers = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                this.buffers.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(this.buffers);
+            }
+        });
+
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            throw new IOException("Reading the request body failed", ex.getCause());
+        }
+    }
+
+    private SocketChannel acquireIdleChannel() throws IOException {
+        var now = System.nanoTime();
+        while (true) {
+            PooledChannel pooled;
+            synchronized (this.idleChannels) {
+                pooled = this.idleChannels.pollLast();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            if (now - pooled.idleSince < this.idleTimeoutNanos && pooled.channel.isOpen()) {
+                return pooled.channel;
+            }
+            pooled.channel.close();
+        }
+    }
+
+    private void releaseChannel(SocketChannel channel) {
+        synchronized (this.idleChannels) {
+            if (!this.closed) {
+                this.idleChannels.addLast(new PooledChannel(channel, System.nanoTime()));
+                return;
+            }
+        }
+        closeQuietly(channel);
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // closing anyway
+        }
+    }
+
+    private SocketChannel openChannel() throws IOException {
+        var channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(this.address);
+            return channel;
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return Redirect.NEVER;
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return Optional.empty();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return new SSLParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Version version() {
+        return Version.HTTP_1_1;
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return Optional.of(this.executor);
+    }
+
+    private static class PooledChannel {
+
+        final SocketChannel channel;
+        final long idleSince;
+
+        PooledChannel(SocketChannel channel, long idleSince) {
+            this.channel = channel;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * Closes the channel of an exchange when the exchange is cancelled or times out, so a thread that is blocked
+     * reading the response is released.
+     */
+    private static class Abort {
+
+        private SocketChannel channel;
+        private boolean aborted;
+        private boolean timedOut;
+
+        synchronized boolean isAborted() {
+            return this.aborted;
+        }
+
+        synchronized boolean isTimedOut() {
+            return this.timedOut;
+        }
+
+        synchronized void watch(SocketChannel channel) throws IOException {
+            if (this.aborted) {
+                throw new IOException("Request cancelled");
+            }
+            this.channel = channel;
+        }
+
+        /**
+         * @return {@code true} if the exchange was not aborted, the channel can be reused
+         */
+        synchronized boolean unwatch() {
+            this.channel = null;
+            return !this.aborted;
+        }
+
+        void timeout() {
+            synchronized (this) {
+                this.timedOut = true;
+            }
+            this.abort();
+        }
+
+        void abort() {
+            SocketChannel channel;
+            synchronized (this) {
+                this.aborted = true;
+                channel = this.channel;
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    // closing anyway
+                }
+            }
+        }
+    }
+
+    private static class StaleConnectionException extends IOException {
+
+        StaleConnectionException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Reads header lines and body bytes from a channel, through a single read buffer.
+     */
+    private static class ChannelReader {
+
+        private final SocketChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+        ChannelReader(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads more bytes into the buffer.
+         */
+        void fill() throws IOException {
+            this.buffer.compact();
+            try {
+                if (this.channel.read(this.buffer) < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+            } finally {
+                this.buffer.flip();
+            }
+        }
+
+        String readLine() throws IOException {
+            var line = new StringBuilder();
+            while (true) {
+                while (this.buffer.hasRemaining()) {
+                    char ch = (char) (this.buffer.get() & 0xFF);
+                    if (ch == '\n') {
+                        int length = line.length();
+                        if (length > 0 && line.charAt(length - 1) == '\r') {
+                            line.setLength(length - 1);
+                        }
+                        return line.toString();
+                    }
+                    line.append(ch);
+                }
+                if (line.length() > MAX_HEADER_LINE_LENGTH) {
+                    throw new IOException("Header line too long");
+                }
+                this.fill();
+            }
+        }
+
+        /**
+         * Transfers {@code length} bytes into the subscriber, in newly allocated buffers, as subscribers can hold on
+         * to the buffers.
+         */
+        void transfer(long length, BlockingSubscription subscription, BodySubscriber<?> subscriber)
+                throws IOException, InterruptedException {
+            var remaining = length;
+            while (remaining > 0) {
+                if (!this.buffer.hasRemaining()) {
+                    this.buffer.clear();
+                    int read = this.channel.read(this.buffer);
+                    this.buffer.flip();
+                    if (read < 0) {
+                        if (length == Long.MAX_VALUE) {
+                            return;
+                        }
+                        throw new EOFException("Connection closed before the end of the response body");
+                    }
+                    continue;
+                }
+
+                int count = (int) Math.min(remaining, this.buffer.remaining());
+                var chunk = ByteBuffer.allocate(count);
+                chunk.put(this.buffer.slice().limit(count)).flip();
+                this.buffer.position(this.buffer.position() + count);
+                remaining -= count;
+
+                if (subscription.awaitDemand()) {
+                    subscriber.onNext(List.of(chunk));
+                }
+            }
+        }
+    }
+
+    /**
+     * A subscription for a body that is pushed from the reading thread, blocking that thread while there is no
+     * demand.
+     */
+    private static class BlockingSubscription implements Subscription {
+
+        private long demand;
+        private boolean cancelled;
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                this.cancel();
+                return;
+            }
+            this.demand = this.demand + n < 0 ? Long.MAX_VALUE : this.demand + n;
+            this.notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            this.cancelled = true;
+            this.notifyAll();
+        }
+
+        synchronized boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * @return {@code true} if the next item can be delivered, {@code false} if the subscription was cancelled
+         */
+        synchronized boolean awaitDemand() throws InterruptedException {
+            while (this.demand == 0 && !this.cancelled) {
+                this.wait();
+            }
+            if (this.cancelled) {
+                return false;
+            }
+            this.demand--;
+            return true;
+        }
+    }
+
+    private static class UnixSocketResponseInfo implements ResponseInfo {
+
+        private final int statusCode;
+        private final HttpHeaders headers;
+
+        UnixSocketResponseInfo(int statusCode, HttpHeaders headers) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+        }
+
+        @Override
+        public int statusCode() {
+            return this.statusCode;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return this.headers;
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_1_1;
+        }
+    }
+
+    private static class UnixSocketHttpResponse<T> implements HttpResponse<T> {
+
+        private final HttpRequest request;
+        private final ResponseInfo responseInfo;
+        private final T body;
+
+        UnixSocketHttpResponse(HttpRequest request, ResponseInfo responseInfo, T body) {
+            this.request = request;
+            this.responseInfo = responseInfo;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return this.responseInfo.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return this.request;
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return this.responseInfo.headers();
+        }
+
+        @Override
+        public T body() {
+            return this.body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return this.request.uri();
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_1_1;
+        }
+    }
+}
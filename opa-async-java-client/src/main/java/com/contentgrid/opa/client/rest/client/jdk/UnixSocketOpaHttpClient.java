@@ -0,0 +1,87 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import com.contentgrid.opa.client.rest.TransportSpecification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link com.contentgrid.opa.client.rest.OpaHttpClient} that talks HTTP/1.1 to OPA over a unix domain socket, for
+ * OPA running as a sidecar with {@code --addr unix:///path/opa.sock}.
+ *
+ * Connections are kept alive and reused between requests. Request and response bodies are converted and logged like
+ * the {@link DefaultOpaHttpClient} does. Closing the client closes the idle connections, and shuts down the default
+ * thread pool.
+ */
+public class UnixSocketOpaHttpClient extends DefaultOpaHttpClient implements AutoCloseable {
+
+    public static final String UNIX_SCHEME = "unix";
+
+    private static final URI SOCKET_BASE_URL = URI.create("http://localhost/");
+
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final UnixSocketHttpClient socketClient;
+
+    public UnixSocketOpaHttpClient(Path socketPath, ObjectMapper objectMapper) {
+        this(socketPath, objectMapper, new TransportSpecification(), null);
+    }
+
+    /**
+     * @param socketPath the path of the unix domain socket OPA listens on
+     * @param objectMapper the object mapper for json request and response bodies
+     * @param transport the transport settings, the maximum number of connections per host caps the number of
+     * connections, idle connections are closed after the idle timeout, requests time out after the read timeout. The
+     * protocol is always HTTP/1.1.
+     * @param executor the executor that runs the blocking socket exchanges, {@code null} for a default thread pool of
+     * daemon threads, which is shut down when this client is closed
+     */
+    public UnixSocketOpaHttpClient(Path socketPath, ObjectMapper objectMapper, TransportSpecification transport,
+            Executor executor) {
+        this(new UnixSocketHttpClient(socketPath,
+                        transport.getIdleTimeout() != null ? transport.getIdleTimeout() : DEFAULT_IDLE_TIMEOUT,
+                        executor),
+                objectMapper, transport);
+    }
+
+    private UnixSocketOpaHttpClient(UnixSocketHttpClient socketClient, ObjectMapper objectMapper,
+            TransportSpecification transport) {
+        super(socketClient, objectMapper, transport);
+        this.socketClient = socketClient;
+    }
+
+    @Override
+    public void close() {
+        this.socketClient.close();
+    }
+
+    /**
+     * @param url an url like {@code unix:///path/opa.sock}
+     * @return {@code true} if the url points to a unix domain socket, the scheme is case-insensitive
+     */
+    public static boolean isUnixSocketUrl(String url) {
+        return url.regionMatches(true, 0, UNIX_SCHEME + ":", 0, UNIX_SCHEME.length() + 1);
+    }
+
+    /**
+     * @param url an url like {@code unix:///path/opa.sock}
+     * @return the path of the unix domain socket
+     */
+    public static Path socketPath(String url) {
+        var uri = URI.create(url);
+        if (!UNIX_SCHEME.equalsIgnoreCase(uri.getScheme()) || uri.getPath() == null || uri.getPath().isEmpty()) {
+            throw new IllegalArgumentException("Invalid unix socket url '" + url + "', expected unix:///path/to/socket");
+        }
+        return Path.of(uri.getPath());
+    }
+
+    /**
+     * The socket path is fixed at construction, requests are always sent with the {@code localhost} host.
+     */
+    @Override
+    protected URI toBaseUrl(URI configuredUrl) {
+        return UNIX_SCHEME.equalsIgnoreCase(configuredUrl.getScheme()) ? SOCKET_BASE_URL : configuredUrl;
+    }
+}
@@ -1,42 +1,74 @@
 package com.contentgrid.opa.client.rest.client.jdk.converter;
 
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
 import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.DeserializationContext;
 import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.SerializationContext;
+import com.contentgrid.opa.client.rest.client.jdk.ByteBufferPool;
 import com.contentgrid.opa.client.rest.client.jdk.HttpEntity;
+import com.contentgrid.opa.client.rest.client.jdk.PooledByteBufferOutputStream;
+import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.ResponseType;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ConverterProcessor {
 
+    /**
+     * Converters are selected once for every combination of media type and Java type, the selection only depends on
+     * those two. The caches stop growing beyond this size.
+     */
+    private static final int MAX_CACHED_SELECTIONS = 256;
+
     private final Collection<? extends HttpBodyConverter> objectMappers;
+    private final ByteBufferPool bufferPool;
+
+    private final Map<ConverterKey, HttpBodyConverter> readers = new ConcurrentHashMap<>();
+    private final Map<ConverterKey, HttpBodyConverter> writers = new ConcurrentHashMap<>();
 
     public ConverterProcessor(Collection<? extends HttpBodyConverter> objectMappers) {
+        this(objectMappers, new ByteBufferPool());
+    }
+
+    /**
+     * @param objectMappers the converters, in order of preference
+     * @param bufferPool the pool that provides the buffers request bodies are serialized into
+     */
+    public ConverterProcessor(Collection<? extends HttpBodyConverter> objectMappers, ByteBufferPool bufferPool) {
         this.objectMappers = Collections.unmodifiableSet(new LinkedHashSet<>(objectMappers));
+        this.bufferPool = bufferPool;
     }
 
-    public <T> T read(DeserializationContext context, Class<T> type) {
+    public <T> BodyReader<T> reader(DeserializationContext context, ResponseType<T> type) {
 
-        if (Void.TYPE.equals(type) || Void.class.equals(type)) {
-            return null;
+        if (Void.TYPE.equals(type.getRawClass()) || Void.class.equals(type.getRawClass())) {
+            return BodyReader.discarding();
         }
 
-        return this.objectMappers.stream()
-
-                // figure out which object-mapper CAN read the Content-Type
-                .filter(mapper -> mapper.canRead(context, type))
-                .findFirst()
-
-                // if none found, bail out with an exception
-                .orElseThrow(() -> {
-                    String msg = String.format("Cannot convert %s into %s", context.getContentType().toString(), type.getName());
-                    return new UncheckedIOException(new IOException(msg));
-                })
+        var key = new ConverterKey(context.getContentType(), type);
+        var converter = this.readers.get(key);
+        if (converter == null) {
+            converter = this.objectMappers.stream()
+
+                    // figure out which object-mapper CAN read the Content-Type
+                    .filter(mapper -> mapper.canRead(context, type))
+                    .findFirst()
+
+                    // if none found, bail out with an exception
+                    .orElseThrow(() -> {
+                        String msg = String.format("Cannot convert %s into %s", context.getContentType(), type);
+                        return new UncheckedIOException(new IOException(msg));
+                    });
+            cache(this.readers, key, converter);
+        }
 
-                // if found, use it to deserialize the source into the target type
-                .read(context, type);
+        // use it to create a reader that deserializes the body into the target type
+        return converter.reader(context, type);
     }
 
     public HttpEntity write(SerializationContext context) {
@@ -45,23 +77,68 @@ public class ConverterProcessor {
             return new HttpEntity(context.getHeaders());
         }
 
-        byte[] buffer = this.objectMappers.stream()
-
-                // figure out which object-mapper CAN write to this content type
-                .filter(mapper -> mapper.canWrite(context))
-                .findFirst()
+        var key = new ConverterKey(context.getContentType(), context.getSource().getClass());
+        var converter = this.writers.get(key);
+        if (converter == null) {
+            converter = this.objectMappers.stream()
+
+                    // figure out which object-mapper CAN write to this content type
+                    .filter(mapper -> mapper.canWrite(context))
+                    .findFirst()
+
+                    // if none found, bail out with an exception
+                    .orElseThrow(() -> {
+                        String msg = String.format("Cannot convert %s into %s",
+                                context.getSource().getClass().getName(), context.getContentType());
+                        return new UncheckedIOException(new IOException(msg));
+                    });
+            cache(this.writers, key, converter);
+        }
 
-                // if none found, bail out with an exception
-                .orElseThrow(() -> {
-                    String msg = String.format("Cannot convert %s into %s",
-                            context.getSource().getClass().getName(), context.getContentType());
-                    return new UncheckedIOException(new IOException(msg));
-                })
+        // if found, use it to serialize the source into pooled buffers
+        var output = new PooledByteBufferOutputStream(this.bufferPool);
+        try {
+            converter.write(context, output);
+        } catch (RuntimeException ex) {
+            output.discard();
+            throw ex;
+        }
 
-                // if found, use it to deserialize the source into the target type
-                .write(context);
+        return new HttpEntity(context.getHeaders(), output.toBody());
+    }
 
-        return new HttpEntity(context.getHeaders(), buffer);
+    private static void cache(Map<ConverterKey, HttpBodyConverter> cache, ConverterKey key,
+            HttpBodyConverter converter) {
+        if (cache.size() < MAX_CACHED_SELECTIONS) {
+            cache.putIfAbsent(key, converter);
+        }
     }
 
+    private static final class ConverterKey {
+
+        private final MediaType contentType;
+        private final Object type;
+
+        private ConverterKey(MediaType contentType, Object type) {
+            this.contentType = contentType;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConverterKey)) {
+                return false;
+            }
+            var other = (ConverterKey) o;
+            return Objects.equals(this.contentType, other.contentType) && this.type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.contentType, this.type);
+        }
+    }
 }
@@ -2,6 +2,9 @@ package com.contentgrid.opa.client.rest.client.jdk.converter;
 
 import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
 import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -10,11 +13,30 @@ import java.util.Objects;
  */
 public interface HttpBodyConverter {
 
-    <T> boolean canRead(DeserializationContext context, Class<T> type);
-    <T> T read(DeserializationContext context, Class<T> type);
+    <T> boolean canRead(DeserializationContext context, ResponseType<T> type);
+
+    /**
+     * Creates a {@link BodyReader} that converts the body into the target type, chunk by chunk, as the body arrives.
+     *
+     * @param context the deserialization context
+     * @param type the target type
+     * @return a new {@link BodyReader}, to be used for a single body only
+     */
+    <T> BodyReader<T> reader(DeserializationContext context, ResponseType<T> type);
+
+    default <T> BodyReader<T> reader(DeserializationContext context, Class<T> type) {
+        return this.reader(context, ResponseType.of(type));
+    }
 
     boolean canWrite(SerializationContext context);
-    byte[] write(SerializationContext context);
+
+    /**
+     * Serializes the source of the context into the provided output, which is typically backed by pooled buffers.
+     *
+     * @param context the serialization context
+     * @param output the output to write the body to, closing it is not required
+     */
+    void write(SerializationContext context, OutputStream output);
 
     Collection<MediaType> getSupportedMediaTypes();
 
@@ -48,18 +70,49 @@ public interface HttpBodyConverter {
          */
         MediaType getContentType();
 
-        byte[] getSource();
+        static DeserializationContext of(MediaType contentType) {
+            return () -> contentType;
+        }
+    }
 
-        static DeserializationContext of(byte[] source, MediaType contentType) {
-            return new DeserializationContext() {
+    /**
+     * Incrementally converts a body into an object of type {@code T}.
+     *
+     * The body is fed as a sequence of chunks via {@link #onNext(ByteBuffer)}, followed by a single call to
+     * {@link #complete()} once the end of the body has been reached.
+     *
+     * @param <T> the target type
+     */
+    interface BodyReader<T> {
+
+        /**
+         * Feeds the next chunk of the body. Implementations must consume the chunk before returning, the buffer is
+         * not guaranteed to be valid after this call.
+         *
+         * @param chunk the next chunk of the body
+         */
+        void onNext(ByteBuffer chunk);
+
+        /**
+         * Signals the end of the body.
+         *
+         * @return the converted body, possibly {@code null}
+         */
+        T complete();
+
+        /**
+         * @return a {@link BodyReader} that ignores the body and completes with {@code null}
+         */
+        static <T> BodyReader<T> discarding() {
+            return new BodyReader<>() {
                 @Override
-                public MediaType getContentType() {
-                    return contentType;
+                public void onNext(ByteBuffer chunk) {
+                    chunk.position(chunk.limit());
                 }
 
                 @Override
-                public byte[] getSource() {
-                    return source;
+                public T complete() {
+                    return null;
                 }
             };
         }
@@ -103,5 +156,29 @@ public interface HttpBodyConverter {
                 }
             };
         }
+
+        /**
+         * Creates a context with a content type that is known up front, which saves parsing the
+         * {@code Content-Type} header again.
+         */
+        static SerializationContext of(Object source, HttpRequestHeaders requestHeaders, MediaType contentType) {
+            return new SerializationContext() {
+
+                @Override
+                public Object getSource() {
+                    return source;
+                }
+
+                @Override
+                public HttpRequestHeaders getHeaders() {
+                    return requestHeaders;
+                }
+
+                @Override
+                public MediaType getContentType() {
+                    return contentType;
+                }
+            };
+        }
     }
 }
@@ -1,23 +1,43 @@
 package com.contentgrid.opa.client.rest.client.jdk.converter;
 
 import com.contentgrid.opa.client.rest.http.MediaType;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class JacksonBodyConverter implements HttpBodyConverter {
 
     private static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
 
+    /**
+     * Readers are bound to a response type once, the cache stops growing beyond this size.
+     */
+    private static final int MAX_CACHED_READERS = 256;
+
     private final ObjectMapper objectMapper;
 
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
     public JacksonBodyConverter() {
         this(JsonMapper.builder()
                 .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
@@ -29,7 +49,7 @@ public class JacksonBodyConverter implements HttpBodyConverter {
     }
 
     @Override
-    public <T> boolean canRead(DeserializationContext context, Class<T> type) {
+    public <T> boolean canRead(DeserializationContext context, ResponseType<T> type) {
         Objects.requireNonNull(context, "Argument 'context' cannot be null");
         Objects.requireNonNull(type, "Argument 'type' cannot be null");
 
@@ -38,7 +58,7 @@ public class JacksonBodyConverter implements HttpBodyConverter {
             return false;
         }
 
-        var javaType = objectMapper.constructType(type);
+        var javaType = objectMapper.constructType(type.getType());
 
         AtomicReference<Throwable> causeRef = new AtomicReference<>();
         if (this.objectMapper.canDeserialize(javaType, causeRef)) {
@@ -56,17 +76,35 @@ public class JacksonBodyConverter implements HttpBodyConverter {
     }
 
     @Override
-    public <T> T read(DeserializationContext context, Class<T> type) {
+    public <T> BodyReader<T> reader(DeserializationContext context, ResponseType<T> type) {
         Objects.requireNonNull(context, "Argument 'context' cannot be null");
         Objects.requireNonNull(type, "Argument 'type' cannot be null");
 
         try {
-            return objectMapper.readValue(context.getSource(), type);
+            var objectReader = this.objectReader(type);
+            if (type instanceof StreamingResponseType) {
+                return new JacksonBodyReader<>(this.objectMapper, objectReader, (StreamingResponseType<T, ?>) type);
+            }
+            return new JacksonBodyReader<>(this.objectMapper, objectReader, null);
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
 
+    /**
+     * An {@link ObjectReader} resolves the deserializer of its type once, instead of for every response.
+     */
+    private ObjectReader objectReader(ResponseType<?> type) {
+        var objectReader = this.readers.get(type.getType());
+        if (objectReader == null) {
+            objectReader = this.objectMapper.readerFor(this.objectMapper.constructType(type.getType()));
+            if (this.readers.size() < MAX_CACHED_READERS) {
+                this.readers.put(type.getType(), objectReader);
+            }
+        }
+        return objectReader;
+    }
+
     @Override
     public boolean canWrite(SerializationContext context) {
         Objects.requireNonNull(context, "Argument 'context' cannot be null");
@@ -87,14 +125,157 @@ public class JacksonBodyConverter implements HttpBodyConverter {
     }
 
     @Override
-    public byte[] write(SerializationContext context) {
+    public void write(SerializationContext context, OutputStream output) {
         Objects.requireNonNull(context, "Argument 'context' cannot be null");
 
         try {
-            return objectMapper.writeValueAsBytes(context.getSource());
-        } catch (JsonProcessingException e) {
+            if (context.getSource() instanceof RawJson) {
+                // already encoded, splice it into the body
+                ((RawJson) context.getSource()).writeTo(output);
+                return;
+            }
+            objectMapper.writeValue(output, context.getSource());
+        } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
 
     }
+
+    /**
+     * Feeds the body chunks into a non-blocking Jackson parser as they arrive. The parsed tokens are collected in a
+     * {@link TokenBuffer}, which is bound to the target type once the end of the body is reached. Databind cannot
+     * suspend halfway a value, so binding still waits for the last byte, and the token buffer, which is about as
+     * large as the raw body, is held until then. What this saves is the time to tokenize the body, which overlaps
+     * with receiving it, not memory.
+     *
+     * Only a {@link StreamingResponseType} bounds the memory: the tokens of every element of the streamed array are
+     * collected in a buffer of their own, which is bound, handed to the consumer and dropped as soon as the element
+     * is complete.
+     */
+    private static class JacksonBodyReader<T> implements BodyReader<T> {
+
+        private final ObjectMapper objectMapper;
+        private final ObjectReader reader;
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final TokenBuffer tokens;
+
+        /**
+         * The streamed array, {@code null} when nothing is streamed
+         */
+        private final StreamingResponseType<T, ?> streaming;
+        private final JsonPointer arrayPointer;
+
+        /**
+         * The number of open objects and arrays
+         */
+        private int depth;
+
+        /**
+         * The depth inside the streamed array, {@code -1} when outside of it
+         */
+        private int arrayDepth = -1;
+
+        /**
+         * The tokens of the element that is being read, {@code null} between elements
+         */
+        private TokenBuffer element;
+
+        JacksonBodyReader(ObjectMapper objectMapper, ObjectReader reader, StreamingResponseType<T, ?> streaming)
+                throws IOException {
+            this.objectMapper = objectMapper;
+            this.reader = reader;
+            this.streaming = streaming;
+            this.arrayPointer = streaming != null ? JsonPointer.compile(streaming.getArrayPointer()) : null;
+
+            this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+            this.feeder = (ByteBufferFeeder) this.parser.getNonBlockingInputFeeder();
+            this.tokens = new TokenBuffer(this.parser);
+        }
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            try {
+                this.feeder.feedInput(chunk);
+                this.drain();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public T complete() {
+            try {
+                this.feeder.endOfInput();
+                this.drain();
+                this.parser.close();
+
+                return this.reader.readValue(this.tokens.asParser());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (this.streaming == null) {
+                    this.tokens.copyCurrentEvent(this.parser);
+                } else {
+                    this.stream(token);
+                }
+            }
+        }
+
+        private void stream(JsonToken token) throws IOException {
+            if (token.isStructStart()) {
+                this.depth++;
+            } else if (token.isStructEnd()) {
+                this.depth--;
+            }
+
+            if (this.element != null) {
+                // inside an element
+                this.element.copyCurrentEvent(this.parser);
+                if (this.depth == this.arrayDepth) {
+                    this.emit();
+                }
+            } else if (this.arrayDepth >= 0 && this.depth >= this.arrayDepth) {
+                // the start of an element, which is complete right away when it is a scalar
+                this.element = new TokenBuffer(this.parser);
+                this.element.copyCurrentEvent(this.parser);
+                if (this.depth == this.arrayDepth) {
+                    this.emit();
+                }
+            } else {
+                this.tokens.copyCurrentEvent(this.parser);
+                if (token == JsonToken.START_ARRAY && this.isStreamedArray()) {
+                    this.arrayDepth = this.depth;
+                } else if (this.depth < this.arrayDepth) {
+                    // the end of the streamed array, which is streamed only once
+                    this.arrayDepth = Integer.MAX_VALUE;
+                }
+            }
+        }
+
+        private boolean isStreamedArray() {
+            if (this.arrayDepth != -1) {
+                return false;
+            }
+            var parent = this.parser.getParsingContext().getParent();
+            return parent != null && this.arrayPointer.equals(parent.pathAsPointer());
+        }
+
+        private void emit() throws IOException {
+            Object value = this.objectMapper.readValue(this.element.asParser(), this.streaming.getElementType());
+            this.element = null;
+            this.accept(this.streaming, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E> void accept(StreamingResponseType<?, E> streaming, Object value) {
+            streaming.getConsumer().accept((E) value);
+        }
+    }
 }
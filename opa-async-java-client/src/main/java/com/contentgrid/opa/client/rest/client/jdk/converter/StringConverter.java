@@ -1,6 +1,12 @@
 package com.contentgrid.opa.client.rest.client.jdk.converter;
 
 import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
@@ -32,18 +38,33 @@ public class StringConverter implements HttpBodyConverter {
     }
 
     @Override
-    public <T> boolean canRead(DeserializationContext context, Class<T> type) {
-        return type == String.class && this.supportsMediaType(context.getContentType());
+    public <T> boolean canRead(DeserializationContext context, ResponseType<T> type) {
+        return type.getType() == String.class && this.supportsMediaType(context.getContentType());
     }
 
     @Override
-    public <T> T read(DeserializationContext context, Class<T> type) {
+    public <T> BodyReader<T> reader(DeserializationContext context, ResponseType<T> type) {
         var charset = context.getContentType() == null
                 ? this.defaultCharset
                 : context.getContentType().getCharset().orElse(this.defaultCharset);
 
-        return type.cast(new String(context.getSource(), charset));
+        // a charset decoder could decode chunk by chunk, but text bodies are small enough to buffer
+        var buffer = new ByteArrayOutputStream();
+        return new BodyReader<>() {
+            @Override
+            public void onNext(ByteBuffer chunk) {
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                buffer.writeBytes(bytes);
+            }
 
+            @Override
+            @SuppressWarnings("unchecked")
+            public T complete() {
+                // canRead only accepts String
+                return (T) buffer.toString(charset);
+            }
+        };
     }
 
     @Override
@@ -52,17 +73,21 @@ public class StringConverter implements HttpBodyConverter {
     }
 
     @Override
-    public byte[] write(SerializationContext context) {
+    public void write(SerializationContext context, OutputStream output) {
         var source = context.getSource();
         if (source == null) {
-            return new byte[0];
+            return;
         }
 
         var charset = context.getContentType() == null
                 ? this.defaultCharset
                 : context.getContentType().getCharset().orElse(this.defaultCharset);
 
-        return source.toString().getBytes(charset);
+        try {
+            output.write(source.toString().getBytes(charset));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -0,0 +1,75 @@
+package com.contentgrid.opa.client.rest.client.limiter;
+
+import com.contentgrid.opa.client.rest.ConcurrencyLimitSpecification;
+
+/**
+ * An additive increase, multiplicative decrease limit. The limit grows by one for every window of requests that
+ * complete in time while the limit is being used, and is multiplied by the backoff ratio when a request is slow or
+ * dropped.
+ */
+class AimdLimit {
+
+    /**
+     * The number of samples after which the lowest observed latency is forgotten, so the threshold follows changes
+     * of the baseline latency, for example after a policy change.
+     */
+    private static final int MIN_LATENCY_RESET = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long fixedThresholdNanos;
+    private final double latencyTolerance;
+
+    private double limit;
+
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private int samples;
+
+    AimdLimit(ConcurrencyLimitSpecification spec) {
+        this.minLimit = spec.getMinLimit();
+        this.maxLimit = spec.getMaxLimit();
+        this.backoffRatio = spec.getBackoffRatio();
+        this.fixedThresholdNanos = spec.getLatencyThreshold() != null ? spec.getLatencyThreshold().toNanos() : -1;
+        this.latencyTolerance = spec.getLatencyTolerance();
+        this.limit = spec.getInitialLimit();
+    }
+
+    synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * @param latencyNanos the latency of the completed request
+     * @param inFlight the number of requests in flight when the request was started
+     * @param dropped {@code true} if the request failed in a way that indicates overload
+     * @return the new limit
+     */
+    synchronized int onSample(long latencyNanos, int inFlight, boolean dropped) {
+        if (++this.samples >= MIN_LATENCY_RESET) {
+            this.samples = 0;
+            this.minLatencyNanos = Long.MAX_VALUE;
+        }
+        if (!dropped) {
+            this.minLatencyNanos = Math.min(this.minLatencyNanos, latencyNanos);
+        }
+
+        if (dropped || latencyNanos > this.thresholdNanos()) {
+            this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+        } else if (inFlight * 2 >= this.limit) {
+            // only grow while the limit is actually being used
+            this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+        }
+        return (int) this.limit;
+    }
+
+    private long thresholdNanos() {
+        if (this.fixedThresholdNanos > 0) {
+            return this.fixedThresholdNanos;
+        }
+        if (this.minLatencyNanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return (long) (this.minLatencyNanos * this.latencyTolerance);
+    }
+}
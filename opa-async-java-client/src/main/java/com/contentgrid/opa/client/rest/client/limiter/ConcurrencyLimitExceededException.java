@@ -0,0 +1,11 @@
+package com.contentgrid.opa.client.rest.client.limiter;
+
+/**
+ * Thrown when a request is rejected because the concurrency limit is reached and the queue is full.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(int limit, int queueSize) {
+        super("Concurrency limit of " + limit + " reached, " + queueSize + " requests queued");
+    }
+}
@@ -0,0 +1,35 @@
+package com.contentgrid.opa.client.rest.client.limiter;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A snapshot of the statistics of a {@link ConcurrencyLimitingOpaHttpClient}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ConcurrencyLimitStats {
+
+    /**
+     * The current limit of requests in flight
+     */
+    private final int limit;
+
+    private final int inFlight;
+
+    /**
+     * The number of requests waiting for a slot
+     */
+    private final int queueDepth;
+
+    /**
+     * The number of requests that were rejected because the queue was full
+     */
+    private final long rejectedCount;
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitStats(limit=" + this.limit + ", inFlight=" + this.inFlight + ", queueDepth="
+                + this.queueDepth + ", rejected=" + this.rejectedCount + ")";
+    }
+}
@@ -0,0 +1,184 @@
+package com.contentgrid.opa.client.rest.client.limiter;
+
+import com.contentgrid.opa.client.rest.ConcurrencyLimitSpecification;
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.RestClientConfiguration;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.client.ForwardingOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * An {@link OpaHttpClient} that bounds the number of requests in flight with an adaptive limit, see
+ * {@link ConcurrencyLimitSpecification}.
+ *
+ * Requests beyond the limit wait in a bounded queue. Once the queue is full, requests fail immediately with a
+ * {@link ConcurrencyLimitExceededException}, instead of piling up more work for an overloaded OPA.
+ */
+public class ConcurrencyLimitingOpaHttpClient extends ForwardingOpaHttpClient {
+
+    private final OpaHttpClient delegate;
+    private final AimdLimit limit;
+    private final int maxQueueSize;
+
+    private final Queue<Runnable> queue = new ArrayDeque<>();
+    private int inFlight;
+    private int currentLimit;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConcurrencyLimitingOpaHttpClient(OpaHttpClient delegate, ConcurrencyLimitSpecification spec) {
+        this.delegate = delegate;
+        this.limit = new AimdLimit(spec);
+        this.maxQueueSize = spec.getMaxQueueSize();
+        this.currentLimit = this.limit.getLimit();
+    }
+
+    /**
+     * @return the current limit of requests in flight
+     */
+    public synchronized int getLimit() {
+        return this.currentLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * @return the number of requests waiting for a slot
+     */
+    public synchronized int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    /**
+     * @return the number of requests that were rejected because the queue was full
+     */
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    /**
+     * @return a snapshot of the limit, the requests in flight and the queue
+     */
+    public synchronized ConcurrencyLimitStats getStats() {
+        return new ConcurrencyLimitStats(this.currentLimit, this.inFlight, this.queue.size(), this.rejected.get());
+    }
+
+    @Override
+    public void configure(Consumer<RestClientConfiguration> callback) {
+        this.delegate.configure(callback);
+    }
+
+    @Override
+    protected <TResponse> CompletableFuture<TResponse> exchange(OpaHttpExchange<TResponse> exchange) {
+        var result = new CompletableFuture<TResponse>();
+        Runnable start = () -> this.start(exchange, result);
+
+        synchronized (this) {
+            if (this.inFlight >= this.currentLimit) {
+                if (this.queue.size() >= this.maxQueueSize) {
+                    this.rejected.incrementAndGet();
+                    return CompletableFuture.failedFuture(
+                            new ConcurrencyLimitExceededException(this.currentLimit, this.queue.size()));
+                }
+                this.queue.add(start);
+                // a cancelled request gives up its place in the queue
+                result.whenComplete((response, ex) -> {
+                    if (result.isCancelled()) {
+                        synchronized (this) {
+                            this.queue.remove(start);
+                        }
+                    }
+                });
+                return result;
+            }
+            this.inFlight++;
+        }
+
+        start.run();
+        return result;
+    }
+
+    /**
+     * Sends the exchange, holding a slot.
+     */
+    private <TResponse> void start(OpaHttpExchange<TResponse> exchange, CompletableFuture<TResponse> result) {
+        if (result.isDone()) {
+            // cancelled while it was handed a slot
+            this.releaseSlot();
+            return;
+        }
+
+        int inFlightAtStart;
+        synchronized (this) {
+            inFlightAtStart = this.inFlight;
+        }
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<TResponse> response;
+        try {
+            response = exchange.send(this.delegate);
+        } catch (RuntimeException ex) {
+            response = CompletableFuture.failedFuture(ex);
+        }
+
+        CompletableFutures.propagateCancellation(result, response);
+        response.whenComplete((value, ex) -> {
+            this.release(System.nanoTime() - startNanos, inFlightAtStart, ex);
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void release(long latencyNanos, int inFlightAtStart, Throwable ex) {
+        var cause = CompletableFutures.unwrap(ex);
+
+        synchronized (this) {
+            if (!(cause instanceof CancellationException)) {
+                this.currentLimit = this.limit.onSample(latencyNanos, inFlightAtStart, isDropped(cause));
+            }
+        }
+        this.releaseSlot();
+    }
+
+    /**
+     * Frees a slot and starts as many queued requests as the current limit allows, outside of the lock.
+     */
+    private void releaseSlot() {
+        var next = new ArrayDeque<Runnable>();
+        synchronized (this) {
+            this.inFlight--;
+            while (this.inFlight < this.currentLimit && !this.queue.isEmpty()) {
+                this.inFlight++;
+                next.add(this.queue.poll());
+            }
+        }
+        next.forEach(Runnable::run);
+    }
+
+    /**
+     * Failures that signal overload: OPA or a proxy rejecting the request, and failures on the transport level, like
+     * timeouts. Other error responses are a problem with the request itself.
+     */
+    private static boolean isDropped(Throwable cause) {
+        if (cause == null) {
+            return false;
+        }
+        if (cause instanceof HttpStatusException) {
+            int status = ((HttpStatusException) cause).statusCode();
+            return status == 429 || status == 503;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.contentgrid.opa.client.rest.client.metrics;
+
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.ServerMetricsListener;
+import com.contentgrid.opa.client.rest.http.ServerMetrics;
+
+/**
+ * A {@link ServerMetricsListener} that splits the latency of the sampled calls into histograms:
+ *
+ * <ul>
+ *     <li>{@link #getClientLatency() client latency}: the whole call, as seen by the client</li>
+ *     <li>{@link #getNetworkAndQueueing() network and queueing}: the client latency minus the time OPA spent
+ *     handling the request, which is spent on the network and waiting in the client and in OPA's listener</li>
+ *     <li>{@link #getServerHandler() server handler}: the time OPA spent handling the request</li>
+ *     <li>{@link #getEvaluation() evaluation}: the time OPA spent evaluating the policy, or partially evaluating
+ *     the query for the Compile API</li>
+ * </ul>
+ */
+public class ServerMetricsHistograms implements ServerMetricsListener {
+
+    private final LatencyHistogram clientLatency = new LatencyHistogram();
+    private final LatencyHistogram networkAndQueueing = new LatencyHistogram();
+    private final LatencyHistogram serverHandler = new LatencyHistogram();
+    private final LatencyHistogram evaluation = new LatencyHistogram();
+
+    @Override
+    public void onMetrics(OpaHttpExchange<?> exchange, ServerMetrics metrics, long clientNanos) {
+        this.clientLatency.record(clientNanos);
+
+        long handlerNanos = metrics.getServerHandlerNanos();
+        if (handlerNanos >= 0) {
+            this.serverHandler.record(handlerNanos);
+            this.networkAndQueueing.record(clientNanos - handlerNanos);
+        }
+
+        long evaluationNanos = metrics.getQueryEvalNanos() >= 0
+                ? metrics.getQueryEvalNanos()
+                : metrics.getPartialEvalNanos();
+        if (evaluationNanos >= 0) {
+            this.evaluation.record(evaluationNanos);
+        }
+    }
+
+    public LatencyHistogram getClientLatency() {
+        return this.clientLatency;
+    }
+
+    public LatencyHistogram getNetworkAndQueueing() {
+        return this.networkAndQueueing;
+    }
+
+    public LatencyHistogram getServerHandler() {
+        return this.serverHandler;
+    }
+
+    public LatencyHistogram getEvaluation() {
+        return this.evaluation;
+    }
+}
@@ -0,0 +1,101 @@
+package com.contentgrid.opa.client.rest.client.metrics;
+
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.OpaHttpExchange;
+import com.contentgrid.opa.client.rest.RestClientConfiguration;
+import com.contentgrid.opa.client.rest.ServerMetricsListener;
+import com.contentgrid.opa.client.rest.ServerMetricsSpecification;
+import com.contentgrid.opa.client.rest.client.CompletableFutures;
+import com.contentgrid.opa.client.rest.client.ForwardingOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.ServerMetricsResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An {@link OpaHttpClient} that asks OPA for its performance metrics on a sample of the calls, see
+ * {@link ServerMetricsSpecification}.
+ *
+ * The metrics are read from response bodies that implement {@link ServerMetricsResponse}. The latency the listener
+ * gets includes everything that happens in the clients this client decorates, like waiting for a concurrency limit.
+ */
+@Slf4j
+public class ServerMetricsOpaHttpClient extends ForwardingOpaHttpClient {
+
+    private static final List<String> METRICS_ENDPOINTS = List.of("/v1/data/", "/v1/batch/data/", "/v1/query",
+            "/v1/compile");
+
+    private final OpaHttpClient delegate;
+    private final ServerMetricsListener listener;
+    private final double sampleRate;
+    private final String parameters;
+
+    public ServerMetricsOpaHttpClient(OpaHttpClient delegate, ServerMetricsSpecification spec) {
+        if (!spec.isEnabled()) {
+            throw new IllegalArgumentException("a listener is required");
+        }
+        this.delegate = delegate;
+        this.listener = spec.getListener();
+        this.sampleRate = spec.getSampleRate();
+        this.parameters = spec.isInstrument() ? "metrics=true&instrument=true" : "metrics=true";
+    }
+
+    @Override
+    public void configure(Consumer<RestClientConfiguration> callback) {
+        this.delegate.configure(callback);
+    }
+
+    @Override
+    protected <TResponse> CompletableFuture<TResponse> exchange(OpaHttpExchange<TResponse> exchange) {
+        if (!exchange.isReadOnly() || !supportsMetrics(exchange.getPath()) || !this.sample()) {
+            return exchange.send(this.delegate);
+        }
+
+        var sampled = new OpaHttpExchange<>(exchange.getMethod(), this.withParameters(exchange.getPath()),
+                exchange.getHeadersCallback(), exchange.getRequestBody(), exchange.getResponseType());
+
+        long startNanos = System.nanoTime();
+        var response = sampled.send(this.delegate);
+        var result = response.thenApply(body -> {
+            this.record(exchange, body, System.nanoTime() - startNanos);
+            return body;
+        });
+        return CompletableFutures.propagateCancellation(result, response);
+    }
+
+    private void record(OpaHttpExchange<?> exchange, Object body, long clientNanos) {
+        if (!(body instanceof ServerMetricsResponse)) {
+            return;
+        }
+        var metrics = ((ServerMetricsResponse) body).getMetrics();
+        if (metrics == null) {
+            return;
+        }
+
+        try {
+            this.listener.onMetrics(exchange, metrics, clientNanos);
+        } catch (RuntimeException ex) {
+            // a broken listener must not fail the call
+            log.warn("Server metrics listener failed for {}", exchange, ex);
+        }
+    }
+
+    private boolean sample() {
+        return this.sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < this.sampleRate;
+    }
+
+    private String withParameters(String path) {
+        return path + (path.indexOf('?') < 0 ? '?' : '&') + this.parameters;
+    }
+
+    private static boolean supportsMetrics(String path) {
+        for (var endpoint : METRICS_ENDPOINTS) {
+            if (path.startsWith(endpoint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.contentgrid.opa.client.rest.http;
 
+import java.util.List;
 import lombok.Getter;
 
 public class HttpStatusException extends RuntimeException {
@@ -7,9 +8,27 @@ public class HttpStatusException extends RuntimeException {
     @Getter
     private final int statusCode;
 
+    /**
+     * The error codes of an OPA error response: the code of the response, followed by the codes of the individual
+     * errors, like {@code eval_conflict_error}. Empty when the response had no OPA error body.
+     */
+    @Getter
+    private final List<String> errorCodes;
+
     public HttpStatusException(int statusCode) {
         super("HTTP "+statusCode);
         this.statusCode = statusCode;
+        this.errorCodes = List.of();
+    }
+
+    public HttpStatusException(int statusCode, String message) {
+        this(statusCode, message, List.of());
+    }
+
+    public HttpStatusException(int statusCode, String message, List<String> errorCodes) {
+        super("HTTP " + statusCode + ": " + message);
+        this.statusCode = statusCode;
+        this.errorCodes = List.copyOf(errorCodes);
     }
 
     public int statusCode() {
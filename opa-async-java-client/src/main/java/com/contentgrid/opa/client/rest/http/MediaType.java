@@ -9,6 +9,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -25,6 +26,7 @@ import java.util.stream.Collectors;
 public class MediaType {
 
     public static final MediaType APPLICATION_JSON = new MediaType("application", "json");
+    public static final MediaType APPLICATION_JSON_PATCH = new MediaType("application", "json-patch+json");
     public static final MediaType APPLICATION_OCTET_STREAM = new MediaType("application", "octet-stream");
 
     public static final MediaType TEXT_ALL = new MediaType("text", "*");
@@ -285,6 +287,24 @@ public class MediaType {
         return sb.toString();
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MediaType)) {
+            return false;
+        }
+        var other = (MediaType) o;
+        return this.type.equals(other.type) && this.subtype.equals(other.subtype)
+                && this.parameters.equals(other.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.type, this.subtype, this.parameters);
+    }
+
     /**
      * Return a string representation of the given list of {@code MediaType} objects, to be used in an {@code Accept} or
      * {@code Content-Type} header.
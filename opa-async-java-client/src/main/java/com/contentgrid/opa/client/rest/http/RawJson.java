@@ -0,0 +1,97 @@
+package com.contentgrid.opa.client.rest.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * A pre-encoded JSON value, which is written as-is wherever it appears in a request body: as the body itself or
+ * nested in the input document of a query.
+ *
+ * Encoding a large, slowly changing sub-document once and reusing the {@link RawJson} avoids serializing it again
+ * for every request. The content is not validated, it must be a single, well-formed JSON value.
+ *
+ * @see RawJsonCache
+ */
+public final class RawJson implements JsonSerializable {
+
+    private final SerializedString json;
+
+    private RawJson(String json) {
+        this.json = new SerializedString(Objects.requireNonNull(json, "Argument 'json' cannot be null"));
+    }
+
+    /**
+     * @param json an encoded JSON value
+     * @return a {@link RawJson} that writes the provided JSON as-is
+     */
+    public static RawJson of(String json) {
+        return new RawJson(json);
+    }
+
+    /**
+     * Encodes a value with the provided {@link ObjectMapper}.
+     *
+     * @param objectMapper the object mapper to encode the value with
+     * @param value the value to encode
+     * @return the encoded value
+     */
+    public static RawJson encode(ObjectMapper objectMapper, Object value) {
+        try {
+            return new RawJson(objectMapper.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the UTF-8 encoded JSON, which is encoded only once, to the provided output.
+     *
+     * @param output the output to write to
+     * @throws IOException when writing fails
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        output.write(this.json.asUnquotedUTF8());
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(this.json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        // the encoded form is final, there is no room for type information
+        this.serialize(gen, serializers);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return this.json.getValue().equals(((RawJson) o).json.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.json.getValue().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.json.getValue();
+    }
+}
@@ -0,0 +1,137 @@
+package com.contentgrid.opa.client.rest.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the {@link RawJson} encoded form of reusable input fragments, like the group memberships of a
+ * user or the metadata of a resource.
+ *
+ * Fragments are either cached by identity, for immutable values that are shared between requests, or by a key and a
+ * version, for values that are rebuilt but change slowly. The least recently used fragments are evicted once the cache
+ * is full.
+ */
+public class RawJsonCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Object, Entry> entries;
+
+    public RawJsonCache(ObjectMapper objectMapper) {
+        this(objectMapper, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param objectMapper the object mapper to encode the fragments with
+     * @param maxSize the maximum number of cached fragments
+     */
+    public RawJsonCache(ObjectMapper objectMapper, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.objectMapper = Objects.requireNonNull(objectMapper, "Argument 'objectMapper' cannot be null");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the encoded form of the value, keyed by the identity of the value. The value must not be modified
+     * afterwards.
+     *
+     * @param value the value to encode
+     * @return the encoded value
+     */
+    public RawJson encode(Object value) {
+        Objects.requireNonNull(value, "Argument 'value' cannot be null");
+        return this.encode(new IdentityKey(value), null, () -> value);
+    }
+
+    /**
+     * Returns the encoded form of a value, keyed by a key and a version. The value is only fetched and encoded when
+     * no fragment is cached for the key, or when the cached fragment has another version.
+     *
+     * @param key the key of the fragment
+     * @param version the version of the fragment, compared with {@link Object#equals(Object)}
+     * @param value supplies the value when it has to be encoded
+     * @return the encoded value
+     */
+    public RawJson encode(Object key, Object version, Supplier<?> value) {
+        Objects.requireNonNull(key, "Argument 'key' cannot be null");
+        Objects.requireNonNull(value, "Argument 'value' cannot be null");
+
+        synchronized (this.entries) {
+            var entry = this.entries.get(key);
+            if (entry != null && Objects.equals(entry.version, version)) {
+                return entry.json;
+            }
+        }
+
+        // encode outside of the lock, concurrent misses for the same key encode the same value
+        var json = RawJson.encode(this.objectMapper, value.get());
+
+        synchronized (this.entries) {
+            this.entries.put(key, new Entry(version, json));
+        }
+        return json;
+    }
+
+    /**
+     * Evicts the fragment with the provided key, or the fragment of the provided value when it was cached by identity.
+     */
+    public void invalidate(Object key) {
+        synchronized (this.entries) {
+            this.entries.remove(key);
+            this.entries.remove(new IdentityKey(key));
+        }
+    }
+
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    private static class Entry {
+
+        private final Object version;
+        private final RawJson json;
+
+        Entry(Object version, RawJson json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    private static class IdentityKey {
+
+        private final Object value;
+
+        IdentityKey(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).value == this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.value);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.contentgrid.opa.client.rest.http;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The type a response body is converted into, including generic type arguments, like {@code List<String>}.
+ *
+ * Create an instance with {@link #of(Class)}, {@link #parameterized(Class, Type...)}, or capture a generic type with
+ * an anonymous subclass: {@code new ResponseType<List<String>>() {}}.
+ *
+ * @param <T> the response type
+ */
+public class ResponseType<T> {
+
+    private final Type type;
+    private final Class<? super T> rawClass;
+
+    @SuppressWarnings("unchecked")
+    protected ResponseType() {
+        var superclass = this.getClass().getGenericSuperclass();
+        if (!(superclass instanceof ParameterizedType)) {
+            throw new IllegalStateException("ResponseType must be created with a type argument");
+        }
+        this.type = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+        this.rawClass = (Class<? super T>) rawClass(this.type);
+    }
+
+    protected ResponseType(Type type, Class<? super T> rawClass) {
+        this.type = type;
+        this.rawClass = rawClass;
+    }
+
+    public static <T> ResponseType<T> of(Class<T> type) {
+        Objects.requireNonNull(type, "type cannot be null");
+        return new ResponseType<>(type, type);
+    }
+
+    /**
+     * @param rawType the generic class, like {@code List.class}
+     * @param typeArguments the type arguments, like {@code String.class}
+     * @return the parameterized type, like {@code List<String>}
+     */
+    public static <T> ResponseType<T> parameterized(Class<?> rawType, Type... typeArguments) {
+        Objects.requireNonNull(rawType, "rawType cannot be null");
+        if (rawType.getTypeParameters().length != typeArguments.length) {
+            throw new IllegalArgumentException(String.format("%s requires %d type arguments, got %d",
+                    rawType.getName(), rawType.getTypeParameters().length, typeArguments.length));
+        }
+        @SuppressWarnings("unchecked")
+        var raw = (Class<? super T>) rawType;
+        return new ResponseType<>(new SimpleParameterizedType(rawType, typeArguments.clone()), raw);
+    }
+
+    /**
+     * @return the full type, possibly a {@link ParameterizedType}
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the class of the type, without type arguments
+     */
+    public Class<? super T> getRawClass() {
+        return this.rawClass;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(
+                    rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof TypeVariable) {
+            throw new IllegalArgumentException("Unresolved type variable " + type);
+        }
+        return Object.class;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ResponseType && this.type.equals(((ResponseType<?>) o).type);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.type.getTypeName();
+    }
+
+    private static class SimpleParameterizedType implements ParameterizedType {
+
+        private final Class<?> rawType;
+        private final Type[] typeArguments;
+
+        SimpleParameterizedType(Class<?> rawType, Type[] typeArguments) {
+            this.rawType = rawType;
+            this.typeArguments = typeArguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return this.typeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return this.rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return this.rawType.getDeclaringClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParameterizedType)) {
+                return false;
+            }
+            var other = (ParameterizedType) o;
+            return this.rawType.equals(other.getRawType())
+                    && Objects.equals(this.getOwnerType(), other.getOwnerType())
+                    && Arrays.equals(this.typeArguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.typeArguments) ^ Objects.hashCode(this.getOwnerType())
+                    ^ this.rawType.hashCode();
+        }
+
+        @Override
+        public String getTypeName() {
+            var args = Arrays.stream(this.typeArguments).map(Type::getTypeName).toArray(String[]::new);
+            return this.rawType.getName() + "<" + String.join(", ", args) + ">";
+        }
+
+        @Override
+        public String toString() {
+            return this.getTypeName();
+        }
+    }
+}
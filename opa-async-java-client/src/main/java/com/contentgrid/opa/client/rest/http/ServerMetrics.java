@@ -0,0 +1,85 @@
+package com.contentgrid.opa.client.rest.http;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The performance metrics OPA reports for a single call, when it is asked to with {@code ?metrics=true}. Timers are
+ * in nanoseconds. With {@code ?instrument=true}, OPA reports many more timers and some histograms.
+ *
+ * @see <a href="https://www.openpolicyagent.org/docs/latest/rest-api/#performance-metrics">Performance Metrics</a>
+ */
+public class ServerMetrics {
+
+    public static final String SERVER_HANDLER = "timer_server_handler_ns";
+    public static final String QUERY_PARSE = "timer_rego_query_parse_ns";
+    public static final String QUERY_COMPILE = "timer_rego_query_compile_ns";
+    public static final String QUERY_EVAL = "timer_rego_query_eval_ns";
+    public static final String INPUT_PARSE = "timer_rego_input_parse_ns";
+    public static final String PARTIAL_EVAL = "timer_rego_partial_eval_ns";
+
+    private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+    @JsonAnySetter
+    void set(String name, Object value) {
+        this.metrics.put(name, value);
+    }
+
+    /**
+     * @return all the metrics, by name
+     */
+    @JsonAnyGetter
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(this.metrics);
+    }
+
+    /**
+     * @param name the name of the timer, like {@code timer_rego_query_eval_ns}
+     * @return the timer in nanoseconds, or {@code -1} when OPA did not report it
+     */
+    public long getTimerNanos(String name) {
+        var value = this.metrics.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : -1;
+    }
+
+    /**
+     * @return the time OPA spent handling the request, from reading the request to writing the response
+     */
+    public long getServerHandlerNanos() {
+        return this.getTimerNanos(SERVER_HANDLER);
+    }
+
+    public long getQueryParseNanos() {
+        return this.getTimerNanos(QUERY_PARSE);
+    }
+
+    public long getQueryCompileNanos() {
+        return this.getTimerNanos(QUERY_COMPILE);
+    }
+
+    /**
+     * @return the time OPA spent evaluating the policy
+     */
+    public long getQueryEvalNanos() {
+        return this.getTimerNanos(QUERY_EVAL);
+    }
+
+    public long getInputParseNanos() {
+        return this.getTimerNanos(INPUT_PARSE);
+    }
+
+    /**
+     * @return the time OPA spent partially evaluating the query, only reported by the Compile API
+     */
+    public long getPartialEvalNanos() {
+        return this.getTimerNanos(PARTIAL_EVAL);
+    }
+
+    @Override
+    public String toString() {
+        return "ServerMetrics" + this.metrics;
+    }
+}
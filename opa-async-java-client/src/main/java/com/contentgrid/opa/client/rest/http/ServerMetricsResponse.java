@@ -0,0 +1,12 @@
+package com.contentgrid.opa.client.rest.http;
+
+/**
+ * A response body that carries the {@link ServerMetrics} of the call, when OPA was asked for them.
+ */
+public interface ServerMetricsResponse {
+
+    /**
+     * @return the metrics, or {@code null} when OPA was not asked for them
+     */
+    ServerMetrics getMetrics();
+}
@@ -0,0 +1,48 @@
+package com.contentgrid.opa.client.rest.http;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ResponseType} of which the elements of one array are not bound into the response, but handed to a
+ * consumer one by one, as soon as they are read. The array is left empty in the response.
+ *
+ * This bounds the memory that is needed to read a response with a very large array to a single element, and the
+ * consumer can start working before the whole body has arrived. Converters that do not support streaming bind the
+ * array into the response as usual, and the consumer is not called.
+ *
+ * @param <T> the response type
+ * @param <E> the element type
+ */
+public class StreamingResponseType<T, E> extends ResponseType<T> {
+
+    private final String arrayPointer;
+    private final Class<E> elementType;
+    private final Consumer<? super E> consumer;
+
+    /**
+     * @param type the response type
+     * @param arrayPointer the JSON Pointer of the array, like {@code /result/queries}
+     * @param elementType the type of the elements of the array
+     * @param consumer the consumer of the elements, called on the thread that reads the body
+     */
+    public StreamingResponseType(Class<T> type, String arrayPointer, Class<E> elementType,
+            Consumer<? super E> consumer) {
+        super(Objects.requireNonNull(type, "type cannot be null"), type);
+        this.arrayPointer = Objects.requireNonNull(arrayPointer, "arrayPointer cannot be null");
+        this.elementType = Objects.requireNonNull(elementType, "elementType cannot be null");
+        this.consumer = Objects.requireNonNull(consumer, "consumer cannot be null");
+    }
+
+    public String getArrayPointer() {
+        return this.arrayPointer;
+    }
+
+    public Class<E> getElementType() {
+        return this.elementType;
+    }
+
+    public Consumer<? super E> getConsumer() {
+        return this.consumer;
+    }
+}
@@ -0,0 +1,159 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.MicroBatchingSpecification.Endpoint;
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientBatchingTest {
+
+    private StubOpaServer opa;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .document("authz/allow", input -> {
+                    var user = ((Map<?, ?>) input).get("user");
+                    if ("mallory".equals(user)) {
+                        throw new IllegalStateException("eval_conflict_error");
+                    }
+                    return "alice".equals(user) ? Boolean.TRUE : null;
+                });
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void evaluateBatch_resultsInInputOrder() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).build();
+
+        var results = client.evaluateBatch("authz/allow",
+                List.of(Map.of("user", "alice"), Map.of("user", "bob"), Map.of("user", "alice")), Boolean.class).join();
+
+        assertThat(results).extracting(EvaluationResult::isDefined).containsExactly(true, false, true);
+        assertThat(results.get(0).getRequiredResult()).isTrue();
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/batch/data/authz/allow");
+    }
+
+    @Test
+    void microBatching_mergesConcurrentEvaluations() throws Exception {
+        // the window outlasts the test, the batch is sent when the last evaluation fills it
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .microBatching(batching -> batching
+                        .window(Duration.ofMinutes(5))
+                        .maxBatchSize(21))
+                .build();
+
+        var results = new ArrayList<CompletableFuture<EvaluationResult<Boolean>>>();
+        for (int i = 0; i < 20; i++) {
+            results.add(client.evaluate("authz/allow", Map.of("user", i % 2 == 0 ? "alice" : "bob"), Boolean.class));
+        }
+        var failed = client.evaluate("authz/allow", Map.of("user", "mallory"), Boolean.class);
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get().isDefined()).isEqualTo(i % 2 == 0);
+        }
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(failed::get)
+                .withCauseInstanceOf(HttpStatusException.class);
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/batch/data/authz/allow");
+    }
+
+    @Test
+    void microBatching_fullBatchIsSentRightAway() {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .microBatching(batching -> batching
+                        .window(Duration.ofSeconds(30))
+                        .maxBatchSize(2))
+                .build();
+
+        var first = client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class);
+        var second = client.evaluate("authz/allow", Map.of("user", "bob"), Boolean.class);
+
+        assertThat(first.join().getRequiredResult()).isTrue();
+        assertThat(second.join().isDefined()).isFalse();
+    }
+
+    @Test
+    void microBatching_multiplexedQuery() throws Exception {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .microBatching(batching -> batching
+                        .endpoint(Endpoint.QUERY)
+                        .window(Duration.ofMinutes(5))
+                        .maxBatchSize(2))
+                .build();
+
+        var alice = client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class);
+        var bob = client.evaluate("authz/allow", Map.of("user", "bob"), Boolean.class);
+
+        assertThat(alice.get().getRequiredResult()).isTrue();
+        assertThat(bob.get().isDefined()).isFalse();
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/query");
+    }
+
+    @Test
+    void microBatching_multiplexedQueryFails_retriesOneByOne() throws Exception {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .microBatching(batching -> batching
+                        .endpoint(Endpoint.QUERY)
+                        .window(Duration.ofMinutes(5))
+                        .maxBatchSize(2))
+                .build();
+
+        var alice = client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class);
+        var mallory = client.evaluate("authz/allow", Map.of("user", "mallory"), Boolean.class);
+
+        assertThat(alice.get().getRequiredResult()).isTrue();
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(mallory::get)
+                .withCauseInstanceOf(HttpStatusException.class);
+        assertThat(this.opa.getRequests()).containsExactly(
+                "POST /v1/query", "POST /v1/data/authz/allow", "POST /v1/data/authz/allow");
+    }
+
+    @Test
+    void microBatching_multiplexedQueryRejected_failsWholeBatch() {
+        this.opa.failQueries(400);
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .microBatching(batching -> batching
+                        .endpoint(Endpoint.QUERY)
+                        .window(Duration.ofMinutes(5))
+                        .maxBatchSize(2))
+                .build();
+
+        var alice = client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class);
+        var bob = client.evaluate("authz/allow", Map.of("user", "bob"), Boolean.class);
+
+        // a query that OPA rejects would be rejected for every input, it is not retried one by one
+        for (var result : List.of(alice, bob)) {
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(result::get)
+                    .havingCause()
+                    .isInstanceOfSatisfying(HttpStatusException.class, ex -> {
+                        assertThat(ex.getStatusCode()).isEqualTo(400);
+                        assertThat(ex.getErrorCodes()).containsExactly("invalid_parameter", "rego_compile_error");
+                    });
+        }
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/query");
+    }
+}
@@ -0,0 +1,68 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.api.CompileApi.Instrumentation;
+import com.contentgrid.opa.client.api.CompileApi.PartialEvaluationRequest;
+import com.contentgrid.opa.client.cache.CacheStats;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientCompileCacheTest {
+
+    private static final String QUERY = "data.authz.allow == true";
+
+    private StubOpaServer opa;
+
+    private OpaClient client;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start();
+        this.client = OpaClient.builder().url(this.opa.getUrl()).compileCache(cache -> { }).build();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void compileCache_keyedByQueryUnknownsAndInput() {
+        var first = this.client.compile(QUERY, Map.of("user", "alice"), List.of("input.a", "input.b")).join();
+        var second = this.client.compile(QUERY, Map.of("user", "alice"), List.of("input.b", "input.a")).join();
+        this.client.compile(QUERY, Map.of("user", "bob"), List.of("input.a", "input.b")).join();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getResult().getQueries()).hasSize(1);
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/compile", "POST /v1/compile");
+        assertThat(this.client.getCompileCacheStats()).get()
+                .extracting(CacheStats::getHitCount, CacheStats::getMissCount)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void compileCache_instrumentedRequestsAreNotCached() {
+        var request = new PartialEvaluationRequest(QUERY, Map.of("user", "alice"), List.of("input.a"))
+                .withInstrumentation(Instrumentation.METRICS);
+
+        this.client.compile(request).join();
+        this.client.compile(request).join();
+
+        assertThat(this.opa.getRequests()).hasSize(2);
+    }
+
+    @Test
+    void compileCache_invalidatedByPolicyChanges() {
+        this.client.compile(QUERY, Map.of("user", "alice"), List.of("input.a")).join();
+        this.client.upsertPolicy("authz", "package authz\n").join();
+        this.client.compile(QUERY, Map.of("user", "alice"), List.of("input.a")).join();
+
+        assertThat(this.opa.getRequests())
+                .containsExactly("POST /v1/compile", "PUT /v1/policies/authz", "POST /v1/compile");
+    }
+}
@@ -0,0 +1,110 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientDataMirrorTest {
+
+    private StubOpaServer opa;
+
+    private OpaClient client;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start().bundle("main", "v1");
+        this.client = OpaClient.builder().url(this.opa.getUrl()).build();
+        this.client.upsertData("reference", Map.of(
+                "countries", Map.of("be", Map.of("name", "Belgium")),
+                "colors", Arrays.asList("red", null))).join();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void mirrorData_answersLookupsLocally() {
+        try (var mirror = this.client.mirrorData("reference", null).join()) {
+            for (int i = 0; i < 100; i++) {
+                assertThat(mirror.get("countries/be/name")).isEqualTo("Belgium");
+            }
+            assertThat(mirror.get("colors/0")).isEqualTo("red");
+            assertThat(mirror.contains("colors/1")).isTrue();
+            assertThat(mirror.get("colors/1")).isNull();
+            assertThat(mirror.contains("countries/nl")).isFalse();
+            assertThat(mirror.get("")).isInstanceOf(Map.class);
+
+            assertThat(this.opa.getRequests()).filteredOn(request -> request.startsWith("GET "))
+                    .containsExactly("GET /v1/data/reference");
+        }
+    }
+
+    @Test
+    void mirrorData_appliesUpsertsInPlace() {
+        try (var mirror = this.client.mirrorData("reference", null).join()) {
+            var digest = mirror.getDigest();
+
+            this.client.upsertData("reference/countries/nl", Map.of("name", "Netherlands")).join();
+
+            assertThat(mirror.get("countries/nl/name")).isEqualTo("Netherlands");
+            assertThat(mirror.get("countries/be/name")).isEqualTo("Belgium");
+            assertThat(mirror.getDigest()).isNotEqualTo(digest);
+            assertThat(this.opa.getRequests()).filteredOn(request -> request.startsWith("GET "))
+                    .containsExactly("GET /v1/data/reference");
+
+            this.client.upsertData("reference", Map.of("colors", "none")).join();
+
+            assertThat(mirror.contains("countries")).isFalse();
+            assertThat(mirror.get("colors")).isEqualTo("none");
+        }
+    }
+
+    @Test
+    void mirrorData_readAgainWhenBundleRevisionMoves() throws InterruptedException {
+        try (var mirror = this.client.mirrorData("reference", Duration.ofMillis(20)).join()) {
+            while (!this.opa.getRequests().contains("GET /v1/data/system/bundles")) {
+                Thread.sleep(5);
+            }
+
+            // changed behind the back of the client, like a new bundle would
+            var other = OpaClient.builder().url(this.opa.getUrl()).build();
+            other.upsertData("reference", Map.of("countries", Map.of("fr", Map.of("name", "France")))).join();
+            this.opa.bundle("main", "v2");
+
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!mirror.contains("countries/fr") && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(mirror.get("countries/fr/name")).isEqualTo("France");
+            assertThat(mirror.contains("countries/be")).isFalse();
+
+            // same digest, the mirror is kept
+            assertThat(mirror.refresh().join()).isFalse();
+        }
+    }
+
+    @Test
+    void mirrorData_stopsFollowingWhenClientIsClosed() throws InterruptedException {
+        var mirror = this.client.mirrorData("reference", Duration.ofMillis(10)).join();
+        while (!this.opa.getRequests().contains("GET /v1/data/system/bundles")) {
+            Thread.sleep(5);
+        }
+
+        this.client.close();
+        // a poll can still be in flight
+        Thread.sleep(50);
+        int polls = this.opa.getRequests().size();
+        Thread.sleep(100);
+
+        assertThat(this.opa.getRequests()).hasSize(polls);
+        assertThat(mirror.get("countries/be/name")).isEqualTo("Belgium");
+    }
+}
@@ -0,0 +1,123 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.cache.CacheStats;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientDecisionCacheTest {
+
+    private StubOpaServer opa;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .document("authz/allow", input -> {
+                    var user = ((Map<?, ?>) input).get("user");
+                    if ("mallory".equals(user)) {
+                        throw new IllegalStateException("eval_conflict_error");
+                    }
+                    return "alice".equals(user) ? Boolean.TRUE : null;
+                });
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void decisionCache_canonicalInput() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).decisionCache(cache -> { }).build();
+
+        var input = new LinkedHashMap<String, Object>();
+        input.put("user", "alice");
+        input.put("level", 1);
+        var reordered = new LinkedHashMap<String, Object>();
+        reordered.put("level", 1.0);
+        reordered.put("user", "alice");
+
+        assertThat(client.evaluate("authz/allow", input, Boolean.class).join().getRequiredResult()).isTrue();
+        assertThat(client.evaluate("authz/allow", reordered, Boolean.class).join().getRequiredResult()).isTrue();
+        assertThat(client.evaluate("authz/allow", Map.of("user", "bob"), Boolean.class).join().isDefined()).isFalse();
+
+        assertThat(this.opa.getRequests()).hasSize(2);
+        assertThat(client.getDecisionCacheStats()).get()
+                .extracting(CacheStats::getHitCount, CacheStats::getMissCount)
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void decisionCache_invalidatedByChanges() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).decisionCache(cache -> { }).build();
+
+        client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class).join();
+        client.upsertData("roles", Map.of("alice", "admin")).join();
+        client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class).join();
+        client.upsertPolicy("authz", "package authz\n").join();
+        client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class).join();
+
+        assertThat(this.opa.getRequests()).containsExactly(
+                "POST /v1/data/authz/allow",
+                "PUT /v1/data/roles",
+                "POST /v1/data/authz/allow",
+                "PUT /v1/policies/authz",
+                "POST /v1/data/authz/allow");
+    }
+
+    @Test
+    void decisionCache_failuresAreNotCached() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).decisionCache(cache -> { }).build();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(() -> client.evaluate("authz/allow", Map.of("user", "mallory"), Boolean.class).join());
+        }
+        assertThat(this.opa.getRequests()).hasSize(2);
+    }
+
+    @Test
+    void decisionCache_evictsLeastRecentlyUsed() {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .decisionCache(cache -> cache.maximumSize(2))
+                .build();
+
+        for (var user : new String[]{"alice", "bob", "alice", "carol", "bob"}) {
+            client.evaluate("authz/allow", Map.of("user", user), Boolean.class).join();
+        }
+
+        // bob was evicted by carol
+        assertThat(this.opa.getRequests()).hasSize(4);
+        assertThat(client.getDecisionCacheStats()).get()
+                .extracting(CacheStats::getEvictionCount, CacheStats::getSize)
+                .containsExactly(2L, 2L);
+    }
+
+    @Test
+    void close_stopsBundleRevisionWatch() throws Exception {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .decisionCache(cache -> cache.invalidateOnBundleChange(Duration.ofMillis(10)))
+                .build();
+        while (this.opa.getRequests().size() < 2) {
+            Thread.sleep(5);
+        }
+
+        client.close();
+        // a poll can still be in flight
+        Thread.sleep(50);
+        int polls = this.opa.getRequests().size();
+        Thread.sleep(100);
+
+        assertThat(this.opa.getRequests()).hasSize(polls);
+    }
+}
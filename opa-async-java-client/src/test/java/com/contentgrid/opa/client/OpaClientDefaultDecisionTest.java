@@ -0,0 +1,47 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientDefaultDecisionTest {
+
+    private StubOpaServer opa;
+
+    private OpaClient client;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .defaultDecision(input -> "alice".equals(((Map<?, ?>) input).get("user")) ? Boolean.TRUE : null);
+        this.client = OpaClient.builder().url(this.opa.getUrl()).build();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void defaultDecision_sendsBareInput() {
+        for (int i = 0; i < 2; i++) {
+            assertThat(this.client.defaultDecision(Map.of("user", "alice"), Boolean.class).join()).isTrue();
+        }
+        assertThat(this.opa.getRequests()).containsExactly("POST /", "POST /");
+    }
+
+    @Test
+    void defaultDecision_undefined() {
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> this.client.defaultDecision(Map.of("user", "bob"), Boolean.class).get())
+                .havingCause()
+                .isInstanceOfSatisfying(HttpStatusException.class, ex -> assertThat(ex.getStatusCode()).isEqualTo(404));
+    }
+}
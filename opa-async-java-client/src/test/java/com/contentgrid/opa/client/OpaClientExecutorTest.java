@@ -0,0 +1,97 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientExecutorTest {
+
+    private static final String EXECUTOR_THREAD = "opa-executor";
+
+    private StubOpaServer opa;
+
+    private ExecutorService executor;
+
+    private OpaClient client;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .defaultDecision(input -> "alice".equals(((Map<?, ?>) input).get("user")));
+        this.executor = Executors.newFixedThreadPool(2, task -> new Thread(task, EXECUTOR_THREAD));
+        this.client = OpaClient.builder().url(this.opa.getUrl()).executor(this.executor).build();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void firstBodyOfAType_isSerializedOnExecutor() {
+        var input = new RecordingInput("alice", 0);
+
+        assertThat(this.client.defaultDecision(input, Boolean.class).join()).isTrue();
+
+        assertThat(input.getSerializingThreads()).containsExactly(EXECUTOR_THREAD);
+    }
+
+    @Test
+    void smallBody_isSerializedOnCallingThread() {
+        this.client.defaultDecision(new RecordingInput("alice", 0), Boolean.class).join();
+
+        // the previous body of the same type was small
+        var input = new RecordingInput("alice", 0);
+        assertThat(this.client.defaultDecision(input, Boolean.class).join()).isTrue();
+
+        assertThat(input.getSerializingThreads()).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void largeBody_isSerializedOnExecutor() {
+        this.client.defaultDecision(new RecordingInput("alice", 64 * 1024), Boolean.class).join();
+
+        // the previous body of the same type was large
+        var input = new RecordingInput("alice", 64 * 1024);
+        assertThat(this.client.defaultDecision(input, Boolean.class).join()).isTrue();
+
+        assertThat(input.getSerializingThreads()).containsExactly(EXECUTOR_THREAD);
+    }
+
+    /**
+     * Records the threads that serialize it
+     */
+    public static class RecordingInput {
+
+        private final String user;
+        private final String padding;
+        private final List<String> serializingThreads = new CopyOnWriteArrayList<>();
+
+        RecordingInput(String user, int padding) {
+            this.user = user;
+            this.padding = "x".repeat(padding);
+        }
+
+        public String getUser() {
+            this.serializingThreads.add(Thread.currentThread().getName());
+            return this.user;
+        }
+
+        public String getPadding() {
+            return this.padding;
+        }
+
+        List<String> getSerializingThreads() {
+            return this.serializingThreads;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.api.HealthApi.BundleRevisionChange;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OpaClientHealthTest {
+
+    private StubOpaServer opa;
+
+    private OpaClient client;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start();
+        this.client = OpaClient.builder().url(this.opa.getUrl()).build();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void isHealthy() {
+        assertThat(this.client.isHealthy(true).join()).isTrue();
+
+        this.opa.setHealthy(false);
+        assertThat(this.client.isHealthy(false).join()).isFalse();
+    }
+
+    @Test
+    void getBundleRevisions() {
+        assertThat(this.client.getBundleRevisions().join()).isEmpty();
+
+        this.opa.bundle("authz", "v1").bundle("audit", "2024-01");
+        assertThat(this.client.getBundleRevisions().join()).isEqualTo(Map.of("authz", "v1", "audit", "2024-01"));
+    }
+
+    @Test
+    void watchBundleRevisions_reportsMovedRevisions() throws InterruptedException {
+        this.opa.bundle("authz", "v1").bundle("audit", "a1");
+        var changes = new LinkedBlockingQueue<BundleRevisionChange>();
+
+        try (var watch = this.client.watchBundleRevisions(Duration.ofMillis(20), changes::add)) {
+            // the first poll only records the revisions
+            while (watch.getRevisions().isEmpty()) {
+                Thread.sleep(5);
+            }
+            this.opa.bundle("authz", "v2");
+            var change = changes.poll(5, TimeUnit.SECONDS);
+            assertThat(change).isNotNull();
+            assertThat(change.getBundle()).isEqualTo("authz");
+            assertThat(change.getPreviousRevision()).isEqualTo("v1");
+            assertThat(change.getRevision()).isEqualTo("v2");
+
+            this.opa.bundle("audit", null);
+            change = changes.poll(5, TimeUnit.SECONDS);
+            assertThat(change).isNotNull();
+            assertThat(change.getBundle()).isEqualTo("audit");
+            assertThat(change.getRevision()).isNull();
+            assertThat(watch.getRevisions()).isEqualTo(Map.of("authz", "v2"));
+        }
+        assertThat(changes).isEmpty();
+    }
+
+    @Test
+    void close_stopsThreadsOfTheClient() throws Exception {
+        var before = opaThreads();
+        // a load balancer with health checks, over http and a unix domain socket that nobody listens on
+        var client = OpaClient.builder()
+                .urls(this.opa.getUrl(), "unix://" + this.directory.resolve("opa.sock"))
+                .loadBalancing(balancing -> balancing.healthCheckInterval(Duration.ofMillis(10)))
+                .decisionCache(cache -> cache.invalidateOnBundleChange(Duration.ofMillis(10)))
+                .build();
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!threadNames(opaThreads(), before).containsAll(
+                Set.of("opa-health-check", "opa-bundle-watch", "opa-unix-socket-1"))) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+
+        client.close();
+
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!threadNames(opaThreads(), before).isEmpty()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static Set<Thread> opaThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.isAlive() && thread.getName().startsWith("opa-"))
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> threadNames(Set<Thread> threads, Set<Thread> excluded) {
+        return threads.stream()
+                .filter(thread -> !excluded.contains(thread))
+                .map(Thread::getName)
+                .collect(Collectors.toSet());
+    }
+}
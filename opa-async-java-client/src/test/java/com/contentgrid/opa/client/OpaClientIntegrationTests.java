@@ -4,10 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
 
+import com.contentgrid.opa.client.MicroBatchingSpecification.Endpoint;
 import com.contentgrid.opa.client.api.CompileApi;
 import com.contentgrid.opa.client.api.CompileApi.PartialEvaluationRequest;
 import com.contentgrid.opa.client.api.DataApi;
 import com.contentgrid.opa.client.api.DataApi.GetDataResponse;
+import com.contentgrid.opa.client.api.DataApi.PatchOperation;
+import com.contentgrid.opa.client.api.DataApi.SyncDataResult.Mode;
 import com.contentgrid.opa.client.api.PolicyApi.ListPoliciesResponse;
 import com.contentgrid.opa.client.rest.http.HttpStatusException;
 import com.contentgrid.opa.rego.ast.Expression;
@@ -19,7 +22,9 @@ import com.contentgrid.opa.rego.ast.Term.Var;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -54,7 +59,7 @@ class OpaClientIntegrationTests {
             .waitingFor(Wait.forHttp("/"));
 
     private final OpaClient opaClient = OpaClient.builder()
-            .url("http://" + opaContainer.getHost() + ":" + opaContainer.getMappedPort(OPA_EXPOSED_PORT))
+            .url(opaUrl())
             .build();
 
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -132,6 +137,28 @@ class OpaClientIntegrationTests {
             assertThat(response).isNotNull();
             assertThat(response.getResult().size()).isGreaterThan(0);
         }
+
+        @Test
+        void syncPolicies_uploadsChangesAndDeletesDroppedPolicies() {
+            var first = "package sync.first\n\nallow {\n    input.user == \"alice\"\n}\n";
+            var second = "package sync.second\n\nallow {\n    input.user == \"bob\"\n}\n";
+
+            var result = opaClient.syncPolicies(Map.of("sync-first", first, "sync-second", second)).join();
+            assertThat(result.getUploaded()).containsExactlyInAnyOrder("sync-first", "sync-second");
+
+            result = opaClient.syncPolicies(Map.of("sync-first", first)).join();
+            assertThat(result.getUnchanged()).containsExactly("sync-first");
+            assertThat(result.getUploaded()).isEmpty();
+            assertThat(result.getDeleted()).containsExactly("sync-second");
+
+            assertThat(opaClient.getPolicy("sync-first").join().getResult().getRaw()).isEqualTo(first);
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(() -> opaClient.getPolicy("sync-second").join())
+                    .havingCause()
+                    .isInstanceOfSatisfying(HttpStatusException.class, httpStatusEx -> {
+                        assertThat(httpStatusEx.statusCode()).isEqualTo(404);
+                    });
+        }
     }
 
     /**
@@ -156,6 +183,50 @@ class OpaClientIntegrationTests {
                     .containsKeys("networks", "servers", "ports");
         }
 
+        @Test
+        void patchData_appliesJsonPatch() {
+            opaClient.upsertData("patch/acl", Map.of("groups", List.of("admins"))).join();
+
+            opaClient.patchData("patch/acl", List.of(
+                    PatchOperation.add(PatchOperation.pointer("groups", "-"), "users"),
+                    PatchOperation.add(PatchOperation.pointer("owner/id"), "alice"))).join();
+
+            var response = opaClient.getData("patch/acl", GetDataResponse.class).join();
+            assertThat(response.getResult())
+                    .asInstanceOf(MAP)
+                    .containsEntry("groups", List.of("admins", "users"))
+                    .containsEntry("owner/id", "alice");
+        }
+
+        @Test
+        void patchData_missingPath_shouldFail() {
+            var result = opaClient.patchData("patch/missing", List.of(
+                    PatchOperation.remove(PatchOperation.pointer("groups", "0"))));
+
+            assertThatExceptionOfType(CompletionException.class).isThrownBy(result::join)
+                    .havingCause().isInstanceOfSatisfying(HttpStatusException.class, httpStatusEx -> {
+                assertThat(httpStatusEx.statusCode()).isEqualTo(404);
+            });
+        }
+
+        @Test
+        void syncData_sendsOnlyTheChanges() {
+            var groups = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < 100; i++) {
+                groups.put("group-" + i, List.of("user-" + i, "user-" + (i + 1)));
+            }
+            assertThat(opaClient.syncData("sync/groups", groups).join().getMode()).isEqualTo(Mode.PUT);
+
+            groups.put("group-7", List.of("user-7"));
+            groups.remove("group-8");
+            groups.put("group-100", List.of());
+            var result = opaClient.syncData("sync/groups", groups).join();
+            assertThat(result.getMode()).isEqualTo(Mode.PATCH);
+            assertThat(result.getOperations()).isEqualTo(3);
+
+            assertThat(opaClient.syncData("sync/groups", groups).join().getMode()).isEqualTo(Mode.UNCHANGED);
+            assertThat(opaClient.getData("sync/groups", GetDataResponse.class).join().getResult()).isEqualTo(groups);
+        }
     }
 
     @Data
@@ -403,6 +474,97 @@ class OpaClientIntegrationTests {
         }
     }
 
+    /**
+     * Decisions of the policy in {@code decisions-policy.rego}: defined for alice, undefined for bob, and an evaluation
+     * error for mallory
+     *
+     * @see <a href="https://www.openpolicyagent.org/docs/latest/rest-api/#get-a-document-with-input">REST Data API</a>
+     */
+    @Nested
+    class DecisionTests {
+
+        private static final String POLICY_PATH = "fixtures/scenarios/decisions-policy.rego";
+        private static final String DEFAULT_DECISION_POLICY_PATH = "fixtures/scenarios/default-decision-policy.rego";
+
+        @Test
+        void evaluate() {
+            opaClient.upsertPolicy("decisions", loadResourceAsString(POLICY_PATH)).join();
+
+            assertThat(opaClient.evaluate("decisions/allow", Map.of("user", "alice"), Boolean.class).join()
+                    .getRequiredResult()).isTrue();
+            assertThat(opaClient.evaluate("decisions/allow", Map.of("user", "bob"), Boolean.class).join()
+                    .isDefined()).isFalse();
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(() -> opaClient.evaluate("decisions/allow", Map.of("user", "mallory"), Boolean.class)
+                            .join())
+                    .havingCause()
+                    .isInstanceOfSatisfying(HttpStatusException.class, httpStatusEx -> {
+                        assertThat(httpStatusEx.statusCode()).isEqualTo(500);
+                        assertThat(httpStatusEx.getErrorCodes()).containsExactly("eval_conflict_error");
+                    });
+        }
+
+        @Test
+        void microBatching_multiplexedQuery() throws Exception {
+            opaClient.upsertPolicy("decisions", loadResourceAsString(POLICY_PATH)).join();
+
+            try (var batchingClient = OpaClient.builder()
+                    .url(opaUrl())
+                    .microBatching(batching -> batching
+                            .endpoint(Endpoint.QUERY)
+                            .window(Duration.ofMinutes(5))
+                            .maxBatchSize(3))
+                    .build()) {
+                var alice = batchingClient.evaluate("decisions/allow", Map.of("user", "alice"), Boolean.class);
+                var bob = batchingClient.evaluate("decisions/allow", Map.of("user", "bob"), Boolean.class);
+                var mallory = batchingClient.evaluate("decisions/allow", Map.of("user", "mallory"), Boolean.class);
+
+                // open source OPA has no batch endpoint, so the batch is one ad-hoc query; the evaluation error
+                // of mallory fails that query, and the batch is retried one by one
+                assertThat(alice.get().getRequiredResult()).isTrue();
+                assertThat(bob.get().isDefined()).isFalse();
+                assertThatExceptionOfType(ExecutionException.class)
+                        .isThrownBy(mallory::get)
+                        .havingCause()
+                        .isInstanceOfSatisfying(HttpStatusException.class, httpStatusEx -> {
+                            assertThat(httpStatusEx.getErrorCodes()).containsExactly("eval_conflict_error");
+                        });
+            }
+        }
+
+        @Test
+        void defaultDecision() {
+            opaClient.upsertPolicy("default-decision", loadResourceAsString(DEFAULT_DECISION_POLICY_PATH)).join();
+
+            assertThat(opaClient.defaultDecision(Map.of("user", "alice"), Boolean.class).join()).isTrue();
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(() -> opaClient.defaultDecision(Map.of("user", "bob"), Boolean.class).join())
+                    .havingCause()
+                    .isInstanceOfSatisfying(HttpStatusException.class, httpStatusEx -> {
+                        assertThat(httpStatusEx.statusCode()).isEqualTo(404);
+                    });
+        }
+    }
+
+    /**
+     * @see <a href="https://www.openpolicyagent.org/docs/latest/rest-api/#health-api">REST Health API</a>
+     */
+    @Nested
+    class HealthApiTests {
+
+        @Test
+        void isHealthy() {
+            assertThat(opaClient.isHealthy(false).join()).isTrue();
+            // without bundles configured, OPA is ready right away
+            assertThat(opaClient.isHealthy(true).join()).isTrue();
+        }
+
+        @Test
+        void getBundleRevisions_withoutBundles() {
+            assertThat(opaClient.getBundleRevisions().join()).isEmpty();
+        }
+    }
+
     @Nested
     class Scenarios {
 
@@ -498,6 +660,10 @@ class OpaClientIntegrationTests {
         }
     }
 
+    private static String opaUrl() {
+        return "http://" + opaContainer.getHost() + ":" + opaContainer.getMappedPort(OPA_EXPOSED_PORT);
+    }
+
     private static String loadResourceAsString(String resourcePath) {
         try (var stream = ClassLoader.getSystemResourceAsStream(resourcePath)) {
             Objects.requireNonNull(stream, "Classpath resource not found: " + resourcePath);
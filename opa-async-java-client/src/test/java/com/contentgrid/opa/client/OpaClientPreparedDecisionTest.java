@@ -0,0 +1,68 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientPreparedDecisionTest {
+
+    private StubOpaServer opa;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .document("authz/allow", input -> "alice".equals(((Map<?, ?>) input).get("user")) ? Boolean.TRUE : null);
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void preparedDecision() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).build();
+        var allow = client.prepareDecision("authz/allow", User.class, Boolean.class);
+
+        assertThat(allow.evaluate(new User("alice")).join().getRequiredResult()).isTrue();
+        assertThat(allow.evaluate(new User("bob")).join().isDefined()).isFalse();
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/data/authz/allow", "POST /v1/data/authz/allow");
+    }
+
+    @Test
+    void preparedDecision_microBatching() {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .microBatching(batching -> batching
+                        .window(Duration.ofMinutes(5))
+                        .maxBatchSize(2))
+                .build();
+        var allow = client.prepareDecision("authz/allow", User.class, Boolean.class);
+
+        var alice = allow.evaluate(new User("alice"));
+        var bob = allow.evaluate(new User("bob"));
+
+        assertThat(alice.join().getRequiredResult()).isTrue();
+        assertThat(bob.join()).extracting(EvaluationResult::isDefined).isEqualTo(false);
+        assertThat(this.opa.getRequests()).containsExactly("POST /v1/batch/data/authz/allow");
+    }
+
+    static class User {
+
+        private final String user;
+
+        User(String user) {
+            this.user = user;
+        }
+
+        public String getUser() {
+            return this.user;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.rest.client.metrics.ServerMetricsHistograms;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientServerMetricsTest {
+
+    private StubOpaServer opa;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .document("authz/allow", input -> Boolean.TRUE)
+                .defaultDecision(input -> Boolean.TRUE);
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void evaluate_reportsServerMetrics() {
+        var histograms = new ServerMetricsHistograms();
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .serverMetrics(metrics -> metrics.listener(histograms))
+                .build();
+
+        var result = client.evaluate("authz/allow", Map.of("user", "alice"), Boolean.class).join();
+
+        assertThat(result.getRequiredResult()).isTrue();
+        assertThat(result.getMetrics().getQueryEvalNanos()).isEqualTo(StubOpaServer.EVAL_NANOS);
+        assertThat(result.getMetrics().getServerHandlerNanos()).isEqualTo(StubOpaServer.HANDLER_NANOS);
+
+        assertThat(histograms.getClientLatency().getCount()).isEqualTo(1);
+        assertThat(histograms.getEvaluation().getPercentileNanos(50))
+                .isBetween(StubOpaServer.EVAL_NANOS, StubOpaServer.EVAL_NANOS * 9 / 8);
+        assertThat(histograms.getNetworkAndQueueing().getMaxNanos())
+                .isEqualTo(histograms.getClientLatency().getMaxNanos() - StubOpaServer.HANDLER_NANOS);
+    }
+
+    @Test
+    void onlyEvaluationsAreSampled() {
+        var sampled = new CopyOnWriteArrayList<String>();
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .serverMetrics(metrics -> metrics.listener(
+                        (exchange, serverMetrics, clientNanos) -> sampled.add(exchange.toString())))
+                .build();
+
+        client.upsertData("acl", Map.of("groups", List.of())).join();
+        client.defaultDecision(Map.of(), Boolean.class).join();
+        client.evaluate("authz/allow", Map.of(), Boolean.class).join();
+
+        assertThat(sampled).containsExactly("POST /v1/data/authz/allow");
+    }
+
+    @Test
+    void withoutListener_noMetricsAreRequested() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).build();
+
+        var result = client.evaluate("authz/allow", Map.of(), Boolean.class).join();
+
+        assertThat(result.getMetrics()).isNull();
+    }
+}
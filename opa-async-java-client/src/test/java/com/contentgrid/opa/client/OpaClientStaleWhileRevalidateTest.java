@@ -0,0 +1,84 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.api.DataApi.GetDataResponse;
+import com.contentgrid.opa.client.cache.CacheStats;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientStaleWhileRevalidateTest {
+
+    private StubOpaServer opa;
+
+    /**
+     * Changes the data behind the back of the clients under test
+     */
+    private OpaClient writer;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start();
+        this.writer = OpaClient.builder().url(this.opa.getUrl()).build();
+        this.writer.upsertData("reference/colors", List.of("red")).join();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void staleWhileRevalidate_expiredValueIsNotServed() throws InterruptedException {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .staleWhileRevalidate(swr -> swr.timeToLive(Duration.ofMillis(50), Duration.ofMillis(100)))
+                .build();
+
+        assertThat(colors(client)).containsExactly("red");
+        this.writer.upsertData("reference/colors", List.of("blue")).join();
+
+        Thread.sleep(150);
+        assertThat(colors(client)).containsExactly("blue");
+        assertThat(client.getDataCacheStats()).get()
+                .extracting(CacheStats::getHitCount, CacheStats::getMissCount)
+                .containsExactly(0L, 2L);
+    }
+
+    @Test
+    void staleWhileRevalidate_invalidatedByChanges() {
+        var client = OpaClient.builder().url(this.opa.getUrl()).staleWhileRevalidate(swr -> { }).build();
+
+        assertThat(colors(client)).containsExactly("red");
+        client.upsertData("reference/colors", List.of("blue")).join();
+        assertThat(colors(client)).containsExactly("blue");
+    }
+
+    @Test
+    void staleWhileRevalidate_onlyConfiguredPaths() {
+        var client = OpaClient.builder()
+                .url(this.opa.getUrl())
+                .staleWhileRevalidate(swr -> swr.paths("reference/"))
+                .build();
+        this.writer.upsertData("users", List.of("alice")).join();
+
+        for (int i = 0; i < 2; i++) {
+            colors(client);
+            client.getData("users", GetDataResponse.class).join();
+        }
+
+        assertThat(this.opa.getRequests()).filteredOn(request -> request.startsWith("GET "))
+                .containsExactly(
+                        "GET /v1/data/reference/colors",
+                        "GET /v1/data/users",
+                        "GET /v1/data/users");
+    }
+
+    private static List<?> colors(OpaClient client) {
+        return (List<?>) client.getData("reference/colors", GetDataResponse.class).join().getResult();
+    }
+}
@@ -0,0 +1,128 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.rest.client.balancing.OpaEndpoint;
+import com.contentgrid.opa.client.rest.client.coalescing.SingleFlightStats;
+import com.contentgrid.opa.client.rest.client.hedging.HedgingStats;
+import com.contentgrid.opa.client.rest.client.limiter.ConcurrencyLimitExceededException;
+import com.contentgrid.opa.client.rest.client.limiter.ConcurrencyLimitStats;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientStatsTest {
+
+    private StubOpaServer opa;
+
+    /**
+     * Holds the evaluations of {@code authz/slow} until the test releases them
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start()
+                .document("authz/allow", input -> Boolean.TRUE)
+                .document("authz/slow", input -> {
+                    try {
+                        this.release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Boolean.TRUE;
+                });
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.release.countDown();
+        this.opa.close();
+    }
+
+    @Test
+    void noDecorators_noStats() {
+        try (var client = OpaClient.builder().url(this.opa.getUrl()).build()) {
+            assertThat(client.getLoadBalancerEndpoints()).isEmpty();
+            assertThat(client.getHedgingStats()).isEmpty();
+            assertThat(client.getConcurrencyLimitStats()).isEmpty();
+            assertThat(client.getSingleFlightStats()).isEmpty();
+        }
+    }
+
+    @Test
+    void loadBalancing_reportsEndpoints() {
+        try (var client = OpaClient.builder().urls(this.opa.getUrl(), this.opa.getUrl()).build()) {
+            client.evaluate("authz/allow", Map.of(), Boolean.class).join();
+            client.evaluate("authz/allow", Map.of(), Boolean.class).join();
+
+            var endpoints = client.getLoadBalancerEndpoints().orElseThrow();
+            assertThat(endpoints).hasSize(2);
+            assertThat(endpoints.stream().mapToLong(OpaEndpoint::getRequestCount).sum()).isEqualTo(2L);
+            assertThat(endpoints.stream().mapToLong(OpaEndpoint::getFailureCount).sum()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    void hedging_reportsHedges() {
+        try (var client = OpaClient.builder().url(this.opa.getUrl())
+                .hedging(hedging -> hedging.delay(Duration.ofMillis(20)).budgetPercent(100))
+                .build()) {
+            var decision = client.evaluate("authz/slow", Map.of(), Boolean.class);
+            while (client.getHedgingStats().orElseThrow().getHedgeCount() == 0) {
+                Thread.onSpinWait();
+            }
+            this.release.countDown();
+            assertThat(decision.join().getRequiredResult()).isTrue();
+
+            assertThat(client.getHedgingStats()).get()
+                    .extracting(HedgingStats::getHedgeCount, HedgingStats::getBudgetExhaustedCount)
+                    .containsExactly(1L, 0L);
+        }
+    }
+
+    @Test
+    void concurrencyLimit_reportsRejections() {
+        try (var client = OpaClient.builder().url(this.opa.getUrl())
+                .concurrencyLimit(limit -> limit.limits(1, 1, 1).maxQueueSize(0))
+                .build()) {
+            var first = client.evaluate("authz/slow", Map.of(), Boolean.class);
+            var second = client.evaluate("authz/slow", Map.of(), Boolean.class);
+
+            assertThat(client.getConcurrencyLimitStats()).get()
+                    .extracting(ConcurrencyLimitStats::getLimit, ConcurrencyLimitStats::getInFlight,
+                            ConcurrencyLimitStats::getRejectedCount)
+                    .containsExactly(1, 1, 1L);
+
+            this.release.countDown();
+            assertThat(first.join().getRequiredResult()).isTrue();
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(second::join)
+                    .withCauseInstanceOf(ConcurrencyLimitExceededException.class);
+        }
+    }
+
+    @Test
+    void singleFlight_reportsCoalescedCalls() {
+        try (var client = OpaClient.builder().url(this.opa.getUrl()).singleFlight(singleFlight -> { }).build()) {
+            var first = client.evaluate("authz/slow", Map.of("user", "alice"), Boolean.class);
+            var second = client.evaluate("authz/slow", Map.of("user", "alice"), Boolean.class);
+
+            assertThat(client.getSingleFlightStats()).get()
+                    .extracting(SingleFlightStats::getCoalescedCount, SingleFlightStats::getFlightCount)
+                    .containsExactly(1L, 1);
+
+            this.release.countDown();
+            assertThat(first.join().getRequiredResult()).isTrue();
+            assertThat(second.join().getRequiredResult()).isTrue();
+            assertThat(this.opa.getRequests()).hasSize(1);
+        }
+    }
+}
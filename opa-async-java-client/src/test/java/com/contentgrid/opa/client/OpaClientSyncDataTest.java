@@ -0,0 +1,134 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.api.DataApi.GetDataResponse;
+import com.contentgrid.opa.client.api.DataApi.PatchOperation;
+import com.contentgrid.opa.client.api.DataApi.SyncDataResult.Mode;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientSyncDataTest {
+
+    private StubOpaServer opa;
+
+    private OpaClient client;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start();
+        this.client = OpaClient.builder().url(this.opa.getUrl()).build();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void patchData() {
+        this.client.upsertData("acl", Map.of("groups", List.of("admins"))).join();
+
+        this.client.patchData("acl", List.of(
+                PatchOperation.add(PatchOperation.pointer("groups", "-"), "users"),
+                PatchOperation.add(PatchOperation.pointer("owner/id"), null))).join();
+
+        assertThat(this.opa.getData("acl").toString())
+                .isEqualTo("{\"groups\":[\"admins\",\"users\"],\"owner/id\":null}");
+    }
+
+    @Test
+    void syncData_sendsOnlyTheChanges() {
+        var groups = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 100; i++) {
+            groups.put("group-" + i, List.of("user-" + i, "user-" + (i + 1)));
+        }
+
+        assertThat(this.client.syncData("acl/groups", groups).join().getMode()).isEqualTo(Mode.PUT);
+
+        groups.put("group-7", List.of("user-7"));
+        groups.remove("group-8");
+        groups.put("group-100", List.of());
+        var result = this.client.syncData("acl/groups", groups).join();
+        assertThat(result.getMode()).isEqualTo(Mode.PATCH);
+        assertThat(result.getOperations()).isEqualTo(3);
+
+        assertThat(this.client.syncData("acl/groups", groups).join().getMode()).isEqualTo(Mode.UNCHANGED);
+
+        assertThat(this.opa.getRequests()).containsExactly("PUT /v1/data/acl/groups", "PATCH /v1/data/acl/groups");
+        assertThat(this.client.getData("acl/groups", GetDataResponse.class).join().getResult()).isEqualTo(groups);
+    }
+
+    @Test
+    void syncData_largeChange_uploadsInFull() {
+        this.client.syncData("acl/groups", Map.of("admins", List.of("alice"))).join();
+
+        var result = this.client.syncData("acl/groups", Map.of("users", List.of("bob"))).join();
+
+        assertThat(result.getMode()).isEqualTo(Mode.PUT);
+        assertThat(this.opa.getData("acl/groups").toString()).isEqualTo("{\"users\":[\"bob\"]}");
+    }
+
+    @Test
+    void syncData_documentLost_uploadsInFull() {
+        var groups = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 10; i++) {
+            groups.put("group-" + i, List.of("user-" + i));
+        }
+        this.client.syncData("acl/groups", groups).join();
+        this.opa.deleteData("acl/groups");
+
+        groups.put("group-3", List.of());
+        var result = this.client.syncData("acl/groups", groups).join();
+
+        assertThat(result.getMode()).isEqualTo(Mode.PUT);
+        assertThat(this.opa.getRequests()).containsExactly(
+                "PUT /v1/data/acl/groups", "PATCH /v1/data/acl/groups", "PUT /v1/data/acl/groups");
+        assertThat(this.client.getData("acl/groups", GetDataResponse.class).join().getResult()).isEqualTo(groups);
+    }
+
+    @Test
+    void syncData_patchNotAllowed_uploadsInFull() {
+        var groups = this.groups();
+        this.client.syncData("acl/groups", groups).join();
+        this.opa.failPatches("acl/groups", 405);
+
+        groups.put("group-3", List.of());
+        var result = this.client.syncData("acl/groups", groups).join();
+
+        assertThat(result.getMode()).isEqualTo(Mode.PUT);
+        assertThat(this.opa.getData("acl/groups").get("group-3").size()).isEqualTo(0);
+    }
+
+    @Test
+    void syncData_serverUnavailable_fails() {
+        var groups = this.groups();
+        this.client.syncData("acl/groups", groups).join();
+        this.opa.failPatches("acl/groups", 503);
+
+        groups.put("group-3", List.of());
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(() -> this.client.syncData("acl/groups", groups).join())
+                .havingCause()
+                .isInstanceOfSatisfying(HttpStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(503));
+        assertThat(this.opa.getRequests()).containsExactly("PUT /v1/data/acl/groups", "PATCH /v1/data/acl/groups");
+    }
+
+    private LinkedHashMap<String, Object> groups() {
+        var groups = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < 10; i++) {
+            groups.put("group-" + i, List.of("user-" + i));
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,65 @@
+package com.contentgrid.opa.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OpaClientSyncPoliciesTest {
+
+    private static final String AUTHZ = "package authz\n\nallow := true\n";
+    private static final String AUDIT = "package audit\n\nlog := false\n";
+
+    private StubOpaServer opa;
+
+    private OpaClient client;
+
+    @BeforeEach
+    void startOpa() throws IOException {
+        this.opa = StubOpaServer.start();
+        this.client = OpaClient.builder().url(this.opa.getUrl()).build();
+    }
+
+    @AfterEach
+    void stopOpa() {
+        this.opa.close();
+    }
+
+    @Test
+    void syncPolicies_uploadsOnlyChangedPolicies() {
+        this.client.upsertPolicy("authz", AUTHZ).join();
+        this.opa.getRequests().clear();
+
+        var result = this.client.syncPolicies(Map.of("authz", AUTHZ, "audit", AUDIT)).join();
+
+        assertThat(result.getUploaded()).containsExactly("audit");
+        assertThat(result.getUnchanged()).containsExactly("authz");
+        assertThat(this.opa.getRequests()).containsExactly("GET /v1/policies/", "PUT /v1/policies/audit");
+    }
+
+    @Test
+    void syncPolicies_deletesPoliciesThatAreNoLongerProvided() {
+        this.client.upsertPolicy("other", "package other\n").join();
+        this.client.syncPolicies(Map.of("authz", AUTHZ, "audit", AUDIT)).join();
+
+        var result = this.client.syncPolicies(Map.of("authz", AUTHZ + "deny := false\n")).join();
+
+        assertThat(result.getUploaded()).containsExactly("authz");
+        assertThat(result.getDeleted()).containsExactly("audit");
+        assertThat(this.opa.getPolicies()).containsOnlyKeys("authz", "other");
+    }
+
+    @Test
+    void syncPolicies_uploadsPoliciesLostByOpa() {
+        this.client.syncPolicies(Map.of("authz", AUTHZ)).join();
+        this.opa.getPolicies().clear();
+
+        var result = this.client.syncPolicies(Map.of("authz", AUTHZ)).join();
+
+        assertThat(result.getUploaded()).containsExactly("authz");
+        assertThat(this.opa.getPolicies()).containsEntry("authz", AUTHZ);
+    }
+}
@@ -0,0 +1,425 @@
+package com.contentgrid.opa.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An in-process stand-in for an OPA server, for tests that need a real HTTP exchange but no container. Documents are
+ * plain functions of the input; a function that returns {@code null} makes the document undefined, a function that
+ * throws makes the evaluation fail.
+ *
+ * Data that is uploaded with {@code PUT} or {@code PATCH} is stored, and served by {@code GET}. So are policies. The
+ * manifests of activated bundles are served from {@code data.system.bundles}, see {@link #bundle(String, String)}.
+ * Every partial evaluation has the same residual: one empty query, which is always true.
+ *
+ * With {@code ?metrics=true}, every response object reports the fixed {@link #HANDLER_NANOS} and
+ * {@link #EVAL_NANOS} timers.
+ */
+class StubOpaServer implements AutoCloseable {
+
+    private static final String DATA_ENDPOINT = "/v1/data/";
+    private static final String BATCH_DATA_ENDPOINT = "/v1/batch/data/";
+    private static final String QUERY_ENDPOINT = "/v1/query";
+    private static final String POLICY_ENDPOINT = "/v1/policies/";
+    private static final String DEFAULT_DECISION_ENDPOINT = "/";
+    private static final String DEFAULT_DECISION = "system/main";
+    private static final String HEALTH_ENDPOINT = "/health";
+    private static final String COMPILE_ENDPOINT = "/v1/compile";
+    private static final String BUNDLES = "system/bundles";
+
+    static final long HANDLER_NANOS = 2_000_000;
+    static final long EVAL_NANOS = 1_000_000;
+
+    /**
+     * The only ad-hoc queries that are understood: {@code r0 := [x | x := data["a"]["b"] with input as input[0]]}
+     */
+    private static final Pattern MULTIPLEXED_QUERY = Pattern.compile(
+            "(\\w+) := \\[x \\| x := data((?:\\[\"[^\"]+\"\\])+) with input as input\\[(\\d+)\\]\\]");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Function<Object, Object>> documents = new ConcurrentHashMap<>();
+    private final Map<String, JsonNode> data = new ConcurrentHashMap<>();
+    private final Map<String, String> policies = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> patchFailures = new ConcurrentHashMap<>();
+    private volatile int queryFailure;
+    private volatile boolean healthy = true;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private StubOpaServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext(DATA_ENDPOINT, this::evaluate);
+        this.server.createContext(BATCH_DATA_ENDPOINT, this::evaluateBatch);
+        this.server.createContext(QUERY_ENDPOINT, this::query);
+        this.server.createContext(POLICY_ENDPOINT, this::policy);
+        this.server.createContext(DEFAULT_DECISION_ENDPOINT, this::defaultDecision);
+        this.server.createContext(HEALTH_ENDPOINT, this::health);
+        this.server.createContext(COMPILE_ENDPOINT, this::compile);
+    }
+
+    static StubOpaServer start() throws IOException {
+        var stub = new StubOpaServer();
+        stub.server.start();
+        return stub;
+    }
+
+    StubOpaServer document(String path, Function<Object, Object> document) {
+        this.documents.put(path, document);
+        return this;
+    }
+
+    /**
+     * The document served by {@code POST /}, like OPA's {@code data.system.main}
+     */
+    StubOpaServer defaultDecision(Function<Object, Object> document) {
+        return this.document(DEFAULT_DECISION, document);
+    }
+
+    /**
+     * Activates a bundle with the given revision, or deactivates it when the revision is {@code null}
+     */
+    StubOpaServer bundle(String name, String revision) {
+        this.data.compute(BUNDLES, (path, bundles) -> {
+            var copy = bundles == null ? this.objectMapper.createObjectNode() : ((ObjectNode) bundles).deepCopy();
+            if (revision == null) {
+                copy.remove(name);
+            } else {
+                copy.putObject(name).putObject("manifest").put("revision", revision);
+            }
+            return copy;
+        });
+        return this;
+    }
+
+    /**
+     * Makes {@code GET /health} answer 500 when not healthy
+     */
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    /**
+     * @return the data that was uploaded to {@code path}, or {@code null}
+     */
+    JsonNode getData(String path) {
+        return this.data.get(path);
+    }
+
+    /**
+     * Drops uploaded data, like an OPA server that restarted
+     */
+    void deleteData(String path) {
+        this.data.remove(path);
+    }
+
+    /**
+     * Makes every {@code PATCH} of {@code path} answer {@code status}, without changing the data
+     */
+    void failPatches(String path, int status) {
+        this.patchFailures.put(path, status);
+    }
+
+    /**
+     * Makes every ad-hoc query answer {@code status}, like OPA does for a query that does not compile
+     */
+    void failQueries(int status) {
+        this.queryFailure = status;
+    }
+
+    /**
+     * @return the policies that were uploaded, by id
+     */
+    Map<String, String> getPolicies() {
+        return this.policies;
+    }
+
+    String getUrl() {
+        return "http://localhost:" + this.server.getAddress().getPort();
+    }
+
+    /**
+     * @return the requests that were received, like {@code POST /v1/data/authz/allow}
+     */
+    List<String> getRequests() {
+        return this.requests;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void evaluate(HttpExchange exchange) throws IOException {
+        var path = exchange.getRequestURI().getPath().substring(DATA_ENDPOINT.length());
+        if ("PUT".equals(exchange.getRequestMethod())) {
+            this.data.put(path, this.readBody(exchange, JsonNode.class));
+            this.respond(exchange, 204);
+            return;
+        }
+        if ("PATCH".equals(exchange.getRequestMethod())) {
+            this.patch(exchange, path);
+            return;
+        }
+
+        Object input = null;
+        if ("GET".equals(exchange.getRequestMethod())) {
+            // a GET evaluates the document without input
+            this.recordRequest(exchange);
+            if (this.data.containsKey(path)) {
+                this.respond(exchange, 200, Map.of("result", this.data.get(path)));
+                return;
+            }
+        } else {
+            input = this.readBody(exchange).get("input");
+        }
+        var document = this.documents.get(path);
+
+        var response = this.evaluate(document, input);
+        this.respond(exchange, (int) response.getOrDefault("http_status_code", 200), response);
+    }
+
+    /**
+     * Applies {@code add}, {@code remove} and {@code replace} operations, on a copy so a failed patch changes nothing
+     */
+    private void patch(HttpExchange exchange, String path) throws IOException {
+        var operations = this.readBody(exchange, JsonNode.class);
+        if (this.patchFailures.containsKey(path)) {
+            this.respond(exchange, this.patchFailures.get(path), Map.of("code", "internal_error"));
+            return;
+        }
+        var stored = this.data.get(path);
+        if (stored == null) {
+            this.respond(exchange, 404, Map.of("code", "resource_not_found"));
+            return;
+        }
+
+        var root = stored.deepCopy();
+        for (var operation : operations) {
+            var pointer = operation.get("path").asText();
+            int slash = pointer.lastIndexOf('/');
+            var parent = root.at(pointer.substring(0, slash));
+            var key = pointer.substring(slash + 1).replace("~1", "/").replace("~0", "~");
+            var op = operation.get("op").asText();
+
+            if (parent instanceof ObjectNode && ("add".equals(op) || ((ObjectNode) parent).has(key))) {
+                if ("remove".equals(op)) {
+                    ((ObjectNode) parent).remove(key);
+                } else {
+                    ((ObjectNode) parent).set(key, operation.get("value"));
+                }
+            } else if (parent instanceof ArrayNode && "add".equals(op) && "-".equals(key)) {
+                ((ArrayNode) parent).add(operation.get("value"));
+            } else if (parent instanceof ArrayNode && Integer.parseInt(key) < parent.size()) {
+                int index = Integer.parseInt(key);
+                if ("add".equals(op)) {
+                    ((ArrayNode) parent).insert(index, operation.get("value"));
+                } else if ("remove".equals(op)) {
+                    ((ArrayNode) parent).remove(index);
+                } else {
+                    ((ArrayNode) parent).set(index, operation.get("value"));
+                }
+            } else {
+                this.respond(exchange, 404, Map.of("code", "resource_not_found"));
+                return;
+            }
+        }
+
+        this.data.put(path, root);
+        this.respond(exchange, 204);
+    }
+
+    private void policy(HttpExchange exchange) throws IOException {
+        var id = exchange.getRequestURI().getPath().substring(POLICY_ENDPOINT.length());
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                this.recordRequest(exchange);
+                var listed = new ArrayList<Map<String, String>>();
+                this.policies.forEach((policyId, raw) -> listed.add(Map.of("id", policyId, "raw", raw)));
+                this.respond(exchange, 200, Map.of("result", listed));
+                break;
+            case "PUT":
+                this.recordRequest(exchange);
+                try (var body = exchange.getRequestBody()) {
+                    this.policies.put(id, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                this.respond(exchange, 200, Map.of());
+                break;
+            case "DELETE":
+                this.recordRequest(exchange);
+                if (this.policies.remove(id) == null) {
+                    this.respond(exchange, 404, Map.of("code", "resource_not_found"));
+                } else {
+                    this.respond(exchange, 200, Map.of());
+                }
+                break;
+            default:
+                this.respond(exchange, 405, Map.of("code", "method_not_allowed"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evaluateBatch(HttpExchange exchange) throws IOException {
+        var request = this.readBody(exchange);
+        var document = this.documents.get(exchange.getRequestURI().getPath().substring(BATCH_DATA_ENDPOINT.length()));
+
+        var responses = new LinkedHashMap<String, Object>();
+        boolean failures = false;
+        for (var input : ((Map<String, Object>) request.get("inputs")).entrySet()) {
+            var response = this.evaluate(document, input.getValue());
+            failures |= response.containsKey("code");
+            response.putIfAbsent("http_status_code", 200);
+            responses.put(input.getKey(), response);
+        }
+
+        // multi-status when some of the evaluations failed
+        this.respond(exchange, failures ? 207 : 200, Map.of("responses", responses));
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        this.recordRequest(exchange);
+        if (this.healthy) {
+            this.respond(exchange, 200, Map.of());
+        } else {
+            this.respond(exchange, 500, Map.of("error", "not all plugins in OK state"));
+        }
+    }
+
+    private void compile(HttpExchange exchange) throws IOException {
+        this.readBody(exchange);
+        this.respond(exchange, 200, Map.of("result", Map.of("queries", List.of(List.of()))));
+    }
+
+    private void defaultDecision(HttpExchange exchange) throws IOException {
+        if (!DEFAULT_DECISION_ENDPOINT.equals(exchange.getRequestURI().getPath())) {
+            this.respond(exchange, 404, Map.of("code", "not_found"));
+            return;
+        }
+
+        // the input and the decision are not wrapped
+        var response = this.evaluate(this.documents.get(DEFAULT_DECISION), this.readBody(exchange, Object.class));
+        if (response.containsKey("code")) {
+            this.respond(exchange, 500, response);
+        } else if (!response.containsKey("result")) {
+            this.respond(exchange, 404, Map.of("code", "undefined_document"));
+        } else {
+            this.respond(exchange, 200, response.get("result"));
+        }
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+        var request = this.readBody(exchange);
+        var inputs = (List<?>) request.get("input");
+        if (this.queryFailure > 0) {
+            this.respond(exchange, this.queryFailure, Map.of(
+                    "code", "invalid_parameter",
+                    "message", "error(s) occurred while compiling module(s)",
+                    "errors", List.of(Map.of("code", "rego_compile_error", "message", "query failed to compile"))));
+            return;
+        }
+
+        var bindings = new LinkedHashMap<String, Object>();
+        var matcher = MULTIPLEXED_QUERY.matcher((String) request.get("query"));
+        while (matcher.find()) {
+            var path = matcher.group(2).replaceAll("^\\[\"|\"\\]$", "").replace("\"][\"", "/");
+            var response = this.evaluate(this.documents.get(path), inputs.get(Integer.parseInt(matcher.group(3))));
+            if (response.containsKey("code")) {
+                // an evaluation error fails the whole query
+                this.respond(exchange, 500, Map.of(
+                        "code", "internal_error",
+                        "message", "error(s) occurred while evaluating query",
+                        "errors", List.of(Map.of("code", "eval_conflict_error", "message", response.get("message")))));
+                return;
+            }
+            var values = response.containsKey("result") ? List.of(response.get("result")) : List.of();
+            bindings.put(matcher.group(1), values);
+        }
+
+        this.respond(exchange, 200, Map.of("result", List.of(bindings)));
+    }
+
+    private Map<String, Object> evaluate(Function<Object, Object> document, Object input) {
+        var response = new LinkedHashMap<String, Object>();
+        if (document == null) {
+            return response;
+        }
+        try {
+            var result = document.apply(input);
+            if (result != null) {
+                response.put("result", result);
+            }
+        } catch (RuntimeException ex) {
+            response.put("code", "internal_error");
+            response.put("message", ex.getMessage());
+            response.put("http_status_code", 500);
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        return this.readBody(exchange, Map.class);
+    }
+
+    private <T> T readBody(HttpExchange exchange, Class<T> type) throws IOException {
+        this.recordRequest(exchange);
+
+        try (InputStream body = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody()) {
+            return this.objectMapper.readValue(body, type);
+        }
+    }
+
+    private void recordRequest(HttpExchange exchange) {
+        this.requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+    }
+
+    private void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        var query = exchange.getRequestURI().getQuery();
+        if (body instanceof Map && query != null && query.contains("metrics=true")) {
+            var withMetrics = new LinkedHashMap<>((Map<String, Object>) body);
+            withMetrics.put("metrics", Map.of(
+                    "timer_server_handler_ns", HANDLER_NANOS,
+                    "timer_rego_query_eval_ns", EVAL_NANOS));
+            body = withMetrics;
+        }
+
+        var bytes = this.objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
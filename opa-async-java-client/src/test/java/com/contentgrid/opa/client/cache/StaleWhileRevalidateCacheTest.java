@@ -0,0 +1,125 @@
+package com.contentgrid.opa.client.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.StaleWhileRevalidateSpecification;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class StaleWhileRevalidateCacheTest {
+
+    /**
+     * The reads from OPA, completed by the test
+     */
+    private final List<CompletableFuture<String>> reads = new CopyOnWriteArrayList<>();
+
+    private volatile long now;
+
+    private final StaleWhileRevalidateCache cache = new StaleWhileRevalidateCache(new StaleWhileRevalidateSpecification()
+            .timeToLive(Duration.ofMillis(300), Duration.ofMinutes(1))
+            .maximumSize(2), () -> this.now);
+
+    @Test
+    void staleValue_isServedWhileRefreshing() throws Exception {
+        var first = this.get("reference/colors");
+        this.reads.get(0).complete("red");
+        assertThat(first.get()).isEqualTo("red");
+        assertThat(this.get("reference/colors").get()).isEqualTo("red");
+
+        this.advance(Duration.ofMillis(350));
+        // stale, served right away while it is refreshed in the background
+        assertThat(this.get("reference/colors").get()).isEqualTo("red");
+        assertThat(this.get("reference/colors").get()).isEqualTo("red");
+        assertThat(this.reads).hasSize(2);
+
+        this.reads.get(1).complete("blue");
+        assertThat(this.get("reference/colors").get()).isEqualTo("blue");
+        assertThat(this.reads).hasSize(2);
+    }
+
+    @Test
+    void expiredValue_isNotServed() throws Exception {
+        this.get("reference/colors");
+        this.reads.get(0).complete("red");
+
+        this.advance(Duration.ofMinutes(2));
+        var expired = this.get("reference/colors");
+
+        assertThat(expired).isNotDone();
+        this.reads.get(1).complete("blue");
+        assertThat(expired.get()).isEqualTo("blue");
+    }
+
+    @Test
+    void failedRead_isNotCached() {
+        var missing = this.get("reference/missing");
+        this.reads.get(0).completeExceptionally(new HttpStatusException(404));
+
+        assertThat(missing).isCompletedExceptionally();
+        assertThat(this.cache.getStats().getSize()).isEqualTo(0);
+
+        this.get("reference/missing");
+        assertThat(this.reads).hasSize(2);
+    }
+
+    @Test
+    void fullCache_evictsExpiredDocuments() {
+        this.get("reference/colors");
+        this.get("reference/sizes");
+        this.reads.forEach(read -> read.complete("value"));
+
+        // full, read from OPA without caching
+        this.get("reference/shapes");
+        assertThat(this.cache.getStats().getSize()).isEqualTo(2);
+
+        this.advance(Duration.ofMinutes(2));
+        this.get("reference/shapes");
+
+        assertThat(this.cache.getStats())
+                .extracting(CacheStats::getEvictionCount, CacheStats::getSize)
+                .containsExactly(2L, 1L);
+    }
+
+    @Test
+    void concurrentReads_doNotExceedMaximumSize() throws Exception {
+        var threads = Executors.newFixedThreadPool(8);
+        try {
+            var gets = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 8; thread++) {
+                gets.add(threads.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        this.cache.get("reference/" + i, String.class, () -> CompletableFuture.completedFuture("value"));
+                    }
+                }));
+            }
+            for (var get : gets) {
+                get.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertThat(this.cache.getStats().getSize()).isEqualTo(2);
+    }
+
+    private CompletableFuture<String> get(String path) {
+        Supplier<CompletableFuture<String>> reader = () -> {
+            var read = new CompletableFuture<String>();
+            this.reads.add(read);
+            return read;
+        };
+        return this.cache.get(path, String.class, reader);
+    }
+
+    private void advance(Duration duration) {
+        this.now += duration.toNanos();
+    }
+}
@@ -0,0 +1,93 @@
+package com.contentgrid.opa.client.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class OpaHttpClientTest {
+
+    private final ClassOnlyOpaHttpClient client = new ClassOnlyOpaHttpClient();
+
+    @Test
+    void responseTypeOfClass_isPassedOnToClassOverload() throws Exception {
+        assertThat(this.client.get("/v1/data", null, ResponseType.of(String.class)).get()).isEqualTo("GET String");
+        assertThat(this.client.post("/v1/data", Map.of(), ResponseType.of(Object.class)).get()).isEqualTo("POST Object");
+        assertThat(this.client.put("/v1/data", null, "{}", ResponseType.of(Object.class)).get()).isEqualTo("PUT Object");
+        assertThat(this.client.delete("/v1/data", null, ResponseType.of(Object.class)).get())
+                .isEqualTo("DELETE Object");
+    }
+
+    @Test
+    void parameterizedResponseType_isNotSupported() {
+        ResponseType<List<String>> type = ResponseType.parameterized(List.class, String.class);
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> this.client.get("/v1/data", null, type).get())
+                .withCauseInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void streamingResponseType_isNotSupported() {
+        var type = new StreamingResponseType<>(Map.class, "/result", String.class, element -> {
+        });
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> this.client.post("/v1/data", null, Map.of(), type).get())
+                .withCauseInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void patch_isNotSupportedByDefault() {
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> this.client.patch("/v1/data/acl", null, "[]").get())
+                .withCauseInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * Only implements the abstract methods, and answers with the method and the simple name of the response class.
+     */
+    private static class ClassOnlyOpaHttpClient implements OpaHttpClient {
+
+        @SuppressWarnings("unchecked")
+        private static <T> CompletableFuture<T> respond(String method, Class<?> responseType) {
+            return CompletableFuture.completedFuture((T) (method + " " + responseType.getSimpleName()));
+        }
+
+        @Override
+        public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
+                Class<TResponse> responseType) {
+            return respond("GET", responseType);
+        }
+
+        @Override
+        public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
+                Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+            return respond("POST", responseType);
+        }
+
+        @Override
+        public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
+                Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+            return respond("PUT", responseType);
+        }
+
+        @Override
+        public <TResponse> CompletableFuture<TResponse> delete(String path,
+                Consumer<HttpRequestHeaders> headersCallback, Class<TResponse> responseType) {
+            return respond("DELETE", responseType);
+        }
+
+        @Override
+        public void configure(Consumer<RestClientConfiguration> callback) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.contentgrid.opa.client.rest.client;
+
+import com.contentgrid.opa.client.rest.OpaHttpClient;
+import com.contentgrid.opa.client.rest.RestClientConfiguration;
+import com.contentgrid.opa.client.rest.http.HttpRequestHeaders;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An {@link OpaHttpClient} that sends nothing: every call returns a pending response, which the test completes.
+ */
+public class StubOpaHttpClient implements OpaHttpClient {
+
+    private final List<CompletableFuture<Object>> pending = new CopyOnWriteArrayList<>();
+    private final List<Object> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return the responses of all calls, in the order of the calls
+     */
+    public List<CompletableFuture<Object>> getPending() {
+        return this.pending;
+    }
+
+    /**
+     * @return the request bodies of all calls with a body, in the order of the calls
+     */
+    public List<Object> getBodies() {
+        return this.bodies;
+    }
+
+    /**
+     * @return the names of the threads that made the calls, in the order of the calls
+     */
+    public List<String> getThreads() {
+        return this.threads;
+    }
+
+    public void completeAll(Object value) {
+        new ArrayList<>(this.pending).forEach(response -> response.complete(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> respond() {
+        var response = new CompletableFuture<>();
+        this.threads.add(Thread.currentThread().getName());
+        this.pending.add(response);
+        return (CompletableFuture<T>) response;
+    }
+
+    private <T> CompletableFuture<T> respond(Object body) {
+        this.bodies.add(body);
+        return this.respond();
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
+            Class<TResponse> responseType) {
+        return this.respond();
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+        return this.respond(requestBody);
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody, Class<TResponse> responseType) {
+        return this.respond(requestBody);
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> delete(String path, Consumer<HttpRequestHeaders> headersCallback,
+            Class<TResponse> responseType) {
+        return this.respond();
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> get(String path, Consumer<HttpRequestHeaders> headersCallback,
+            ResponseType<TResponse> responseType) {
+        return this.respond();
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> post(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.respond(requestBody);
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> put(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.respond(requestBody);
+    }
+
+    @Override
+    public <TRequest, TResponse> CompletableFuture<TResponse> patch(String path,
+            Consumer<HttpRequestHeaders> headersCallback, TRequest requestBody,
+            ResponseType<TResponse> responseType) {
+        return this.respond(requestBody);
+    }
+
+    @Override
+    public <TResponse> CompletableFuture<TResponse> delete(String path, Consumer<HttpRequestHeaders> headersCallback,
+            ResponseType<TResponse> responseType) {
+        return this.respond();
+    }
+
+    @Override
+    public void configure(Consumer<RestClientConfiguration> callback) {
+        callback.accept(new RestClientConfiguration() {
+            @Override
+            public RestClientConfiguration baseUrl(String baseUrl) {
+                return this;
+            }
+
+            @Override
+            public RestClientConfiguration logging(Consumer<LogSpecification> logging) {
+                return this;
+            }
+        });
+    }
+}
@@ -0,0 +1,163 @@
+package com.contentgrid.opa.client.rest.client.balancing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.rest.LoadBalancingSpecification;
+import com.contentgrid.opa.client.rest.LoadBalancingSpecification.Strategy;
+import com.contentgrid.opa.client.rest.client.StubOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+
+class LoadBalancingOpaHttpClientTest {
+
+    private final Map<String, StubOpaHttpClient> replicas = new LinkedHashMap<>();
+
+    private LoadBalancingOpaHttpClient client(Strategy strategy, String... urls) {
+        return client(new LoadBalancingSpecification().strategy(strategy), urls);
+    }
+
+    private LoadBalancingOpaHttpClient client(LoadBalancingSpecification loadBalancing, String... urls) {
+        return new LoadBalancingOpaHttpClient(List.of(urls), url -> {
+            var replica = new StubOpaHttpClient();
+            this.replicas.put(url, replica);
+            return replica;
+        }, loadBalancing);
+    }
+
+    @Test
+    void leastOutstandingRequests() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1", "http://opa-2", "http://opa-3");
+
+        for (int i = 0; i < 6; i++) {
+            client.post("/v1/data/allow", Map.of(), Map.class);
+        }
+
+        assertThat(client.getEndpoints()).allSatisfy(endpoint -> assertThat(endpoint.getInFlight()).isEqualTo(2));
+
+        this.replicas.get("http://opa-2").getPending().forEach(response -> response.complete(Map.of()));
+        client.post("/v1/data/allow", Map.of(), Map.class);
+
+        assertThat(this.replicas.get("http://opa-2").getPending()).hasSize(3);
+        assertThat(client.getEndpoints().get(1).getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void powerOfTwoChoices_spreadsRequests() {
+        var client = client(Strategy.POWER_OF_TWO_CHOICES, "http://opa-1", "http://opa-2", "http://opa-3");
+
+        for (int i = 0; i < 300; i++) {
+            client.get("/v1/data", Map.class);
+        }
+
+        assertThat(client.getEndpoints()).allSatisfy(endpoint -> assertThat(endpoint.getInFlight()).isBetween(80, 120));
+    }
+
+    @Test
+    void transportFailure_ejectsEndpoint() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1", "http://opa-2");
+
+        var first = client.getEndpoints().get(0);
+        first.onSend();
+        var response = client.get("/v1/data", Map.class);
+        first.onComplete(false);
+
+        var replica = this.replicas.get("http://opa-2");
+        replica.getPending().get(0).completeExceptionally(new ConnectException("Connection refused"));
+
+        assertThat(response).isCompletedExceptionally();
+        assertThat(client.getEndpoints().get(1).isEjected()).isTrue();
+        assertThat(client.getEndpoints().get(1).getFailureCount()).isEqualTo(1);
+
+        // every request goes to the remaining endpoint
+        for (int i = 0; i < 3; i++) {
+            client.get("/v1/data", Map.class);
+        }
+        assertThat(this.replicas.get("http://opa-1").getPending()).hasSize(3);
+    }
+
+    @Test
+    void errorResponse_doesNotEjectEndpoint() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1");
+
+        client.get("/v1/data", Map.class);
+        this.replicas.get("http://opa-1").getPending().get(0).completeExceptionally(new HttpStatusException(500));
+
+        assertThat(client.getEndpoints().get(0).isEjected()).isFalse();
+    }
+
+    @Test
+    void writes_areSentToEveryEndpoint() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1", "http://opa-2");
+
+        var response = client.put("/v1/data/users", Map.of("alice", List.of()), Void.class);
+        assertThat(response).isNotDone();
+
+        this.replicas.values().forEach(replica -> replica.getPending().get(0).complete(null));
+        assertThat(response).isCompleted();
+    }
+
+    @Test
+    void timeout_countsAsFailure() {
+        var client = client(new LoadBalancingSpecification().requestTimeout(Duration.ofMillis(10)), "http://opa-1");
+
+        var response = client.get("/v1/data", Map.class);
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(response::join)
+                .withCauseInstanceOf(TimeoutException.class);
+        assertThat(this.replicas.get("http://opa-1").getPending().get(0).isCancelled()).isTrue();
+
+        var endpoint = client.getEndpoints().get(0);
+        assertThat(endpoint.isEjected()).isTrue();
+        assertThat(endpoint.getFailureCount()).isEqualTo(1);
+        assertThat(endpoint.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    void writes_skipEjectedEndpoints() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1", "http://opa-2");
+        client.getEndpoints().get(1).setEjected(true);
+
+        var response = client.put("/v1/data/users", Map.of("alice", List.of()), Void.class);
+        this.replicas.get("http://opa-1").getPending().get(0).complete(null);
+
+        assertThat(response.isDone()).isTrue();
+        assertThat(this.replicas.get("http://opa-2").getPending()).isEmpty();
+    }
+
+    @Test
+    void writes_reportFailureOfEveryEndpoint() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1", "http://opa-2", "http://opa-3");
+
+        var response = client.put("/v1/data/users", Map.of("alice", List.of()), Void.class);
+        var first = new HttpStatusException(400);
+        var second = new HttpStatusException(500);
+        this.replicas.get("http://opa-1").getPending().get(0).complete(null);
+        this.replicas.get("http://opa-2").getPending().get(0).completeExceptionally(first);
+        this.replicas.get("http://opa-3").getPending().get(0).completeExceptionally(second);
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(response::join)
+                .havingCause()
+                .isSameAs(first);
+        assertThat(first.getSuppressed()).containsExactly(second);
+    }
+
+    @Test
+    void writes_cancelEveryEndpoint() {
+        var client = client(Strategy.LEAST_OUTSTANDING_REQUESTS, "http://opa-1", "http://opa-2");
+
+        client.put("/v1/data/users", Map.of("alice", List.of()), Void.class).cancel(true);
+
+        assertThat(this.replicas.values())
+                .allSatisfy(replica -> assertThat(replica.getPending().get(0).isCancelled()).isTrue());
+    }
+}
@@ -0,0 +1,108 @@
+package com.contentgrid.opa.client.rest.client.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.rest.SingleFlightSpecification;
+import com.contentgrid.opa.client.rest.SingleFlightSpecification.Endpoint;
+import com.contentgrid.opa.client.rest.client.StubOpaHttpClient;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightOpaHttpClientTest {
+
+    private final StubOpaHttpClient delegate = new StubOpaHttpClient();
+
+    private final SingleFlightOpaHttpClient client = new SingleFlightOpaHttpClient(this.delegate,
+            new SingleFlightSpecification().enabled(), JsonMapper.builder().build());
+
+    @Test
+    void identicalCalls_shareOneRequest() throws Exception {
+        var first = this.client.post("/v1/data/authz/allow", Map.of("input", Map.of("user", "alice")), String.class);
+        var second = this.client.post("/v1/data/authz/allow", Map.of("input", Map.of("user", "alice")), String.class);
+        var other = this.client.post("/v1/data/authz/allow", Map.of("input", Map.of("user", "bob")), String.class);
+
+        assertThat(this.delegate.getPending()).hasSize(2);
+        this.delegate.getPending().get(0).complete("allowed");
+
+        assertThat(first.get()).isEqualTo("allowed");
+        assertThat(second.get()).isEqualTo("allowed");
+        assertThat(other).isNotDone();
+        assertThat(this.client.getCoalescedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void completedCall_isNotShared() throws Exception {
+        var first = this.client.get("/v1/data/roles", String.class);
+        this.delegate.getPending().get(0).complete("roles");
+        first.get();
+
+        this.client.get("/v1/data/roles", String.class);
+
+        assertThat(this.delegate.getPending()).hasSize(2);
+        assertThat(this.client.getCoalescedCount()).isZero();
+    }
+
+    @Test
+    void cancellingOneCaller_keepsTheRequestForTheOthers() {
+        var first = this.client.get("/v1/data/roles", String.class);
+        var second = this.client.get("/v1/data/roles", String.class);
+
+        first.cancel(true);
+        assertThat(this.delegate.getPending().get(0)).isNotCancelled();
+
+        second.cancel(true);
+        assertThat(this.delegate.getPending().get(0)).isCancelled();
+    }
+
+    @Test
+    void concurrentCancels_cancelTheRequest() throws Exception {
+        var threads = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 200; round++) {
+                var callers = new ArrayList<CompletableFuture<String>>();
+                for (int i = 0; i < 8; i++) {
+                    callers.add(this.client.get("/v1/data/roles", String.class));
+                }
+                var request = this.delegate.getPending().get(this.delegate.getPending().size() - 1);
+
+                var start = new CountDownLatch(1);
+                var cancels = new ArrayList<Future<?>>();
+                for (var caller : callers) {
+                    cancels.add(threads.submit(() -> {
+                        start.await();
+                        return caller.cancel(true);
+                    }));
+                }
+                start.countDown();
+                for (var cancel : cancels) {
+                    cancel.get();
+                }
+
+                assertThat(request).isCancelled();
+            }
+            // every round sent one request, that is not joined by later calls once cancelled
+            assertThat(this.delegate.getPending()).hasSize(200);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void writesAndDisabledEndpoints_areNotCoalesced() {
+        var client = new SingleFlightOpaHttpClient(this.delegate,
+                new SingleFlightSpecification().endpoints(Endpoint.COMPILE), JsonMapper.builder().build());
+
+        client.put("/v1/data/roles", "{}", Void.class);
+        client.put("/v1/data/roles", "{}", Void.class);
+        client.get("/v1/data/roles", String.class);
+        client.get("/v1/data/roles", String.class);
+
+        assertThat(this.delegate.getPending()).hasSize(4);
+    }
+}
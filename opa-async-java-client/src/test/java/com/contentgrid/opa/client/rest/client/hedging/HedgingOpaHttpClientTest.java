@@ -0,0 +1,110 @@
+package com.contentgrid.opa.client.rest.client.hedging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.opa.client.rest.HedgingSpecification;
+import com.contentgrid.opa.client.rest.client.StubOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class HedgingOpaHttpClientTest {
+
+    private final StubOpaHttpClient delegate = new StubOpaHttpClient();
+
+    private final HedgingOpaHttpClient client = new HedgingOpaHttpClient(this.delegate, new HedgingSpecification()
+            .delay(Duration.ofMillis(10))
+            .budgetPercent(50));
+
+    @Test
+    void slowResponse_sendsHedge_firstResponseWins() throws Exception {
+        this.earnBudget(2);
+
+        var response = this.client.get("/v1/data/allow", String.class);
+        this.awaitPending(2);
+
+        var primary = this.delegate.getPending().get(0);
+        this.delegate.getPending().get(1).complete("hedge");
+
+        assertThat(response.get()).isEqualTo("hedge");
+        assertThat(primary).isCancelled();
+        assertThat(this.client.getHedgeCount()).isEqualTo(1);
+        assertThat(this.client.getHedgeWinCount()).isEqualTo(1);
+    }
+
+    @Test
+    void exhaustedBudget_doesNotHedge() throws Exception {
+        var response = this.client.get("/v1/data/allow", String.class);
+        Thread.sleep(50);
+
+        assertThat(this.delegate.getPending()).hasSize(1);
+        assertThat(this.client.getBudgetExhaustedCount()).isEqualTo(1);
+
+        this.delegate.getPending().get(0).complete("primary");
+        assertThat(response.get()).isEqualTo("primary");
+    }
+
+    @Test
+    void writes_areNotHedged() throws Exception {
+        this.earnBudget(2);
+
+        this.client.put("/v1/data/users", "{}", Void.class);
+        Thread.sleep(50);
+
+        assertThat(this.delegate.getPending()).hasSize(1);
+    }
+
+    @Test
+    void hedge_isSentOnConfiguredExecutor() throws Exception {
+        var executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "opa-executor"));
+        try {
+            this.client.configure(config -> config.executor(executor));
+            this.earnBudget(2);
+
+            this.client.get("/v1/data/allow", String.class);
+            this.awaitPending(2);
+
+            assertThat(this.delegate.getThreads().get(this.delegate.getThreads().size() - 1)).isEqualTo("opa-executor");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void hedge_encodesBodyWhenSent() throws Exception {
+        var client = new HedgingOpaHttpClient(this.delegate, new HedgingSpecification()
+                .delay(Duration.ofMillis(10))
+                .budgetPercent(50), JsonMapper.builder().build());
+        this.earnBudget(client, 2);
+        this.delegate.getBodies().clear();
+
+        client.post("/v1/data/allow", Map.of("input", Map.of("user", "alice")), String.class);
+        this.awaitPending(2);
+
+        // the primary is sent as is, the hedge with the encoded body
+        assertThat(this.delegate.getBodies()).hasSize(2);
+        assertThat(this.delegate.getBodies().get(0)).isInstanceOf(Map.class);
+        assertThat(this.delegate.getBodies().get(1)).isInstanceOf(RawJson.class);
+    }
+
+    private void earnBudget(int requests) throws Exception {
+        this.earnBudget(this.client, requests);
+    }
+
+    private void earnBudget(HedgingOpaHttpClient client, int requests) throws Exception {
+        for (int i = 0; i < requests; i++) {
+            var response = client.get("/v1/data", String.class);
+            this.delegate.getPending().remove(0).complete("ok");
+            response.get();
+        }
+    }
+
+    private void awaitPending(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && this.delegate.getPending().size() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class ByteBufferPoolTest {
+
+    @Test
+    void releasedSegment_isReusedEmpty() {
+        var pool = new ByteBufferPool(16, 4);
+        var segment = pool.acquire();
+        segment.put((byte) 1);
+
+        pool.release(segment);
+
+        var reused = pool.acquire();
+        assertThat(reused).isSameAs(segment);
+        assertThat(reused.position()).isEqualTo(0);
+        assertThat(reused.remaining()).isEqualTo(16);
+    }
+
+    @Test
+    void poolKeepsAtMostMaxPooledSegments() {
+        var pool = new ByteBufferPool(16, 2);
+        var first = pool.acquire();
+        var second = pool.acquire();
+        var third = pool.acquire();
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertThat(pool.acquire()).isSameAs(first);
+        assertThat(pool.acquire()).isSameAs(second);
+        var fresh = pool.acquire();
+        assertThat(fresh).isNotSameAs(third);
+        assertThat(fresh.capacity()).isEqualTo(16);
+    }
+
+    @Test
+    void foreignSegments_areNotPooled() {
+        var pool = new ByteBufferPool(16, 2);
+
+        pool.release(ByteBuffer.allocate(32));
+        pool.release(ByteBuffer.allocate(16).asReadOnlyBuffer());
+
+        assertThat(pool.acquire().isReadOnly()).isFalse();
+        assertThat(pool.acquire().capacity()).isEqualTo(16);
+    }
+}
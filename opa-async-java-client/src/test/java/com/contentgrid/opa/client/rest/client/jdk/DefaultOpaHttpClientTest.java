@@ -18,10 +18,11 @@ class DefaultOpaHttpClientTest {
             }
         }.getHttpClient();
 
-        opaClient.converterProcessor.write(HttpBodyConverter.SerializationContext.of(
+        var entity = opaClient.converterProcessor.write(HttpBodyConverter.SerializationContext.of(
                 Map.of("auth_time", Instant.now()),
                 new HttpHeadersBuilder().add("Content-Type", MediaType.APPLICATION_JSON.toString())
         ));
+        entity.release();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import org.junit.jupiter.api.Test;
+
+class GzipDecodingBodyReaderTest {
+
+    private static final String CONTENT = "{\"result\":[" + "\"item\",".repeat(2000) + "\"last\"]}";
+
+    @Test
+    void decodesChunkedBody() throws IOException {
+        var body = gzip(CONTENT);
+        for (int chunkSize : new int[]{1, 7, 1024, body.length}) {
+            var reader = new GzipDecodingBodyReader<>(new CollectingBodyReader());
+            feed(reader, body, chunkSize);
+
+            assertThat(reader.complete()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void decodesMultipleMembers() throws IOException {
+        var first = gzip(CONTENT.substring(0, 100));
+        var second = gzip(CONTENT.substring(100));
+        var body = new byte[first.length + second.length];
+        System.arraycopy(first, 0, body, 0, first.length);
+        System.arraycopy(second, 0, body, first.length, second.length);
+
+        var reader = new GzipDecodingBodyReader<>(new CollectingBodyReader());
+        feed(reader, body, 13);
+
+        assertThat(reader.complete()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void corruptTrailer_shouldFail() throws IOException {
+        var body = gzip(CONTENT);
+        body[body.length - 6] ^= 1;
+
+        var reader = new GzipDecodingBodyReader<>(new CollectingBodyReader());
+        assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(() -> feed(reader, body, 64));
+    }
+
+    @Test
+    void truncatedBody_shouldFail() throws IOException {
+        var body = gzip(CONTENT);
+
+        var reader = new GzipDecodingBodyReader<>(new CollectingBodyReader());
+        feed(reader, Arrays.copyOf(body, body.length / 2), 64);
+
+        assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(reader::complete);
+    }
+
+    @Test
+    void failingDelegate_shouldReleaseInflater() throws IOException {
+        var body = gzip(CONTENT);
+        var ended = new AtomicBoolean();
+        var inflater = new Inflater(true) {
+            @Override
+            public void end() {
+                ended.set(true);
+                super.end();
+            }
+        };
+
+        var reader = new GzipDecodingBodyReader<>(new CollectingBodyReader() {
+            @Override
+            public void onNext(ByteBuffer chunk) {
+                throw new IllegalStateException("delegate failed");
+            }
+        }, inflater);
+
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> feed(reader, body, body.length));
+        assertThat(ended.get()).isTrue();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void feed(BodyReader<?> reader, byte[] body, int chunkSize) {
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            reader.onNext(ByteBuffer.wrap(body, offset, length));
+        }
+    }
+
+    private static class CollectingBodyReader implements BodyReader<String> {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            while (chunk.hasRemaining()) {
+                output.write(chunk.get());
+            }
+        }
+
+        @Override
+        public String complete() {
+            return output.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class GzipEncoderTest {
+
+    @Test
+    void encode_producesGzip() throws IOException {
+        var encoder = new GzipEncoder(64);
+
+        var text = "{\"input\":{\"user\":\"alice\"}}".repeat(100);
+        var compressed = encode(encoder, text.substring(0, 1000), text.substring(1000));
+
+        assertThat(decode(compressed)).isEqualTo(text);
+    }
+
+    @Test
+    void encode_reusesDeflater() throws IOException {
+        var encoder = new GzipEncoder(64, 1);
+
+        assertThat(decode(encode(encoder, "first body"))).isEqualTo("first body");
+        assertThat(encoder.getPooledDeflaters()).isEqualTo(1);
+
+        // the reused deflater starts from a clean state
+        assertThat(decode(encode(encoder, "second body"))).isEqualTo("second body");
+        assertThat(encoder.getPooledDeflaters()).isEqualTo(1);
+    }
+
+    @Test
+    void encode_emptyBody() throws IOException {
+        var encoder = new GzipEncoder(64);
+
+        assertThat(decode(encode(encoder))).isEqualTo("");
+    }
+
+    private static byte[] encode(GzipEncoder encoder, String... segments) throws IOException {
+        var buffers = new ArrayList<ByteBuffer>();
+        for (var segment : segments) {
+            buffers.add(ByteBuffer.wrap(segment.getBytes(StandardCharsets.UTF_8)));
+        }
+        var output = new ByteArrayOutputStream();
+        encoder.encode(List.copyOf(buffers), output);
+        return output.toByteArray();
+    }
+
+    private static String decode(byte[] compressed) throws IOException {
+        try (var input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import org.junit.jupiter.api.Test;
+
+class SegmentedBodyTest {
+
+    private final List<ByteBuffer> recycled = new CopyOnWriteArrayList<>();
+
+    @Test
+    void publisher_emitsSegmentsWithoutCopying() {
+        var segment = ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8));
+        var body = new SegmentedBody(List.of(segment), this.recycled::add);
+
+        var subscriber = new RecordingSubscriber();
+        body.toBodyPublisher().subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertThat(body.getContentLength()).isEqualTo(5L);
+        assertThat(subscriber.getText()).isEqualTo("hello");
+        assertThat(subscriber.received.get(0).array()).isSameAs(segment.array());
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test
+    void releaseAfterSuccess_recyclesSegments() {
+        var segments = segments("hel", "lo");
+        var body = new SegmentedBody(segments, this.recycled::add);
+
+        var subscriber = new RecordingSubscriber();
+        body.toBodyPublisher().subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        body.release();
+
+        assertThat(subscriber.getText()).isEqualTo("hello");
+        assertThat(this.recycled).containsExactly(segments.get(0), segments.get(1));
+    }
+
+    @Test
+    void releaseWithoutSubscription_recyclesSegments() {
+        var segments = segments("hello");
+        var body = new SegmentedBody(segments, this.recycled::add);
+
+        body.release();
+
+        assertThat(this.recycled).containsExactly(segments.get(0));
+    }
+
+    @Test
+    void discardAfterFailure_doesNotRecycleSegments() {
+        var body = new SegmentedBody(segments("hello"), this.recycled::add);
+
+        var subscriber = new RecordingSubscriber();
+        body.toBodyPublisher().subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+        body.discard();
+
+        assertThat(this.recycled).isEmpty();
+    }
+
+    @Test
+    void cancelledSubscription_doesNotRecycleSegments() {
+        var body = new SegmentedBody(segments("hel", "lo"), this.recycled::add);
+
+        var subscriber = new RecordingSubscriber();
+        body.toBodyPublisher().subscribe(subscriber);
+        subscriber.request(1);
+        subscriber.subscription.cancel();
+        // the exchange completed anyway
+        body.release();
+
+        assertThat(subscriber.getText()).isEqualTo("hel");
+        assertThat(this.recycled).isEmpty();
+    }
+
+    @Test
+    void releaseWhileSubscriptionIsReading_doesNotRecycleSegments() {
+        var body = new SegmentedBody(segments("hel", "lo"), this.recycled::add);
+
+        var subscriber = new RecordingSubscriber();
+        body.toBodyPublisher().subscribe(subscriber);
+        subscriber.request(1);
+        body.release();
+
+        // the subscriber may still hold the first segment
+        assertThat(this.recycled).isEmpty();
+
+        subscriber.request(Long.MAX_VALUE);
+        assertThat(subscriber.getText()).isEqualTo("hello");
+        assertThat(this.recycled).isEmpty();
+    }
+
+    @Test
+    void doubleRelease_recyclesSegmentsOnce() {
+        var segments = segments("hello");
+        var body = new SegmentedBody(segments, this.recycled::add);
+
+        body.release();
+        body.release();
+        body.discard();
+
+        assertThat(this.recycled).containsExactly(segments.get(0));
+    }
+
+    @Test
+    void subscribeAfterRelease_fails() {
+        var body = new SegmentedBody(segments("hello"), this.recycled::add);
+        body.release();
+
+        var subscriber = new RecordingSubscriber();
+        body.toBodyPublisher().subscribe(subscriber);
+
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void httpEntity_releasesAndDiscardsBody() {
+        var released = new SegmentedBody(segments("hello"), this.recycled::add);
+        new HttpEntity(new HttpHeadersBuilder(), released).release();
+        assertThat(this.recycled).hasSize(1);
+
+        var discarded = new SegmentedBody(segments("hello"), this.recycled::add);
+        new HttpEntity(new HttpHeadersBuilder(), discarded).discard();
+        assertThat(this.recycled).hasSize(1);
+
+        // without a body there is nothing to release
+        new HttpEntity(new HttpHeadersBuilder()).release();
+    }
+
+    @Test
+    void pooledOutputStream_returnsSegmentsToPoolOnRelease() {
+        var pool = new RecordingPool(4);
+        var output = new PooledByteBufferOutputStream(pool);
+        output.write("hello world".getBytes(StandardCharsets.UTF_8), 0, 11);
+
+        var body = output.toBody();
+        assertThat(body.getSegments()).hasSize(3);
+        assertThat(pool.released).isEmpty();
+
+        body.release();
+        assertThat(pool.released).hasSize(3);
+    }
+
+    @Test
+    void pooledOutputStream_discardReturnsSegmentsToPool() {
+        var pool = new RecordingPool(4);
+        var output = new PooledByteBufferOutputStream(pool);
+        output.write("hello".getBytes(StandardCharsets.UTF_8), 0, 5);
+
+        output.discard();
+
+        assertThat(pool.released).hasSize(2);
+    }
+
+    private static List<ByteBuffer> segments(String... parts) {
+        var segments = new ArrayList<ByteBuffer>();
+        for (var part : parts) {
+            segments.add(ByteBuffer.wrap(part.getBytes(StandardCharsets.UTF_8)));
+        }
+        return segments;
+    }
+
+    private static class RecordingPool extends ByteBufferPool {
+
+        private final List<ByteBuffer> released = new ArrayList<>();
+
+        RecordingPool(int segmentSize) {
+            super(segmentSize, 16);
+        }
+
+        @Override
+        public void release(ByteBuffer segment) {
+            this.released.add(segment);
+            super.release(segment);
+        }
+    }
+
+    private static class RecordingSubscriber implements Subscriber<ByteBuffer> {
+
+        private final List<ByteBuffer> received = new ArrayList<>();
+        private Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            this.received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+
+        void request(long n) {
+            this.subscription.request(n);
+        }
+
+        String getText() {
+            var text = new StringBuilder();
+            for (var buffer : this.received) {
+                text.append(StandardCharsets.UTF_8.decode(buffer.duplicate()));
+            }
+            return text.toString();
+        }
+    }
+}
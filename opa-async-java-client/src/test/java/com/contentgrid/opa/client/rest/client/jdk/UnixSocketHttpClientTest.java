@@ -0,0 +1,468 @@
+package com.contentgrid.opa.client.rest.client.jdk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UnixSocketHttpClientTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+    @TempDir
+    Path directory;
+
+    private StubServer server;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.server = new StubServer(this.directory.resolve("opa.sock"));
+        this.executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        this.server.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void contentLengthBody() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        var response = client.send(get("/v1/data/a"), BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("hello");
+        assertThat(this.server.getRequests()).containsExactly("GET /v1/data/a");
+    }
+
+    @Test
+    void chunkedBody() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5\r\nhello\r\n6;name=value\r\n world\r\n0\r\nTrailer: ignored\r\n\r\n"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        assertThat(client.send(get("/a"), BodyHandlers.ofString()).body()).isEqualTo("hello world");
+        assertThat(client.send(get("/b"), BodyHandlers.ofString()).body()).isEqualTo("hello world");
+
+        // the end of the body is known, the connection is reused
+        assertThat(this.server.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void closeDelimitedBody() throws Exception {
+        this.server.respond((request, in, out) -> {
+            write(out, "HTTP/1.1 200 OK\r\n\r\nhello");
+            return false;
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        assertThat(client.send(get("/a"), BodyHandlers.ofString()).body()).isEqualTo("hello");
+        assertThat(client.send(get("/b"), BodyHandlers.ofString()).body()).isEqualTo("hello");
+
+        // the body ends when the connection is closed, it cannot be reused
+        assertThat(this.server.getConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void emptyBody() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 204 No Content\r\n\r\n"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        var response = client.send(put("/v1/data/a", "{}"), BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(204);
+        assertThat(response.body()).isEqualTo("");
+        assertThat(this.server.getRequests()).containsExactly("PUT /v1/data/a {}");
+    }
+
+    @Test
+    void connectionIsReused() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(client.send(get("/a"), BodyHandlers.ofString()).body()).isEqualTo("ok");
+        }
+
+        assertThat(this.server.getConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void connectionCloseHeader_connectionIsNotReused() throws Exception {
+        this.server.respond((request, in, out) -> {
+            write(out, "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 2\r\n\r\nok");
+            return false;
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        client.send(get("/a"), BodyHandlers.ofString());
+        client.send(get("/b"), BodyHandlers.ofString());
+
+        assertThat(this.server.getConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void idleConnection_isEvictedAfterIdleTimeout() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok"));
+        // every idle connection has expired when it is taken from the pool
+        var client = this.createClient(Duration.ZERO);
+
+        client.send(get("/a"), BodyHandlers.ofString());
+        client.send(get("/b"), BodyHandlers.ofString());
+
+        assertThat(this.server.getConnections()).isEqualTo(2);
+        assertThat(this.server.awaitDisconnects(1)).isTrue();
+    }
+
+    @Test
+    void idleConnectionClosedByServer_isRetriedOnNewConnection() throws Exception {
+        // closes the connection after the response, without announcing it
+        this.server.respond((request, in, out) -> {
+            write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+            return false;
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        assertThat(client.send(get("/a"), BodyHandlers.ofString()).body()).isEqualTo("ok");
+        assertThat(this.server.awaitDisconnects(1)).isTrue();
+        assertThat(client.send(get("/b"), BodyHandlers.ofString()).body()).isEqualTo("ok");
+
+        assertThat(this.server.getRequests()).containsExactly("GET /a", "GET /b");
+        assertThat(this.server.getConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void reusedConnectionClosedWithoutResponse_postIsNotRetried() throws Exception {
+        // answers the first request, then closes the connection without answering the second one
+        this.server.respond((request, in, out) -> request.startsWith("GET")
+                && write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        client.send(get("/a"), BodyHandlers.ofString());
+        // the server could have processed the request, sending it again is not safe
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> client.send(post("/b", "{}"), BodyHandlers.ofString()));
+
+        assertThat(this.server.getRequests()).containsExactly("GET /a", "POST /b {}");
+    }
+
+    @Test
+    void reusedConnectionClosedWithoutResponse_getIsRetried() throws Exception {
+        var answered = new AtomicInteger();
+        this.server.respond((request, in, out) -> answered.getAndIncrement() != 1
+                && write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        client.send(get("/a"), BodyHandlers.ofString());
+        assertThat(client.send(get("/b"), BodyHandlers.ofString()).body()).isEqualTo("ok");
+
+        assertThat(this.server.getRequests()).containsExactly("GET /a", "GET /b", "GET /b");
+    }
+
+    @Test
+    void timeout_closesConnection() throws Exception {
+        this.server.respond((request, in, out) -> {
+            // never answers, waits for the client to close the connection
+            while (in.read() >= 0) {
+                // ignore
+            }
+            return false;
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+        var request = HttpRequest.newBuilder(URI.create("http://localhost/a"))
+                .timeout(Duration.ofMillis(100))
+                .build();
+
+        assertThatExceptionOfType(HttpTimeoutException.class)
+                .isThrownBy(() -> client.send(request, BodyHandlers.ofString()));
+        assertThat(this.server.awaitDisconnects(1)).isTrue();
+    }
+
+    @Test
+    void serverClosesMidResponse_fails() throws Exception {
+        this.server.respond((request, in, out) -> {
+            if (request.endsWith("/truncated")) {
+                write(out, "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nhello");
+                return false;
+            }
+            return write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> client.send(get("/truncated"), BodyHandlers.ofString()));
+
+        // the broken connection is not reused
+        assertThat(client.send(get("/a"), BodyHandlers.ofString()).body()).isEqualTo("ok");
+        assertThat(this.server.getConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void serverClosesMidChunk_fails() throws Exception {
+        this.server.respond((request, in, out) -> {
+            write(out, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n10\r\nhello");
+            return false;
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        assertThatExceptionOfType(IOException.class)
+                .isThrownBy(() -> client.send(get("/a"), BodyHandlers.ofString()));
+    }
+
+    @Test
+    void cancel_closesConnection() throws Exception {
+        var received = new CountDownLatch(1);
+        this.server.respond((request, in, out) -> {
+            received.countDown();
+            // never answers, waits for the client to close the connection
+            while (in.read() >= 0) {
+                // ignore
+            }
+            return false;
+        });
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        var response = client.sendAsync(get("/a"), BodyHandlers.ofString());
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        response.cancel(true);
+
+        assertThat(this.server.awaitDisconnects(1)).isTrue();
+        assertThat(response.isCancelled()).isTrue();
+    }
+
+    @Test
+    void close_closesIdleConnections() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok"));
+        var client = this.createClient(IDLE_TIMEOUT);
+        client.send(get("/a"), BodyHandlers.ofString());
+
+        client.close();
+
+        assertThat(this.server.awaitDisconnects(1)).isTrue();
+    }
+
+    @Test
+    void sendAsync_completesWithResponse() throws Exception {
+        this.server.respond((request, in, out) -> write(out, "HTTP/1.1 404 Not Found\r\nContent-Length: 2\r\n\r\n{}"));
+        var client = this.createClient(IDLE_TIMEOUT);
+
+        HttpResponse<String> response = client.sendAsync(get("/a"), BodyHandlers.ofString()).get(5, TimeUnit.SECONDS);
+
+        assertThat(response.statusCode()).isEqualTo(404);
+        assertThat(response.body()).isEqualTo("{}");
+    }
+
+    @Test
+    void sendAsync_failsWhenSocketDoesNotExist() throws Exception {
+        var client = new UnixSocketHttpClient(this.directory.resolve("missing.sock"), IDLE_TIMEOUT, this.executor);
+
+        assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> client.sendAsync(get("/a"), BodyHandlers.ofString()).get(5, TimeUnit.SECONDS))
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    void isUnixSocketUrl_ignoresCaseOfScheme() {
+        assertThat(UnixSocketOpaHttpClient.isUnixSocketUrl("unix:///var/run/opa.sock")).isTrue();
+        assertThat(UnixSocketOpaHttpClient.isUnixSocketUrl("UNIX:///var/run/opa.sock")).isTrue();
+        assertThat(UnixSocketOpaHttpClient.isUnixSocketUrl("http://localhost:8181")).isFalse();
+        assertThat(UnixSocketOpaHttpClient.socketPath("Unix:///var/run/opa.sock"))
+                .isEqualTo(Path.of("/var/run/opa.sock"));
+    }
+
+    private UnixSocketHttpClient createClient(Duration idleTimeout) {
+        return new UnixSocketHttpClient(this.server.getPath(), idleTimeout, this.executor);
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost" + path)).GET().build();
+    }
+
+    private static HttpRequest put(String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost" + path))
+                .PUT(BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost" + path))
+                .POST(BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static boolean write(OutputStream out, String response) throws IOException {
+        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        return true;
+    }
+
+    interface Responder {
+
+        /**
+         * @param request the request line, followed by the body, if any
+         * @return {@code true} to keep the connection open for the next request
+         */
+        boolean respond(String request, InputStream in, OutputStream out) throws IOException;
+    }
+
+    /**
+     * A HTTP/1.1 server on a unix domain socket, that answers every request with the same {@link Responder}.
+     */
+    private static class StubServer implements AutoCloseable {
+
+        private final Path path;
+        private final ServerSocketChannel channel;
+        private final ExecutorService threads = Executors.newCachedThreadPool();
+
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger disconnects = new AtomicInteger();
+
+        private volatile Responder responder;
+
+        StubServer(Path path) throws IOException {
+            this.path = path;
+            this.channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            this.channel.bind(UnixDomainSocketAddress.of(path));
+            this.threads.execute(this::accept);
+        }
+
+        void respond(Responder responder) {
+            this.responder = responder;
+        }
+
+        Path getPath() {
+            return this.path;
+        }
+
+        List<String> getRequests() {
+            return this.requests;
+        }
+
+        int getConnections() {
+            return this.connections.get();
+        }
+
+        /**
+         * Waits until at least {@code count} connections have been closed by either side.
+         */
+        boolean awaitDisconnects(int count) throws InterruptedException {
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (this.disconnects.get() < count) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+            this.threads.shutdownNow();
+        }
+
+        private void accept() {
+            while (this.channel.isOpen()) {
+                try {
+                    var connection = this.channel.accept();
+                    this.connections.incrementAndGet();
+                    this.threads.execute(() -> this.serve(connection));
+                } catch (IOException ex) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(SocketChannel connection) {
+            try (connection) {
+                var in = Channels.newInputStream(connection);
+                var out = Channels.newOutputStream(connection);
+                String request;
+                while ((request = readRequest(in)) != null) {
+                    this.requests.add(request);
+                    if (!this.responder.respond(request, in, out)) {
+                        break;
+                    }
+                }
+            } catch (IOException ex) {
+                // the client closed the connection
+            } finally {
+                this.disconnects.incrementAndGet();
+            }
+        }
+
+        /**
+         * @return the request line without the protocol, followed by the body, or {@code null} at the end of the
+         * stream
+         */
+        private static String readRequest(InputStream in) throws IOException {
+            var requestLine = readLine(in);
+            if (requestLine == null) {
+                return null;
+            }
+
+            int contentLength = 0;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                if (line.toLowerCase().startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                }
+            }
+
+            var request = requestLine.substring(0, requestLine.lastIndexOf(' '));
+            if (contentLength == 0) {
+                return request;
+            }
+            return request + " " + new String(in.readNBytes(contentLength), StandardCharsets.UTF_8);
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            var line = new ByteArrayOutputStream();
+            int next;
+            while ((next = in.read()) >= 0) {
+                if (next == '\n') {
+                    var text = line.toString(StandardCharsets.ISO_8859_1);
+                    return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+                }
+                line.write(next);
+            }
+            return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.contentgrid.opa.client.rest.client.jdk.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.contentgrid.opa.client.api.CompileApi.PartialEvalResponse;
+import com.contentgrid.opa.client.api.DataApi.EvaluationResult;
+import com.contentgrid.opa.client.api.PolicyApi.ListPoliciesResponse;
+import com.contentgrid.opa.client.rest.client.jdk.HttpHeadersBuilder;
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.BodyReader;
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.DeserializationContext;
+import com.contentgrid.opa.client.rest.client.jdk.converter.HttpBodyConverter.SerializationContext;
+import com.contentgrid.opa.client.rest.http.MediaType;
+import com.contentgrid.opa.client.rest.http.RawJson;
+import com.contentgrid.opa.client.rest.http.ResponseType;
+import com.contentgrid.opa.client.rest.http.StreamingResponseType;
+import com.contentgrid.opa.rego.ast.Query;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JacksonBodyConverterTest {
+
+    private final JacksonBodyConverter converter = new JacksonBodyConverter(JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build());
+
+    private final DeserializationContext context = DeserializationContext.of(MediaType.APPLICATION_JSON);
+
+    @Test
+    void reader_singleChunk() {
+        var reader = converter.reader(context, Map.class);
+        feed(reader, "{\"result\":{\"allow\":true}}".getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE);
+
+        assertThat(reader.complete()).isEqualTo(Map.of("result", Map.of("allow", true)));
+    }
+
+    @Test
+    void reader_tokensSplitAcrossChunks() {
+        var json = "{\"result\":{\"name\":\"café\",\"values\":[1,2.5,-3e2,null,false]}}";
+
+        var reader = converter.reader(context, Map.class);
+        feed(reader, json.getBytes(StandardCharsets.UTF_8), 1);
+
+        assertThat(reader.complete()).isEqualTo(Map.of("result", Map.of(
+                "name", "café",
+                "values", Arrays.asList(1, 2.5, -300.0, null, false))));
+    }
+
+    @Test
+    void reader_policiesAst() throws IOException {
+        byte[] body;
+        try (var is = getClass().getClassLoader().getResourceAsStream(
+                "com/contentgrid/opa/client/api/policyapi/listpoliciesresponse.json")) {
+            body = is.readAllBytes();
+        }
+
+        var reader = converter.reader(context, ListPoliciesResponse.class);
+        feed(reader, body, 7);
+        var response = reader.complete();
+
+        assertThat(response.getResult()).hasSize(4);
+        assertThat(response.getResult().get(2).getAst().getRules()).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void reader_evaluationResult() {
+        ResponseType<EvaluationResult<Map<String, Object>>> type =
+                ResponseType.parameterized(EvaluationResult.class, Map.class);
+
+        var defined = converter.reader(context, type);
+        feed(defined, "{\"result\":{\"allow\":true},\"decision_id\":\"42\"}".getBytes(StandardCharsets.UTF_8), 3);
+        var result = defined.complete();
+
+        assertThat(result.isDefined()).isTrue();
+        assertThat(result.getRequiredResult()).isEqualTo(Map.of("allow", true));
+        assertThat(result.getDecisionId()).isEqualTo("42");
+
+        var undefined = converter.reader(context, type);
+        feed(undefined, "{}".getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE);
+
+        assertThat(undefined.complete().isDefined()).isFalse();
+    }
+
+    @Test
+    void reader_streamingResponseType_largeResidual() {
+        var json = new StringBuilder("{\"result\":{\"queries\":[");
+        for (int i = 0; i < 10_000; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("[{\"index\":0,\"terms\":[{\"type\":\"ref\",\"value\":[{\"type\":\"var\",")
+                    .append("\"value\":\"eq\"}]},{\"type\":\"number\",\"value\":").append(i).append("}]}]");
+        }
+        json.append("]},\"metrics\":{\"timer_rego_partial_eval_ns\":5}}");
+
+        var queries = new ArrayList<Query>();
+        var reader = converter.reader(context, new StreamingResponseType<>(
+                PartialEvalResponse.class, "/result/queries", Query.class, queries::add));
+        feed(reader, json.toString().getBytes(StandardCharsets.UTF_8), 7);
+        var response = reader.complete();
+
+        assertThat(queries).hasSize(10_000);
+        assertThat(queries.get(9_999).get(0).getTerms()).hasSize(2);
+        assertThat(response.getResult().getQueries()).isEmpty();
+        assertThat(response.getMetrics().getPartialEvalNanos()).isEqualTo(5);
+    }
+
+    @Test
+    void reader_emptyBody_shouldFail() {
+        var reader = converter.reader(context, Map.class);
+
+        assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(reader::complete);
+    }
+
+    @Test
+    void reader_malformedJson_shouldFail() {
+        var reader = converter.reader(context, List.class);
+
+        assertThatExceptionOfType(UncheckedIOException.class)
+                .isThrownBy(() -> feed(reader, "[1, 2}".getBytes(StandardCharsets.UTF_8), 2));
+    }
+
+    @Test
+    void write_rawJson_nested() {
+        var input = Map.of("user", RawJson.of("{\"groups\":[\"a\",\"b\"]}"));
+
+        assertThat(write(Map.of("input", input))).isEqualTo("{\"input\":{\"user\":{\"groups\":[\"a\",\"b\"]}}}");
+    }
+
+    @Test
+    void write_rawJson_body() {
+        assertThat(write(RawJson.of("{\"input\":{}}"))).isEqualTo("{\"input\":{}}");
+    }
+
+    private String write(Object source) {
+        var output = new ByteArrayOutputStream();
+        converter.write(SerializationContext.of(source, new HttpHeadersBuilder()), output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void feed(BodyReader<?> reader, byte[] body, int chunkSize) {
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, body.length - offset);
+            reader.onNext(ByteBuffer.wrap(body, offset, length).asReadOnlyBuffer());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.contentgrid.opa.client.rest.client.limiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.contentgrid.opa.client.rest.ConcurrencyLimitSpecification;
+import com.contentgrid.opa.client.rest.client.StubOpaHttpClient;
+import com.contentgrid.opa.client.rest.http.HttpStatusException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitingOpaHttpClientTest {
+
+    private final StubOpaHttpClient delegate = new StubOpaHttpClient();
+
+    private ConcurrencyLimitingOpaHttpClient client(int initialLimit, int maxQueueSize) {
+        return new ConcurrencyLimitingOpaHttpClient(this.delegate, new ConcurrencyLimitSpecification()
+                .limits(initialLimit, 1, 10)
+                .latencyThreshold(Duration.ofSeconds(10))
+                .maxQueueSize(maxQueueSize));
+    }
+
+    @Test
+    void limitReached_queuesThenRejects() {
+        var client = client(2, 1);
+
+        client.get("/v1/data", String.class);
+        client.get("/v1/data", String.class);
+        var queued = client.get("/v1/data", String.class);
+        var rejected = client.get("/v1/data", String.class);
+
+        assertThat(this.delegate.getPending()).hasSize(2);
+        assertThat(client.getQueueDepth()).isEqualTo(1);
+        assertThat(client.getRejectedCount()).isEqualTo(1);
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ConcurrencyLimitExceededException.class);
+
+        this.delegate.getPending().get(0).complete("done");
+
+        assertThat(this.delegate.getPending()).hasSize(3);
+        assertThat(client.getQueueDepth()).isZero();
+        assertThat(queued).isNotDone();
+    }
+
+    @Test
+    void limit_growsWhenFast_shrinksWhenDropped() {
+        var client = client(4, 0);
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 4; j++) {
+                client.get("/v1/data", String.class);
+            }
+            this.delegate.completeAll(null);
+        }
+        int grown = client.getLimit();
+        assertThat(grown).isGreaterThan(4);
+
+        client.get("/v1/data", String.class);
+        this.delegate.getPending().get(this.delegate.getPending().size() - 1)
+                .completeExceptionally(new HttpStatusException(503));
+
+        assertThat(client.getLimit()).isLessThan(grown);
+        assertThat(client.getInFlight()).isZero();
+    }
+
+    @Test
+    void cancelledWhileQueued_leavesQueue() {
+        var client = client(1, 5);
+
+        client.get("/v1/data", String.class);
+        var queued = client.get("/v1/data", String.class);
+        queued.cancel(true);
+
+        assertThat(client.getQueueDepth()).isZero();
+
+        this.delegate.getPending().get(0).complete("done");
+        assertThat(this.delegate.getPending()).hasSize(1);
+        assertThat(client.getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,58 @@
+package com.contentgrid.opa.client.rest.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RawJsonCacheTest {
+
+    private final RawJsonCache cache = new RawJsonCache(JsonMapper.builder().build(), 2);
+
+    @Test
+    void encode_byIdentity() {
+        var groups = List.of("a", "b");
+
+        assertThat(cache.encode(groups)).isSameAs(cache.encode(groups));
+        assertThat(cache.encode(List.of("a", "b"))).isNotSameAs(cache.encode(groups));
+        assertThat(cache.encode(groups)).hasToString("[\"a\",\"b\"]");
+    }
+
+    @Test
+    void encode_byKeyAndVersion() {
+        var v1 = cache.encode("user", 1, () -> Map.of("name", "alice"));
+
+        assertThat(cache.encode("user", 1, () -> Map.of("name", "bob"))).isSameAs(v1);
+        assertThat(cache.encode("user", 2, () -> Map.of("name", "bob"))).hasToString("{\"name\":\"bob\"}");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void encode_evictsLeastRecentlyUsed() {
+        var alice = cache.encode("alice", 1, () -> "alice");
+        cache.encode("bob", 1, () -> "bob");
+
+        // touch alice, so bob is the least recently used
+        cache.encode("alice", 1, () -> "alice");
+        cache.encode("carol", 1, () -> "carol");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.encode("alice", 1, () -> "alice")).isSameAs(alice);
+        assertThat(cache.encode("bob", 1, () -> "bob")).isNotSameAs(alice);
+    }
+
+    @Test
+    void invalidate() {
+        var groups = List.of("a", "b");
+        var encoded = cache.encode(groups);
+        cache.encode("user", 1, () -> Map.of("name", "alice"));
+
+        cache.invalidate(groups);
+        cache.invalidate("user");
+
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.encode(groups)).isNotSameAs(encoded);
+    }
+}
@@ -0,0 +1,14 @@
+package decisions
+
+allow = true {
+    input.user == "alice"
+}
+
+# mallory matches two complete definitions with different values, which fails the evaluation
+allow = true {
+    input.user == "mallory"
+}
+
+allow = false {
+    input.user == "mallory"
+}
@@ -0,0 +1,5 @@
+package system
+
+main {
+    input.user == "alice"
+}